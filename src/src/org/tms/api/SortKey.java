@@ -0,0 +1,145 @@
+package org.tms.api;
+
+/**
+ * Specifies one criterion used to sort the {@link Row}s or {@link Column}s of a {@link Table};
+ * see {@link Table#sort(ElementType, SortKey...)}. A sort key is either a {@link TableProperty} or
+ * user-defined property of the rows or columns being sorted, or a {@link TableRowColumnElement}
+ * whose cell values are compared. Keys sort in ascending order, with {@code null} values last,
+ * unless {@link #descending()} or {@link #nullsFirst()} is specified.
+ * <p>
+ * Numeric values are compared by value, regardless of their type. Other values of the same
+ * {@link Comparable} class are compared using their natural ordering, and all remaining values
+ * are compared using their string representations.
+ * <p>
+ * {@code SortKey}s are immutable.
+ * <p>
+ * @since {@value org.tms.api.utils.ApiVersion#INITIAL_VERSION_STR}
+ * @version {@value org.tms.api.utils.ApiVersion#CURRENT_VERSION_STR}
+ */
+public final class SortKey
+{
+    /**
+     * Returns an ascending sort key on the specified {@link TableProperty}, such as {@link TableProperty#Label}
+     * @param tp the table property
+     * @return the sort key
+     * @throws NullPointerException if {@code tp} is null
+     */
+    public static SortKey by(TableProperty tp)
+    {
+        if (tp == null)
+            throw new NullPointerException("TableProperty");
+
+        return new SortKey(tp, null, null, false, false);
+    }
+
+    /**
+     * Returns an ascending sort key on the specified user-defined property
+     * @param property the property name
+     * @return the sort key
+     * @throws NullPointerException if {@code property} is null
+     */
+    public static SortKey by(String property)
+    {
+        if (property == null)
+            throw new NullPointerException("Property");
+
+        return new SortKey(null, property.trim(), null, false, false);
+    }
+
+    /**
+     * Returns an ascending sort key on the cell values in the specified {@link Row} or {@link Column}
+     * @param slice the row or column
+     * @return the sort key
+     * @throws NullPointerException if {@code slice} is null
+     */
+    public static SortKey by(TableRowColumnElement slice)
+    {
+        if (slice == null)
+            throw new NullPointerException("TableRowColumnElement");
+
+        return new SortKey(null, null, slice, false, false);
+    }
+
+    private final TableProperty m_tp;
+    private final String m_property;
+    private final TableRowColumnElement m_slice;
+    private final boolean m_descending;
+    private final boolean m_nullsFirst;
+
+    private SortKey(TableProperty tp, String property, TableRowColumnElement slice, boolean descending, boolean nullsFirst)
+    {
+        m_tp = tp;
+        m_property = property;
+        m_slice = slice;
+        m_descending = descending;
+        m_nullsFirst = nullsFirst;
+    }
+
+    public TableProperty getTableProperty()
+    {
+        return m_tp;
+    }
+
+    public String getProperty()
+    {
+        return m_property;
+    }
+
+    public TableRowColumnElement getSlice()
+    {
+        return m_slice;
+    }
+
+    public boolean isDescending()
+    {
+        return m_descending;
+    }
+
+    public boolean isNullsFirst()
+    {
+        return m_nullsFirst;
+    }
+
+    /**
+     * Returns a copy of this key that sorts in ascending order
+     * @return the ascending sort key
+     */
+    public SortKey ascending()
+    {
+        return new SortKey(m_tp, m_property, m_slice, false, m_nullsFirst);
+    }
+
+    /**
+     * Returns a copy of this key that sorts in descending order; the placement of {@code null} values is unchanged
+     * @return the descending sort key
+     */
+    public SortKey descending()
+    {
+        return new SortKey(m_tp, m_property, m_slice, true, m_nullsFirst);
+    }
+
+    /**
+     * Returns a copy of this key that places {@code null} values before all others
+     * @return the sort key
+     */
+    public SortKey nullsFirst()
+    {
+        return new SortKey(m_tp, m_property, m_slice, m_descending, true);
+    }
+
+    /**
+     * Returns a copy of this key that places {@code null} values after all others
+     * @return the sort key
+     */
+    public SortKey nullsLast()
+    {
+        return new SortKey(m_tp, m_property, m_slice, m_descending, false);
+    }
+
+    @Override
+    public String toString()
+    {
+        Object key = m_tp != null ? m_tp : (m_property != null ? m_property : m_slice);
+        return String.format("%s %s nulls %s", key, m_descending ? "desc" : "asc", m_nullsFirst ? "first" : "last");
+    }
+}
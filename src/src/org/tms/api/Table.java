@@ -147,6 +147,30 @@ public interface Table extends TableElement, InitializableTableProperties
      */
     public List<Row> getRows();
     
+    /**
+     * Returns the {@link Row}s of this {@link Table} whose cells in {@link Column} {@code col} equal {@code value}, in row order.
+     * If cell values are indexed (see {@link #isCellValuesIndexed()}), the rows are found without scanning the column.
+     * @param col the column to query
+     * @param value the value to match, using {@code equals}
+     * @return the matching rows, or an empty list if there are none
+     * @throws org.tms.api.exceptions.InvalidException if {@code col} or {@code value} is {@code null}
+     * @throws org.tms.api.exceptions.DeletedElementException if this table has been deleted
+     */
+    public List<Row> getRows(Column col, Object value);
+    
+    /**
+     * Returns the {@link Row}s of this {@link Table} whose cells in {@link Column} {@code col} lie between {@code fromValue} 
+     * and {@code toValue}, inclusive, in row order. Numbers are compared by value, regardless of type; other values must 
+     * be {@link Comparable} and of the same class as the bounds. Either bound may be {@code null}, but not both.
+     * @param col the column to query
+     * @param fromValue the lower bound, or {@code null}
+     * @param toValue the upper bound, or {@code null}
+     * @return the matching rows, or an empty list if there are none
+     * @throws org.tms.api.exceptions.InvalidException if {@code col} or both bounds are {@code null}, or if a bound is not {@code Comparable}
+     * @throws org.tms.api.exceptions.DeletedElementException if this table has been deleted
+     */
+    public List<Row> getRows(Column col, Object fromValue, Object toValue);
+    
     /**
      * Returns an {@link Iterable} to an {@link java.util.Collections#unmodifiableList} of {@link Row}s of this {@link Table}. 
      * @return an {@link Iterable} to an {@code unmodifiableList} of the table rows
@@ -311,6 +335,20 @@ public interface Table extends TableElement, InitializableTableProperties
      */
     public Cell getCell(Access mode, Object... mda);
     
+    /**
+     * Returns all of the {@link Table} {@link Cell}s matching the given {@link Access} {@code mode} and its associated parameters {@code mda},
+     * ordered by column, then by row. Supported modes are {@link Access#ByUUID}, {@link Access#ByLabel}, {@link Access#ByDescription},
+     * {@link Access#ByTag}, and {@link Access#ByProperty}. If the table's cell properties are indexed 
+     * (see {@link #isCellPropertiesIndexed()}), matching cells are found without scanning the table.
+     * @param mode the {@code Access} mode to use to specify the table cells
+     * @param mda the associated {@code Access} parameters appropriate to the specified {@code mode}
+     * @return the matching cells, or an empty list if there are none
+     * @throws org.tms.api.exceptions.InvalidAccessException if {@code mode} is not appropriate for table cell retrieval
+     * @throws org.tms.api.exceptions.InvalidException if the associated parameters specified in {@code mda} are not valid or are not specified
+     * @throws org.tms.api.exceptions.DeletedElementException if this table has been deleted
+     */
+    public List<Cell> getCells(Access mode, Object... mda);
+    
     /**
      * Returns the value in the {@link Table} {@link Cell} at the intersection of {@link Row} {@code row} and {@link Column} {@code col} 
      * and sets this
@@ -346,6 +384,60 @@ public interface Table extends TableElement, InitializableTableProperties
      */
     public boolean setCellValue(Row row, Column col, Object newValue);
     
+    /**
+     * Appends a {@link Row} to the end of this {@link Table} for each element of {@code rowValues}, and sets the cells of 
+     * each new row to the values in the corresponding element, starting with the first {@link Column}. Columns are added, as needed. 
+     * <p>The table is locked once for the entire operation, affected derivations are recalculated once, after all values are set, and
+     * a single {@link org.tms.api.events.TableElementEventType#OnNewValue OnNewValue} event is fired on the table, rather than one per cell.
+     * @param rowValues the values of each new row
+     * @return the new {@code Row}s
+     * @throws org.tms.api.exceptions.DeletedElementException if this table has been deleted
+     */
+    public List<Row> addRows(Object [][] rowValues);
+    
+    /**
+     * Appends {@link Row}s to the end of this {@link Table}, and sets the cells of each {@link Column} in {@code cols} to the values in the 
+     * corresponding element of {@code colValues}, such that {@code colValues[j][i]} is assigned to column {@code cols[j]} of the i<sup>th</sup> 
+     * new row. One row is appended for each value in the longest element of {@code colValues}.
+     * <p>The table is locked once for the entire operation, affected derivations are recalculated once, after all values are set, and
+     * a single {@link org.tms.api.events.TableElementEventType#OnNewValue OnNewValue} event is fired on the table, rather than one per cell.
+     * @param cols the table columns to set
+     * @param colValues the values of each column, in row order
+     * @return the new {@code Row}s
+     * @throws org.tms.api.exceptions.DeletedElementException if this table or any of the specified columns has been deleted
+     * @throws org.tms.api.exceptions.InvalidParentException if any of the specified columns are not a part of this table
+     */
+    public List<Row> addRows(Column [] cols, Object []... colValues);
+    
+    /**
+     * Sets the values of the rectangular block of {@link Cell}s whose upper-left cell is at the intersection of {@link Row} {@code firstRow} and 
+     * {@link Column} {@code firstCol}, such that {@code values[i][j]} is assigned to the cell i rows below and j columns to the right of it. 
+     * Rows and columns are added to the table, as needed. Derived cells, and cells in derived rows and columns, are not modified.
+     * <p>The table is locked once for the entire operation, affected derivations are recalculated once, after all values are set, and
+     * a single {@link org.tms.api.events.TableElementEventType#OnNewValue OnNewValue} event is fired on the table, rather than one per cell.
+     * @param firstRow the table row containing the upper-left cell of the block
+     * @param firstCol the table column containing the upper-left cell of the block
+     * @param values the block values, in row order
+     * @return {@code true} if any cell value was changed
+     * @throws org.tms.api.exceptions.DeletedElementException if this table or the specified row or column has been deleted
+     * @throws org.tms.api.exceptions.InvalidParentException if the specified row or column are not a part of this table
+     */
+    public boolean setCellValues(Row firstRow, Column firstCol, Object [][] values);
+    
+    /**
+     * Replaces the values of the {@link Cell}s in {@link Column} {@code col} with {@code values}, such that {@code values[i]} is assigned 
+     * to the cell in row {@code i + 1}. Rows are added to the table, as needed; cells in rows beyond the last value are set to {@code null}.
+     * Derived cells, and cells in derived rows, are not modified.
+     * <p>The table is locked once for the entire operation, affected derivations are recalculated once, after all values are set, and
+     * a single {@link org.tms.api.events.TableElementEventType#OnNewValue OnNewValue} event is fired on the table, rather than one per cell.
+     * @param col the table column to set
+     * @param values the column values, in row order
+     * @return {@code true} if any cell value was changed
+     * @throws org.tms.api.exceptions.DeletedElementException if this table or the specified column has been deleted
+     * @throws org.tms.api.exceptions.InvalidParentException if the specified column is not a part of this table
+     */
+    public boolean setColumnValues(Column col, Object... values);
+    
     /**
      * Saves this {@link Table}'s current {@link Row} and current {@link Column} to a {@code stack} where they can be recalled 
      * and reapplied, as required.
@@ -376,6 +468,22 @@ public interface Table extends TableElement, InitializableTableProperties
      */
     public void sort(ElementType et, TableProperty tp, TableRowColumnElement... others);
     
+    /**
+     * Sorts the {@link Row}s or {@link Column}s of this {@link Table} on the specified {@link SortKey}s, in order of precedence.
+     * Each key may be ascending or descending, and may place {@code null} values first or last. The sort is stable,
+     * so elements with equal keys retain their relative order. Key values are extracted before sorting begins,
+     * and large tables are sorted in parallel.
+     * @param et the {@link ElementType} to sort in this table ({@code Row} or {@code Column})
+     * @param keys the sort criteria; keys that specify a {@link TableRowColumnElement} must specify a {@code Column} when sorting
+     * rows, and a {@code Row} when sorting columns
+     * @throws IllegalArgumentException if {@code et} is {@code null} or if no {@code keys} are specified
+     * @throws NullPointerException if an element in {@code keys} is null
+     * @throws org.tms.api.exceptions.InvalidParentException if a key's {@code Row} or {@code Column} isn't associated with this {@link Table}
+     * @throws org.tms.api.exceptions.InvalidException if {@code et} is not {@link ElementType#Row} or {@code ElementType#Column}
+     * @throws org.tms.api.exceptions.DeletedElementException if this table has been deleted
+     */
+    public void sort(ElementType et, SortKey... keys);
+    
     /**
      * Deletes the table elements in this {@link Table} specified in {@code elements}. Deleted elements are removed
      * from any containing {@link Subset}s, and any {@link org.tms.api.derivables.Derivation}s that reference a deleted element are also removed.
@@ -472,6 +580,81 @@ public interface Table extends TableElement, InitializableTableProperties
      */
     void setPersistant(boolean persistent);
     
+    /**
+     * Returns {@code true} if numeric {@link Column}s in this table keep their values in packed, primitive arrays,
+     * creating {@link Cell}s only when a cell handle is requested. Columnar storage applies to columns whose data
+     * type is {@code Double}, {@code Float}, {@code Long}, {@code Integer}, {@code Short}, or {@code Byte}.
+     * @return true if columnar storage is enabled
+     */
+    boolean isColumnarStorage();
+    
+    /**
+     * Enables or disables columnar storage for the numeric {@link Column}s in this table. When disabled, 
+     * any values held in columnar storage are converted to {@link Cell}s.
+     * @param columnar set to true to enable columnar storage
+     */
+    void setColumnarStorage(boolean columnar);
+    
+    /**
+     * Returns {@code true} if cell values can be read without blocking on writers. When enabled, 
+     * {@link #getCellValue(Row, Column)}, {@link #isCellDefined(Row, Column)}, {@link #getRow(int)}, and 
+     * {@link #getColumn(int)} read existing table elements without acquiring the table lock, falling back 
+     * to a locked read only when a concurrent structural change (adding, deleting, or sorting 
+     * rows and columns) interferes. Reads performed this way do not change the current row or column.
+     * @return true if concurrent reads are enabled
+     */
+    boolean isConcurrentReads();
+    
+    /**
+     * Enables or disables lock-free reads of cell values; see {@link #isConcurrentReads()}.
+     * @param concurrentReads set to true to enable concurrent reads
+     */
+    void setConcurrentReads(boolean concurrentReads);
+    
+    /**
+     * Returns {@code true} if independent derivations are recalculated in parallel. When enabled,
+     * derived columns that don't depend on one another are recalculated concurrently, as are 
+     * the rows of large derived columns. Recalculations initiated while the calling thread holds 
+     * the table's lock, such as those triggered by setting a cell value, run sequentially.
+     * @return true if parallel recalculation is enabled
+     */
+    boolean isParallelRecalculation();
+    
+    /**
+     * Enables or disables parallel recalculation; see {@link #isParallelRecalculation()}.
+     * @param parallel set to true to enable parallel recalculation
+     */
+    void setParallelRecalculation(boolean parallel);
+    
+    /**
+     * Returns {@code true} if the properties and tags of this table's cells are indexed. When enabled, 
+     * cells can be retrieved by UUID, label, description, units, display format, user-defined property, 
+     * or tags (see {@link #getCell(Access, Object...)} and {@link #getCells(Access, Object...)})
+     * without scanning the table.
+     * @return true if cell properties are indexed
+     */
+    boolean isCellPropertiesIndexed();
+    
+    /**
+     * Enables or disables the cell property index; see {@link #isCellPropertiesIndexed()}.
+     * @param cellPropertiesIndexed set to true to index cell properties
+     */
+    void setCellPropertiesIndexed(boolean cellPropertiesIndexed);
+    
+    /**
+     * Returns {@code true} if cell values are indexed. When enabled, each column's values are indexed 
+     * when the column is first queried with {@link #getRows(Column, Object)} or {@link #getRows(Column, Object, Object)}, 
+     * and the index is maintained as cell values change. Columns backed by external data sources are always scanned.
+     * @return true if cell values are indexed
+     */
+    boolean isCellValuesIndexed();
+    
+    /**
+     * Enables or disables cell value indexes; see {@link #isCellValuesIndexed()}.
+     * @param cellValuesIndexed set to true to index cell values
+     */
+    void setCellValuesIndexed(boolean cellValuesIndexed);
+    
     /**
      * Returns the unique UUID assigned to this {@link Table}.
      * @return the unique UUID assigned to this {@code Table}
@@ -493,6 +676,18 @@ public interface Table extends TableElement, InitializableTableProperties
 	public void suspendTimeSeriesedRows();
 	public void resumeTimeSeriesedRows();
 	public void resumeTimeSeriesedRows(long frequency);
+	
+	/**
+	 * Limit the rows retained by a time-seriesed table. When either limit is reached, the oldest
+	 * rows are recycled, in ring-buffer fashion, to hold the next time series values, rather than
+	 * new rows being added. Age is determined from the time stamp column, if one is defined.
+	 * @param maxSlices the maximum number of rows to retain, or 0 for no limit
+	 * @param maxAge the maximum age of rows to retain, or 0 for no limit
+	 * @param unit the {@link TimeUnit} of {@code maxAge}
+	 */
+	public void setTimeSeriesedRowsRetention(int maxSlices, long maxAge, TimeUnit unit);
+	public int getTimeSeriesedRowsMaxSlices();
+	public long getTimeSeriesedRowsMaxAgeInMilliSeconds();
 
     public boolean isTimeSeriesedColumns();
 	public boolean isTimeSeriesedColumnsActive();
@@ -504,4 +699,16 @@ public interface Table extends TableElement, InitializableTableProperties
 	public void suspendTimeSeriesedColumns();
 	public void resumeTimeSeriesedColumns();
 	public void resumeTimeSeriesedColumns(long frequency);
+	
+	/**
+	 * Limit the columns retained by a time-seriesed table. When either limit is reached, the oldest
+	 * columns are recycled, in ring-buffer fashion, to hold the next time series values, rather than
+	 * new columns being added. Age is determined from the time stamp row, if one is defined.
+	 * @param maxSlices the maximum number of columns to retain, or 0 for no limit
+	 * @param maxAge the maximum age of columns to retain, or 0 for no limit
+	 * @param unit the {@link TimeUnit} of {@code maxAge}
+	 */
+	public void setTimeSeriesedColumnsRetention(int maxSlices, long maxAge, TimeUnit unit);
+	public int getTimeSeriesedColumnsMaxSlices();
+	public long getTimeSeriesedColumnsMaxAgeInMilliSeconds();
 }
@@ -39,6 +39,9 @@ public enum TableProperty implements Comparable<TableProperty>
     isCellLabelsIndexed("isClLbX", false, true, ElementType.TableContext, ElementType.Table),
     isSubsetLabelsIndexed("isSLbX", false, true, ElementType.TableContext, ElementType.Table),
     isPersistant("isP", false, true, ElementType.TableContext, ElementType.Table),
+    isColumnarStorage("isCS", false, true, ElementType.TableContext, ElementType.Table),
+    isConcurrentReads("isCR", false, true, ElementType.TableContext, ElementType.Table),
+    isParallelRecalculation("isPR", false, true, ElementType.TableContext, ElementType.Table),
     
     // PendingDerivationThreadPool Properties
     isPendingAllowCoreThreadTimeout(null, true, false, true, ElementType.TableContext, ElementType.Table),
@@ -47,6 +50,7 @@ public enum TableProperty implements Comparable<TableProperty>
     PendingThreadKeepAliveTimeout(null, true, false, true, ElementType.TableContext, ElementType.Table),    
     PendingThreadKeepAliveTimeoutUnit(null, true, false, true, ElementType.TableContext, ElementType.Table),    
     isPendingThreadPoolEnabled(null, true, false, true, ElementType.TableContext, ElementType.Table),
+    PendingThreadPoolStrategy(null, true, false, true, ElementType.TableContext, ElementType.Table),
 
     // EventProcessorThreadPool Properties
     isEventsNotifyInSameThread(null, true, false, true, ElementType.TableContext, ElementType.Table),
@@ -54,6 +58,7 @@ public enum TableProperty implements Comparable<TableProperty>
     numEventsCorePoolThreads(null, true, false, true, ElementType.TableContext, ElementType.Table),
     numEventsMaxPoolThreads(null, true, false, true, ElementType.TableContext, ElementType.Table),
     EventsThreadKeepAliveTimeout(null, true, false, true, ElementType.TableContext, ElementType.Table),    
+    EventsThreadPoolStrategy(null, true, false, true, ElementType.TableContext, ElementType.Table),
 
     // Table Element Properties 
     numSubsets("nSets", true, false, ElementType.Table, ElementType.Row, ElementType.Column, ElementType.Subset),
@@ -81,11 +86,15 @@ public enum TableProperty implements Comparable<TableProperty>
     isTimeSeriesedRowsActive(null, true, false, ElementType.Table),
     TimeSeriesedRowsPeriod(null, true, false, ElementType.Table),
     TimeSeriesedRowsTimeStampColumn(null, true, false, ElementType.Table),
+    TimeSeriesedRowsMaxSlices(null, true, false, ElementType.Table),
+    TimeSeriesedRowsMaxAge(null, true, false, ElementType.Table),
     
     isTimeSeriesedColumns(null, true, false, ElementType.Table),
     isTimeSeriesedColumnsActive(null, true, false, ElementType.Table),
     TimeSeriesedColumnsPeriod(null, true, false, ElementType.Table),
     TimeSeriesedColumnsTimeStampRow(null, true, false, ElementType.Table),
+    TimeSeriesedColumnsMaxSlices(null, true, false, ElementType.Table),
+    TimeSeriesedColumnsMaxAge(null, true, false, ElementType.Table),
     
     // CellImpl properties
     Row(null, true, false, ElementType.Cell),
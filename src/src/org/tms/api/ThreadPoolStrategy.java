@@ -0,0 +1,23 @@
+package org.tms.api;
+
+/**
+ * This enum defines how the thread pools that run pending derivations, fetch remote values, and deliver
+ * table element events execute their tasks. The strategy is configured on a {@link TableContext},
+ * and may be overridden on individual {@link Table}s.
+ * <p>
+ * {@code Pooled} runs tasks on a bounded pool of reusable platform threads, sized by the core and maximum pool
+ * size properties. It suits CPU-bound work. {@code ThreadPerTask} starts a new thread for each task, using virtual
+ * threads when the Java runtime supports them, and daemon platform threads otherwise; the maximum pool size
+ * limits the number of tasks that run concurrently, and additional tasks wait in first-in, first-out order.
+ * It suits the large numbers of I/O-bound calls made by operators that call web services.
+ * <p>
+ * @since {@value org.tms.api.utils.ApiVersion#INITIAL_VERSION_STR}
+ * @version {@value org.tms.api.utils.ApiVersion#CURRENT_VERSION_STR}
+ */
+public enum ThreadPoolStrategy
+{
+    /** A bounded pool of reusable platform threads */
+    Pooled,
+    /** A new thread, virtual if supported, for each task, with limited concurrency */
+    ThreadPerTask;
+}
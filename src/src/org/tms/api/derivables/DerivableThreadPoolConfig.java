@@ -2,6 +2,8 @@ package org.tms.api.derivables;
 
 import java.util.concurrent.TimeUnit;
 
+import org.tms.api.ThreadPoolStrategy;
+
 public interface DerivableThreadPoolConfig
 {	
 	public boolean isPendingThreadPoolEnabled();
@@ -19,4 +21,7 @@ public interface DerivableThreadPoolConfig
 
 	public int getPendingMaximumPoolSize();
 	public void setPendingMaximumPoolSize(int maxPoolSize);
+
+	public ThreadPoolStrategy getPendingThreadPoolStrategy();
+	public void setPendingThreadPoolStrategy(ThreadPoolStrategy strategy);
 }
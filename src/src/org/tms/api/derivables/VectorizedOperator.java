@@ -0,0 +1,32 @@
+package org.tms.api.derivables;
+
+/**
+ * An {@link Operator} that can be evaluated for a batch of argument lists in a single call. When a column
+ * derivation consists of a single call to a {@code VectorizedOperator}, with column references and constants
+ * as its arguments, the rows of the column are evaluated in batches, rather than one cell at a time.
+ * <p>
+ * Rows whose arguments are null, pending, errors, or not of the operator's argument types are not included in
+ * a batch; they are evaluated individually, as they would be otherwise. Vectorized operators must be
+ * synchronous; they cannot return pending results.
+ * <p>
+ * @since {@value org.tms.api.utils.ApiVersion#INITIAL_VERSION_STR}
+ * @version {@value org.tms.api.utils.ApiVersion#CURRENT_VERSION_STR}
+ */
+public interface VectorizedOperator extends Operator
+{
+    /**
+     * Compute the operator return values for a batch of argument lists. The default implementation
+     * evaluates each argument list in turn; override it to process the whole batch at once.
+     *
+     * @param args the argument lists, as Tokens; {@code args[i]} holds the arguments of the {@code i}th evaluation
+     * @return Tokens containing the computed values, one per argument list, in the same order
+     */
+    default public Token [] evaluateBatch(Token [][] args)
+    {
+        Token [] results = new Token [args.length];
+        for (int i = 0; i < args.length; i++)
+            results[i] = evaluate(args[i]);
+
+        return results;
+    }
+}
@@ -0,0 +1,24 @@
+package org.tms.api.events;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A {@link TableElementListener} that receives the events delivered by the event processor thread pool
+ * in batches, rather than one at a time. Each batch contains the events for a single table, in the order
+ * they occurred. Events delivered in the calling thread are passed as a batch of one.
+ * <p>
+ * @since {@value org.tms.api.utils.ApiVersion#INITIAL_VERSION_STR}
+ * @version {@value org.tms.api.utils.ApiVersion#CURRENT_VERSION_STR}
+ */
+@FunctionalInterface
+public interface BatchTableElementListener extends TableElementListener
+{
+    public void eventsOccured(List<TableElementEvent> events);
+
+    @Override
+    default public void eventOccured(TableElementEvent e)
+    {
+        eventsOccured(Collections.singletonList(e));
+    }
+}
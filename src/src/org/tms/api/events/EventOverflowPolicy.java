@@ -0,0 +1,24 @@
+package org.tms.api.events;
+
+/**
+ * This enum defines what the event processor thread pool does with new events when its limit on
+ * undelivered events is reached.
+ * <p>
+ * {@code Block} makes the thread that fired the events wait until enough queued events have been
+ * delivered; this slows down the table operations producing the events, so that listeners can keep up.
+ * Listeners must not wait on the threads that fire events when this policy is used. Events fired while
+ * holding the lock of their table, or of the element that fired them, are queued beyond the limit
+ * rather than waiting.
+ * <p>
+ * {@code Drop} discards the new events, and counts them.
+ * <p>
+ * @since {@value org.tms.api.utils.ApiVersion#INITIAL_VERSION_STR}
+ * @version {@value org.tms.api.utils.ApiVersion#CURRENT_VERSION_STR}
+ */
+public enum EventOverflowPolicy
+{
+    /** Wait for queued events to be delivered */
+    Block,
+    /** Discard the new events */
+    Drop;
+}
@@ -17,11 +17,13 @@ import org.tms.api.exceptions.TableIOException;
 import org.tms.api.exceptions.UnimplementedException;
 import org.tms.api.io.CSVOptions;
 import org.tms.api.io.IOOption;
+import org.tms.api.io.TMSBOptions;
 import org.tms.api.io.TMSOptions;
 import org.tms.api.io.XLSOptions;
 import org.tms.api.io.XMLOptions;
 import org.tms.api.io.logs.LogFileFormat;
 import org.tms.io.CSVReader;
+import org.tms.io.TMSBReader;
 import org.tms.io.TMSReader;
 import org.tms.io.TableExportAdapter;
 import org.tms.io.XMLReader;
@@ -307,6 +309,20 @@ public final class TableFactory
         return t;
     }
 
+    /**
+     * Create a table populated from a database query whose results are streamed a page at a time,
+     * retaining at most {@code maxCachedPages} pages of rows in memory
+     */
+    static public Table createDbmsTable(String connectionUrl, String query, String driverClassName, TableContext tc,
+                                        int pageSize, int maxCachedPages) 
+    throws SQLException, ClassNotFoundException
+    {
+    	Table t = null;
+        if (tc instanceof ContextImpl)
+        	t = DbmsTableImpl.createTable(connectionUrl, query, driverClassName, (ContextImpl)tc, pageSize, maxCachedPages);       
+        return t;
+    }
+
     static public Table createLogsTable(File logFile, LogFileFormat format) 
     throws IOException 
     {
@@ -431,6 +447,12 @@ public final class TableFactory
                     return r.parse();
                 }
                     
+                case TMSB:
+                {
+                    TMSBReader r = new TMSBReader(fileName, tc, (TMSBOptions)format);
+                    return r.parse();
+                }
+                    
                 case JSON:
                 {
                     return null;
@@ -484,6 +506,12 @@ public final class TableFactory
                     return r.parse();
                 }
                     
+                case TMSB:
+                {
+                    TMSBReader r = new TMSBReader(in, tc, (TMSBOptions)format);
+                    return r.parse();
+                }
+                    
                 case JSON:
                 {
                     return null;
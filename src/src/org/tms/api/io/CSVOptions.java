@@ -45,7 +45,8 @@ public class CSVOptions extends LabeledIOOptions<CSVOptions> implements LabeledI
         DelimiterChar,
         QuoteChar,
         IgnoreSurrountingSpaces, 
-    	IgnoreLeadingZeros
+    	IgnoreLeadingZeros,
+    	ParallelImportThreads
     }
     
     private CSVOptions(final boolean rowNames, 
@@ -61,6 +62,7 @@ public class CSVOptions extends LabeledIOOptions<CSVOptions> implements LabeledI
         set(Options.QuoteChar, quoteCharacter);
         set(Options.IgnoreSurrountingSpaces, ignoreSurroundingSpaces);
         set(Options.IgnoreLeadingZeros, false);
+        set(Options.ParallelImportThreads, 1);
     }
     
     private CSVOptions (final CSVOptions format)
@@ -121,6 +123,57 @@ public class CSVOptions extends LabeledIOOptions<CSVOptions> implements LabeledI
         return newOptions;
     } 
     
+    /**
+     * Returns {@code true} if CSV files are imported by more than one thread.
+     * @return {@code true} if CSV files are imported by more than one thread
+     */
+    public boolean isParallelImport()
+    {
+        return getParallelImportThreads() > 1;
+    }
+    
+    /**
+     * Returns the number of threads that parse imported CSV files; the default is 1.
+     * @return the number of threads that parse imported CSV files
+     */
+    public int getParallelImportThreads()
+    {
+        final Object n = get(Options.ParallelImportThreads);
+        return n != null ? (int)n : 1;
+    }
+    
+    /**
+     * Import CSV files using one thread per available processor.
+     * @return a new {@link CSVOptions} that is equal to this with parallel import enabled
+     * @see CSVOptions#withParallelImport(int) withParallelImport(int)
+     */
+    public CSVOptions withParallelImport()
+    {
+        return withParallelImport(Runtime.getRuntime().availableProcessors());
+    }
+    
+    /**
+     * Sets the number of threads used to import CSV files. When more than one thread is specified, 
+     * the file is divided into ranges of records, which are parsed concurrently, and the parsed
+     * records are then added to the {@link org.tms.api.Table Table} in file order.
+     * <p>
+     * Parallel import is only used for files, rather than input streams, and requires that
+     * any quote characters within the data appear only at the start and end of quoted values, 
+     * or are escaped by doubling them, as in RFC 4180.
+     * @param numThreads the number of threads; {@code 1} imports the file on the calling thread
+     * @return a new {@link CSVOptions} that is equal to this with the specified number of import threads
+     * @throws IllegalArgumentException if {@code numThreads} is less than 1
+     */
+    public CSVOptions withParallelImport(final int numThreads)
+    {
+        if (numThreads < 1)
+            throw new IllegalArgumentException("At least one import thread required");
+        
+        CSVOptions newOptions = new CSVOptions(this);
+        newOptions.set(Options.ParallelImportThreads, numThreads);
+        return newOptions;
+    }
+    
    /**
      * Returns the delimiter character that separates data values in the imported or exported CSV file.
      * The default delimiter character is a comma ('<b>,</b>')
@@ -34,7 +34,9 @@ public enum IOFileFormat
     /** XML file format , import and export*/
     XML(true, "xml"),
     /** Native TMS file format, import and export */
-    TMS(true, "tms");
+    TMS(true, "tms"),
+    /** Native TMS binary columnar file format, import and export */
+    TMSB(true, "tmsb");
     
     private boolean m_supportsImport;
     private Set<String> m_fileExtensions;
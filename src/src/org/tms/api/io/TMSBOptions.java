@@ -0,0 +1,83 @@
+package org.tms.api.io;
+
+import org.tms.io.options.ArchivalIOOptions;
+import org.tms.io.options.OptionEnum;
+
+/**
+ * {@code TMSBOptions} is a concrete class for representing configuration options to import and export
+ * {@link org.tms.api.Table Table}s from/to the native TMS binary file format.
+ * <p>
+ * The binary format persists the same state as the {@link IOFileFormat#TMS TMS} format, but stores cell
+ * values by column, in chunks of consecutive rows, using primitive encodings where all of the values in a chunk
+ * share a type, and a dictionary for strings. Files in this format are read through memory mappings. Importing a
+ * table decodes every column chunk; the chunks of a single column can be decoded on their own, without
+ * building a table, with {@link org.tms.io.TMSBReader#parseColumnValues(int)}.
+ * <p>
+ * @since {@value org.tms.api.utils.ApiVersion#IO_ENHANCEMENTS_STR}
+ * @version {@value org.tms.api.utils.ApiVersion#CURRENT_VERSION_STR}
+ */
+public class TMSBOptions extends ArchivalIOOptions<TMSBOptions> implements ArchivalIOOption<TMSBOptions>
+{
+    static final int DefaultChunkSize = 8192;
+
+    /**
+     * Constant with the default native TMS binary import and export configuration options already set.
+     */
+    public static final TMSBOptions Default = new TMSBOptions(true, true, false, false, true, true, true);
+
+    private enum Options implements OptionEnum
+    {
+        ChunkSize
+    }
+
+    protected TMSBOptions(final boolean rowNames,
+                          final boolean colNames,
+                          final boolean ignoreEmptyRows,
+                          final boolean ignoreEmptyCols,
+                          final boolean withDerivations,
+                          final boolean withValidators,
+                          final boolean withState)
+    {
+        super(IOFileFormat.TMSB, rowNames, colNames, ignoreEmptyRows, ignoreEmptyCols,
+                withDerivations, withDerivations, withValidators, withState);
+
+        set(Options.ChunkSize, DefaultChunkSize);
+    }
+
+    protected TMSBOptions (final TMSBOptions format)
+    {
+        super(format);
+    }
+
+    @Override
+    protected TMSBOptions clone(final ArchivalIOOptions<TMSBOptions> model)
+    {
+        return new TMSBOptions((TMSBOptions)model);
+    }
+
+    /**
+     * Returns the maximum number of rows in each column chunk. Only affects export operations.
+     * @return the maximum number of rows in each column chunk
+     */
+    public int getChunkSize()
+    {
+        final Object d = get(Options.ChunkSize);
+        return d != null ? (int)d : DefaultChunkSize;
+    }
+
+    /**
+     * Sets the maximum number of rows in each column chunk. Only affects export operations.
+     * @param numRows the maximum number of rows in each column chunk, which must be positive
+     * @return a new {@link TMSBOptions} that is equal to this with the specified column chunk size
+     * @throws IllegalArgumentException if {@code numRows} is not positive
+     */
+    public TMSBOptions withChunkSize(int numRows)
+    {
+        if (numRows <= 0)
+            throw new IllegalArgumentException("Chunk size must be positive");
+
+        final TMSBOptions newOptions = clone(this);
+        newOptions.set(Options.ChunkSize, numRows);
+        return newOptions;
+    }
+}
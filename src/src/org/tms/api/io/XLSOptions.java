@@ -14,6 +14,7 @@ public class XLSOptions extends StyledPageIOOptions<XLSOptions> implements Style
 {
     static final int DefaultColumnWidthPx = 65;
     static final int DefaultFontSizePx = 12;
+    static final int DefaultStreamingRowWindow = 1000;
     
     /**
      * Constant with the most common MS Excel import and export configuration options already set.
@@ -51,7 +52,9 @@ public class XLSOptions extends StyledPageIOOptions<XLSOptions> implements Style
         Derivations,
         Descriptions, 
         CommentAuthor,
-        ReadOnly
+        ReadOnly,
+        Streaming,
+        StreamingRowWindow
     }
 
     private enum ExcelFileFormat  
@@ -75,6 +78,8 @@ public class XLSOptions extends StyledPageIOOptions<XLSOptions> implements Style
         set(Options.Derivations, true);
         set(Options.Descriptions, true);
         set(Options.ReadOnly, true);
+        set(Options.Streaming, false);
+        set(Options.StreamingRowWindow, DefaultStreamingRowWindow);
     }
     
     private XLSOptions (final XLSOptions format)
@@ -277,4 +282,73 @@ public class XLSOptions extends StyledPageIOOptions<XLSOptions> implements Style
         newOptions.set(Options.CommentAuthor, author);
         return newOptions;
     }
+    
+    /**
+     * Returns {@code true} if MS Excel <b>xlsx</b> files are imported by streaming the sheet contents, rather than
+     * by first loading the entire workbook into memory, and exported by writing rows through a bounded 
+     * window of in-memory rows, rather than by building the entire workbook in memory.
+     * @return {@code true} if <b>xlsx</b> files are streamed on import and export
+     */
+    public boolean isStreaming()
+    {
+        return (Boolean)get(Options.Streaming);
+    }
+    
+    /**
+     * Enables the streamed import and export of MS Excel <b>xlsx</b> files. 
+     * @return a new {@link XLSOptions} that is equal to this with streamed import and export enabled
+     * @see XLSOptions#withStreaming(boolean) withStreaming(boolean)
+     */
+    public XLSOptions withStreaming()
+    {
+        return withStreaming(true);
+    }
+    
+    /**
+     * Enables or disables the streamed import and export of MS Excel <b>xlsx</b> files. When enabled, sheet rows are read
+     * and added to TMS {@link org.tms.api.Table Table}s one at a time, so that large workbooks can be imported 
+     * with a fraction of the memory otherwise required. Workbooks that define named ranges, or that contain 
+     * cell formulas when {@link org.tms.api.derivables.Derivation Derivation} import is enabled, are still
+     * loaded in their entirety, as formula translation requires the complete workbook.
+     * <p>
+     * On export, at most {@link XLSOptions#getStreamingRowWindow() getStreamingRowWindow()} rows are held in memory;
+     * earlier rows are flushed to temporary files, so that very large {@link org.tms.api.Table Table}s can be exported.
+     * Formulas, named cells and ranges, and comments are all still exported.
+     * @param enabled {@code true} to stream <b>xlsx</b> files, {@code false} to load or build them in their entirety
+     * @return a new {@link XLSOptions} that is equal to this with streamed import and export enabled or disabled
+     */
+    public XLSOptions withStreaming(boolean enabled)
+    {
+        final XLSOptions newOptions = clone(this);
+        newOptions.set(Options.Streaming, enabled);
+        return newOptions;
+    }
+    
+    /**
+     * Returns the number of rows held in memory when streaming an export to an MS Excel <b>xlsx</b> file.
+     * @return the number of rows held in memory during streamed export
+     */
+    public int getStreamingRowWindow()
+    {
+        final Object d = get(Options.StreamingRowWindow);
+        return d != null ? (int)d : DefaultStreamingRowWindow;
+    }
+    
+    /**
+     * Sets the number of rows held in memory when streaming an export to an MS Excel <b>xlsx</b> file, 
+     * and enables streaming.
+     * @param numRows the number of rows held in memory, which must be positive
+     * @return a new {@link XLSOptions} that is equal to this with streaming enabled and the specified row window
+     * @throws IllegalArgumentException if {@code numRows} is not positive
+     */
+    public XLSOptions withStreamingRowWindow(int numRows)
+    {
+        if (numRows <= 0)
+            throw new IllegalArgumentException("Row window must be positive");
+        
+        final XLSOptions newOptions = clone(this);
+        newOptions.set(Options.Streaming, true);
+        newOptions.set(Options.StreamingRowWindow, numRows);
+        return newOptions;
+    }
 }
@@ -1,5 +1,7 @@
 package org.tms.api.utils;
 
+import java.lang.reflect.Method;
+
 import org.tms.api.derivables.Operator;
 import org.tms.api.derivables.Token;
 import org.tms.api.derivables.TokenType;
@@ -7,11 +9,66 @@ import org.tms.teq.NullsNotAllowedException;
 
 abstract public class AbstractOperator implements Operator 
 {
+	/**
+	 * Converts an argument value to the type required by an operator
+	 */
+	@FunctionalInterface
+	public interface ArgConverter
+	{
+		public Object convert(Object value);
+	}
+	
+	private static final ArgConverter sf_IDENTITY_CONVERTER = v -> v;
+	
+	/*
+	 * Operators that override unpackArg or convertToPrimitive continue to have them called for each argument
+	 */
+	private static final ClassValue<Boolean> sf_CUSTOM_UNPACKING = new ClassValue<Boolean>() {
+		@Override
+		protected Boolean computeValue(Class<?> type) 
+		{
+			for (Class<?> c = type; c != null && c != AbstractOperator.class; c = c.getSuperclass()) {
+				for (Method m : c.getDeclaredMethods()) {
+					if ((m.getName().equals("unpackArg") || m.getName().equals("convertToPrimitive")) && 
+							m.getParameterCount() == 2)
+						return true;
+				}
+			}
+			
+			return false;
+		}
+	};
+	
+	/**
+	 * Returns a converter from an argument value to the specified type. Numbers are converted to 
+	 * the required primitive type; other values are passed unchanged.
+	 * @param requiredType the argument type
+	 * @return the converter
+	 */
+	public static ArgConverter converterFor(final Class<?> requiredType)
+	{
+		if (requiredType == int.class) 
+			return v -> v instanceof Number ? ((Number)v).intValue() : v;
+		else if (requiredType == long.class) 
+			return v -> v instanceof Number ? ((Number)v).longValue() : v;
+		else if (requiredType == double.class) 
+			return v -> v instanceof Number ? ((Number)v).doubleValue() : v;
+		else if (requiredType == float.class) 
+			return v -> v instanceof Number ? ((Number)v).floatValue() : v;
+		else if (requiredType == short.class) 
+			return v -> v instanceof Number ? ((Number)v).shortValue() : v;
+		else if (requiredType == byte.class) 
+			return v -> v instanceof Number ? ((Number)v).byteValue() : v;
+		
+		return sf_IDENTITY_CONVERTER;
+	}
+	
 	private String m_label;
 	private Class<?>[] m_argTypes;
 	private Class<?> m_resultType;
 	private String [] m_categories;
 	private TokenType m_tokenType;
+	private volatile ArgConverter [] m_argConverters;
 	
 	public AbstractOperator(String label, Class<?>[] argTypes, Class<?> resultType)
 	{
@@ -76,6 +133,30 @@ abstract public class AbstractOperator implements Operator
 	protected void setArgTypes(final Class<?>[] argTypes)
 	{
 		m_argTypes = argTypes;
+		m_argConverters = null;
+	}
+	
+	/**
+	 * Returns the converters for this operator's arguments, determined once from its argument types, 
+	 * or null if the operator overrides {@link #unpackArg}
+	 * @return the argument converters, or null
+	 */
+	protected ArgConverter [] getArgConverters()
+	{
+		if (sf_CUSTOM_UNPACKING.get(getClass()))
+			return null;
+		
+		ArgConverter [] converters = m_argConverters;
+		if (converters == null) {
+			Class<?> [] argTypes = getArgTypes();
+			converters = new ArgConverter [argTypes != null ? argTypes.length : 0];
+			for (int i = 0; i < converters.length; i++)
+				converters[i] = converterFor(argTypes[i]);
+			
+			m_argConverters = converters;
+		}
+		
+		return converters;
 	}
 	
 	@Override
@@ -127,9 +208,14 @@ abstract public class AbstractOperator implements Operator
 	
 	protected Object[] unpack(final Token[] tokens) throws NullsNotAllowedException
 	{
+		ArgConverter [] converters = getArgConverters();
         Object [] mArgs = new Object [numArgs()];
-        for (int i = 0; i < numArgs(); i++) {
-            mArgs[i] = unpackArg(tokens[i].getValue(), getArgTypes()[i]);
+        for (int i = 0; i < mArgs.length; i++) {
+        	Object value = tokens[i].getValue();
+        	if (converters == null)
+        		mArgs[i] = unpackArg(value, getArgTypes()[i]);
+        	else
+        		mArgs[i] = value != null ? converters[i].convert(value) : null;
             
             if (mArgs[i] == null && !isAllowNulls())
             	throw new NullsNotAllowedException();
@@ -149,22 +235,6 @@ abstract public class AbstractOperator implements Operator
 
 	protected Object convertToPrimitive(final Object value, final Class<?> requiredType) 
 	{
-		if (value instanceof Number) {
-			Number n = (Number)value;
-			if (requiredType == int.class) 
-				return n.intValue();
-			else if (requiredType == long.class) 
-				return n.longValue();
-			else if (requiredType == double.class) 
-				return n.doubleValue();
-			else if (requiredType == float.class) 
-				return n.floatValue();
-			else if (requiredType == short.class) 
-				return n.shortValue();
-			else if (requiredType == byte.class) 
-				return n.byteValue();
-		}
-		
-		return value;
+		return converterFor(requiredType).convert(value);
 	}
 }
@@ -12,5 +12,12 @@ public @interface RegisterOp
 	public String token() default "";
 	public boolean exclude() default false;
 	public boolean async() default false;
+	/**
+	 * Marks a static method that takes arrays of its arguments, one element per row, and returns an array
+	 * of results; it is registered as an operator taking the array component types, and called once
+	 * for each batch of rows in a column derivation
+	 * @return true if the method is vectorized
+	 */
+	public boolean vectorized() default false;
 	public String[] categories() default {};
 }
@@ -0,0 +1,308 @@
+package org.tms.api.utils;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The HTTP layer shared by all {@link RestConsumerOp}s. Requests are sent asynchronously over a single,
+ * connection-pooling {@link HttpClient}. Identical requests, those with the same method and URL, that are made
+ * while a request is in flight share its response, and successful responses are cached for the time to live
+ * specified by the requesting operator, so that rows that reference the same symbol or address
+ * fetch it once. Responses reached by following a redirect aren't cached, as they belong to another URL.
+ * <p>
+ * @since {@value org.tms.api.utils.ApiVersion#INITIAL_VERSION_STR}
+ * @version {@value org.tms.api.utils.ApiVersion#CURRENT_VERSION_STR}
+ */
+public final class RestClient
+{
+    public static final int sf_DEFAULT_CONNECT_TIMEOUT_MILLIS = 20000;
+    public static final int sf_DEFAULT_MAX_CACHED_RESPONSES = 1024;
+
+    private static volatile HttpClient sf_HTTP_CLIENT;
+    private static final ResponseCache sf_RESPONSE_CACHE = new ResponseCache(sf_DEFAULT_MAX_CACHED_RESPONSES);
+    private static final Map<String, CompletableFuture<Response>> sf_IN_FLIGHT = new ConcurrentHashMap<String, CompletableFuture<Response>>();
+
+    private static final AtomicLong sf_NUM_REQUESTS = new AtomicLong();
+    private static final AtomicLong sf_NUM_CACHE_HITS = new AtomicLong();
+    private static final AtomicLong sf_NUM_COALESCED = new AtomicLong();
+
+    private RestClient() { }
+
+    /**
+     * Returns true if the URL can be fetched with this client, that is, if it is an HTTP or HTTPS URL
+     * @param url the URL
+     * @return true if the URL uses the HTTP or HTTPS protocol
+     */
+    public static boolean isSupported(String url)
+    {
+        String lcUrl = url != null ? url.trim().toLowerCase() : "";
+        return lcUrl.startsWith("http://") || lcUrl.startsWith("https://");
+    }
+
+    /**
+     * Fetch the specified URL. The response is taken from the cache, if present, or shared with an identical
+     * request already in flight; otherwise, a new request is sent, once the rate limiter, if any, permits.
+     * @param method the HTTP request method, such as {@code GET}
+     * @param url the fully-qualified request URL
+     * @param timeout the maximum time to wait for the response
+     * @param ttlMillis the time, in milliseconds, to cache a successful response, or 0 to not cache it
+     * @param limiter the rate limiter of the requesting operator, or null
+     * @return a future that completes with the response
+     */
+    public static CompletableFuture<Response> fetch(String method, String url, Duration timeout,
+                                                    long ttlMillis, RateLimiter limiter)
+    {
+        String key = method + " " + url;
+        Response cached = sf_RESPONSE_CACHE.get(key);
+        if (cached != null) {
+            sf_NUM_CACHE_HITS.incrementAndGet();
+            return CompletableFuture.completedFuture(cached);
+        }
+
+        CompletableFuture<Response> pending = new CompletableFuture<Response>();
+        CompletableFuture<Response> inFlight = sf_IN_FLIGHT.putIfAbsent(key, pending);
+        if (inFlight != null) {
+            sf_NUM_COALESCED.incrementAndGet();
+            return inFlight;
+        }
+
+        try {
+            if (limiter != null)
+                limiter.acquire();
+
+            HttpRequest request = HttpRequest.newBuilder(URI.create(url))
+                    .method(method, HttpRequest.BodyPublishers.noBody())
+                    .timeout(timeout)
+                    .build();
+
+            sf_NUM_REQUESTS.incrementAndGet();
+            getHttpClient().sendAsync(request, HttpResponse.BodyHandlers.ofString()).whenComplete((r, e) -> {
+                // cache the response before it leaves the in-flight map, so identical requests find one or the other;
+                // responses from a redirected URL are not cached under the requested one
+                Response resp = e == null ? new Response(r.statusCode(), r.uri().toString(), r.body()) : null;
+                if (resp != null && ttlMillis > 0 && resp.isOK() && r.previousResponse().isEmpty())
+                    sf_RESPONSE_CACHE.put(key, resp, ttlMillis);
+                sf_IN_FLIGHT.remove(key, pending);
+
+                if (e != null)
+                    pending.completeExceptionally(e);
+                else
+                    pending.complete(resp);
+            });
+        }
+        catch (RuntimeException | InterruptedException e) {
+            sf_IN_FLIGHT.remove(key, pending);
+            pending.completeExceptionally(e);
+        }
+
+        return pending;
+    }
+
+    /**
+     * Discard all cached responses
+     */
+    public static void clearCache()
+    {
+        sf_RESPONSE_CACHE.clear();
+    }
+
+    public static int getNumCachedResponses()
+    {
+        return sf_RESPONSE_CACHE.size();
+    }
+
+    /**
+     * Returns the number of requests sent to a server
+     * @return the number of requests sent
+     */
+    public static long getNumRequests()
+    {
+        return sf_NUM_REQUESTS.get();
+    }
+
+    /**
+     * Returns the number of requests answered from the response cache
+     * @return the number of cache hits
+     */
+    public static long getNumCacheHits()
+    {
+        return sf_NUM_CACHE_HITS.get();
+    }
+
+    /**
+     * Returns the number of requests that shared the response of an identical request in flight
+     * @return the number of coalesced requests
+     */
+    public static long getNumCoalescedRequests()
+    {
+        return sf_NUM_COALESCED.get();
+    }
+
+    private static HttpClient getHttpClient()
+    {
+        if (sf_HTTP_CLIENT == null) {
+            synchronized(RestClient.class) {
+                if (sf_HTTP_CLIENT == null)
+                    sf_HTTP_CLIENT = HttpClient.newBuilder()
+                            .followRedirects(HttpClient.Redirect.NORMAL)
+                            .connectTimeout(Duration.ofMillis(sf_DEFAULT_CONNECT_TIMEOUT_MILLIS))
+                            .build();
+            }
+        }
+
+        return sf_HTTP_CLIENT;
+    }
+
+    /**
+     * An HTTP response; the body is cached as a string
+     */
+    public static final class Response
+    {
+        private final int m_statusCode;
+        private final String m_uri;
+        private final String m_body;
+
+        Response(int statusCode, String uri, String body)
+        {
+            m_statusCode = statusCode;
+            m_uri = uri;
+            m_body = body;
+        }
+
+        public int getStatusCode()
+        {
+            return m_statusCode;
+        }
+
+        public boolean isOK()
+        {
+            return m_statusCode == 200;
+        }
+
+        /**
+         * Returns the URI the response was received from, after any redirects were followed
+         * @return the final request URI
+         */
+        public String getUri()
+        {
+            return m_uri;
+        }
+
+        public String getBody()
+        {
+            return m_body;
+        }
+    }
+
+    /**
+     * Limits the rate at which an operator sends requests, by spacing them evenly;
+     * requests that would exceed the rate wait their turn
+     */
+    public static final class RateLimiter
+    {
+        private final long m_intervalNanos;
+        private long m_nextPermitted;
+
+        /**
+         * Creates a rate limiter
+         * @param requestsPerSecond the maximum number of requests per second
+         */
+        public RateLimiter(double requestsPerSecond)
+        {
+            if (requestsPerSecond <= 0)
+                throw new IllegalArgumentException("Requests per second must be > 0");
+
+            m_intervalNanos = (long)(TimeUnit.SECONDS.toNanos(1) / requestsPerSecond);
+            m_nextPermitted = System.nanoTime();
+        }
+
+        /**
+         * Wait until the next request is permitted
+         * @throws InterruptedException if the waiting thread is interrupted
+         */
+        public void acquire() throws InterruptedException
+        {
+            long waitNanos;
+            synchronized(this) {
+                long now = System.nanoTime();
+                long permitted = Math.max(now, m_nextPermitted);
+                m_nextPermitted = permitted + m_intervalNanos;
+                waitNanos = permitted - now;
+            }
+
+            if (waitNanos > 0)
+                TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+
+    /**
+     * A bounded cache of responses, each with its own expiration time;
+     * the least recently used responses are evicted when the cache is full
+     */
+    private static final class ResponseCache
+    {
+        private final Map<String, CachedResponse> m_responses;
+
+        @SuppressWarnings("serial")
+        ResponseCache(final int maxEntries)
+        {
+            m_responses = new LinkedHashMap<String, CachedResponse>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, CachedResponse> eldest)
+                {
+                    return size() > maxEntries;
+                }
+            };
+        }
+
+        synchronized Response get(String key)
+        {
+            CachedResponse cr = m_responses.get(key);
+            if (cr == null)
+                return null;
+
+            if (cr.m_expiresAt - System.nanoTime() <= 0) {
+                m_responses.remove(key);
+                return null;
+            }
+
+            return cr.m_response;
+        }
+
+        synchronized void put(String key, Response response, long ttlMillis)
+        {
+            m_responses.put(key, new CachedResponse(response, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(ttlMillis)));
+        }
+
+        synchronized void clear()
+        {
+            m_responses.clear();
+        }
+
+        synchronized int size()
+        {
+            return m_responses.size();
+        }
+    }
+
+    private static final class CachedResponse
+    {
+        private final Response m_response;
+        private final long m_expiresAt;
+
+        CachedResponse(Response response, long expiresAt)
+        {
+            m_response = response;
+            m_expiresAt = expiresAt;
+        }
+    }
+}
@@ -2,6 +2,7 @@ package org.tms.api.utils;
 
 import java.io.BufferedReader;
 import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.UnsupportedEncodingException;
@@ -9,11 +10,14 @@ import java.net.HttpURLConnection;
 import java.net.URL;
 import java.net.URLConnection;
 import java.net.URLEncoder;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletionException;
+import java.util.stream.Collectors;
 
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
@@ -42,6 +46,7 @@ abstract public class RestConsumerOp extends AbstractOperator
     private String[] m_argKeys;
     private String m_resultKey;
     private String m_baseUrl;
+    private volatile RestClient.RateLimiter m_rateLimiter;
     
     protected RestConsumerOp(String label, String resultKey, String url)
     {
@@ -163,6 +168,26 @@ abstract public class RestConsumerOp extends AbstractOperator
         return 20000;
     }
     
+    /**
+     * Override to cache successful responses for a different length of time; responses are
+     * shared by all operators that request the same URL with the same request method
+     * @return Response time to live, in milliseconds, or 0 to not cache responses
+     */
+    protected long getCacheTimeToLive()
+    {
+        return 60000;
+    }
+    
+    /**
+     * Override to limit the rate at which this operator calls its web service; cached
+     * and coalesced requests do not count against the limit
+     * @return Maximum requests per second, or 0 for no limit
+     */
+    protected double getMaxRequestsPerSecond()
+    {
+        return 0;
+    }
+    
     /**
      * Override to perform other request methods
      * @return the Request Method
@@ -282,6 +307,19 @@ abstract public class RestConsumerOp extends AbstractOperator
             return source;        
     }
     
+    private RestClient.RateLimiter getRateLimiter()
+    {
+        // created on first use, as subclasses may compute the rate from their own fields
+        if (m_rateLimiter == null && getMaxRequestsPerSecond() > 0) {
+            synchronized(this) {
+                if (m_rateLimiter == null)
+                    m_rateLimiter = new RestClient.RateLimiter(getMaxRequestsPerSecond());
+            }
+        }
+        
+        return m_rateLimiter;
+    }
+    
     protected class RestEvaluator implements Runnable
     {
         private UUID m_transId;
@@ -312,33 +350,67 @@ abstract public class RestConsumerOp extends AbstractOperator
         {
             try {
             	beforeOpenConnection();
-                URL myUrl = new URL(m_urlString);
-                
-                URLConnection urlCon = myUrl.openConnection();
-                if (urlCon instanceof HttpURLConnection) {
-                    HttpURLConnection httpCon = (HttpURLConnection)urlCon;
-                    httpCon.setConnectTimeout(getConnectionTimeout());
-                    httpCon.setRequestMethod(getRequestMethod());
-                                       
-                    int code = httpCon.getResponseCode();
-                    processResponseCode(code);
-                }
-                
-                InputStream is = urlCon.getInputStream();
-                InputStreamReader isR = new InputStreamReader(is);
-                BufferedReader reader = new BufferedReader(isR);
-                
-                StringBuffer buffer = new StringBuffer();
-                String line = "";
-                while( (line = reader.readLine()) != null ) {
-                    buffer.append(line);
-                }
-                
-                reader.close();
+            	
+            	// HTTP requests go through the shared client, which completes them asynchronously,
+            	// so this thread is released while the request is in flight
+            	if (RestClient.isSupported(m_urlString)) {
+            	    RestClient.fetch(getRequestMethod(), m_urlString, Duration.ofMillis(getConnectionTimeout()), 
+            	                     getCacheTimeToLive(), getRateLimiter())
+            	        .whenComplete((resp, e) -> {
+            	            if (e != null)
+            	                postError(e instanceof CompletionException && e.getCause() != null ? e.getCause() : e);
+            	            else
+            	                processResponse(resp);
+            	        });
+            	}
+            	else
+            	    postResult(readUrl());
+            }
+            catch (Exception e)
+            {
+                postError(e);
+            }
+        }
+        
+        private void processResponse(RestClient.Response resp)
+        {
+            try {
+                processResponseCode(resp.getStatusCode());
                 
+                // strip line terminators, as they were when the response was read line by line
+                postResult(resp.getBody().lines().collect(Collectors.joining()));
+            }
+            catch (Exception e)
+            {
+                postError(e);
+            }
+        }
+        
+        private String readUrl() throws IOException
+        {
+            URLConnection urlCon = new URL(m_urlString).openConnection();
+            urlCon.setConnectTimeout(getConnectionTimeout());
+            
+            InputStream is = urlCon.getInputStream();
+            InputStreamReader isR = new InputStreamReader(is);
+            BufferedReader reader = new BufferedReader(isR);
+            
+            StringBuffer buffer = new StringBuffer();
+            String line = "";
+            while( (line = reader.readLine()) != null ) {
+                buffer.append(line);
+            }
+            
+            reader.close();
+            return buffer.toString();
+        }
+        
+        private void postResult(String response)
+        {
+            try {
                 // allow result to be postprocessed, as some
                 // streams have to be adjusted
-                String adjustedStr = postProcessInputStream(buffer.toString());
+                String adjustedStr = postProcessInputStream(response);
                 
                 // is the response XML?
                 Object result = null;
@@ -373,10 +445,15 @@ abstract public class RestConsumerOp extends AbstractOperator
             }
             catch (Exception e)
             {
-                Token errToken = Token.createErrorToken(e.getMessage());
-                Token.postResult(m_transId, errToken);
+                postError(e);
             }
         }
+        
+        private void postError(Throwable e)
+        {
+            Token errToken = Token.createErrorToken(e.getMessage());
+            Token.postResult(m_transId, errToken);
+        }
 
 		protected Object parseJsonResponse(JSONObject json)
         {
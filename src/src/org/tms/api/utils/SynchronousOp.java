@@ -1,10 +1,11 @@
 package org.tms.api.utils;
 
 import org.tms.api.derivables.Token;
+import org.tms.api.derivables.VectorizedOperator;
 import org.tms.teq.AbstractOp;
 import org.tms.teq.NullsNotAllowedException;
 
-abstract public class SynchronousOp extends AbstractOp
+abstract public class SynchronousOp extends AbstractOp implements VectorizedOperator
 {
 	public SynchronousOp(String label, Class<?>[] argTypes, Class<?> resultType) 
 	{
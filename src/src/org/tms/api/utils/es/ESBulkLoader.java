@@ -0,0 +1,193 @@
+package org.tms.api.utils.es;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import org.elasticsearch.action.bulk.BackoffPolicy;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkProcessor;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.unit.ByteSizeUnit;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.xcontent.XContentType;
+
+/**
+ * An output stream that receives the bulk-format (newline-delimited JSON) output of a table
+ * exported with {@link org.tms.io.ESWriter ESWriter}, and sends it to ElasticSearch in batches,
+ * so that large tables are loaded without holding the entire export in memory.
+ * <p>
+ * Each document (an action line followed by a source line) is passed to a {@link BulkProcessor} as
+ * it is written. The processor sends a bulk request when the batch reaches the configured number of
+ * documents or bytes, keeps up to the configured number of requests in flight, blocking the export
+ * when that many are outstanding, and resends documents rejected by an overloaded cluster.
+ */
+class ESBulkLoader extends OutputStream
+{
+	private static final long sf_CLOSE_TIMEOUT_MINUTES = 10;
+
+	private final BulkProcessor m_processor;
+	private final String m_index;
+	private final String m_type;
+	private final Consumer<ESBulkStats> m_statsListener;
+
+	private byte [] m_buf;
+	private int m_count;
+	private int m_numNewLines;
+	private boolean m_closed;
+
+	private final Map<Long, Long> m_startTimes;
+	private final AtomicInteger m_numLoaded;
+	private volatile Throwable m_failure;
+
+	ESBulkLoader(RestHighLevelClient client, String index, ESCOptions opts, Consumer<ESBulkStats> statsListener)
+	{
+		m_index = index;
+		m_type = opts.getWorkingType();
+		m_statsListener = statsListener;
+
+		m_buf = new byte[8192];
+		m_startTimes = new ConcurrentHashMap<Long, Long>();
+		m_numLoaded = new AtomicInteger();
+
+		m_processor = BulkProcessor.builder((req, listener) -> client.bulkAsync(req, RequestOptions.DEFAULT, listener), new BulkListener())
+				.setBulkActions(opts.getBulkActions())
+				.setBulkSize(new ByteSizeValue(opts.getBulkBytes(), ByteSizeUnit.BYTES))
+				.setConcurrentRequests(opts.getBulkConcurrentRequests())
+				.setBackoffPolicy(opts.getBulkMaxRetries() > 0 ?
+						BackoffPolicy.exponentialBackoff(TimeValue.timeValueMillis(opts.getBulkRetryDelay()), opts.getBulkMaxRetries()) :
+						BackoffPolicy.noBackoff())
+				.build();
+	}
+
+	/**
+	 * Returns the number of documents successfully loaded
+	 * @return the number of documents loaded
+	 */
+	int getNumLoaded()
+	{
+		return m_numLoaded.get();
+	}
+
+	@Override
+	public void write(int b)
+	throws IOException
+	{
+		if (m_count == m_buf.length)
+			m_buf = Arrays.copyOf(m_buf, m_buf.length * 2);
+
+		m_buf[m_count++] = (byte)b;
+
+		// ESWriter escapes embedded newlines, so every second newline ends a document
+		if (b == '\n' && (++m_numNewLines % 2) == 0)
+			addDocument();
+	}
+
+	@Override
+	public void write(byte [] b, int off, int len)
+	throws IOException
+	{
+		for (int i = off; i < off + len; i++)
+			write(b[i]);
+	}
+
+	@Override
+	public synchronized void close()
+	throws IOException
+	{
+		if (m_closed)
+			return;
+
+		m_closed = true;
+		try {
+			if (m_count > 0)
+				addDocument();
+
+			if (!m_processor.awaitClose(sf_CLOSE_TIMEOUT_MINUTES, TimeUnit.MINUTES))
+				throw new IOException("Timed out waiting for bulk requests to complete");
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException(e);
+		}
+
+		if (m_failure != null)
+			throw new IOException("Bulk request failed: " + m_failure.getMessage(), m_failure);
+	}
+
+	private void addDocument()
+	throws IOException
+	{
+		// stop the export if a bulk request has failed outright
+		if (m_failure != null)
+			throw new IOException("Bulk request failed: " + m_failure.getMessage(), m_failure);
+
+		try {
+			m_processor.add(new BytesArray(Arrays.copyOf(m_buf, m_count)), m_index, m_type, XContentType.JSON);
+		}
+		catch (IOException e) {
+			throw e;
+		}
+		catch (Exception e) {
+			throw new IOException(e);
+		}
+		finally {
+			m_count = 0;
+		}
+	}
+
+	private class BulkListener implements BulkProcessor.Listener
+	{
+		@Override
+		public void beforeBulk(long executionId, BulkRequest request)
+		{
+			m_startTimes.put(executionId, System.currentTimeMillis());
+		}
+
+		@Override
+		public void afterBulk(long executionId, BulkRequest request, BulkResponse response)
+		{
+			int numFailed = 0;
+			String failureMessage = null;
+			for (BulkItemResponse item : response.getItems()) {
+				if (item.isFailed()) {
+					if (numFailed++ == 0)
+						failureMessage = item.getFailureMessage();
+				}
+			}
+
+			int numLoaded = response.getItems().length - numFailed;
+			m_numLoaded.addAndGet(numLoaded);
+			report(executionId, request, numLoaded, numFailed, response.getTook().millis(), failureMessage);
+		}
+
+		@Override
+		public void afterBulk(long executionId, BulkRequest request, Throwable failure)
+		{
+			if (m_failure == null)
+				m_failure = failure;
+
+			report(executionId, request, 0, request.numberOfActions(), 0, failure.getMessage());
+		}
+
+		private void report(long executionId, BulkRequest request, int numLoaded, int numFailed, long tookMillis, String failureMessage)
+		{
+			Long startTime = m_startTimes.remove(executionId);
+			if (m_statsListener != null) {
+				long elapsed = startTime != null ? System.currentTimeMillis() - startTime : 0;
+				m_statsListener.accept(new ESBulkStats(executionId, request.numberOfActions(), request.estimatedSizeInBytes(),
+						numLoaded, numFailed, tookMillis, elapsed, failureMessage));
+			}
+		}
+	}
+}
@@ -0,0 +1,101 @@
+package org.tms.api.utils.es;
+
+/**
+ * Statistics describing one bulk request sent by {@link ElasticSearchClient#bulkLoad(org.tms.api.Table, String, ESCOptions, java.util.function.Consumer)}.
+ * Documents rejected by the cluster and successfully resent are counted as loaded.
+ */
+public class ESBulkStats
+{
+	private long m_batchId;
+	private int m_numDocs;
+	private long m_numBytes;
+	private int m_numLoaded;
+	private int m_numFailed;
+	private long m_tookMillis;
+	private long m_elapsedMillis;
+	private String m_failureMessage;
+
+	ESBulkStats(long batchId, int numDocs, long numBytes, int numLoaded, int numFailed, long tookMillis, long elapsedMillis, String failureMessage)
+	{
+		m_batchId = batchId;
+		m_numDocs = numDocs;
+		m_numBytes = numBytes;
+		m_numLoaded = numLoaded;
+		m_numFailed = numFailed;
+		m_tookMillis = tookMillis;
+		m_elapsedMillis = elapsedMillis;
+		m_failureMessage = failureMessage;
+	}
+
+	/**
+	 * Returns the sequence number of the bulk request, starting with 1
+	 * @return the bulk request sequence number
+	 */
+	public long getBatchId()
+	{
+		return m_batchId;
+	}
+
+	public int getNumDocs()
+	{
+		return m_numDocs;
+	}
+
+	/**
+	 * Returns the estimated size of the bulk request
+	 * @return the estimated request size in bytes
+	 */
+	public long getNumBytes()
+	{
+		return m_numBytes;
+	}
+
+	public int getNumLoaded()
+	{
+		return m_numLoaded;
+	}
+
+	public int getNumFailed()
+	{
+		return m_numFailed;
+	}
+
+	/**
+	 * Returns the time, as reported by the cluster, to process the bulk request
+	 * @return the processing time in milliseconds
+	 */
+	public long getTookMillis()
+	{
+		return m_tookMillis;
+	}
+
+	/**
+	 * Returns the time from when the bulk request was sent until it completed, including retries
+	 * @return the elapsed time in milliseconds
+	 */
+	public long getElapsedMillis()
+	{
+		return m_elapsedMillis;
+	}
+
+	/**
+	 * Returns the first failure message of the bulk request, if any
+	 * @return the failure message, or null
+	 */
+	public String getFailureMessage()
+	{
+		return m_failureMessage;
+	}
+
+	public boolean isFailures()
+	{
+		return m_numFailed > 0;
+	}
+
+	@Override
+	public String toString()
+	{
+		return String.format("Batch %d: Docs: %d, Bytes: %d, Loaded: %d, Failed: %d, Took (ms): %d, Elapsed (ms): %d",
+				m_batchId, m_numDocs, m_numBytes, m_numLoaded, m_numFailed, m_tookMillis, m_elapsedMillis);
+	}
+}
@@ -19,6 +19,11 @@ public class ESCOptions extends ESIOOptions<ESCOptions> implements ESIOOption<ES
 
     private enum Options implements OptionEnum 
     {
+    	BulkActions,
+    	BulkBytes,
+    	BulkConcurrentRequests,
+    	BulkMaxRetries,
+    	BulkRetryDelay,
     	CatchAllField,
     	isRecreateIndex,
     	Mappings,
@@ -52,6 +57,12 @@ public class ESCOptions extends ESIOOptions<ESCOptions> implements ESIOOption<ES
     	set(Options.Server, "localhost");
     	set(Options.Replicas, 1);
     	set(Options.Shards, 5);
+    	
+    	set(Options.BulkActions, 1000);
+    	set(Options.BulkBytes, 5L * 1024 * 1024);
+    	set(Options.BulkConcurrentRequests, 2);
+    	set(Options.BulkMaxRetries, 3);
+    	set(Options.BulkRetryDelay, 100L);
     }
     
     private ESCOptions (final ESCOptions format)
@@ -298,6 +309,104 @@ public class ESCOptions extends ESIOOptions<ESCOptions> implements ESIOOption<ES
     	return newOptions;
     }
 
+    /**
+     * Returns the maximum number of documents sent in each bulk request
+     * @return the maximum number of documents per bulk request
+     */
+    public int getBulkActions() 
+    {
+        return (Integer)get(Options.BulkActions);
+    }
+
+    public ESCOptions withBulkActions(final int val) 
+    {
+    	if (val <= 0)
+    		throw new IllegalArgumentException("Bulk actions must be > 0");
+    	
+    	ESCOptions newOptions = clone(this);
+        newOptions.set(Options.BulkActions, val);
+        return newOptions;
+    }
+       
+    /**
+     * Returns the maximum size, in bytes, of each bulk request
+     * @return the maximum size of each bulk request
+     */
+    public long getBulkBytes() 
+    {
+        return (Long)get(Options.BulkBytes);
+    }
+
+    public ESCOptions withBulkBytes(final long val) 
+    {
+    	if (val <= 0)
+    		throw new IllegalArgumentException("Bulk bytes must be > 0");
+    	
+    	ESCOptions newOptions = clone(this);
+        newOptions.set(Options.BulkBytes, val);
+        return newOptions;
+    }
+       
+    /**
+     * Returns the number of bulk requests that can be in flight while the next is assembled; 
+     * when this many are outstanding, reading the table blocks until one completes. 
+     * Zero sends each bulk request synchronously.
+     * @return the number of concurrent bulk requests
+     */
+    public int getBulkConcurrentRequests() 
+    {
+        return (Integer)get(Options.BulkConcurrentRequests);
+    }
+
+    public ESCOptions withBulkConcurrentRequests(final int val) 
+    {
+    	if (val < 0)
+    		throw new IllegalArgumentException("Concurrent requests must be >= 0");
+    	
+    	ESCOptions newOptions = clone(this);
+        newOptions.set(Options.BulkConcurrentRequests, val);
+        return newOptions;
+    }
+       
+    /**
+     * Returns the number of times documents rejected by the cluster because it is 
+     * overloaded are resent, with exponential backoff
+     * @return the maximum number of retries
+     */
+    public int getBulkMaxRetries() 
+    {
+        return (Integer)get(Options.BulkMaxRetries);
+    }
+
+    public ESCOptions withBulkMaxRetries(final int val) 
+    {
+    	if (val < 0)
+    		throw new IllegalArgumentException("Max retries must be >= 0");
+    	
+    	ESCOptions newOptions = clone(this);
+        newOptions.set(Options.BulkMaxRetries, val);
+        return newOptions;
+    }
+       
+    /**
+     * Returns the delay, in milliseconds, before rejected documents are first resent
+     * @return the initial retry delay
+     */
+    public long getBulkRetryDelay() 
+    {
+        return (Long)get(Options.BulkRetryDelay);
+    }
+
+    public ESCOptions withBulkRetryDelay(final long millis) 
+    {
+    	if (millis < 0)
+    		throw new IllegalArgumentException("Retry delay must be >= 0");
+    	
+    	ESCOptions newOptions = clone(this);
+        newOptions.set(Options.BulkRetryDelay, millis);
+        return newOptions;
+    }
+       
     public String getServer() 
     {
     	return (String)get(Options.Server);
@@ -1,13 +1,11 @@
 package org.tms.api.utils.es;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.util.Map;
+import java.util.function.Consumer;
 
 import org.apache.http.HttpHost;
 import org.elasticsearch.action.admin.indices.delete.DeleteIndexRequest;
-import org.elasticsearch.action.bulk.BulkRequest;
-import org.elasticsearch.action.bulk.BulkResponse;
 import org.elasticsearch.action.delete.DeleteRequest;
 import org.elasticsearch.action.delete.DeleteResponse;
 import org.elasticsearch.action.support.master.AcknowledgedResponse;
@@ -95,6 +93,23 @@ public class ElasticSearchClient
 	
 	public static int bulkLoad(Table table, String index, ESCOptions opts) 
 	throws IOException
+	{
+		return bulkLoad(table, index, opts, null);
+	}
+	
+	/**
+	 * Load the rows of a table into an ElasticSearch index. Rows are streamed to the cluster in bulk 
+	 * requests of the size specified in {@code opts}, several of which can be in flight at once; 
+	 * documents rejected because the cluster is overloaded are resent.
+	 * @param table the table to load
+	 * @param index the index name; if null, the table label is used
+	 * @param opts the load options
+	 * @param statsListener if not null, is passed the statistics of each bulk request as it completes
+	 * @return the number of documents loaded
+	 * @throws IOException if a bulk request fails
+	 */
+	public static int bulkLoad(Table table, String index, ESCOptions opts, Consumer<ESBulkStats> statsListener) 
+	throws IOException
 	{
 		if (opts == null)
 			opts = ESCOptions.Default;
@@ -114,21 +129,23 @@ public class ElasticSearchClient
 			createIndex(index, opts);
 		}
 		
-		ByteArrayOutputStream baos = null;
+		ESBulkLoader loader = null;
 		RestHighLevelClient client = build(opts);		
 		try {			
-	    	baos = new ByteArrayOutputStream();
-			table.export(baos, opts.asESOptions().withType(null).withIndex(null)); // clear out index & type as we give it on load command
+			loader = new ESBulkLoader(client, index, opts, statsListener);
+			table.export(loader, opts.asESOptions().withType(null).withIndex(null)); // clear out index & type as we give it on load command
 			
-			BulkRequest req = new BulkRequest();
-			req.add(baos.toByteArray(), 0, baos.size(), index, opts.getWorkingType(), XContentType.JSON);
-			BulkResponse resp = client.bulk(req, RequestOptions.DEFAULT);
-			int numLoaded = resp.getItems().length;
-			return numLoaded;
+			// waits for outstanding bulk requests to complete
+			loader.close();
+			return loader.getNumLoaded();
 		}
 		finally {
-			if (baos != null)
-				baos.close();
+			if (loader != null) {
+				try {
+					loader.close();
+				} 
+				catch (IOException e) { /* noop */ }
+			}
 			
 			if (client != null)
 				client.close();
@@ -5,6 +5,16 @@ import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 import org.apache.commons.csv.CSVFormat;
 import org.apache.commons.csv.CSVParser;
@@ -20,6 +30,12 @@ import org.tms.teq.MathUtil;
 
 public class CSVReader extends LabeledReader<CSVOptions>
 {
+    /*
+     * Bounds on the size of the byte ranges parsed in parallel
+     */
+    private static final long sf_MIN_RANGE_BYTES = 1 << 20;
+    private static final long sf_MAX_RANGE_BYTES = 1 << 26;
+
     private CSVFormat m_csvFormat;
     
     public CSVReader(String fileName, CSVOptions format)
@@ -56,6 +72,9 @@ public class CSVReader extends LabeledReader<CSVOptions>
     
     public Table parse() throws IOException
     {
+        if (options().isParallelImport() && getInputFile() != null && isSplittable())
+            return parseInParallel(getInputFile());
+
         InputStreamReader in = null;
         CSVParser parser = null;
         
@@ -69,39 +88,16 @@ public class CSVReader extends LabeledReader<CSVOptions>
             
             // read the data from the Default file, one row at a time, 
             // and fill the table with it
-            boolean firstRow = true;;
+            boolean firstRow = true;
+            List<Column> cols = new ArrayList<Column>();
             for (CSVRecord csvRec : parser) {
                 if (options().isColumnLabels() && firstRow)
-                    parseColumnHeaders(t, csvRec);
+                    parseColumnHeaders(t, parseHeader(csvRec));
                 else {
                     if (options().isIgnoreEmptyRows() && isEmpty(csvRec))
                         continue;
                     
-                    Row row = t.addRow();
-                    int colNum = 1;
-                    boolean firstCol = true;
-                    for (String s : csvRec) {
-                        if (s != null && (s = s.trim()).length() == 0)
-                            s = null;
-                        
-                        // Default column indexes are 1-based, so we want to increment the
-                        // column number here, no matter what
-                        if (firstCol && isRowNames()) {
-                            row.setLabel(s);
-                            firstCol = false;
-                        }
-                        else {
-                            if (s != null) {
-                                Column col = t.getColumn(colNum);
-                                if (col == null)
-                                    col = t.addColumn(colNum);
-                                
-                                t.setCellValue(row, col, MathUtil.parseCellValue(s, options().isIgnoreSuroundingSpaces()));
-                            }
-                            
-                            colNum++;
-                        }
-                    }
+                    addRecord(t, cols, parseRecord(csvRec));
                 }
                 
                 firstRow = false;
@@ -122,6 +118,318 @@ public class CSVReader extends LabeledReader<CSVOptions>
         }
     }
 
+    /**
+     * Parse the input file by dividing it into byte ranges that begin and end on record boundaries; the
+     * ranges are tokenized and their values parsed concurrently, then the records are added to the table
+     * in file order, a range at a time. At most two ranges per thread are parsed ahead of the range being
+     * added, bounding the parsed records held in memory.
+     */
+    private Table parseInParallel(File csvFile) throws IOException
+    {
+        // the file is read through channels; the stream opened by our superclass isn't needed
+        InputStream is = getInputStream();
+        if (is != null)
+            is.close();
+
+        int numThreads = options().getParallelImportThreads();
+        ForkJoinPool pool = new ForkJoinPool(numThreads);
+        try (FileChannel ch = FileChannel.open(csvFile.toPath(), StandardOpenOption.READ)) {
+            long size = ch.size();
+            long rangeSize = Math.max(sf_MIN_RANGE_BYTES, Math.min(sf_MAX_RANGE_BYTES, size / (numThreads * 4)));
+            int numRanges = (int)Math.max(1, (size + rangeSize - 1) / rangeSize);
+
+            long [] bounds = findRecordBoundaries(ch, size, rangeSize, numRanges, pool);
+
+            // parse the ranges concurrently
+            int maxInFlight = numThreads * 2;
+            List<ForkJoinTask<List<Object []>>> tasks = new ArrayList<ForkJoinTask<List<Object []>>>(numRanges);
+            int nextRange = 0;
+            for (; nextRange < numRanges && nextRange < maxInFlight; nextRange++)
+                tasks.add(submitRange(pool, ch, bounds, nextRange));
+
+            // and add their records to the table, in order, as each range completes
+            Table t = TableFactory.createTable(getTableContext());
+            List<Column> cols = new ArrayList<Column>();
+            for (int i = 0; i < numRanges; i++) {
+                List<Object []> recs = join(tasks.get(i));
+                tasks.set(i, null);
+
+                if (nextRange < numRanges)
+                    tasks.add(submitRange(pool, ch, bounds, nextRange++));
+
+                addRecords(t, cols, recs);
+            }
+
+            // if we're ignoring extra columns, we have one more check
+            pruneEmptyColumns(t);
+
+            return t;
+        }
+        finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Returns the offsets of the record boundaries that delimit the ranges to parse; a newline ends a record
+     * unless an odd number of quote characters precede it. Each nominal range is scanned concurrently,
+     * counting quotes and noting the first newline preceded by an even, and by an odd, number of quotes
+     * within the range; once the quote count before each range is known, its first record boundary follows.
+     */
+    private long [] findRecordBoundaries(FileChannel ch, long size, long rangeSize, int numRanges, ForkJoinPool pool)
+    throws IOException
+    {
+        Character quote = options().getQuote();
+
+        List<ForkJoinTask<long []>> tasks = new ArrayList<ForkJoinTask<long []>>(numRanges);
+        for (int i = 1; i < numRanges; i++) {
+            long start = i * rangeSize;
+            long end = Math.min(start + rangeSize, size);
+            tasks.add(pool.submit(ForkJoinTask.adapt(() -> scanRange(ch, start, end, quote))));
+        }
+
+        long [] bounds = new long[numRanges + 1];
+        bounds[numRanges] = size;
+
+        // the first range holds the quotes preceding the second
+        long numQuotes = numRanges > 1 ? scanRange(ch, 0, rangeSize, quote)[0] : 0;
+        for (int i = 1; i < numRanges; i++) {
+            long [] scan = join(tasks.get(i - 1));
+            bounds[i] = scan[(numQuotes & 1) == 0 ? 1 : 2];
+            numQuotes += scan[0];
+        }
+
+        // ranges without a boundary are absorbed by their predecessor
+        for (int i = numRanges - 1; i > 0; i--) {
+            if (bounds[i] < 0)
+                bounds[i] = bounds[i + 1];
+        }
+
+        return bounds;
+    }
+
+    /**
+     * Scans the specified byte range
+     * @return the number of quotes in the range, and the offsets following the first newline preceded
+     * by an even and by an odd number of quotes, or -1
+     */
+    private static long [] scanRange(FileChannel ch, long start, long end, Character quoteChar)
+    {
+        long [] scan = {0, -1, -1};
+        ByteBuffer b = map(ch, start, end);
+        byte quote = quoteChar != null ? (byte)quoteChar.charValue() : (byte)'\n';
+        int len = b.remaining();
+        int numQuotes = 0;
+        for (int i = 0; i < len; i++) {
+            byte c = b.get(i);
+            if (c == '\n') {
+                int parity = 1 + (numQuotes & 1);
+                if (scan[parity] < 0) {
+                    scan[parity] = start + i + 1;
+                    if (quoteChar == null)
+                        break;
+                }
+            }
+            else if (c == quote)
+                numQuotes++;
+        }
+
+        scan[0] = numQuotes;
+        return scan;
+    }
+
+    private ForkJoinTask<List<Object []>> submitRange(ForkJoinPool pool, FileChannel ch, long [] bounds, int rangeNo)
+    {
+        long start = bounds[rangeNo];
+        long end = bounds[rangeNo + 1];
+        boolean header = rangeNo == 0 && options().isColumnLabels();
+        return pool.submit(ForkJoinTask.adapt(() -> parseRange(ch, start, end, header)));
+    }
+
+    /**
+     * Parse the records in the specified byte range
+     * @return the parsed records; the header, if any, is represented by a {@code String []}
+     */
+    private List<Object []> parseRange(FileChannel ch, long start, long end, boolean header)
+    {
+        List<Object []> recs = new ArrayList<Object []>();
+        if (start >= end)
+            return recs;
+
+        try (CSVParser parser = m_csvFormat.parse(new InputStreamReader(new ByteBufferInputStream(map(ch, start, end))))) {
+            for (CSVRecord csvRec : parser) {
+                if (header) {
+                    recs.add(parseHeader(csvRec));
+                    header = false;
+                }
+                else if (!options().isIgnoreEmptyRows() || !isEmpty(csvRec))
+                    recs.add(parseRecord(csvRec));
+            }
+
+            return recs;
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static ByteBuffer map(FileChannel ch, long start, long end)
+    {
+        try {
+            return ch.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static <T> T join(ForkJoinTask<T> task) throws IOException
+    {
+        try {
+            return task.join();
+        }
+        catch (RuntimeException e) {
+            for (Throwable t = e; t != null; t = t.getCause()) {
+                if (t instanceof UncheckedIOException)
+                    throw ((UncheckedIOException)t).getCause();
+            }
+
+            throw e;
+        }
+    }
+
+    /**
+     * Record boundaries can only be located in the raw bytes if the newline and quote characters
+     * are encoded as single bytes
+     */
+    private boolean isSplittable()
+    {
+        Charset cs = Charset.defaultCharset();
+        if (!Arrays.equals("\n".getBytes(cs), new byte [] {'\n'}))
+            return false;
+
+        Character quote = options().getQuote();
+        return quote == null || (quote < 0x80 && Arrays.equals(quote.toString().getBytes(cs), new byte [] {(byte)quote.charValue()}));
+    }
+
+    /**
+     * Returns the row label, if any, followed by the cell values of the record; blank values are null
+     */
+    private Object [] parseRecord(CSVRecord csvRec)
+    {
+        int n = csvRec.size();
+        Object [] rec = new Object[isRowNames() ? n : n + 1];
+        int i = isRowNames() ? 0 : 1;
+        boolean firstCol = true;
+        for (String s : csvRec) {
+            if (s != null && (s = s.trim()).length() == 0)
+                s = null;
+
+            if (firstCol && isRowNames())
+                rec[i] = s;
+            else if (s != null)
+                rec[i] = MathUtil.parseCellValue(s, options().isIgnoreSuroundingSpaces());
+
+            firstCol = false;
+            i++;
+        }
+
+        return rec;
+    }
+
+    private void addRecord(Table t, List<Column> cols, Object [] rec)
+    {
+        Row row = t.addRow();
+        if (rec[0] != null)
+            row.setLabel((String)rec[0]);
+
+        // Default column indexes are 1-based
+        for (int colNum = 1; colNum < rec.length; colNum++) {
+            Object value = rec[colNum];
+            if (value != null)
+                t.setCellValue(row, getColumn(t, cols, colNum), value);
+        }
+    }
+
+    /**
+     * Append a block of parsed records to the table; the header, if any, is represented by a {@code String []}.
+     * The values are transposed by column and loaded with a single bulk update, rather than a cell at a time.
+     */
+    private void addRecords(Table t, List<Column> cols, List<Object []> recs)
+    {
+        int firstRec = 0;
+        if (!recs.isEmpty() && recs.get(0) instanceof String []) {
+            parseColumnHeaders(t, (String [])recs.get(0));
+            firstRec = 1;
+        }
+
+        int nRecs = recs.size() - firstRec;
+        if (nRecs <= 0)
+            return;
+
+        // transpose the record values into columns, noting the columns with values
+        int nCols = 0;
+        for (int i = firstRec; i < recs.size(); i++)
+            nCols = Math.max(nCols, recs.get(i).length - 1);
+
+        Object [][] colValues = new Object[nCols][];
+        int nValueCols = 0;
+        for (int i = 0; i < nRecs; i++) {
+            Object [] rec = recs.get(firstRec + i);
+            for (int colNum = 1; colNum < rec.length; colNum++) {
+                if (rec[colNum] != null) {
+                    if (colValues[colNum - 1] == null) {
+                        colValues[colNum - 1] = new Object[nRecs];
+                        nValueCols++;
+                    }
+
+                    colValues[colNum - 1][i] = rec[colNum];
+                }
+            }
+        }
+
+        List<Row> rows = null;
+        if (nValueCols > 0) {
+            Column [] blockCols = new Column[nValueCols];
+            Object [][] blockValues = new Object[nValueCols][];
+            for (int colNum = 1, j = 0; colNum <= nCols; colNum++) {
+                if (colValues[colNum - 1] != null) {
+                    blockCols[j] = getColumn(t, cols, colNum);
+                    blockValues[j++] = colValues[colNum - 1];
+                }
+            }
+
+            rows = t.addRows(blockCols, blockValues);
+        }
+        else {
+            rows = new ArrayList<Row>(nRecs);
+            for (int i = 0; i < nRecs; i++)
+                rows.add(t.addRow());
+        }
+
+        for (int i = 0; i < nRecs && i < rows.size(); i++) {
+            Object label = recs.get(firstRec + i)[0];
+            if (label != null)
+                rows.get(i).setLabel((String)label);
+        }
+    }
+
+    private Column getColumn(Table t, List<Column> cols, int colNum)
+    {
+        while (cols.size() < colNum)
+            cols.add(null);
+
+        Column col = cols.get(colNum - 1);
+        if (col == null) {
+            col = t.getColumn(colNum);
+            if (col == null)
+                col = t.addColumn(colNum);
+            cols.set(colNum - 1, col);
+        }
+
+        return col;
+    }
+
     private boolean isEmpty(CSVRecord csvRec)
     {
         if (csvRec != null) {
@@ -142,26 +450,75 @@ public class CSVReader extends LabeledReader<CSVOptions>
         return true;
     }
 
-    private void parseColumnHeaders(Table t, CSVRecord csvRec)
+    /**
+     * Returns the column labels in the record; blank labels are null
+     */
+    private String [] parseHeader(CSVRecord csvRec)
     {
+        List<String> labels = new ArrayList<String>(csvRec.size());
         boolean firstCol = true;
-        int colNum = 0;
         for (String s : csvRec) {
             if (firstCol && isRowNames())
                 ;
-            else {
-                colNum++;
-                
-                if (s != null && (s = s.trim()).length() > 0) {
-                    Column col = t.getColumn(colNum);
-                    if (col == null)
-                        col = t.addColumn(colNum);
-                    
-                    col.setLabel(s);
-                }
-            }
+            else
+                labels.add(s != null && (s = s.trim()).length() > 0 ? s : null);
             
             firstCol = false;
+        }
+
+        return labels.toArray(new String[labels.size()]);
+    }
+
+    private void parseColumnHeaders(Table t, String [] labels)
+    {
+        for (int colNum = 1; colNum <= labels.length; colNum++) {
+            String s = labels[colNum - 1];
+            if (s != null) {
+                Column col = t.getColumn(colNum);
+                if (col == null)
+                    col = t.addColumn(colNum);
+
+                col.setLabel(s);
+            }
+        }
+    }
+
+    /**
+     * Reads the bytes of a mapped file range
+     */
+    private static class ByteBufferInputStream extends InputStream
+    {
+        private final ByteBuffer m_buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer)
+        {
+            m_buffer = buffer;
+        }
+
+        @Override
+        public int read()
+        {
+            return m_buffer.hasRemaining() ? m_buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte [] b, int off, int len)
+        {
+            if (len == 0)
+                return 0;
+
+            if (!m_buffer.hasRemaining())
+                return -1;
+
+            len = Math.min(len, m_buffer.remaining());
+            m_buffer.get(b, off, len);
+            return len;
+        }
+
+        @Override
+        public int available()
+        {
+            return m_buffer.remaining();
         }        
     }
 }
@@ -18,6 +18,7 @@ import org.tms.api.TableProperty;
 import org.tms.api.derivables.DerivableThreadPoolConfig;
 import org.tms.api.derivables.Derivation;
 import org.tms.api.io.JSONOptions;
+import org.tms.tds.ColumnImpl;
 
 import scala.actors.threadpool.Arrays;
 
@@ -112,6 +113,7 @@ public class JSONWriter extends ArchivalWriter<JSONOptions>
 				eProps.remove(TableProperty.PendingThreadKeepAliveTimeoutUnit);
 				eProps.remove(TableProperty.numPendingMaxPoolThreads);
 				eProps.remove(TableProperty.numPendingCorePoolThreads);
+				eProps.remove(TableProperty.PendingThreadPoolStrategy);
 			}
 		}
 		
@@ -263,8 +265,19 @@ public class JSONWriter extends ArchivalWriter<JSONOptions>
             	
                 if (t.isCellDefined(r, c)) {
                 	
-                	Cell cell = t.getCell(r,  c);
-                	if (cell != null) {
+                	// values held in a columnar store are exported without materializing their cells
+                	Cell cell = c instanceof ColumnImpl ? ((ColumnImpl)c).findCell(r) : t.getCell(r,  c);
+                	if (cell == null) {
+                		Object cv = t.getCellValue(r, c);
+                		if (cv != null) {
+                			JSONObject cJson = new JSONObject();
+                			cJson.put(TableProperty.CellValue.getTag(), cv);
+	                		cJson.put("r", getRemappedRowIndex(r));
+	                		cJson.put("c", getRemappedColumnIndex(c));
+	                		tCellsList.add(cJson);
+                		}
+                	}
+                	else {
                 		JSONObject cJson = new JSONObject();
                 		
                     	// add metadata
@@ -0,0 +1,294 @@
+package org.tms.io;
+
+import static org.tms.io.TMSBFormat.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.tms.api.exceptions.TableIOException;
+import org.tms.api.utils.ApiVersion;
+
+/**
+ * The sections of a native TMS binary file, located through the file directory. Files are memory-mapped, and
+ * streams are read into memory, so the contents of a section are read only when the section is requested; strings
+ * are decoded from the string dictionary the first time they are referenced.
+ */
+class TMSBFile implements Closeable
+{
+    private FileChannel m_channel;
+    private ByteBuffer m_bytes;
+    private long m_length;
+
+    private ApiVersion m_apiVersion;
+    private List<Section> m_sections;
+
+    private ByteBuffer m_strings;
+    private int [] m_stringOffsets;
+    private String [] m_stringCache;
+
+    TMSBFile(File file)
+    throws IOException
+    {
+        m_channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        m_length = m_channel.size();
+
+        // map the file in its entirety when possible; the mapping remains valid once the channel is closed
+        if (m_length <= Integer.MAX_VALUE) {
+            m_bytes = m_channel.map(FileChannel.MapMode.READ_ONLY, 0, m_length);
+            m_channel.close();
+            m_channel = null;
+        }
+
+        open();
+    }
+
+    TMSBFile(InputStream in)
+    throws IOException
+    {
+        m_bytes = ByteBuffer.wrap(in.readAllBytes());
+        m_length = m_bytes.capacity();
+
+        open();
+    }
+
+    private void open()
+    throws IOException
+    {
+        if (m_length < 8 + TRAILER_SIZE)
+            throw new TableIOException("Invalid File Format");
+
+        // validate the header
+        try (DataInputStream header = new DataInputStream(new ByteArrayInputStream(toArray(read(0, (int)Math.min(m_length, 256)))))) {
+            if (header.readInt() != MAGIC)
+                throw new TableIOException("Invalid File Format");
+
+            int version = header.readInt();
+            if (version > FORMAT_VERSION)
+                throw new TableIOException("Unsupported TMSB format version: " + version);
+
+            m_apiVersion = ApiVersion.parse(header.readUTF());
+            if (m_apiVersion == null || m_apiVersion.isUnknown())
+                throw new TableIOException("Invalid File Format: No Version");
+        }
+
+        // locate the directory from the trailer
+        ByteBuffer trailer = read(m_length - TRAILER_SIZE, TRAILER_SIZE);
+        long dirOffset = trailer.getLong();
+        if (trailer.getInt() != MAGIC || dirOffset < 0 || dirOffset > m_length - TRAILER_SIZE - 4)
+            throw new TableIOException("Invalid File Format: No Directory");
+
+        int numSections = read(dirOffset, 4).getInt();
+        ByteBuffer dir = read(dirOffset + 4, numSections * DIRECTORY_ENTRY_SIZE);
+        m_sections = new ArrayList<Section>(numSections);
+        for (int i = 0; i < numSections; i++)
+            m_sections.add(new Section(dir.get(), dir.getInt(), dir.getInt(), dir.getLong(), dir.getInt()));
+    }
+
+    ApiVersion getApiVersion()
+    {
+        return m_apiVersion;
+    }
+
+    /**
+     * Returns the first section of the specified type
+     * @param type the section type
+     * @return the section, or null if the file has no section of this type
+     */
+    Section getSection(byte type)
+    {
+        for (Section s : m_sections) {
+            if (s.getType() == type)
+                return s;
+        }
+
+        return null;
+    }
+
+    /**
+     * Returns the sections of the specified type, in file order
+     * @param type the section type
+     * @return the sections
+     */
+    List<Section> getSections(byte type)
+    {
+        List<Section> sections = null;
+        for (Section s : m_sections) {
+            if (s.getType() == type) {
+                if (sections == null)
+                    sections = new ArrayList<Section>();
+                sections.add(s);
+            }
+        }
+
+        return sections != null ? sections : Collections.emptyList();
+    }
+
+    /**
+     * Returns the contents of the specified section, positioned at its start
+     * @param s the section
+     * @return the section contents
+     * @throws IOException if the section can't be read
+     */
+    ByteBuffer getData(Section s)
+    throws IOException
+    {
+        return read(s.getOffset(), s.getLength());
+    }
+
+    /**
+     * Returns the string with the specified dictionary index
+     * @param id the dictionary index, or -1
+     * @return the string, or null if {@code id} is -1
+     * @throws IOException if the string dictionary can't be read
+     */
+    String getString(int id)
+    throws IOException
+    {
+        if (id < 0)
+            return null;
+
+        if (m_stringOffsets == null)
+            indexStrings();
+
+        if (id >= m_stringOffsets.length)
+            throw new TableIOException("Invalid File Format: Unknown String: " + id);
+
+        String s = m_stringCache[id];
+        if (s == null) {
+            int offset = m_stringOffsets[id];
+            int len = m_strings.getInt(offset);
+            byte [] bytes = new byte[len];
+            ByteBuffer b = m_strings.duplicate();
+            b.position(offset + 4);
+            b.get(bytes);
+
+            s = new String(bytes, StandardCharsets.UTF_8);
+            m_stringCache[id] = s;
+        }
+
+        return s;
+    }
+
+    @Override
+    public void close()
+    throws IOException
+    {
+        if (m_channel != null) {
+            m_channel.close();
+            m_channel = null;
+        }
+
+        m_bytes = null;
+        m_strings = null;
+        m_stringCache = null;
+    }
+
+    private void indexStrings()
+    throws IOException
+    {
+        Section s = getSection(STRINGS_SECTION);
+        if (s == null) {
+            m_stringOffsets = new int[0];
+            m_stringCache = new String[0];
+            return;
+        }
+
+        m_strings = getData(s);
+        int numStrings = m_strings.getInt(0);
+        m_stringOffsets = new int[numStrings];
+        m_stringCache = new String[numStrings];
+
+        int offset = 4;
+        for (int i = 0; i < numStrings; i++) {
+            m_stringOffsets[i] = offset;
+            offset += 4 + m_strings.getInt(offset);
+        }
+    }
+
+    private ByteBuffer read(long offset, int length)
+    throws IOException
+    {
+        if (offset < 0 || length < 0 || offset + length > m_length)
+            throw new TableIOException("Invalid File Format: Truncated");
+
+        if (m_bytes != null) {
+            ByteBuffer b = m_bytes.duplicate();
+            b.position((int)offset);
+            b.limit((int)offset + length);
+            return b.slice();
+        }
+
+        // files too large to map at once are mapped a section at a time
+        return m_channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+    }
+
+    private static byte [] toArray(ByteBuffer b)
+    {
+        byte [] bytes = new byte[b.remaining()];
+        b.get(bytes);
+        return bytes;
+    }
+
+    /**
+     * A directory entry
+     */
+    static class Section
+    {
+        private final byte m_type;
+        private final int m_key1;
+        private final int m_key2;
+        private final long m_offset;
+        private final int m_length;
+
+        Section(byte type, int key1, int key2, long offset, int length)
+        {
+            m_type = type;
+            m_key1 = key1;
+            m_key2 = key2;
+            m_offset = offset;
+            m_length = length;
+        }
+
+        byte getType()
+        {
+            return m_type;
+        }
+
+        /**
+         * Returns the first section key; the column index of column chunks
+         */
+        int getKey1()
+        {
+            return m_key1;
+        }
+
+        /**
+         * Returns the second section key; the index of the first row of column chunks
+         */
+        int getKey2()
+        {
+            return m_key2;
+        }
+
+        long getOffset()
+        {
+            return m_offset;
+        }
+
+        int getLength()
+        {
+            return m_length;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package org.tms.io;
+
+/**
+ * The layout of the native TMS binary file format, shared by {@link TMSBWriter} and {@link TMSBReader}.
+ * <p>
+ * A file consists of a header, a sequence of sections, a directory of the sections, and a trailer:
+ * <pre>
+ *   header:    magic (int), format version (int), API version (UTF)
+ *   sections:  table, rows, columns, column chunks, cells, subsets, tags, derivations, strings
+ *   directory: count (int), then for each section: type (byte), keys (int, int), offset (long), length (int)
+ *   trailer:   directory offset (long), magic (int)
+ * </pre>
+ * Each column chunk section holds the values of up to {@link org.tms.api.io.TMSBOptions#getChunkSize() getChunkSize()}
+ * consecutive rows of one column, keyed by the column index and the index of the first row in the chunk, so any chunk
+ * can be located from the directory and decoded independently of the others. Strings are stored once, in the strings
+ * section, and are referenced elsewhere by their position in it, or -1 for null.
+ */
+final class TMSBFormat
+{
+    static final int MAGIC = 0x544D5342;
+    static final int FORMAT_VERSION = 1;
+    static final int TRAILER_SIZE = 12;
+    static final int DIRECTORY_ENTRY_SIZE = 21;
+
+    /*
+     * Section types
+     */
+    static final byte TABLE_SECTION = 1;
+    static final byte ROWS_SECTION = 2;
+    static final byte COLUMNS_SECTION = 3;
+    static final byte CHUNK_SECTION = 4;
+    static final byte CELLS_SECTION = 5;
+    static final byte SUBSETS_SECTION = 6;
+    static final byte TAGS_SECTION = 7;
+    static final byte DERIVATIONS_SECTION = 8;
+    static final byte STRINGS_SECTION = 9;
+
+    /*
+     * Column chunk encodings; all of the values in a primitive chunk share the same type
+     */
+    static final byte DOUBLE_ENCODING = 1;
+    static final byte LONG_ENCODING = 2;
+    static final byte INT_ENCODING = 3;
+    static final byte BOOLEAN_ENCODING = 4;
+    static final byte STRING_ENCODING = 5;
+    static final byte MIXED_ENCODING = 6;
+
+    /*
+     * Value types, which precede each value in a mixed chunk
+     */
+    static final byte DOUBLE_VALUE = 1;
+    static final byte LONG_VALUE = 2;
+    static final byte INT_VALUE = 3;
+    static final byte BOOLEAN_VALUE = 4;
+    static final byte STRING_VALUE = 5;
+    static final byte ERROR_VALUE = 6;
+    static final byte OBJECT_VALUE = 7;
+
+    /*
+     * Table element kinds, which precede the indexes that identify an element
+     */
+    static final byte TABLE_ELEMENT = 0;
+    static final byte ROW_ELEMENT = 1;
+    static final byte COLUMN_ELEMENT = 2;
+    static final byte CELL_ELEMENT = 3;
+    static final byte SUBSET_ELEMENT = 4;
+
+    /*
+     * Derivation kinds
+     */
+    static final byte DERIVATION = 1;
+    static final byte TIME_SERIES = 2;
+
+    /*
+     * Element property flags; string properties follow the flags, in flag order
+     */
+    static final int READ_ONLY_SET = 1 << 0;
+    static final int READ_ONLY = 1 << 1;
+    static final int SUPPORTS_NULL_SET = 1 << 2;
+    static final int SUPPORTS_NULL = 1 << 3;
+    static final int ENFORCE_DATATYPE_SET = 1 << 4;
+    static final int ENFORCE_DATATYPE = 1 << 5;
+    static final int LABEL = 1 << 6;
+    static final int DESCRIPTION = 1 << 7;
+    static final int UNITS = 1 << 8;
+    static final int DISPLAY_FORMAT = 1 << 9;
+    static final int UUID = 1 << 10;
+    static final int DATATYPE = 1 << 11;
+    static final int ERROR_MESSAGE = 1 << 12;
+    static final int VALIDATOR = 1 << 13;
+
+    private TMSBFormat()
+    {
+        // constants only
+    }
+}
@@ -0,0 +1,701 @@
+package org.tms.io;
+
+import static org.tms.io.TMSBFormat.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.tms.api.Access;
+import org.tms.api.Cell;
+import org.tms.api.Column;
+import org.tms.api.Row;
+import org.tms.api.Subset;
+import org.tms.api.Table;
+import org.tms.api.TableContext;
+import org.tms.api.TableElement;
+import org.tms.api.TableRowColumnElement;
+import org.tms.api.derivables.Derivable;
+import org.tms.api.derivables.ErrorCode;
+import org.tms.api.derivables.Precisionable;
+import org.tms.api.derivables.TimeSeriesable;
+import org.tms.api.exceptions.TableIOException;
+import org.tms.api.factories.TableContextFactory;
+import org.tms.api.factories.TableFactory;
+import org.tms.api.io.TMSBOptions;
+import org.tms.api.utils.RegisterOp;
+import org.tms.api.utils.TableCellValidator;
+import org.tms.api.utils.Validatable;
+import org.tms.io.TMSBFile.Section;
+import org.tms.tds.CellImpl;
+import org.tms.tds.ContextImpl;
+import org.tms.tds.TableCellsElementImpl;
+import org.tms.tds.TableImpl;
+import org.tms.tds.TableSliceElementImpl;
+import org.tms.teq.DerivationImpl;
+
+import com.thoughtworks.xstream.XStream;
+
+/**
+ * Imports a {@link Table} from the native TMS binary format, described in {@link TMSBFormat}. Files are
+ * memory-mapped, and {@link #parse()} decodes every column chunk directly into the table cells, as the mapping
+ * is released once the table is built. The values of a single column can be read, decoding only the chunks of
+ * that column and without building a table, using {@link #parseColumnValues(int)}.
+ */
+public class TMSBReader extends ArchivalReader<TMSBOptions>
+{
+    /*
+     * In order to rebuild a row/column/cell, we need access to some methods
+     * that are explicitly not available outside of the CellImpl
+     * class/package.
+     *
+     * We will use Java Reflection to get the method calls we need
+     * then mark them as accessible
+     */
+    static private Method setCellValueNoCheck = null;
+    static private Method setCellErrorMessage = null;
+    static private Method setRowColDerivation = null;
+    static private Method setCellDerivation = null;
+    static {
+        try
+        {
+            setCellValueNoCheck = CellImpl.class.getDeclaredMethod("setCellValueNoDataTypeCheck",
+                                                                   new Class<?>[] {Object.class});
+            setCellValueNoCheck.setAccessible(true);
+
+            setCellErrorMessage = CellImpl.class.getDeclaredMethod("setErrorMessage",
+                                                                   new Class<?>[] {String.class});
+            setCellErrorMessage.setAccessible(true);
+
+            // setDerivation(String, boolean) is protected
+            setRowColDerivation = TableSliceElementImpl.class.getDeclaredMethod("setDerivation",
+                                                                   new Class<?>[] {String.class, boolean.class});
+            setRowColDerivation.setAccessible(true);
+
+            setCellDerivation = CellImpl.class.getDeclaredMethod("setDerivation",
+                                                                  new Class<?>[] {String.class, boolean.class});
+            setCellDerivation.setAccessible(true);
+        }
+        catch (NoSuchMethodException | SecurityException e)
+        {
+            throw new TableIOException(e);
+        }
+    }
+
+    private TMSBFile m_file;
+    private TableImpl m_table;
+    private Row [] m_rows;
+    private Column [] m_cols;
+    private List<Subset> m_subsets;
+    private Set<Class<?>> m_dataTypes;
+    private XStream m_xstream;
+
+    public TMSBReader(String fileName)
+    {
+        this(fileName, TableContextFactory.fetchDefaultTableContext(), TMSBOptions.Default);
+    }
+
+    public TMSBReader(String fileName, TMSBOptions format)
+    {
+        this(fileName, TableContextFactory.fetchDefaultTableContext(), format);
+    }
+
+    public TMSBReader(String fileName, TableContext context, TMSBOptions format)
+    {
+        this(new File(fileName), context, format);
+    }
+
+    public TMSBReader(File tmsbFile, TableContext context, TMSBOptions format)
+    {
+        super(tmsbFile, context, format);
+    }
+
+    public TMSBReader(InputStream in, TableContext context, TMSBOptions format)
+    {
+        super(in, context, format);
+    }
+
+    public Table parse() throws IOException
+    {
+        try (TMSBFile file = open()) {
+            m_file = file;
+            return parseTable();
+        }
+        finally {
+            m_file = null;
+            m_rows = null;
+            m_cols = null;
+            m_subsets = null;
+        }
+    }
+
+    /**
+     * Returns the values of a single column, decoding only the chunks of that column.
+     * @param cIdx the 1-based index of the column
+     * @return the column values, indexed by 0-based row index; rows without values are null
+     * @throws IOException if the file can't be read
+     */
+    public Object [] parseColumnValues(int cIdx) throws IOException
+    {
+        try (TMSBFile file = open()) {
+            m_file = file;
+
+            int nRows = m_file.getData(getRequiredSection(TABLE_SECTION)).getInt();
+            Object [] colValues = new Object[nRows];
+            for (Section s : m_file.getSections(CHUNK_SECTION)) {
+                if (s.getKey1() == cIdx) {
+                    Object [] values = readChunk(s);
+                    int firstRow = s.getKey2();
+                    for (int i = 0; i < values.length && firstRow + i <= nRows; i++)
+                        colValues[firstRow + i - 1] = values[i];
+                }
+            }
+
+            return colValues;
+        }
+        finally {
+            m_file = null;
+        }
+    }
+
+    private TMSBFile open() throws IOException
+    {
+        File inFile = getInputFile();
+        if (inFile != null) {
+            // the file is mapped directly; the stream opened by our superclass isn't needed
+            InputStream in = getInputStream();
+            if (in != null)
+                in.close();
+
+            return new TMSBFile(inFile);
+        }
+
+        return new TMSBFile(getInputStream());
+    }
+
+    private Table parseTable() throws IOException
+    {
+        ByteBuffer b = m_file.getData(getRequiredSection(TABLE_SECTION));
+        int nRows = b.getInt();
+        int nCols = b.getInt();
+
+        // create the table, sized as it was when exported
+        int rCap = nRows;
+        int cCap = nCols;
+        boolean verbose = b.get() != 0;
+        if (verbose) {
+            rCap = b.getInt();
+            cCap = b.getInt();
+        }
+
+        m_table = (TableImpl)TableFactory.createTable(rCap, cCap, getTableContext());
+        m_rows = new Row[nRows + 1];
+        m_cols = new Column[nCols + 1];
+        m_subsets = new ArrayList<Subset>();
+        m_dataTypes = new HashSet<Class<?>>();
+
+        if (verbose) {
+            int rIncr = b.getInt();
+            int cIncr = b.getInt();
+            double freeSpace = b.getDouble();
+            boolean autoCalc = b.get() != 0;
+            int precision = b.getInt();
+            boolean rowLabelsIndexed = b.get() != 0;
+            boolean colLabelsIndexed = b.get() != 0;
+            boolean subsetLabelsIndexed = b.get() != 0;
+            boolean cellLabelsIndexed = b.get() != 0;
+
+            if (options().isVerboseState()) {
+                m_table.setRowCapacityIncr(rIncr);
+                m_table.setColumnCapacityIncr(cIncr);
+                m_table.setFreeSpaceThreshold(freeSpace);
+                m_table.setAutoRecalculate(autoCalc);
+                if (precision > 0 && m_table instanceof Precisionable)
+                    ((Precisionable)m_table).setPrecision(precision);
+
+                m_table.setRowLabelsIndexed(rowLabelsIndexed);
+                m_table.setColumnLabelsIndexed(colLabelsIndexed);
+                m_table.setSubsetLabelsIndexed(subsetLabelsIndexed);
+                m_table.setCellLabelsIndexed(cellLabelsIndexed);
+            }
+        }
+
+        // time series
+        long tsRowsPeriod = 0;
+        boolean tsRowsActive = false;
+        int tsColIdx = 0;
+        long tsColsPeriod = 0;
+        boolean tsColsActive = false;
+        int tsRowIdx = 0;
+        if (b.get() != 0) {
+            tsRowsPeriod = b.getLong();
+            tsRowsActive = b.get() != 0;
+            tsColIdx = b.getInt();
+
+            tsColsPeriod = b.getLong();
+            tsColsActive = b.get() != 0;
+            tsRowIdx = b.getInt();
+        }
+
+        readProperties(b, m_table, true);
+
+        parseRows();
+        parseColumns();
+
+        // decode the column chunks directly into the cells
+        for (Section s : m_file.getSections(CHUNK_SECTION))
+            parseChunk(s);
+
+        // verify the table has the correct number of rows & cols
+        if (nRows > m_table.getNumRows())
+            m_table.addRow(nRows);
+
+        if (nCols > m_table.getNumColumns())
+            m_table.addColumn(nCols);
+
+        parseSubsets();
+        parseCells();
+        parseTags();
+
+        // register annotated dataTypes, if any
+        ContextImpl tc = m_table.getTableContext();
+        if (tc != null) {
+            for (Class<?> clazz : m_dataTypes) {
+                if (clazz.getAnnotation(RegisterOp.class) != null)
+                    tc.registerOperators(clazz);
+            }
+        }
+
+        // process derivations, if any
+        if (options().isDerivations()) {
+            parseDerivations(DERIVATION);
+
+            if (options().isRecalculate())
+                m_table.recalculate();
+        }
+
+        // process time series, if any; do this only once we've extended the table, as it
+        // can instantly start appending rows/columns
+        if (options().isTimeSeries()) {
+            parseDerivations(TIME_SERIES);
+
+            if (m_table.isTimeSeriesedRows() && tsRowsPeriod > 0 && tsRowsActive && options().isReenable())
+                m_table.enableTimeSeriesedRows(tsColIdx > 0 ? getColumn(tsColIdx) : null, tsRowsPeriod);
+
+            if (m_table.isTimeSeriesedColumns() && tsColsPeriod > 0 && tsColsActive && options().isReenable())
+                m_table.enableTimeSeriesedColumns(tsRowIdx > 0 ? getRow(tsRowIdx) : null, tsColsPeriod);
+        }
+
+        return m_table;
+    }
+
+    private void parseRows() throws IOException
+    {
+        Section s = m_file.getSection(ROWS_SECTION);
+        if (s == null)
+            return;
+
+        ByteBuffer b = m_file.getData(s);
+        for (int n = b.getInt(); n > 0; n--) {
+            Row r = getRow(b.getInt());
+            readProperties(b, r, options().isRowLabels());
+        }
+    }
+
+    private void parseColumns() throws IOException
+    {
+        Section s = m_file.getSection(COLUMNS_SECTION);
+        if (s == null)
+            return;
+
+        ByteBuffer b = m_file.getData(s);
+        for (int n = b.getInt(); n > 0; n--) {
+            Column c = getColumn(b.getInt());
+            readProperties(b, c, options().isColumnLabels());
+        }
+    }
+
+    private void parseChunk(Section s) throws IOException
+    {
+        Column col = getColumn(s.getKey1());
+        int firstRow = s.getKey2();
+
+        Object [] values = readChunk(s);
+        try {
+            for (int i = 0; i < values.length; i++) {
+                Object value = values[i];
+                if (value != null) {
+                    Cell c = m_table.getCell(getRow(firstRow + i), col);
+                    setCellValueNoCheck.invoke(c, value);
+                }
+            }
+        }
+        catch (IllegalAccessException | IllegalArgumentException | InvocationTargetException e) {
+            throw new TableIOException(e);
+        }
+    }
+
+    private Object [] readChunk(Section s) throws IOException
+    {
+        ByteBuffer b = m_file.getData(s);
+        int n = b.getInt();
+        byte encoding = b.get();
+
+        int numWords = (n + 63) >>> 6;
+        long [] present = new long[numWords];
+        for (int w = 0; w < numWords; w++)
+            present[w] = b.getLong();
+
+        long [] trues = null;
+        if (encoding == BOOLEAN_ENCODING) {
+            trues = new long[numWords];
+            for (int w = 0; w < numWords; w++)
+                trues[w] = b.getLong();
+        }
+
+        Object [] values = new Object[n];
+        for (int i = 0; i < n; i++) {
+            if ((present[i >>> 6] & (1L << i)) == 0)
+                continue;
+
+            switch (encoding) {
+                case DOUBLE_ENCODING:
+                    values[i] = b.getDouble();
+                    break;
+
+                case LONG_ENCODING:
+                    values[i] = b.getLong();
+                    break;
+
+                case INT_ENCODING:
+                    values[i] = b.getInt();
+                    break;
+
+                case BOOLEAN_ENCODING:
+                    values[i] = (trues[i >>> 6] & (1L << i)) != 0;
+                    break;
+
+                case STRING_ENCODING:
+                    values[i] = m_file.getString(b.getInt());
+                    break;
+
+                case MIXED_ENCODING:
+                    values[i] = readValue(b);
+                    break;
+
+                default:
+                    throw new TableIOException("Invalid File Format: Unknown Encoding: " + encoding);
+            }
+        }
+
+        return values;
+    }
+
+    private Object readValue(ByteBuffer b) throws IOException
+    {
+        byte type = b.get();
+        switch (type) {
+            case DOUBLE_VALUE:
+                return b.getDouble();
+
+            case LONG_VALUE:
+                return b.getLong();
+
+            case INT_VALUE:
+                return b.getInt();
+
+            case BOOLEAN_VALUE:
+                return b.get() != 0;
+
+            case STRING_VALUE:
+                return m_file.getString(b.getInt());
+
+            case ERROR_VALUE:
+                try {
+                    return ErrorCode.valueOf(m_file.getString(b.getInt()));
+                }
+                catch (IllegalArgumentException e) {
+                    return ErrorCode.NaN;
+                }
+
+            case OBJECT_VALUE:
+                Object value = getXStream().fromXML(m_file.getString(b.getInt()));
+                if (value != null && m_dataTypes != null)
+                    m_dataTypes.add(value.getClass());
+                return value;
+
+            default:
+                throw new TableIOException("Invalid File Format: Unknown Value Type: " + type);
+        }
+    }
+
+    private void parseSubsets() throws IOException
+    {
+        Section s = m_file.getSection(SUBSETS_SECTION);
+        if (s == null)
+            return;
+
+        ByteBuffer b = m_file.getData(s);
+        for (int n = b.getInt(); n > 0; n--) {
+            Subset subset = m_table.addSubset(Access.Next);
+            readProperties(b, subset, true);
+
+            for (int nRows = b.getInt(); nRows > 0; nRows--) {
+                Row r = m_table.getRow(b.getInt());
+                if (r != null)
+                    subset.add(r);
+            }
+
+            for (int nCols = b.getInt(); nCols > 0; nCols--) {
+                Column c = m_table.getColumn(b.getInt());
+                if (c != null)
+                    subset.add(c);
+            }
+
+            m_subsets.add(subset);
+        }
+    }
+
+    private void parseCells() throws IOException
+    {
+        Section s = m_file.getSection(CELLS_SECTION);
+        if (s == null)
+            return;
+
+        ByteBuffer b = m_file.getData(s);
+        for (int n = b.getInt(); n > 0; n--) {
+            Row r = getRow(b.getInt());
+            Column c = getColumn(b.getInt());
+            readProperties(b, m_table.getCell(r, c), true);
+        }
+    }
+
+    private void parseTags() throws IOException
+    {
+        Section s = m_file.getSection(TAGS_SECTION);
+        if (s == null || !options().isTags())
+            return;
+
+        ByteBuffer b = m_file.getData(s);
+        for (int n = b.getInt(); n > 0; n--) {
+            TableElement te = readKey(b);
+            int numTags = b.getInt();
+            String [] tags = new String[numTags];
+            for (int i = 0; i < numTags; i++)
+                tags[i] = m_file.getString(b.getInt());
+
+            if (te != null)
+                te.tag(tags);
+        }
+    }
+
+    private void parseDerivations(byte kind) throws IOException
+    {
+        Section s = m_file.getSection(DERIVATIONS_SECTION);
+        if (s == null)
+            return;
+
+        ByteBuffer b = m_file.getData(s);
+        for (int n = b.getInt(); n > 0; n--) {
+            byte dKind = b.get();
+            TableElement te = readKey(b);
+            String expr = m_file.getString(b.getInt());
+            long period = b.getLong();
+
+            if (dKind != kind || te == null || expr == null)
+                continue;
+
+            if (kind == TIME_SERIES) {
+                if (te instanceof TimeSeriesable)
+                    ((TimeSeriesable)te).setTimeSeries(expr);
+            }
+            else if (te instanceof Derivable)
+                restoreDerivation((Derivable)te, expr, period);
+        }
+    }
+
+    private void restoreDerivation(Derivable d, String expr, long period)
+    {
+        try
+        {
+            if (d instanceof TableSliceElementImpl)
+                setRowColDerivation.invoke(d, expr, false);
+            else if (d instanceof CellImpl)
+                setCellDerivation.invoke(d, expr, false);
+
+            if (period > 0) {
+                DerivationImpl dv = (DerivationImpl)d.getDerivation();
+                if (dv != null)
+                    dv.recalculateEvery(period);
+            }
+        }
+        catch (IllegalAccessException | IllegalArgumentException | InvocationTargetException e)
+        {
+            throw new TableIOException(e);
+        }
+    }
+
+    private TableElement readKey(ByteBuffer b)
+    {
+        byte kind = b.get();
+        switch (kind) {
+            case TABLE_ELEMENT:
+                return m_table;
+
+            case ROW_ELEMENT:
+                return getRow(b.getInt());
+
+            case COLUMN_ELEMENT:
+                return getColumn(b.getInt());
+
+            case CELL_ELEMENT:
+                Row r = getRow(b.getInt());
+                return m_table.getCell(r, getColumn(b.getInt()));
+
+            case SUBSET_ELEMENT:
+                int sIdx = b.getInt();
+                return sIdx > 0 && sIdx <= m_subsets.size() ? m_subsets.get(sIdx - 1) : null;
+
+            default:
+                throw new TableIOException("Invalid File Format: Unknown Element: " + kind);
+        }
+    }
+
+    private void readProperties(ByteBuffer b, TableElement te, boolean doLabel) throws IOException
+    {
+        int mask = b.getInt();
+        if ((mask & READ_ONLY_SET) != 0)
+            te.setReadOnly((mask & READ_ONLY) != 0);
+
+        if ((mask & SUPPORTS_NULL_SET) != 0)
+            te.setSupportsNull((mask & SUPPORTS_NULL) != 0);
+
+        if ((mask & ENFORCE_DATATYPE_SET) != 0)
+            te.setEnforceDataType((mask & ENFORCE_DATATYPE) != 0);
+
+        String label = readString(b, mask, LABEL);
+        if (label != null && doLabel)
+            te.setLabel(label);
+
+        String desc = readString(b, mask, DESCRIPTION);
+        if (desc != null && options().isDescriptions())
+            te.setDescription(desc);
+
+        String units = readString(b, mask, UNITS);
+        if (units != null && options().isUnits()) {
+            if (te instanceof TableRowColumnElement)
+                ((TableRowColumnElement)te).setUnits(units);
+            else if (te instanceof Cell)
+                ((Cell)te).setUnits(units);
+        }
+
+        String format = readString(b, mask, DISPLAY_FORMAT);
+        if (format != null && options().isDisplayFormats()) {
+            if (te instanceof TableRowColumnElement)
+                ((TableRowColumnElement)te).setDisplayFormat(format);
+            else if (te instanceof Cell)
+                ((Cell)te).setDisplayFormat(format);
+        }
+
+        String uuid = readString(b, mask, UUID);
+        if (uuid != null && options().isUUIDs()) {
+            if (te instanceof TableCellsElementImpl)
+                ((TableCellsElementImpl)te).setUUID(uuid);
+            if (te instanceof CellImpl)
+                ((CellImpl)te).setUUID(uuid);
+        }
+
+        String dataType = readString(b, mask, DATATYPE);
+        if (dataType != null && te instanceof Column) {
+            try {
+                Class<?> clazz = Class.forName(dataType);
+                ((Column)te).setDataType(clazz);
+                m_dataTypes.add(clazz);
+            }
+            catch (ClassNotFoundException e) {
+                throw new TableIOException(e);
+            }
+        }
+
+        String errorMsg = readString(b, mask, ERROR_MESSAGE);
+        if (errorMsg != null && te instanceof CellImpl) {
+            try {
+                setCellErrorMessage.invoke(te, errorMsg);
+            }
+            catch (IllegalAccessException | IllegalArgumentException | InvocationTargetException e) {
+                throw new TableIOException(e);
+            }
+        }
+
+        String validator = readString(b, mask, VALIDATOR);
+        if (validator != null && options().isValidators() && te instanceof Validatable) {
+            Object v = getXStream().fromXML(validator);
+            if (v != null)
+                ((Validatable)te).setValidator((TableCellValidator)v);
+        }
+    }
+
+    private String readString(ByteBuffer b, int mask, int flag) throws IOException
+    {
+        return (mask & flag) != 0 ? m_file.getString(b.getInt()) : null;
+    }
+
+    private Section getRequiredSection(byte type) throws IOException
+    {
+        Section s = m_file.getSection(type);
+        if (s == null)
+            throw new TableIOException("Invalid File Format: Missing Section: " + type);
+
+        return s;
+    }
+
+    private Row getRow(int rIdx)
+    {
+        if (rIdx >= m_rows.length)
+            m_rows = Arrays.copyOf(m_rows, Math.max(rIdx + 1, m_rows.length * 2));
+
+        Row r = m_rows[rIdx];
+        if (r == null) {
+            r = m_table.getRow(rIdx);
+            if (r == null)
+                r = m_table.addRow(Access.ByIndex, rIdx);
+
+            m_rows[rIdx] = r;
+        }
+
+        return r;
+    }
+
+    private Column getColumn(int cIdx)
+    {
+        if (cIdx >= m_cols.length)
+            m_cols = Arrays.copyOf(m_cols, Math.max(cIdx + 1, m_cols.length * 2));
+
+        Column c = m_cols[cIdx];
+        if (c == null) {
+            c = m_table.getColumn(cIdx);
+            if (c == null)
+                c = m_table.addColumn(Access.ByIndex, cIdx);
+
+            m_cols[cIdx] = c;
+        }
+
+        return c;
+    }
+
+    private XStream getXStream()
+    {
+        if (m_xstream == null)
+            m_xstream = getXStream(this);
+
+        return m_xstream;
+    }
+}
@@ -0,0 +1,696 @@
+package org.tms.io;
+
+import static org.tms.io.TMSBFormat.*;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.tms.api.Cell;
+import org.tms.api.Column;
+import org.tms.api.ElementType;
+import org.tms.api.Row;
+import org.tms.api.Subset;
+import org.tms.api.Table;
+import org.tms.api.TableElement;
+import org.tms.api.TableProperty;
+import org.tms.api.derivables.Derivable;
+import org.tms.api.derivables.Derivation;
+import org.tms.api.derivables.ErrorCode;
+import org.tms.api.derivables.TimeSeriesable;
+import org.tms.api.exceptions.TableIOException;
+import org.tms.api.io.TMSBOptions;
+import org.tms.api.utils.ApiVersion;
+import org.tms.api.utils.Validatable;
+import org.tms.tds.ColumnImpl;
+import org.tms.tds.TableImpl;
+import org.tms.teq.DerivationImpl;
+
+import com.thoughtworks.xstream.XStream;
+
+/**
+ * Exports a {@link Table} in the native TMS binary format, described in {@link TMSBFormat}. Cell values are written
+ * column by column, a chunk of rows at a time, so only one chunk of values is buffered at once; the table, row, column,
+ * cell, and subset metadata, and the string dictionary, are written after the column chunks.
+ */
+public class TMSBWriter extends ArchivalWriter<TMSBOptions>
+{
+    public static void export(TableExportAdapter tableExportAdapter, OutputStream out, TMSBOptions options)
+    throws IOException
+    {
+        TMSBWriter tw = new TMSBWriter(tableExportAdapter, out, options);
+        tw.export();
+    }
+
+    @SuppressWarnings("resource")
+    public static void export(TableExportAdapter tableExportAdapter, File file, TMSBOptions options)
+    throws IOException
+    {
+        export(tableExportAdapter, new FileOutputStream(file), options);
+    }
+
+    private DataOutputStream m_out;
+    private long m_position;
+
+    private Section m_section;
+    private Section m_cells;
+    private Section m_tags;
+    private Section m_derivations;
+    private DataOutputStream m_directory;
+    private ByteArrayOutputStream m_directoryBytes;
+    private int m_numSections;
+
+    private Map<String, Integer> m_stringIds;
+    private Section m_strings;
+    private XStream m_xstream;
+
+    private TMSBWriter(TableExportAdapter tw, OutputStream out, TMSBOptions options)
+    {
+        super(tw, out, options);
+    }
+
+    @Override
+    protected void export() throws IOException
+    {
+        if (getTableElementType() == ElementType.TableContext)
+            throw new TableIOException("TableContext export not supported in TMSB format");
+
+        m_out = new DataOutputStream(new BufferedOutputStream(getOutputStream(), 1 << 16));
+        m_position = 0;
+
+        m_section = new Section();
+        m_cells = new Section();
+        m_cells.beginRecords();
+        m_tags = new Section();
+        m_tags.beginRecords();
+        m_derivations = new Section();
+        m_derivations.beginRecords();
+        m_strings = new Section();
+        m_strings.beginRecords();
+        m_stringIds = new HashMap<String, Integer>();
+        m_directoryBytes = new ByteArrayOutputStream();
+        m_directory = new DataOutputStream(m_directoryBytes);
+        m_numSections = 0;
+
+        writeHeader();
+
+        int nRows = getNumConsumableRows();
+        int nCols = getNumConsumableColumns();
+        writeTable(nRows, nCols);
+
+        // index the rows by their exported index, so column chunks can be filled by position
+        Row [] rows = new Row[nRows + 1];
+        for (Row r : getActiveRows()) {
+            int rIdx = getRemappedRowIndex(r);
+            if (rIdx > 0 && rIdx <= nRows)
+                rows[rIdx] = r;
+        }
+
+        writeRows(rows);
+        writeColumns();
+        writeColumnChunks(rows);
+
+        if (getTableElementType() == ElementType.Table)
+            writeSubsets();
+
+        // the metadata sections accumulate as the elements that they describe are written
+        writeSection(m_cells, CELLS_SECTION, 0, 0);
+        writeSection(m_tags, TAGS_SECTION, 0, 0);
+        writeSection(m_derivations, DERIVATIONS_SECTION, 0, 0);
+        writeSection(m_strings, STRINGS_SECTION, 0, 0);
+
+        // write the directory and trailer
+        long dirOffset = m_position;
+        m_out.writeInt(m_numSections);
+        m_directoryBytes.writeTo(m_out);
+        m_out.writeLong(dirOffset);
+        m_out.writeInt(MAGIC);
+        m_out.flush();
+    }
+
+    private void writeHeader() throws IOException
+    {
+        DataOutputStream d = m_section.begin();
+        d.writeInt(MAGIC);
+        d.writeInt(FORMAT_VERSION);
+        d.writeUTF(ApiVersion.CURRENT_VERSION.toFullVersionString());
+
+        m_section.writeTo(m_out);
+        m_position += m_section.size();
+    }
+
+    private void writeTable(int nRows, int nCols) throws IOException
+    {
+        Table t = getTable();
+        DataOutputStream d = m_section.begin();
+        d.writeInt(nRows);
+        d.writeInt(nCols);
+
+        TableImpl ti = t instanceof TableImpl ? (TableImpl)t : null;
+        boolean verbose = options().isVerboseState() && ti != null;
+        d.writeBoolean(verbose);
+        if (verbose) {
+            d.writeInt(ti.getRowsCapacity());
+            d.writeInt(ti.getColumnsCapacity());
+            d.writeInt(ti.getRowCapacityIncr());
+            d.writeInt(ti.getColumnCapacityIncr());
+            d.writeDouble(ti.getFreeSpaceThreshold());
+            d.writeBoolean(ti.isAutoRecalculate());
+            d.writeInt(ti.getPrecision());
+            d.writeBoolean(ti.isRowLabelsIndexed());
+            d.writeBoolean(ti.isColumnLabelsIndexed());
+            d.writeBoolean(ti.isSubsetLabelsIndexed());
+            d.writeBoolean(ti.isCellLabelsIndexed());
+        }
+
+        // time series
+        boolean timeSeries = (options().isVerboseState() || options().isTimeSeries()) && ti != null;
+        d.writeBoolean(timeSeries);
+        if (timeSeries) {
+            d.writeLong(ti.getTimeSeriesedRowsPeriodInMilliSeconds());
+            d.writeBoolean(ti.isTimeSeriesedRowsActive());
+            d.writeInt(getRemappedColumnIndex(ti.getTimeSeriesedRowsTimeStampColumn()));
+
+            d.writeLong(ti.getTimeSeriesedColumnsPeriodInMilliSeconds());
+            d.writeBoolean(ti.isTimeSeriesedColumnsActive());
+            d.writeInt(getRemappedRowIndex(ti.getTimeSeriesedColumnsTimeStampRow()));
+        }
+
+        writeProperties(d, t, getPropertiesMask(t, true));
+        writeSection(m_section, TABLE_SECTION, 0, 0);
+
+        addTags(t, TABLE_ELEMENT, 0, 0);
+    }
+
+    private void writeRows(Row [] rows) throws IOException
+    {
+        DataOutputStream d = m_section.beginRecords();
+        for (int rIdx = 1; rIdx < rows.length; rIdx++) {
+            Row r = rows[rIdx];
+            if (r == null)
+                continue;
+
+            int mask = getPropertiesMask(r, options().isRowLabels());
+            if (mask != 0) {
+                d.writeInt(rIdx);
+                writeProperties(d, r, mask);
+                m_section.increment();
+            }
+
+            addTags(r, ROW_ELEMENT, rIdx, 0);
+            addDerivations(r, ROW_ELEMENT, rIdx, 0);
+        }
+
+        writeSection(m_section, ROWS_SECTION, 0, 0);
+    }
+
+    private void writeColumns() throws IOException
+    {
+        DataOutputStream d = m_section.beginRecords();
+        for (Column c : getActiveColumns()) {
+            if (c == null)
+                continue;
+
+            int cIdx = getRemappedColumnIndex(c);
+            int mask = getPropertiesMask(c, options().isColumnLabels());
+            if (mask != 0) {
+                d.writeInt(cIdx);
+                writeProperties(d, c, mask);
+                m_section.increment();
+            }
+
+            addTags(c, COLUMN_ELEMENT, cIdx, 0);
+            addDerivations(c, COLUMN_ELEMENT, cIdx, 0);
+        }
+
+        writeSection(m_section, COLUMNS_SECTION, 0, 0);
+    }
+
+    private void writeColumnChunks(Row [] rows) throws IOException
+    {
+        Table t = getTable();
+        int nRows = rows.length - 1;
+        int chunkSize = options().getChunkSize();
+        Object [] values = new Object[Math.min(chunkSize, Math.max(nRows, 1))];
+
+        for (Column c : getActiveColumns()) {
+            if (c == null)
+                continue;
+
+            int cIdx = getRemappedColumnIndex(c);
+            for (int firstRow = 1; firstRow <= nRows; firstRow += chunkSize) {
+                int n = Math.min(chunkSize, nRows - firstRow + 1);
+                int numValues = 0;
+                for (int i = 0; i < n; i++) {
+                    Object value = null;
+                    Row r = rows[firstRow + i];
+                    if (r != null && t.isCellDefined(r, c)) {
+                        // values held in a columnar store are written without materializing their cells
+                        Cell cell = c instanceof ColumnImpl ? ((ColumnImpl)c).findCell(r) : t.getCell(r, c);
+                        if (cell != null) {
+                            value = cell.isErrorValue() ? cell.getErrorCode() : cell.getCellValue();
+                            addCell(cell, firstRow + i, cIdx);
+                        }
+                        else
+                            value = t.getCellValue(r, c);
+                    }
+
+                    values[i] = value;
+                    if (value != null)
+                        numValues++;
+                }
+
+                // chunks without values are omitted entirely
+                if (numValues > 0)
+                    writeChunk(values, n, cIdx, firstRow);
+            }
+        }
+    }
+
+    private void writeChunk(Object [] values, int n, int cIdx, int firstRow) throws IOException
+    {
+        // determine if all of the values share a type with a primitive encoding
+        Class<?> commonType = null;
+        for (int i = 0; i < n; i++) {
+            Object value = values[i];
+            if (value != null) {
+                if (commonType == null)
+                    commonType = value.getClass();
+                else if (commonType != value.getClass()) {
+                    commonType = Object.class;
+                    break;
+                }
+            }
+        }
+
+        byte encoding = commonType == Double.class ? DOUBLE_ENCODING :
+                        commonType == Long.class ? LONG_ENCODING :
+                        commonType == Integer.class ? INT_ENCODING :
+                        commonType == Boolean.class ? BOOLEAN_ENCODING :
+                        commonType == String.class ? STRING_ENCODING : MIXED_ENCODING;
+
+        DataOutputStream d = m_section.begin();
+        d.writeInt(n);
+        d.writeByte(encoding);
+
+        // bitmap of the rows with values
+        for (int w = 0; w < n; w += 64) {
+            long word = 0;
+            for (int b = 0; b < 64 && w + b < n; b++) {
+                if (values[w + b] != null)
+                    word |= 1L << b;
+            }
+            d.writeLong(word);
+        }
+
+        if (encoding == BOOLEAN_ENCODING) {
+            for (int w = 0; w < n; w += 64) {
+                long word = 0;
+                for (int b = 0; b < 64 && w + b < n; b++) {
+                    if (values[w + b] == Boolean.TRUE)
+                        word |= 1L << b;
+                }
+                d.writeLong(word);
+            }
+        }
+        else {
+            for (int i = 0; i < n; i++) {
+                Object value = values[i];
+                if (value == null)
+                    continue;
+
+                switch (encoding) {
+                    case DOUBLE_ENCODING:
+                        d.writeDouble((Double)value);
+                        break;
+
+                    case LONG_ENCODING:
+                        d.writeLong((Long)value);
+                        break;
+
+                    case INT_ENCODING:
+                        d.writeInt((Integer)value);
+                        break;
+
+                    case STRING_ENCODING:
+                        d.writeInt(stringId((String)value));
+                        break;
+
+                    default:
+                        writeValue(d, value);
+                        break;
+                }
+            }
+        }
+
+        writeSection(m_section, CHUNK_SECTION, cIdx, firstRow);
+    }
+
+    private void writeValue(DataOutputStream d, Object value) throws IOException
+    {
+        if (value instanceof Double) {
+            d.writeByte(DOUBLE_VALUE);
+            d.writeDouble((Double)value);
+        }
+        else if (value instanceof Long) {
+            d.writeByte(LONG_VALUE);
+            d.writeLong((Long)value);
+        }
+        else if (value instanceof Integer) {
+            d.writeByte(INT_VALUE);
+            d.writeInt((Integer)value);
+        }
+        else if (value instanceof Boolean) {
+            d.writeByte(BOOLEAN_VALUE);
+            d.writeBoolean((Boolean)value);
+        }
+        else if (value instanceof String) {
+            d.writeByte(STRING_VALUE);
+            d.writeInt(stringId((String)value));
+        }
+        else if (value instanceof ErrorCode) {
+            d.writeByte(ERROR_VALUE);
+            d.writeInt(stringId(((ErrorCode)value).name()));
+        }
+        else {
+            // all other values are persisted as they are in the TMS format
+            d.writeByte(OBJECT_VALUE);
+            d.writeInt(stringId(getXStream().toXML(value)));
+        }
+    }
+
+    private void writeSubsets() throws IOException
+    {
+        int sIdx = 0;
+        DataOutputStream d = m_section.beginRecords();
+        for (Subset s : getTable().getSubsets()) {
+            int [] rIdxs = getSubsetRows(s.getRows());
+            int [] cIdxs = getSubsetColumns(s.getColumns());
+
+            // if all of the rows/columns are excluded, omit
+            if (rIdxs.length == 0 && cIdxs.length == 0)
+                continue;
+
+            sIdx++;
+            writeProperties(d, s, getPropertiesMask(s, true));
+
+            d.writeInt(rIdxs.length);
+            for (int rIdx : rIdxs)
+                d.writeInt(rIdx);
+
+            d.writeInt(cIdxs.length);
+            for (int cIdx : cIdxs)
+                d.writeInt(cIdx);
+
+            addTags(s, SUBSET_ELEMENT, sIdx, 0);
+            m_section.increment();
+        }
+
+        writeSection(m_section, SUBSETS_SECTION, 0, 0);
+    }
+
+    private int [] getSubsetRows(List<Row> rows)
+    {
+        int [] idxs = new int[rows.size()];
+        int n = 0;
+        for (Row r : rows) {
+            if (!isIgnore(r))
+                idxs[n++] = getRemappedRowIndex(r);
+        }
+
+        return n == idxs.length ? idxs : Arrays.copyOf(idxs, n);
+    }
+
+    private int [] getSubsetColumns(List<Column> cols)
+    {
+        int [] idxs = new int[cols.size()];
+        int n = 0;
+        for (Column c : cols) {
+            if (!isIgnore(c))
+                idxs[n++] = getRemappedColumnIndex(c);
+        }
+
+        return n == idxs.length ? idxs : Arrays.copyOf(idxs, n);
+    }
+
+    private void addCell(Cell cell, int rIdx, int cIdx) throws IOException
+    {
+        int mask = getPropertiesMask(cell, true);
+        if (mask != 0) {
+            DataOutputStream d = m_cells.data();
+            d.writeInt(rIdx);
+            d.writeInt(cIdx);
+            writeProperties(d, cell, mask);
+            m_cells.increment();
+        }
+
+        addTags(cell, CELL_ELEMENT, rIdx, cIdx);
+        addDerivations(cell, CELL_ELEMENT, rIdx, cIdx);
+    }
+
+    private void addTags(TableElement te, byte kind, int idx1, int idx2) throws IOException
+    {
+        if (!options().isTags() && !options().isVerboseState())
+            return;
+
+        String [] tags = te.getTags();
+        if (tags == null || tags.length == 0)
+            return;
+
+        DataOutputStream d = m_tags.data();
+        writeKey(d, kind, idx1, idx2);
+        d.writeInt(tags.length);
+        for (String tag : tags)
+            d.writeInt(stringId(tag));
+
+        m_tags.increment();
+    }
+
+    private void addDerivations(TableElement te, byte kind, int idx1, int idx2) throws IOException
+    {
+        if (getTableElementType() != ElementType.Table)
+            return;
+
+        if ((options().isDerivations() || options().isVerboseState()) &&
+                te instanceof Derivable && ((Derivable)te).isDerived()) {
+            Derivation deriv = ((Derivable)te).getDerivation();
+            DataOutputStream d = m_derivations.data();
+            d.writeByte(DERIVATION);
+            writeKey(d, kind, idx1, idx2);
+            d.writeInt(stringId(deriv.getExpression()));
+            d.writeLong(deriv.isPeriodic() ? ((DerivationImpl)deriv).getPeriodInMilliSeconds() : 0);
+            m_derivations.increment();
+        }
+
+        if ((options().isTimeSeries() || options().isVerboseState()) &&
+                te instanceof TimeSeriesable && ((TimeSeriesable)te).isTimeSeries()) {
+            DataOutputStream d = m_derivations.data();
+            d.writeByte(TIME_SERIES);
+            writeKey(d, kind, idx1, idx2);
+            d.writeInt(stringId(((TimeSeriesable)te).getTimeSeries().getExpression()));
+            d.writeLong(0);
+            m_derivations.increment();
+        }
+    }
+
+    private void writeKey(DataOutputStream d, byte kind, int idx1, int idx2) throws IOException
+    {
+        d.writeByte(kind);
+        if (kind != TABLE_ELEMENT)
+            d.writeInt(idx1);
+        if (kind == CELL_ELEMENT)
+            d.writeInt(idx2);
+    }
+
+    private int getPropertiesMask(TableElement te, boolean includeLabel)
+    {
+        int mask = 0;
+        Table t = te.getTable();
+        boolean isTable = te == t;
+
+        if (isTable || te.isReadOnly() != t.isReadOnly())
+            mask |= READ_ONLY_SET | (te.isReadOnly() ? READ_ONLY : 0);
+
+        if (isTable || te.isSupportsNull() != t.isSupportsNull())
+            mask |= SUPPORTS_NULL_SET | (te.isSupportsNull() ? SUPPORTS_NULL : 0);
+
+        if (isTable || (te.hasProperty(TableProperty.isEnforceDataType) && te.isEnforceDataType() != t.isEnforceDataType()))
+            mask |= ENFORCE_DATATYPE_SET | (te.isEnforceDataType() ? ENFORCE_DATATYPE : 0);
+
+        if (includeLabel && getString(te, TableProperty.Label) != null)
+            mask |= LABEL;
+
+        if ((options().isDescriptions() || options().isVerboseState()) && getString(te, TableProperty.Description) != null)
+            mask |= DESCRIPTION;
+
+        if ((options().isUnits() || options().isVerboseState()) && getString(te, TableProperty.Units) != null)
+            mask |= UNITS;
+
+        if ((options().isDisplayFormats() || options().isVerboseState()) && getString(te, TableProperty.DisplayFormat) != null)
+            mask |= DISPLAY_FORMAT;
+
+        if ((options().isUUIDs() || options().isVerboseState()) && getString(te, TableProperty.UUID) != null)
+            mask |= UUID;
+
+        if (te instanceof Column && te.hasProperty(TableProperty.DataType) && te.getProperty(TableProperty.DataType) != null)
+            mask |= DATATYPE;
+
+        if (te instanceof Cell && ((Cell)te).isErrorValue() && getString(te, TableProperty.ErrorMessage) != null)
+            mask |= ERROR_MESSAGE;
+
+        if (options().isValidators() && te instanceof Validatable && ((Validatable)te).getValidator() != null)
+            mask |= VALIDATOR;
+
+        return mask;
+    }
+
+    private void writeProperties(DataOutputStream d, TableElement te, int mask) throws IOException
+    {
+        d.writeInt(mask);
+
+        if ((mask & LABEL) != 0)
+            d.writeInt(stringId(getString(te, TableProperty.Label)));
+
+        if ((mask & DESCRIPTION) != 0)
+            d.writeInt(stringId(getString(te, TableProperty.Description)));
+
+        if ((mask & UNITS) != 0)
+            d.writeInt(stringId(getString(te, TableProperty.Units)));
+
+        if ((mask & DISPLAY_FORMAT) != 0)
+            d.writeInt(stringId(getString(te, TableProperty.DisplayFormat)));
+
+        if ((mask & UUID) != 0)
+            d.writeInt(stringId(getString(te, TableProperty.UUID)));
+
+        if ((mask & DATATYPE) != 0)
+            d.writeInt(stringId(((Class<?>)te.getProperty(TableProperty.DataType)).getName()));
+
+        if ((mask & ERROR_MESSAGE) != 0)
+            d.writeInt(stringId(getString(te, TableProperty.ErrorMessage)));
+
+        if ((mask & VALIDATOR) != 0)
+            d.writeInt(stringId(getXStream().toXML(((Validatable)te).getValidator())));
+    }
+
+    private String getString(TableElement te, TableProperty key)
+    {
+        if (te.hasProperty(key)) {
+            Object val = te.getProperty(key);
+            if (val != null) {
+                String s = val.toString().trim();
+                if (s.length() > 0)
+                    return s;
+            }
+        }
+
+        return null;
+    }
+
+    private int stringId(String s) throws IOException
+    {
+        if (s == null)
+            return -1;
+
+        Integer id = m_stringIds.get(s);
+        if (id == null) {
+            id = m_stringIds.size();
+            m_stringIds.put(s, id);
+
+            byte [] bytes = s.getBytes(StandardCharsets.UTF_8);
+            DataOutputStream d = m_strings.data();
+            d.writeInt(bytes.length);
+            d.write(bytes);
+            m_strings.increment();
+        }
+
+        return id;
+    }
+
+    private XStream getXStream()
+    {
+        if (m_xstream == null)
+            m_xstream = new XStream();
+
+        return m_xstream;
+    }
+
+    private void writeSection(Section section, byte type, int key1, int key2) throws IOException
+    {
+        section.writeTo(m_out);
+
+        m_directory.writeByte(type);
+        m_directory.writeInt(key1);
+        m_directory.writeInt(key2);
+        m_directory.writeLong(m_position);
+        m_directory.writeInt(section.size());
+        m_numSections++;
+
+        m_position += section.size();
+    }
+
+    /**
+     * A section under construction; sections that consist of a list of records begin with the record count
+     */
+    private static class Section extends ByteArrayOutputStream
+    {
+        private final DataOutputStream m_data;
+        private boolean m_isRecords;
+        private int m_count;
+
+        Section()
+        {
+            super(1 << 16);
+            m_data = new DataOutputStream(this);
+        }
+
+        DataOutputStream begin()
+        {
+            reset();
+            m_isRecords = false;
+            m_count = 0;
+            return m_data;
+        }
+
+        DataOutputStream beginRecords() throws IOException
+        {
+            begin();
+            m_isRecords = true;
+            m_data.writeInt(0);
+            return m_data;
+        }
+
+        DataOutputStream data()
+        {
+            return m_data;
+        }
+
+        void increment()
+        {
+            m_count++;
+        }
+
+        @Override
+        public synchronized void writeTo(OutputStream out) throws IOException
+        {
+            // patch the record count into the placeholder
+            if (m_isRecords) {
+                buf[0] = (byte)(m_count >>> 24);
+                buf[1] = (byte)(m_count >>> 16);
+                buf[2] = (byte)(m_count >>> 8);
+                buf[3] = (byte)m_count;
+            }
+
+            super.writeTo(out);
+        }
+    }
+}
@@ -22,6 +22,7 @@ import org.tms.api.io.IOOption;
 import org.tms.api.io.JSONOptions;
 import org.tms.api.io.PDFOptions;
 import org.tms.api.io.RTFOptions;
+import org.tms.api.io.TMSBOptions;
 import org.tms.api.io.TMSOptions;
 import org.tms.api.io.XLSOptions;
 import org.tms.api.io.XMLOptions;
@@ -54,6 +55,9 @@ public class TableExportAdapter
                     case TMS:
                         return TMSOptions.Default;
                         
+                    case TMSB:
+                        return TMSBOptions.Default;
+                        
                     case CSV:
                         return CSVOptions.Default;
                         
@@ -221,6 +225,10 @@ public class TableExportAdapter
                 TMSWriter.export(this, m_output, (TMSOptions)m_options);
                 break;
                 
+            case TMSB:
+                TMSBWriter.export(this, m_output, (TMSBOptions)m_options);
+                break;
+                
             case CSV:
                 CSVWriter.export(this, m_output, (CSVOptions)m_options);
                 break;
@@ -18,6 +18,7 @@ import org.apache.poi.EncryptedDocumentException;
 import org.apache.poi.hssf.usermodel.HSSFEvaluationWorkbook;
 import org.apache.poi.hssf.usermodel.HSSFFormulaEvaluator;
 import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.poifs.filesystem.FileMagic;
 import org.apache.poi.ss.SpreadsheetVersion;
 import org.apache.poi.ss.formula.FormulaParser;
 import org.apache.poi.ss.formula.FormulaParsingWorkbook;
@@ -66,6 +67,7 @@ import org.apache.poi.ss.util.AreaReference;
 import org.apache.poi.ss.util.CellReference;
 import org.apache.poi.xssf.usermodel.XSSFEvaluationWorkbook;
 import org.apache.poi.xssf.usermodel.XSSFFormulaEvaluator;
+import org.apache.poi.xssf.model.CommentsTable;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.tms.api.Access;
 import org.tms.api.Column;
@@ -87,6 +89,7 @@ import org.tms.api.io.XLSOptions;
 import org.tms.teq.BuiltinOperator;
 import org.tms.teq.EquationStack;
 import org.tms.teq.StackType;
+import org.xml.sax.SAXException;
 
 public class XlsReader extends LabeledReader<XLSOptions>
 {
@@ -311,9 +314,27 @@ public class XlsReader extends LabeledReader<XLSOptions>
     public void parseWorkbook() 
     throws IOException
     {
+        XlsxStreamReader xsr = null;
         try
         {            
-            m_wb = WorkbookFactory.create(getInputStream());
+            // sheets to import from the workbook model, or null for all sheets
+            Set<Integer> modelSheets = null;
+            
+            InputStream in = FileMagic.prepareToCheckMagic(getInputStream());
+            if ((xsr = openStreamReader(in)) != null) {
+                StreamedSheetProcessor ssp = streamSheets(xsr, -1);
+                if (ssp != null) {
+                    for (Table t : ssp.m_tables) 
+                        t.setPersistant(true);
+                    
+                    if (ssp.m_formulaSheets.isEmpty())
+                        return;
+                    
+                    modelSheets = ssp.m_formulaSheets;
+                }
+            }
+            
+            m_wb = xsr != null ? new XSSFWorkbook(xsr.getPackage()) : WorkbookFactory.create(in);
             m_ssV = m_wb instanceof XSSFWorkbook ? SpreadsheetVersion.EXCEL2007 : SpreadsheetVersion.EXCEL97;  
             m_frWb = (FormulaRenderingWorkbook) m_fpWb;
         
@@ -324,6 +345,9 @@ public class XlsReader extends LabeledReader<XLSOptions>
             List<Table> processedTables = new ArrayList<Table>(noSheets);
             
             for (int i = 0; i < noSheets; i++) {
+                if (modelSheets != null && !modelSheets.contains(i))
+                    continue;
+                
                 Table t = parseSheet(i);
                 if (t != null) {
                     processedTables.add(t);
@@ -350,14 +374,24 @@ public class XlsReader extends LabeledReader<XLSOptions>
         }
         finally {
             close();
+            if (xsr != null)
+                xsr.close();
         }
     }
 
     public Table parseActiveSheet() throws IOException
     {
+        XlsxStreamReader xsr = null;
         try
         {
-            m_wb = WorkbookFactory.create(getInputStream());
+            InputStream in = FileMagic.prepareToCheckMagic(getInputStream());
+            if ((xsr = openStreamReader(in)) != null) {
+                StreamedSheetProcessor ssp = streamSheets(xsr, xsr.getActiveSheetIndex());
+                if (ssp != null && !ssp.m_tables.isEmpty()) 
+                    return ssp.m_tables.get(0);
+            }
+            
+            m_wb = xsr != null ? new XSSFWorkbook(xsr.getPackage()) : WorkbookFactory.create(in);
             m_ssV = m_wb instanceof XSSFWorkbook ? SpreadsheetVersion.EXCEL2007 : SpreadsheetVersion.EXCEL97;     
             int asi = m_wb.getActiveSheetIndex();
             
@@ -378,9 +412,63 @@ public class XlsReader extends LabeledReader<XLSOptions>
         }
         finally {
             close();
+            if (xsr != null)
+                xsr.close();
         }
     }
     
+    /**
+     * Returns a stream reader for the workbook if streaming is enabled and the workbook is in <b>xlsx</b> format,
+     * otherwise returns null
+     * @param in the workbook input stream, supporting mark/reset
+     */
+    private XlsxStreamReader openStreamReader(InputStream in) 
+    throws IOException
+    {
+        if (!options().isStreaming() || FileMagic.valueOf(in) != FileMagic.OOXML)
+            return null;
+        
+        // files are read directly, which avoids buffering the entire package
+        if (getInputFile() != null) {
+            in.close();
+            return new XlsxStreamReader(getInputFile());
+        }
+        
+        return new XlsxStreamReader(in);
+    }
+    
+    /**
+     * Import workbook sheets by streaming their contents. Sheets containing formulas to be translated
+     * to derivations are skipped, as formulas are translated using the workbook model; their indexes
+     * are recorded so that they, and only they, can be imported from the model. Returns null if the
+     * workbook must be loaded in its entirety, as it defines named ranges, or if no sheets were read.
+     * @param xsr the workbook stream reader
+     * @param sheetIndex the 0-based index of the sheet to import, or -1 to import all sheets
+     * @return the processor holding the imported tables and the skipped sheets, or null
+     */
+    private StreamedSheetProcessor streamSheets(XlsxStreamReader xsr, int sheetIndex) 
+    throws IOException
+    {
+        if (xsr.isDefinedNames())
+            return null;
+        
+        StreamedSheetProcessor ssp = new StreamedSheetProcessor();
+        try {
+            xsr.readSheets(sheetIndex, ssp);
+        }
+        catch (SAXException e) {
+            throw new IOException(e);
+        }
+        
+        if (ssp.m_tables.isEmpty() && ssp.m_formulaSheets.isEmpty())
+            return null;
+        
+        for (Table t : ssp.m_tables) 
+            pruneEmptyElements(t);
+        
+        return ssp;
+    }
+    
     protected Table parseSheet(int sheetNo) throws IOException
     {
         Set<Integer> excelEmptyRows = null;
@@ -1084,21 +1172,26 @@ public class XlsReader extends LabeledReader<XLSOptions>
 
     private String fetchCellComment(Cell eC, boolean removeAuthors)
     {
-        if (eC != null) {        
-            Comment cellComment = eC.getCellComment();
-            if (cellComment != null) {        
-                RichTextString rts = cellComment.getString();
-                if (rts != null) {
-                    String note = trimString(rts.getString());
-
-                    if (removeAuthors) {
-                        String author = trimString(cellComment.getAuthor());
-                        if (author != null) 
-                            note = removeString(note, author);
-                    }
+        if (eC != null)         
+            return fetchCellComment(eC.getCellComment(), removeAuthors);
+
+        return null;       
+    }
 
-                    return note;
+    private String fetchCellComment(Comment cellComment, boolean removeAuthors)
+    {
+        if (cellComment != null) {        
+            RichTextString rts = cellComment.getString();
+            if (rts != null) {
+                String note = trimString(rts.getString());
+
+                if (removeAuthors) {
+                    String author = trimString(cellComment.getAuthor());
+                    if (author != null) 
+                        note = removeString(note, author);
                 }
+
+                return note;
             }
         }
 
@@ -1132,29 +1225,11 @@ public class XlsReader extends LabeledReader<XLSOptions>
 
     private Object fetchFormulaCellValue(Cell eC) 
     {
-        String cellFormula = eC.getCellFormula();
-        switch (cellFormula) {
-            case "TRUE":
-            case "TRUE()":
-                return true;
-
-            case "FALSE":
-            case "FALSE()":
-                return false;
-
-            case "RAND":
-            case "RAND()":
-                return Math.random();
-
-            case "NOW":
-            case "NOW()":
-            case "TODAY":
-            case "TODAY()":
-                return new Date();
-        }
+        Object cv = fetchFormulaConstant(eC.getCellFormula());
+        if (cv != null)
+            return cv;
 
         // parse formula value
-        Object cv = null;
         try {
             cv = eC.getNumericCellValue();
         }
@@ -1175,6 +1250,35 @@ public class XlsReader extends LabeledReader<XLSOptions>
         return cv;
     }
 
+    /**
+     * Returns the value of formulas that are evaluated on import, rather than 
+     * taken from the cell, or null for all other formulas
+     */
+    private Object fetchFormulaConstant(String cellFormula) 
+    {
+        switch (cellFormula) {
+            case "TRUE":
+            case "TRUE()":
+                return true;
+
+            case "FALSE":
+            case "FALSE()":
+                return false;
+
+            case "RAND":
+            case "RAND()":
+                return Math.random();
+
+            case "NOW":
+            case "NOW()":
+            case "TODAY":
+            case "TODAY()":
+                return new Date();
+        }
+
+        return null;
+    }
+
     private int getTmsColumnIdx(int excelColNo)
     {
         return excelColNo + 1 - (options().isRowLabels() ? 1 : 0);
@@ -1241,6 +1345,169 @@ public class XlsReader extends LabeledReader<XLSOptions>
         return new ParsedFormula(eC, tCell, tokens);
     }
     
+    /**
+     * Populates TMS tables from streamed sheet rows, as {@link XlsReader#parseSheet(int)} does
+     * from the rows of the workbook model
+     */
+    private class StreamedSheetProcessor implements XlsxStreamReader.SheetProcessor
+    {
+        private List<Table> m_tables = new ArrayList<Table>();
+        private Set<Integer> m_formulaSheets = new LinkedHashSet<Integer>();
+        private int m_sheetIndex;
+        private Table m_table;
+        private CommentsTable m_comments;
+        private Set<org.tms.api.Row> m_emptyRows;
+        private int m_nextRowNum;
+        
+        @Override
+        public void startSheet(int sheetIndex, String sheetName, CommentsTable comments)
+        {
+            m_sheetIndex = sheetIndex;
+            m_table = TableFactory.createTable(getTableContext());
+            m_tables.add(m_table);
+            
+            if (trimString(sheetName) != null)
+                m_table.setLabel(sheetName);
+            
+            m_comments = options().isDescriptions() ? comments : null;
+            m_emptyRows = new HashSet<org.tms.api.Row>();
+            m_nextRowNum = 0;
+        }
+
+        @Override
+        public void row(XlsxStreamReader.StreamedRow eR)
+        throws SAXException
+        {
+            int rowNum = eR.getRowNum();
+            
+            // handle column headings
+            if (m_nextRowNum == 0 && isColumnNames()) {
+                m_nextRowNum = 1;
+                if (rowNum == 0) {
+                    processColumnNames(eR);
+                    return;
+                }
+            }
+            
+            // rows missing from the sheet are empty
+            while (m_nextRowNum < rowNum) {
+                addEmptyRow();
+                m_nextRowNum++;
+            }
+            
+            m_nextRowNum = rowNum + 1;
+            if (eR.getNumCells() == 0) {
+                addEmptyRow();
+                return;
+            }
+            
+            // handle row data
+            org.tms.api.Row tR = m_table.addRow();
+            int lastColIdx = getTmsColumnIdx(eR.getLastCellNum() - 1);
+            while (m_table.getNumColumns() < lastColIdx)
+                m_table.addColumn();
+            
+            boolean rowIsEffectivelyNull = true;
+            for (int i = 0; i < eR.getNumCells(); i++) {
+                if (eR.isBlank(i))
+                    continue;
+                
+                // formulas are translated to derivations using the workbook model,
+                // so skip the sheet, to be imported from the model
+                if (eR.getFormula(i) != null && options().isDerivations()) {
+                    m_tables.remove(m_table);
+                    m_table.delete();
+                    m_formulaSheets.add(m_sheetIndex);
+                    throw new XlsxStreamReader.SkipSheetException();
+                }
+                
+                int colNum = eR.getColumn(i);
+                Object cv = fetchStreamedCellValue(eR, i);
+                String note = fetchCellComment(XlsxStreamReader.findComment(m_comments, rowNum, colNum), true);
+                if (colNum == 0 && isRowNames()) {
+                    if (note != null) {
+                        tR.setDescription(note);
+                        rowIsEffectivelyNull = false;
+                    }
+
+                    if (cv != null) {                   
+                        tR.setLabel(cv.toString());
+                        rowIsEffectivelyNull = false;
+                    }
+                }
+                else {
+                    org.tms.api.Column tC = m_table.getColumn(Access.ByIndex, getTmsColumnIdx(colNum));
+                    org.tms.api.Cell tCell = m_table.getCell(tR, tC);
+                    if (note != null) {
+                        tCell.setDescription(note);
+                        rowIsEffectivelyNull = false;
+                    }
+
+                    if (cv != null) {
+                        tCell.setCellValue(cv);
+                        rowIsEffectivelyNull = false;
+                    }
+                }
+            }
+            
+            if (rowIsEffectivelyNull)
+                m_emptyRows.add(tR);
+        }
+
+        @Override
+        public void endSheet()
+        {
+            if (options().isIgnoreEmptyRows() && !m_emptyRows.isEmpty()) {
+                // save empty rows, we will delete them later           
+                if (m_emptyRowsMap == null)
+                    m_emptyRowsMap = new HashMap<Table, Set<org.tms.api.Row>>();
+                m_emptyRowsMap.put(m_table, m_emptyRows);
+            }
+        }
+        
+        private void processColumnNames(XlsxStreamReader.StreamedRow eR)
+        {
+            int cellIdx = 0;
+            for (int i = 0; i < eR.getLastCellNum(); i++) {
+                if (i == 0 && isRowNames())
+                    continue; // skip r1c1
+
+                Column tC = m_table.addColumn(); // add the TMS column
+                while (cellIdx < eR.getNumCells() && eR.getColumn(cellIdx) < i)
+                    cellIdx++;
+                
+                if (cellIdx < eR.getNumCells() && eR.getColumn(cellIdx) == i && !eR.isBlank(cellIdx)) {
+                    Object cv = fetchStreamedCellValue(eR, cellIdx);
+                    String note = fetchCellComment(XlsxStreamReader.findComment(m_comments, 0, i), true);
+                    if (note != null)
+                        tC.setDescription(note);
+
+                    if (cv != null)                       
+                        tC.setLabel(cv.toString());
+                }
+            }
+        }
+        
+        private void addEmptyRow()
+        {
+            // excel row is empty and we don't want to ignore empty rows
+            if (!options().isIgnoreEmptyRows()) 
+                m_table.addRow();
+        }
+        
+        private Object fetchStreamedCellValue(XlsxStreamReader.StreamedRow eR, int i)
+        {
+            String formula = eR.getFormula(i);
+            if (formula != null) {
+                Object cv = fetchFormulaConstant(formula);
+                if (cv != null)
+                    return cv;
+            }
+            
+            return eR.getValue(i);
+        }
+    }
+    
     /**
      * Helper class to convert Excel formulas to
      * TMS Derivations.
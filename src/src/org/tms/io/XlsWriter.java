@@ -9,7 +9,6 @@ import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
-import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -37,6 +36,7 @@ import org.apache.poi.ss.usermodel.Workbook;
 import org.apache.poi.ss.util.AreaReference;
 import org.apache.poi.ss.util.CellRangeAddress;
 import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.tms.api.Column;
 import org.tms.api.Subset;
@@ -128,7 +128,6 @@ public class XlsWriter extends LabeledWriter<XLSOptions>
     private Map<String, CellStyle> m_styleCache;
     private Map<Sheet, Map<TableRowColumnElement, Integer>> m_rowMap;
     private Map<Sheet, Map<TableRowColumnElement, Integer>> m_colMap;
-    private Map<Cell, CachedDerivation> m_cachedDerivations;
     private Map<TableElement, String> m_cachedRangeRef;
     private Map<Derivation, EquationStack> m_infixCache;
     
@@ -148,7 +147,6 @@ public class XlsWriter extends LabeledWriter<XLSOptions>
         m_styleCache = new HashMap<String, CellStyle>();
         m_rowMap = new HashMap<Sheet, Map<TableRowColumnElement, Integer>>();
         m_colMap = new HashMap<Sheet, Map<TableRowColumnElement, Integer>>();
-        m_cachedDerivations = new LinkedHashMap<Cell, CachedDerivation>();
         m_infixCache = new HashMap<Derivation, EquationStack>();
         m_cachedRangeRef = new HashMap<TableElement, String>();
     }
@@ -158,9 +156,19 @@ public class XlsWriter extends LabeledWriter<XLSOptions>
     protected void export() throws IOException
     {
     	try {
-	        m_wb = options().isXlsXFormat() ? new XSSFWorkbook() : new HSSFWorkbook(); 
+    	    // when streaming, only a window of rows are kept in memory, the rest are flushed to temporary files
+    	    if (options().isXlsXFormat() && options().isStreaming()) {
+    	        SXSSFWorkbook sWb = new SXSSFWorkbook(options().getStreamingRowWindow());
+    	        sWb.setCompressTempFiles(true);
+    	        m_wb = sWb;
+    	    }
+    	    else
+    	        m_wb = options().isXlsXFormat() ? new XSSFWorkbook() : new HSSFWorkbook(); 
 	        m_wbHelper = m_wb.getCreationHelper();
 	        
+	        // cell styles belong to a workbook; they are created once, and shared by its sheets
+	        m_styleCache.clear();
+	        
 	        // perform the export
 	        export(getTable());
 	        
@@ -168,6 +176,8 @@ public class XlsWriter extends LabeledWriter<XLSOptions>
 	        m_wb.write(getOutputStream());  
     	}
     	finally {
+    		if (m_wb instanceof SXSSFWorkbook)
+    		    ((SXSSFWorkbook)m_wb).dispose();
     		if (m_wb != null)
     			m_wb.close();
     	}
@@ -194,26 +204,26 @@ public class XlsWriter extends LabeledWriter<XLSOptions>
         getCachedCellStyle("comment", m_wb, commentFontSize, false);
         getCachedCellStyle("author", m_wb, commentFontSize, true);
                
-        int firstActiveRow = 0;
-        int firstActiveCol = 0;
+        int firstActiveRow = options().isColumnLabels() ? 1 : 0;
+        int firstActiveCol = options().isRowLabels() ? 1 : 0;
+        
+        // plan the placement of rows and columns, so that formulas and named ranges that
+        // reference other cells can be written with each cell, as flushed rows can't be revisited
+        int maxExcelCol = planSheet(sheet, firstActiveRow, firstActiveCol);
         
         int rowNum = 0;
-        int maxExcelCol = 0;
         if (options().isColumnLabels()) {
-            firstActiveRow = 1;
             Row headerRow = sheet.createRow(rowNum++);
             headerRow.setHeightInPoints(30);
             Cell headerCell = null;
 
             short colCnt = (short)0;
             if (options().isRowLabels()) {
-                firstActiveCol = 1;
                 headerCell = headerRow.createCell(colCnt++);
                 headerCell.setCellStyle(headingStyle);
             }
             
             for (Column c : getActiveColumns()) {
-                cacheColAssociation(sheet, c, colCnt);
                 String label = c.getLabel();
                 if (label == null || (label = label.trim()).length() <= 0) 
                     label = String.format("Col %d", colCnt);
@@ -228,15 +238,11 @@ public class XlsWriter extends LabeledWriter<XLSOptions>
                 colCnt++;
             }
             
-            if ((colCnt - 1) > maxExcelCol)
-                maxExcelCol = colCnt - 1;
-            
             // set print headings
             sheet.setRepeatingRows(CellRangeAddress.valueOf("$1:$1"));
         }
 
         if (options().isRowLabels()) {
-            firstActiveCol = 1;
             int rnColWidthPx = options().getRowLabelColumnWidth();
             int rnColWidth = rnColWidthPx > 0 ? (int)(0.5 + (((rnColWidthPx)/6.0) * 256)) : 10 * 256;        
             sheet.setColumnWidth(0, rnColWidth);
@@ -247,10 +253,10 @@ public class XlsWriter extends LabeledWriter<XLSOptions>
         
         // Fill data cells
         boolean processedAllColumns = false;
+        Cell activeCell = null;
         for (org.tms.api.Row tr : this.getActiveRows()) {
             short colCnt = 0;
             Row r = sheet.createRow(rowNum++);
-            cacheRowAssociation(sheet, tr, r);
             if (options().isRowLabels()) {
                 String label = trimString(tr.getLabel());
                 if (label == null)
@@ -265,14 +271,15 @@ public class XlsWriter extends LabeledWriter<XLSOptions>
             }
 
             for (Column tc : this.getActiveColumns()) {
-                if (!processedAllColumns) {
+                if (!processedAllColumns) 
                     sheet.setDefaultColumnStyle(colCnt, cellStyle);
-                    cacheColAssociation(sheet, tc, colCnt);
-                }
                 
                 org.tms.api.Cell tCell = t.isCellDefined(tr, tc) ? t.getCell(tr, tc) : null;
                 if (tCell != null) {
                     Cell excelC  = r.createCell(colCnt);
+                    if (activeCell == null && r.getRowNum() == firstActiveRow && colCnt == firstActiveCol)
+                        activeCell = excelC;
+                    
                     if (tCell.isErrorValue()) 
                         excelC.setCellErrorValue(toExcelErrorValue(tCell));
                     else if (!tCell.isNull()) {
@@ -307,10 +314,8 @@ public class XlsWriter extends LabeledWriter<XLSOptions>
                     
                     if (options().isDerivations()) {
                         Derivation deriv = getDerivation(tCell);
-                        if (deriv != null) {
-                            CachedDerivation cd = new CachedDerivation(tCell, deriv, excelC);
-                            m_cachedDerivations.put(excelC, cd);
-                        }
+                        if (deriv != null) 
+                            applyFormula(new CachedDerivation(tCell, deriv, excelC), m_wb, sheet, maxExcelCol);
                     }
                 }
 
@@ -318,15 +323,10 @@ public class XlsWriter extends LabeledWriter<XLSOptions>
             } // of columns
             
             processedAllColumns = true;
-            if ((colCnt - 1) > maxExcelCol)
-                maxExcelCol = colCnt - 1;
         } // of rows
         
         // process TMS subsets
         processSubsets(t, m_wb, sheet, maxExcelCol);
-        
-        // process derivations
-        processDerivations(t, m_wb, sheet, maxExcelCol);
 
         // Freeze pains        
         if (options().isRowLabels() && options().isColumnLabels())
@@ -337,22 +337,32 @@ public class XlsWriter extends LabeledWriter<XLSOptions>
             sheet.createFreezePane( 1, 0, 1, 0 );
 
         // set active cell
-        Row r = sheet.getRow(firstActiveRow);
-        Cell activeCell = r.getCell(firstActiveCol);
         if (activeCell != null)
             activeCell.setAsActiveCell();        
     }
 
-    private void processDerivations(Table t, Workbook wb, Sheet sheet, int maxExcelCol)
+    /**
+     * Associate the active TMS rows and columns with the Excel rows and columns they will be written to
+     * @return the index of the last Excel column
+     */
+    private int planSheet(Sheet sheet, int firstActiveRow, int firstActiveCol)
+    {
+        int rowNum = firstActiveRow;
+        for (org.tms.api.Row tr : getActiveRows()) 
+            cacheRowAssociation(sheet, tr, rowNum++);
+        
+        int colNum = firstActiveCol;
+        for (Column tc : getActiveColumns()) 
+            cacheColAssociation(sheet, tc, colNum++);
+        
+        return Math.max(0, colNum - 1);
+    }
+    
+    private void applyFormula(CachedDerivation cd, Workbook wb, Sheet sheet, int maxExcelCol)
     {
-       for (Map.Entry<Cell, CachedDerivation> e : m_cachedDerivations.entrySet()) {
-           Cell eCell = e.getKey();
-           CachedDerivation cd = e.getValue();
-           
-           String formula = trimString(derivationToFormula(wb, sheet, maxExcelCol, cd));
-           if (formula != null)
-               eCell.setCellFormula(formula);
-       }       
+        String formula = trimString(derivationToFormula(wb, sheet, maxExcelCol, cd));
+        if (formula != null)
+            cd.getExcelCell().setCellFormula(formula);
     }
 
     private String derivationToFormula(Workbook wb, Sheet sheet, int maxCol, CachedDerivation cd)
@@ -801,7 +811,7 @@ public class XlsWriter extends LabeledWriter<XLSOptions>
         return deriv;
     }
     
-    private void cacheRowAssociation(Sheet sheet, org.tms.api.Row tmsR, Row excelR)
+    private void cacheRowAssociation(Sheet sheet, org.tms.api.Row tmsR, int excelR)
     {
         Map<TableRowColumnElement, Integer> rowMap = m_rowMap.get(sheet);
         if (rowMap == null) {
@@ -809,7 +819,7 @@ public class XlsWriter extends LabeledWriter<XLSOptions>
             m_rowMap.put(sheet,  rowMap);
         }
         
-        rowMap.put(tmsR, excelR.getRowNum());
+        rowMap.put(tmsR, excelR);
     }
 
     private void cacheColAssociation(Sheet sheet, org.tms.api.Column tmsC, int excelC)
@@ -0,0 +1,452 @@
+package org.tms.io;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.apache.poi.ooxml.util.SAXHelper;
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.util.CellAddress;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.model.CommentsTable;
+import org.apache.poi.xssf.usermodel.XSSFComment;
+import org.tms.api.derivables.ErrorCode;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * Reads the cell values of an MS Excel <b>xlsx</b> workbook sheet by sheet, row by row,
+ * parsing the sheet XML with SAX rather than building the POI workbook model. The shared strings
+ * table is loaded once, when the workbook is opened, and is used for all sheets.
+ * <p>
+ * Cell values are decoded as by the POI workbook model: numeric cells, including dates, as
+ * {@code Double}s, boolean cells as {@code Boolean}s, and text cells as {@code String}s. Formula cells
+ * yield their cached result, or {@link ErrorCode#NaN} if the result is an error, and their formula text.
+ */
+class XlsxStreamReader implements Closeable
+{
+    private OPCPackage m_pkg;
+    private XSSFReader m_xssfReader;
+    private ReadOnlySharedStringsTable m_sst;
+    private int m_activeSheetIndex;
+    private boolean m_definedNames;
+
+    XlsxStreamReader(File file)
+    throws IOException
+    {
+        try {
+            open(OPCPackage.open(file, PackageAccess.READ));
+        }
+        catch (OpenXML4JException e) {
+            throw new IOException(e);
+        }
+    }
+
+    XlsxStreamReader(InputStream in)
+    throws IOException
+    {
+        try {
+            open(OPCPackage.open(in));
+        }
+        catch (OpenXML4JException e) {
+            throw new IOException(e);
+        }
+    }
+
+    private void open(OPCPackage pkg)
+    throws IOException, OpenXML4JException
+    {
+        m_pkg = pkg;
+        try {
+            m_xssfReader = new XSSFReader(pkg);
+            m_sst = new ReadOnlySharedStringsTable(pkg);
+
+            // determine the active sheet, and if the workbook defines named ranges
+            try (InputStream wbData = m_xssfReader.getWorkbookData()) {
+                parse(wbData, new WorkbookHandler());
+            }
+        }
+        catch (SAXException e) {
+            throw new IOException(e);
+        }
+    }
+
+    /**
+     * Returns the underlying package, so that the workbook model can be built from it when needed
+     * @return the workbook package
+     */
+    OPCPackage getPackage()
+    {
+        return m_pkg;
+    }
+
+    int getActiveSheetIndex()
+    {
+        return m_activeSheetIndex;
+    }
+
+    /**
+     * Returns {@code true} if the workbook defines named ranges
+     * @return true if the workbook defines named ranges
+     */
+    boolean isDefinedNames()
+    {
+        return m_definedNames;
+    }
+
+    /**
+     * Read the rows of the workbook sheets, in workbook order
+     * @param sheetIndex the 0-based index of the sheet to read, or -1 to read all sheets
+     * @param processor the receiver of the sheet rows
+     * @throws IOException if the workbook can't be read
+     * @throws SAXException if the sheet XML is invalid, or the processor stops reading
+     */
+    void readSheets(int sheetIndex, SheetProcessor processor)
+    throws IOException, SAXException
+    {
+        try {
+            XSSFReader.SheetIterator sheets = (XSSFReader.SheetIterator)m_xssfReader.getSheetsData();
+            for (int i = 0; sheets.hasNext(); i++) {
+                try (InputStream sheetData = sheets.next()) {
+                    if (sheetIndex >= 0 && i != sheetIndex)
+                        continue;
+
+                    processor.startSheet(i, sheets.getSheetName(), sheets.getSheetComments());
+                    try {
+                        parse(sheetData, new SheetHandler(processor));
+                    }
+                    catch (SkipSheetException e) {
+                        continue;
+                    }
+                    
+                    processor.endSheet();
+                }
+            }
+        }
+        catch (OpenXML4JException e) {
+            throw new IOException(e);
+        }
+    }
+
+    @Override
+    public void close()
+    {
+        if (m_pkg != null) {
+            m_pkg.revert();
+            m_pkg = null;
+        }
+    }
+
+    private void parse(InputStream in, DefaultHandler handler)
+    throws IOException, SAXException
+    {
+        try {
+            XMLReader parser = SAXHelper.newXMLReader();
+            parser.setContentHandler(handler);
+            parser.parse(new InputSource(in));
+        }
+        catch (ParserConfigurationException e) {
+            throw new IOException(e);
+        }
+    }
+
+    /**
+     * Receives the rows of the sheets read by {@link XlsxStreamReader#readSheets(int, SheetProcessor)}
+     */
+    interface SheetProcessor
+    {
+        void startSheet(int sheetIndex, String sheetName, CommentsTable comments) throws SAXException;
+        void row(StreamedRow row) throws SAXException;
+        void endSheet() throws SAXException;
+    }
+
+    /**
+     * Thrown by a {@link SheetProcessor} to stop reading the current sheet and continue with the next;
+     * {@link SheetProcessor#endSheet()} isn't called for the skipped sheet
+     */
+    static class SkipSheetException extends SAXException
+    {
+        private static final long serialVersionUID = -2394517004563825130L;
+    }
+
+    /**
+     * The cells of a sheet row, in column order; the row is reused for each row in the sheet
+     */
+    static class StreamedRow
+    {
+        private int m_rowNum;
+        private int m_numCells;
+        private int [] m_cols = new int[16];
+        private Object [] m_values = new Object[16];
+        private String [] m_formulas = new String[16];
+        private boolean [] m_blanks = new boolean[16];
+
+        /**
+         * Returns the 0-based sheet row number
+         * @return the 0-based row number
+         */
+        int getRowNum()
+        {
+            return m_rowNum;
+        }
+
+        /**
+         * Returns the number of cells in the row, including blank cells
+         * @return the number of cells
+         */
+        int getNumCells()
+        {
+            return m_numCells;
+        }
+
+        /**
+         * Returns one more than the 0-based column number of the last cell in the row,
+         * or 0 if the row has no cells
+         * @return the last cell number, plus one
+         */
+        int getLastCellNum()
+        {
+            return m_numCells > 0 ? m_cols[m_numCells - 1] + 1 : 0;
+        }
+
+        int getColumn(int i)
+        {
+            return m_cols[i];
+        }
+
+        Object getValue(int i)
+        {
+            return m_values[i];
+        }
+
+        /**
+         * Returns the cell formula, which is empty for cells that share the formula of another cell,
+         * or null if the cell doesn't contain a formula
+         */
+        String getFormula(int i)
+        {
+            return m_formulas[i];
+        }
+
+        /**
+         * Returns {@code true} if the cell has neither a value nor a formula
+         */
+        boolean isBlank(int i)
+        {
+            return m_blanks[i];
+        }
+
+        private void reset(int rowNum)
+        {
+            m_rowNum = rowNum;
+            m_numCells = 0;
+        }
+
+        private void add(int col, Object value, String formula, boolean blank)
+        {
+            if (m_numCells == m_cols.length) {
+                int capacity = m_numCells * 2;
+                m_cols = Arrays.copyOf(m_cols, capacity);
+                m_values = Arrays.copyOf(m_values, capacity);
+                m_formulas = Arrays.copyOf(m_formulas, capacity);
+                m_blanks = Arrays.copyOf(m_blanks, capacity);
+            }
+
+            m_cols[m_numCells] = col;
+            m_values[m_numCells] = value;
+            m_formulas[m_numCells] = formula;
+            m_blanks[m_numCells] = blank;
+            m_numCells++;
+        }
+    }
+
+    /**
+     * Returns the comment of the specified cell
+     * @param comments the sheet comments, or null
+     * @param rowNum the 0-based row number
+     * @param colNum the 0-based column number
+     * @return the comment, or null
+     */
+    static XSSFComment findComment(CommentsTable comments, int rowNum, int colNum)
+    {
+        if (comments == null || comments.getNumberOfComments() == 0)
+            return null;
+
+        return comments.findCellComment(new CellAddress(rowNum, colNum));
+    }
+
+    /**
+     * Parses the workbook part, for the active sheet and defined names
+     */
+    private class WorkbookHandler extends DefaultHandler
+    {
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attrs)
+        {
+            if ("workbookView".equals(localName)) {
+                String activeTab = attrs.getValue("activeTab");
+                if (activeTab != null)
+                    m_activeSheetIndex = Integer.parseInt(activeTab);
+            }
+            else if ("definedName".equals(localName))
+                m_definedNames = true;
+        }
+    }
+
+    /**
+     * Parses a worksheet part, decoding the cells of each row
+     */
+    private class SheetHandler extends DefaultHandler
+    {
+        private final SheetProcessor m_processor;
+        private final StreamedRow m_row;
+        private final StringBuilder m_text;
+
+        private int m_nextRowNum;
+        private int m_nextColNum;
+        private int m_colNum;
+        private String m_cellType;
+        private String m_value;
+        private String m_formula;
+        private StringBuilder m_inlineStr;
+        private boolean m_inCell;
+        private boolean m_inText;
+
+        SheetHandler(SheetProcessor processor)
+        {
+            m_processor = processor;
+            m_row = new StreamedRow();
+            m_text = new StringBuilder();
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attrs)
+        {
+            switch (localName) {
+                case "row":
+                    String r = attrs.getValue("r");
+                    m_row.reset(r != null ? Integer.parseInt(r) - 1 : m_nextRowNum);
+                    m_nextRowNum = m_row.getRowNum() + 1;
+                    m_nextColNum = 0;
+                    break;
+
+                case "c":
+                    String ref = attrs.getValue("r");
+                    m_colNum = ref != null ? new CellReference(ref).getCol() : m_nextColNum;
+                    m_nextColNum = m_colNum + 1;
+                    m_cellType = attrs.getValue("t");
+                    m_value = m_formula = null;
+                    m_inlineStr = null;
+                    m_inCell = true;
+                    break;
+
+                case "v":
+                case "f":
+                    if (m_inCell) {
+                        m_text.setLength(0);
+                        m_inText = true;
+                    }
+                    break;
+
+                case "is":
+                    if (m_inCell)
+                        m_inlineStr = new StringBuilder();
+                    break;
+
+                case "t":
+                    if (m_inlineStr != null) {
+                        m_text.setLength(0);
+                        m_inText = true;
+                    }
+                    break;
+            }
+        }
+
+        @Override
+        public void characters(char [] ch, int start, int length)
+        {
+            if (m_inText)
+                m_text.append(ch, start, length);
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName)
+        throws SAXException
+        {
+            switch (localName) {
+                case "v":
+                    if (m_inText)
+                        m_value = m_text.toString();
+                    m_inText = false;
+                    break;
+
+                case "f":
+                    if (m_inText)
+                        m_formula = m_text.toString();
+                    m_inText = false;
+                    break;
+
+                case "t":
+                    if (m_inText && m_inlineStr != null)
+                        m_inlineStr.append(m_text);
+                    m_inText = false;
+                    break;
+
+                case "c":
+                    boolean blank = m_value == null && m_formula == null && m_inlineStr == null;
+                    m_row.add(m_colNum, blank ? null : decodeValue(), m_formula, blank);
+                    m_inCell = false;
+                    break;
+
+                case "row":
+                    m_processor.row(m_row);
+                    break;
+            }
+        }
+
+        private Object decodeValue()
+        {
+            String type = m_cellType != null ? m_cellType : "n";
+            if (m_inlineStr != null)
+                return m_inlineStr.toString();
+
+            // formulas without cached results
+            if (m_value == null)
+                return "str".equals(type) ? "" : 0.0;
+
+            switch (type) {
+                case "s":
+                    return m_sst.getItemAt(Integer.parseInt(m_value)).getString();
+
+                case "str":
+                case "inlineStr":
+                    return m_value;
+
+                case "b":
+                    return "1".equals(m_value) || "true".equalsIgnoreCase(m_value);
+
+                case "e":
+                    return m_formula != null ? ErrorCode.NaN : null;
+
+                default:
+                    try {
+                        return Double.parseDouble(m_value);
+                    }
+                    catch (NumberFormatException e) {
+                        return null;
+                    }
+            }
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package org.tms.io.jasper;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.sf.jasperreports.engine.JasperReport;
+
+/**
+ * A bounded cache of compiled {@link JasperReport}s, keyed by report layout. When the cache is full,
+ * the least recently used layout is evicted. Compiled reports are immutable, and can be filled
+ * concurrently.
+ */
+final class CompiledReportCache
+{
+    private final Map<List<Object>, List<JasperReport>> m_reports;
+
+    @SuppressWarnings("serial")
+    CompiledReportCache(final int maxEntries)
+    {
+        m_reports = new LinkedHashMap<List<Object>, List<JasperReport>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<List<Object>, List<JasperReport>> eldest)
+            {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    synchronized List<JasperReport> get(List<Object> layoutKey)
+    {
+        return m_reports.get(layoutKey);
+    }
+
+    synchronized void put(List<Object> layoutKey, List<JasperReport> reports)
+    {
+        m_reports.put(layoutKey, reports);
+    }
+
+    synchronized void clear()
+    {
+        m_reports.clear();
+    }
+
+    synchronized int size()
+    {
+        return m_reports.size();
+    }
+}
@@ -1,10 +1,14 @@
 package org.tms.io.jasper;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
+import org.tms.api.Cell;
 import org.tms.api.Column;
 import org.tms.api.Row;
+import org.tms.api.Table;
 import org.tms.api.io.IOOption;
 import org.tms.io.LabeledWriter;
 import org.tms.io.TableExportAdapter;
@@ -19,84 +23,99 @@ public class TMSDataSource implements JRDataSource, JRRewindableDataSource
     private TMSReport m_report;
     private LabeledWriter<?> m_writer;
     private TableExportAdapter m_exportAdapter;
+    private Table m_table;
     private IOOption<?> m_options;
-    
-    private int m_maxRows;
-    private int m_rowIndex;
-    private Map<String, Column> m_fieldToColMap;
-    
+
+    // the rows to report, and their table indexes, with empty rows removed if they are to be ignored
+    private List<Row> m_rows;
+    private List<Integer> m_rowIndexes;
+    private int m_pos;
+
+    private Row m_row;
+    private Map<JRField, Column> m_fieldToColMap;
+
     TMSDataSource(TMSReport tr)
     {
         m_report = tr;
         m_writer = tr.getWriter();
         m_exportAdapter = m_writer.getExportAdapter();
+        m_table = m_exportAdapter.getTable();
         m_options = tr.getOptions();
-        
-        m_maxRows = m_exportAdapter.getNumRows();
-        m_rowIndex = 0;
+
+        m_fieldToColMap = new HashMap<JRField, Column>(m_writer.getNumActiveColumns());
+        collectRows();
+    }
+
+    private void collectRows()
+    {
+        int maxRows = m_exportAdapter.getNumRows();
+        m_rows = new ArrayList<Row>(maxRows);
+        m_rowIndexes = new ArrayList<Integer>(maxRows);
+
+        boolean ignoreEmptyRows = m_options.isIgnoreEmptyRows();
+        for (int rowIndex = 1; rowIndex <= maxRows; rowIndex++) {
+            Row r = m_exportAdapter.getRow(rowIndex);
+            if (ignoreEmptyRows && (r == null || r.isNull()))
+                continue;
+
+            m_rows.add(r);
+            m_rowIndexes.add(rowIndex);
+        }
+
+        m_pos = -1;
+        m_row = null;
     }
-    
+
     @Override
     public Object getFieldValue(JRField jrField) throws JRException
     {
-        if (m_fieldToColMap == null) {
-            m_fieldToColMap = new HashMap<String, Column>(m_writer.getNumActiveColumns());
-            for (Map.Entry<Column, JRField> e : m_report.getColumnFieldMap().entrySet()) {
-                m_fieldToColMap.put(e.getValue().getName(), e.getKey());
-            }
-        }
-        
-        Row row = m_exportAdapter.getRow(m_rowIndex);
+        Row row = m_row;
         String fieldName = jrField.getName();
-        
+
         if (TMSReport.sf_RowNameFieldName.equals(fieldName)) {
         	if (row == null)
         		return "Row";
-        	
+
             String label = row.getLabel();
             if (label == null || (label = label.trim()).length() <= 0)
-                label = String.format("Row %d", m_rowIndex);
-            
+                label = String.format("Row %d", m_rowIndexes.get(m_pos));
+
             return label;
         }
         else {
-            Column col = m_fieldToColMap.get(fieldName);
-            Object o = m_exportAdapter.getTable().getCellValue(row, col);
-            
-            if (o != null) 
-                o = m_exportAdapter.getTable().getCell(row, col);
-                    
-            return o;
+            Column col = m_fieldToColMap.get(jrField);
+            if (col == null) {
+                col = m_report.getFieldColumnMap().get(fieldName);
+                m_fieldToColMap.put(jrField, col);
+            }
+
+            // only fetch cells that exist, and report empty cells as null
+            if (row == null || col == null || !m_table.isCellDefined(row, col))
+                return null;
+
+            Cell cell = m_table.getCell(row, col);
+            return cell != null && !cell.isNull() ? cell : null;
         }
     }
 
     @Override
     public boolean next() throws JRException
     {
-        if (m_rowIndex + 1 <= m_maxRows) {
-            m_rowIndex++;
-            
-            // check for empty rows, if we're suppose to ignore them,
-            // skip over the empty row and move m_rowIndex to the next
-            if (m_options.isIgnoreEmptyRows()) {
-                Row r = m_exportAdapter.getRow(m_rowIndex);
-                if (r == null || r.isNull())
-                    return next();
-            }
-            
+        if (m_pos + 1 < m_rows.size()) {
+            m_row = m_rows.get(++m_pos);
             return true;
         }
-        
+
+        m_row = null;
         return false;
     }
-    
+
     @Override
     public void moveFirst() throws JRException
     {
-        m_maxRows = m_exportAdapter.getNumRows();
-        m_rowIndex = 0;
+        collectRows();
     }
-    
+
     public TMSReport getReport()
     {
         return m_report;
@@ -22,7 +22,6 @@ import org.tms.api.io.TitleableIOOption;
 import org.tms.io.LabeledWriter;
 
 import net.sf.jasperreports.engine.JRException;
-import net.sf.jasperreports.engine.JRField;
 import net.sf.jasperreports.engine.JasperCompileManager;
 import net.sf.jasperreports.engine.JasperFillManager;
 import net.sf.jasperreports.engine.JasperPrint;
@@ -51,6 +50,22 @@ import net.sf.jasperreports.export.SimpleExporterInputItem;
 abstract public class TMSReport
 {
     static final String sf_RowNameFieldName = "__ROW_NAME__";
+    static final String sf_FirstPageNumberParamName = "FirstPageNumber";
+    
+    /*
+     * Compiled reports, keyed by report layout; a report's layout is determined by the shape
+     * of the table and the export options, so repeated exports need only fill the report
+     */
+    private static final int sf_MaxCompiledReports = 32;
+    private static final CompiledReportCache sf_CompiledReports = new CompiledReportCache(sf_MaxCompiledReports);
+    
+    /**
+     * Discard all cached compiled reports
+     */
+    public static void clearCompiledReports()
+    {
+        sf_CompiledReports.clear();
+    }
     
     static final Set<String> sf_JavaLogicalFonts = new HashSet<String>();
     {
@@ -93,7 +108,7 @@ abstract public class TMSReport
     private Table m_table;
     private LabeledIOOption<?> m_options;
     
-    private Map<Column, JRField> m_colFieldMap;
+    private Map<String, Column> m_fieldColMap;
     private Map<String, Object> m_jrParams;
     
     private List<JasperDesign> m_jrDesigns;
@@ -160,9 +175,20 @@ abstract public class TMSReport
         return m_writer.getOutputStream();
     }
     
-    Map<Column, JRField> getColumnFieldMap()
+    /**
+     * Returns the table column reported by each report field
+     */
+    Map<String, Column> getFieldColumnMap()
     {
-        return m_colFieldMap;
+        if (m_fieldColMap == null) {
+            Map<String, Column> fieldColMap = new HashMap<String, Column>(m_writer.getNumActiveColumns());
+            for (Column col : m_writer.getActiveColumns()) 
+                fieldColMap.put(String.valueOf(col.getIndex()), col);
+            
+            m_fieldColMap = fieldColMap;
+        }
+        
+        return m_fieldColMap;
     }
     
     private void fillJasperParams()
@@ -188,28 +214,18 @@ abstract public class TMSReport
         if (m_jrParams == null)
             fillJasperParams();
         
-        if (m_jrDesigns == null || m_jrDesigns.isEmpty())
-            buildJasperDesign();
+        List<JasperReport> jrReports = getCompiledReports();
         
-        m_jrPrints = new ArrayList<JasperPrint>(m_jrDesigns.size());
+        m_jrPrints = new ArrayList<JasperPrint>(jrReports.size());
         boolean paginated = (m_options instanceof PageableIOOption) ? ((PageableIOOption<?>)m_options).isPaged() : false;
         int pageCnt = 1;
-        for (JasperDesign jd : m_jrDesigns) {
-            if (paginated) {
-                // adjust page number
-                JRDesignVariable jv = (JRDesignVariable)jd.getVariablesMap().get("PAGE_NUMBER");
-                if (jv != null) {
-                    JRDesignExpression pnEx = new JRDesignExpression();
-                    pnEx.setText(String.format("($V{%s} != null)?(new Integer($V{%<s}.intValue() + 1)):(new Integer(%s))", "PAGE_NUMBER", pageCnt));  
-                    jv.setInitialValueExpression(pnEx);
-                }
-            }
-            
-            // compile the design
-            JasperReport jr = JasperCompileManager.compileReport(jd);  
+        for (JasperReport jr : jrReports) {
+            // the fill adds built-in parameters to the map, so each section gets its own
+            Map<String, Object> jrParams = new HashMap<String, Object>(m_jrParams);
+            jrParams.put(sf_FirstPageNumberParamName, pageCnt);
             
             // fill the report
-            JasperPrint jrPrint = JasperFillManager.fillReport(jr,  m_jrParams, new TMSDataSource(this));  
+            JasperPrint jrPrint = JasperFillManager.fillReport(jr,  jrParams, new TMSDataSource(this));  
             m_jrPrints.add(jrPrint);
             
             // calculate starting page number of next section, if any
@@ -218,6 +234,80 @@ abstract public class TMSReport
         }
     }
 
+    /**
+     * Returns the compiled report sections for this report's layout, building and compiling 
+     * the report designs only if a report with the same layout isn't cached
+     */
+    private List<JasperReport> getCompiledReports() 
+    throws JRException
+    {
+        List<Object> layoutKey = getLayoutKey();
+        List<JasperReport> jrReports = sf_CompiledReports.get(layoutKey);
+        if (jrReports == null) {
+            if (m_jrDesigns == null || m_jrDesigns.isEmpty())
+                buildJasperDesign();
+            
+            jrReports = new ArrayList<JasperReport>(m_jrDesigns.size());
+            for (JasperDesign jd : m_jrDesigns) 
+                jrReports.add(JasperCompileManager.compileReport(jd));
+            
+            sf_CompiledReports.put(layoutKey, jrReports);
+        }
+        
+        return jrReports;
+    }
+    
+    /**
+     * Returns the values that determine the report designs: the report type, the table and column labels, 
+     * the reported columns, and the export options that affect layout. Report titles and time stamps 
+     * are passed as parameters, so they're excluded.
+     */
+    private List<Object> getLayoutKey()
+    {
+        List<Object> key = new ArrayList<Object>();
+        key.add(getClass().getName());
+        key.add(m_table.getLabel());
+        key.add(m_options.getFileFormat());
+        key.add(m_options.isRowLabels());
+        key.add(m_options.isColumnLabels());
+        
+        if (m_options instanceof PageableIOOption) {
+            PageableIOOption<?> po = (PageableIOOption<?>)m_options;
+            key.add(po.isPaged());
+            key.add(po.isPageNumbers());
+            key.add(po.isStickyColumnLabels());
+            key.add(po.isStickyRowLabels());
+        }
+        
+        key.add(getPageWidth());
+        key.add(getPageHeight());
+        key.add(getFontFamily());
+        
+        if (m_options instanceof StyleableIOOption) {
+            StyleableIOOption<?> so = (StyleableIOOption<?>)m_options;
+            key.add(so.getDefaultFontSize());
+            key.add(so.getHeadingFontSize());
+            key.add(so.getDefaultColumnWidth());
+            key.add(so.getRowLabelColumnWidth());
+        }
+        
+        if (m_options instanceof TitleableIOOption) {
+            TitleableIOOption<?> to = (TitleableIOOption<?>)m_options;
+            key.add(to.hasTitle());
+            key.add(to.getTitleFontSize());
+        }
+        
+        if (m_options instanceof DateTimeFormatIOOption) 
+            key.add(((DateTimeFormatIOOption<?>)m_options).hasDateTimeFormat());
+        
+        for (Column col : m_writer.getActiveColumns()) {
+            key.add(col.getIndex());
+            key.add(col.getLabel());
+        }
+        
+        return key;
+    }
+    
     private JasperDesign createReportDesign(int rptNo, boolean paginated, int pageWidth, int pageHeight, int colWidth) 
     throws JRException
     {
@@ -292,6 +382,17 @@ abstract public class TMSReport
         // add the detail band; this is essentially the report data
         ((JRDesignSection)jrDesign.getDetailSection()).addBand(detailBand);    
         
+        // sections of paginated reports continue the page numbering of the previous section
+        if (paginated) {
+            JRDesignVariable jv = (JRDesignVariable)jrDesign.getVariablesMap().get("PAGE_NUMBER");
+            if (jv != null) {
+                JRDesignExpression pnEx = new JRDesignExpression();
+                pnEx.setText(String.format("($V{%s} != null)?(new Integer($V{%<s}.intValue() + 1)):($P{%s})", 
+                        "PAGE_NUMBER", sf_FirstPageNumberParamName));  
+                jv.setInitialValueExpression(pnEx);
+            }
+        }
+        
         //Column header
         if (m_options.isColumnLabels()) {
             if (paginated && !((PageableIOOption<?>)m_options).isStickyColumnLabels()) {
@@ -313,8 +414,6 @@ abstract public class TMSReport
 
     private void buildJasperDesign() throws JRException
     {
-        // Figure out how many columns we have
-        int nCols = m_writer.getNumActiveColumns();
         int rptNo = 1;
         
         // Paginated??
@@ -356,7 +455,6 @@ abstract public class TMSReport
                 
         int tfX = 0;
         int tfY = 2;
-        m_colFieldMap = new HashMap<Column, JRField>(nCols);
         
         int fieldWidth = (m_options instanceof StyleableIOOption) && ((StyleableIOOption<?>)m_options).getDefaultColumnWidth() > 0 ?
                 ((StyleableIOOption<?>)m_options).getDefaultColumnWidth() : sf_StringColWidth;
@@ -400,7 +498,6 @@ abstract public class TMSReport
             jrField.setValueClass(Object.class);
             
             jrDesign.addField(jrField);
-            m_colFieldMap.put(col, jrField);
             
             JRDesignTextField tf = defineTextField(colName, tfX, tfY, fieldWidth, detailBandHeight - 2, 
                     normalStyle, VerticalTextAlignEnum.TOP, HorizontalTextAlignEnum.LEFT,
@@ -659,5 +756,11 @@ abstract public class TMSReport
         nowParam.setForPrompting(false);
         nowParam.setValueClass(java.lang.String.class);
         jrDesign.addParameter(nowParam);       
+        
+        JRDesignParameter firstPageParam = new JRDesignParameter();
+        firstPageParam.setName(sf_FirstPageNumberParamName);
+        firstPageParam.setForPrompting(false);
+        firstPageParam.setValueClass(java.lang.Integer.class);
+        jrDesign.addParameter(firstPageParam);       
     }
 }
@@ -46,6 +46,10 @@ abstract public class BaseElementImpl implements BaseElement
     static final protected int sf_HAS_CELL_VALIDATOR_FLAG           = 0x2000;
     static final protected int sf_IS_DERIVED_CELL_FLAG              = 0x4000;
     static final protected int sf_IS_TABLE_PERSISTANT_FLAG          = 0x8000;
+    static final protected int sf_COLUMNAR_STORAGE_FLAG             = 0x10000;
+    static final protected int sf_CONCURRENT_READS_FLAG             = 0x20000;
+    static final protected int sf_PARALLEL_RECALCULATION_FLAG       = 0x40000;
+    static final protected int sf_CELL_VALUES_INDEXED_FLAG          = 0x80000;
     
     static final protected int sf_EVENTS_NOTIFY_IN_SAME_THREAD_FLAG         = 0x100000;
     static final protected int sf_EVENTS_ALLOW_CORE_THREAD_TIMEOUT_FLAG     = 0x200000;
@@ -184,7 +188,9 @@ abstract public class BaseElementImpl implements BaseElement
         if (vetKey) 
             key = vetKey(key);
         
-        getElemProperties(true).put(key,  value);
+        Object oldValue = getElemProperties(true).put(key,  value);
+        if (oldValue != value)
+            propertyChanged(key, oldValue, value);
     }
 
     protected boolean clearProperty(TableProperty key)
@@ -209,13 +215,27 @@ abstract public class BaseElementImpl implements BaseElement
         
         Map<String, Object> props;      
         if ((props = getElemProperties()) != null) {
-            if (props.remove(key) != null)
+            Object oldValue = props.remove(key);
+            if (oldValue != null) {
+                propertyChanged(key, oldValue, null);
                 return true;
+            }
         }
         
         return false;
     }
     
+    /**
+     * Called after a property is set or cleared; subclasses that index their properties override
+     * @param key the property key
+     * @param oldValue the previous property value, or null
+     * @param newValue the new property value, or null if the property was cleared
+     */
+    protected void propertyChanged(String key, Object oldValue, Object newValue)
+    {
+        // noop
+    }
+    
     public boolean hasProperty(TableProperty key)
     { 
         if (key.isImplementedBy(this)) {
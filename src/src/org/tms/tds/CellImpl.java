@@ -33,7 +33,7 @@ import org.tms.teq.DerivationImpl;
 
 public class CellImpl extends TableElementImpl implements Cell, Printable
 {
-    protected Object m_cellValue;   // the actual cell value
+    protected volatile Object m_cellValue;   // the actual cell value
     protected ColumnImpl m_col;  	// the parent column
     
     private int m_cellOffset;		// used to determine parent row
@@ -89,20 +89,8 @@ public class CellImpl extends TableElementImpl implements Cell, Printable
         if (value != null && value instanceof Token)
             return postResult((Token)value);
         
-        if (isWriteProtected())
-            throw new ReadOnlyException(this, TableProperty.CellValue);
-        else if (value == null && !isNullsSupported())
-            throw new NullValueException(this, TableProperty.CellValue);
-        
-        // explicitly set cells can't be derived
-        clearDerivation();
-        
-        // clear awaiting status
-        unSet(sf_IS_AWAITING_FLAG);
-        
-        // set the cell value, taking datatype enforcement into account, if enabled
         Object oldValue = m_cellValue;
-        boolean valuesDiffer = setCellValue(value, true, true);
+        boolean valuesDiffer = setCellValueInBatch(value);
         
         // recalculate affected table elements
         TableImpl parentTable = getTable();
@@ -119,56 +107,68 @@ public class CellImpl extends TableElementImpl implements Cell, Printable
     synchronized protected boolean postResult(Token t)
     {
         TableImpl parentTable = getTable();
+        if (parentTable == null)
+            return false;
+        
+        // parallel recalculation workers hold the table structure fixed for the whole
+        // recalculation, so results are posted under the cell monitor alone
+        if (parentTable.isRecalculationWorker())
+            return postResultInternal(t);
+        
+        synchronized(parentTable) {
+            return postResultInternal(t);
+        }
+    }
+    
+    private boolean postResultInternal(Token t)
+    {
         boolean isDifferent = false;
         Object oldValue = m_cellValue;
-        if (parentTable != null) {
-            synchronized(parentTable) {
-                boolean wasPending = isPendings();
-                boolean nowPending = false;
-                decrementPendings();
-                try {
-                	if (t.isAwaiting())
-                        set(sf_IS_AWAITING_FLAG, true);
-                	else {
-                		unSet(sf_IS_AWAITING_FLAG);
-                		
-	                    if (t.isError()) {
-	                        isDifferent = this.setCellValueNoDataTypeCheck(t.getErrorCode());
-	                        switch (t.getErrorCode()) {
-	                            case SeeErrorMessage:
-	                                setErrorMessage(t.getStringValue());
-	                                break;
-	                                
-	                            default:
-	                                break;
-	                        }
-	                        
-	                        return isDifferent;
-	                    }
-	                    else if (t.isNull())
-	                        isDifferent =  setCellValue(null, true, false);
-	                    else if (t.isPending()) {
-	                        m_cellValue = t.getValue();
-	                        nowPending = true;
-	                        incrementPendings();
-	
-	                        if (!wasPending)
-	                            fireEvents(TableElementEventType.OnPendings);
-	
-	                        isDifferent = true;
-	                    }
-	                    else
-	                        isDifferent = setCellValue(t.getValue(), true, false);
-                	}
-                }
-                finally {                    
-                    if (wasPending && !nowPending)
-                        fireEvents(TableElementEventType.OnNoPendings);    
+        boolean wasPending = isPendings();
+        boolean nowPending = false;
+        decrementPendings();
+        try {
+        	if (t.isAwaiting())
+                set(sf_IS_AWAITING_FLAG, true);
+        	else {
+        		unSet(sf_IS_AWAITING_FLAG);
+        		
+                if (t.isError()) {
+                    isDifferent = this.setCellValueNoDataTypeCheck(t.getErrorCode());
+                    switch (t.getErrorCode()) {
+                        case SeeErrorMessage:
+                            setErrorMessage(t.getStringValue());
+                            break;
+                            
+                        default:
+                            break;
+                    }
                     
-                    if (isDifferent)
-                        fireEvents(TableElementEventType.OnNewValue, oldValue, m_cellValue);
+                    return isDifferent;
                 }
-            }
+                else if (t.isNull())
+                    isDifferent =  setCellValue(null, true, false);
+                else if (t.isPending()) {
+                    m_cellValue = t.getValue();
+                    nowPending = true;
+                    incrementPendings();
+                    applyValueChange(oldValue, m_cellValue);
+
+                    if (!wasPending)
+                        fireEvents(TableElementEventType.OnPendings);
+
+                    isDifferent = true;
+                }
+                else
+                    isDifferent = setCellValue(t.getValue(), true, false);
+        	}
+        }
+        finally {                    
+            if (wasPending && !nowPending)
+                fireEvents(TableElementEventType.OnNoPendings);    
+            
+            if (isDifferent)
+                fireEvents(TableElementEventType.OnNewValue, oldValue, m_cellValue);
         }
         
         return isDifferent;
@@ -310,13 +310,36 @@ public class CellImpl extends TableElementImpl implements Cell, Printable
         }
     }
     
+    /**
+     * Sets the cell value as part of a bulk update; neither affected derivations are recalculated,
+     * nor is an OnNewValue event fired, as the caller does both once for the entire batch
+     * @param value the new cell value
+     * @return true if the cell value changed
+     */
+    boolean setCellValueInBatch(Object value)
+    {
+        if (isWriteProtected())
+            throw new ReadOnlyException(this, TableProperty.CellValue);
+        else if (value == null && !isNullsSupported())
+            throw new NullValueException(this, TableProperty.CellValue);
+        
+        // explicitly set cells can't be derived
+        clearDerivation();
+        
+        // clear awaiting status
+        unSet(sf_IS_AWAITING_FLAG);
+        
+        // set the cell value, taking datatype enforcement into account, if enabled
+        return setCellValue(value, true, true);
+    }
+    
     protected boolean setCellValueNoDataTypeCheck(Object value)
     {
         return setCellValue(value, false, false);
     }
     
     @Override
-    synchronized public Object getCellValue()
+    public Object getCellValue()
     {
         return m_cellValue;
     }
@@ -346,13 +369,31 @@ public class CellImpl extends TableElementImpl implements Cell, Printable
                 }
             }
             
+            Object oldValue = m_cellValue;
             m_cellValue = value;
             valuesDiffer = true;
+            
+            applyValueChange(oldValue, value);
         }
         
         return valuesDiffer;
     }
     
+    /**
+     * Apply a change in this cell's value to the aggregate statistics of its row and column,
+     * and to the column's value index, if any
+     */
+    private void applyValueChange(Object oldValue, Object newValue)
+    {
+        TableImpl parentTable = getTable();
+        if (parentTable != null && parentTable.getAggregateStatistics() != null)
+            parentTable.getAggregateStatistics().update(this, oldValue, newValue);
+        
+        ColumnImpl col = m_col;
+        if (col != null && col.isValueIndexed())
+            col.updateValueIndex(getRow(), oldValue, newValue);
+    }
+    
 
     private boolean isDatatypeMismatch(Object value)
     {
@@ -706,6 +747,14 @@ public class CellImpl extends TableElementImpl implements Cell, Printable
             return null;
     }
 
+    @Override
+    protected void propertyChanged(String key, Object oldValue, Object newValue)
+    {
+        TableImpl parent;
+        if ((parent = getTable()) != null)
+            parent.cellPropertyChanged(this, key, oldValue, newValue);
+    }
+    
     @Override
     protected void resetElemProperties()
     {
@@ -995,6 +1044,7 @@ public class CellImpl extends TableElementImpl implements Cell, Printable
         }
         
         decrementPendings(); 
+        applyValueChange(m_cellValue, null);
         m_cellValue = null;
         
         m_col = null;
@@ -1146,15 +1196,8 @@ public class CellImpl extends TableElementImpl implements Cell, Printable
         boolean anyAdded = false;
         if (tags != null && tags.length > 0) {
             Set<Tag> newTags = Tag.encodeTags(tags, getTableContext());            
-            Set<Tag> curTags = getTable() != null ? getTable().getCellTags(this) : null;            
-            if (curTags != null) 
-                anyAdded = curTags.addAll(newTags);
-            else {
-                if (getTable() != null) {
-                    anyAdded = true;
-                    getTable().setCellTags(this, newTags);
-                }
-            }
+            if (getTable() != null)
+                anyAdded = getTable().addCellTags(this, newTags);
         }
         
         return anyAdded;
@@ -1166,9 +1209,8 @@ public class CellImpl extends TableElementImpl implements Cell, Printable
         boolean removedAny = false;
         if (tags != null && tags.length > 0) {
             Set<Tag> oldTags = Tag.encodeTags(tags, getTableContext(), false);            
-            Set<Tag> curTags = getTable() != null ? getTable().getCellTags(this) : null;            
-            if (curTags != null) 
-                removedAny = curTags.removeAll(oldTags);
+            if (getTable() != null)
+                removedAny = getTable().removeCellTags(this, oldTags);
         }
         
         return removedAny;
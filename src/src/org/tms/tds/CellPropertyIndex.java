@@ -0,0 +1,206 @@
+package org.tms.tds;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.tms.api.TableProperty;
+
+/**
+ * An index of the {@link CellImpl}s in a table by the values of their properties, including their UUIDs,
+ * labels, descriptions, and user-defined properties, and by their tags. The index is built when enabled,
+ * then maintained as cell properties are set and cleared, and as cells are tagged and untagged, so that
+ * cells can be found without scanning every cell in the table.
+ * <p>
+ * Properties are matched using {@code equals}, as they are by scans. Cells are returned ordered by
+ * column, then by row.
+ */
+final class CellPropertyIndex
+{
+    private static final Set<TableProperty> sf_INDEXED_PROPERTIES = EnumSet.of(TableProperty.UUID,
+            TableProperty.Label, TableProperty.Description, TableProperty.Units, TableProperty.DisplayFormat);
+
+    /**
+     * Returns the key under which the specified property is stored, or null if the property isn't indexed
+     * @param key the table property
+     * @return the property key, or null
+     */
+    static String toKey(TableProperty key)
+    {
+        if (key != null && sf_INDEXED_PROPERTIES.contains(key))
+            return BaseElementImpl.sf_RESERVED_PROPERTY_PREFIX + key.name();
+        else
+            return null;
+    }
+
+    /**
+     * Returns the key under which the specified user-defined property is stored
+     * @param key the property name
+     * @return the property key, or null if the name is invalid
+     */
+    static String toKey(String key)
+    {
+        if (key == null || (key = key.trim()).length() == 0 || key.startsWith(BaseElementImpl.sf_RESERVED_PROPERTY_PREFIX))
+            return null;
+        else
+            return key;
+    }
+
+    private static boolean isIndexed(String key)
+    {
+        if (!key.startsWith(BaseElementImpl.sf_RESERVED_PROPERTY_PREFIX))
+            return true;
+
+        for (TableProperty tp : sf_INDEXED_PROPERTIES) {
+            if (key.equals(BaseElementImpl.sf_RESERVED_PROPERTY_PREFIX + tp.name()))
+                return true;
+        }
+
+        return false;
+    }
+
+    private final Map<String, Map<Object, Set<CellImpl>>> m_properties;
+    private final Map<Tag, Set<CellImpl>> m_tags;
+
+    CellPropertyIndex()
+    {
+        m_properties = new HashMap<String, Map<Object, Set<CellImpl>>>();
+        m_tags = new HashMap<Tag, Set<CellImpl>>();
+    }
+
+    /**
+     * Index the properties and tags of existing cells; called once, after the index is installed, so
+     * that concurrent changes are also indexed. As a result, the index may briefly hold stale entries,
+     * so callers must confirm that the cells returned still match.
+     * @param cellProperties a snapshot of the stored properties of each cell
+     * @param cellTags a snapshot of the tags of each cell, taken while holding the table lock
+     */
+    void build(Map<CellImpl, Map<String, Object>> cellProperties, Map<CellImpl, Set<Tag>> cellTags)
+    {
+        for (Map.Entry<CellImpl, Map<String, Object>> e : cellProperties.entrySet()) {
+            CellImpl cell = e.getKey();
+            Map<String, Object> props;
+            synchronized(cell) {
+                props = new HashMap<String, Object>(e.getValue());
+            }
+
+            props.forEach((k, v) -> update(cell, k, null, v));
+        }
+
+        cellTags.forEach((cell, tags) -> tag(cell, tags));
+    }
+
+    /**
+     * Move the cell from the index entry for the property's old value to the entry for its new one
+     * @param cell the modified cell
+     * @param key the property key
+     * @param oldValue the previous property value, or null
+     * @param newValue the new property value, or null
+     */
+    synchronized void update(CellImpl cell, String key, Object oldValue, Object newValue)
+    {
+        if (cell == null || key == null || !isIndexed(key))
+            return;
+
+        Map<Object, Set<CellImpl>> values = m_properties.get(key);
+        if (oldValue != null && values != null)
+            remove(values, cell, oldValue);
+
+        if (newValue != null) {
+            if (values == null) {
+                values = new HashMap<Object, Set<CellImpl>>();
+                m_properties.put(key, values);
+            }
+
+            values.computeIfAbsent(newValue, k -> new HashSet<CellImpl>()).add(cell);
+        }
+    }
+
+    /**
+     * Remove the cell from the index entries for all of its properties and tags
+     * @param cell the cell
+     * @param props the cell's stored properties, or null
+     * @param tags the cell's tags, or null
+     */
+    synchronized void remove(CellImpl cell, Map<String, Object> props, Collection<Tag> tags)
+    {
+        if (props != null)
+            props.forEach((k, v) -> update(cell, k, v, null));
+
+        untag(cell, tags);
+    }
+
+    synchronized void tag(CellImpl cell, Collection<Tag> tags)
+    {
+        if (cell != null && tags != null)
+            tags.forEach(t -> m_tags.computeIfAbsent(t, k -> new HashSet<CellImpl>()).add(cell));
+    }
+
+    synchronized void untag(CellImpl cell, Collection<Tag> tags)
+    {
+        if (cell != null && tags != null)
+            tags.forEach(t -> remove(m_tags, cell, t));
+    }
+
+    /**
+     * Returns the cells with the specified property value
+     * @param key the property key
+     * @param value the property value
+     * @return the matching cells
+     */
+    synchronized List<CellImpl> getCells(String key, Object value)
+    {
+        Map<Object, Set<CellImpl>> values = m_properties.get(key);
+        return inColumnOrder(values != null ? values.get(value) : null);
+    }
+
+    /**
+     * Returns the cells tagged with all of the specified tags
+     * @param tags the tags
+     * @return the matching cells
+     */
+    synchronized List<CellImpl> getTaggedCells(Collection<Tag> tags)
+    {
+        Set<CellImpl> cells = null;
+        for (Tag t : tags) {
+            Set<CellImpl> tagged = m_tags.get(t);
+            if (tagged == null || tagged.isEmpty())
+                return new ArrayList<CellImpl>(0);
+
+            if (cells == null)
+                cells = new HashSet<CellImpl>(tagged);
+            else if (cells.retainAll(tagged) && cells.isEmpty())
+                break;
+        }
+
+        return inColumnOrder(cells);
+    }
+
+    private static <K> void remove(Map<K, Set<CellImpl>> index, CellImpl cell, K value)
+    {
+        Set<CellImpl> cells = index.get(value);
+        if (cells != null && cells.remove(cell) && cells.isEmpty())
+            index.remove(value);
+    }
+
+    static List<CellImpl> inColumnOrder(Collection<CellImpl> cells)
+    {
+        if (cells == null || cells.isEmpty())
+            return new ArrayList<CellImpl>(0);
+
+        // cells of deleted rows and columns are invalidated, but may retain their properties
+        List<CellImpl> ordered = new ArrayList<CellImpl>(cells.size());
+        cells.forEach(c -> { if (c.isValid() && c.getColumn() != null && c.getRow() != null) ordered.add(c); });
+        ordered.sort((c1, c2) -> {
+            int cmp = Integer.compare(c1.getColumn().getIndex(), c2.getColumn().getIndex());
+            return cmp != 0 ? cmp : Integer.compare(c1.getRow().getIndex(), c2.getRow().getIndex());
+        });
+
+        return ordered;
+    }
+}
@@ -7,6 +7,7 @@ import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.function.BiConsumer;
 
 import org.tms.api.Access;
 import org.tms.api.Cell;
@@ -19,9 +20,12 @@ import org.tms.api.events.BlockedRequestException;
 import org.tms.api.events.TableElementEventType;
 import org.tms.api.events.TableElementListener;
 import org.tms.api.exceptions.IllegalTableStateException;
+import org.tms.api.exceptions.NullValueException;
+import org.tms.api.exceptions.ReadOnlyException;
 import org.tms.api.io.IOOption;
 import org.tms.io.ColumnExportAdapter;
 import org.tms.io.TableExportAdapter;
+import org.tms.tds.events.TableElementListeners;
 import org.tms.tds.filters.FilteredColumnImpl;
 import org.tms.tds.filters.FilteredTableImpl;
 import org.tms.teq.MathUtil;
@@ -31,6 +35,9 @@ import org.tms.util.JustInTimeSet;
 public class ColumnImpl extends TableSliceElementImpl implements Column
 {
 	private ArrayList<CellImpl> m_cells;
+	private NumericColumnStore m_store;
+	private volatile ValueIndex m_valueIndex;
+	private final StructureStamp m_stamp = new StructureStamp();
 	private Class<? extends Object> m_dataType;
 	private int m_cellsCapacity;
 	private ColumnImpl m_proxyCol = null;
@@ -67,6 +74,7 @@ public class ColumnImpl extends TableSliceElementImpl implements Column
 
 		m_filters = new JustInTimeSet<FilteredColumnImpl>();
 		m_cells = null;
+		m_store = null;
 		m_cellsCapacity = 0;
 		m_dataType = null;
 	}
@@ -113,24 +121,46 @@ public class ColumnImpl extends TableSliceElementImpl implements Column
 	 */
 	void reclaimCellSpace(List<RowImpl> rows, int numRows)
 	{
-		// create a new cells array, ordered the same as the table rows
-		if (numRows > 0 && m_cells != null) {            
-			int numCells = m_cells.size();
-			if (numCells > numRows) {
-				ArrayList<CellImpl> cells = new ArrayList<CellImpl>(numRows);
-				rows.forEach(r -> { if (r != null && r.getCellOffset() >= 0) cells.add(m_cells.get(r.getCellOffset())); });    
-
-				m_cells = cells;
-				numCells = m_cells.size();
+		// the parent table renumbers row cell offsets whenever offsets beyond numRows are in use
+		TableImpl table = getTable();
+		boolean reorder = table != null && table.getNextCellOffset() > numRows;
+		
+		m_stamp.beginChange();
+		try {
+			// create a new cells array, ordered the same as the table rows
+			if (numRows > 0 && m_cells != null) {            
+				int numCells = m_cells.size();
+				if (numCells > numRows || reorder) {
+					ArrayList<CellImpl> cells = new ArrayList<CellImpl>(numRows);
+					final int curNumCells = numCells;
+					rows.forEach(r -> { 
+						if (r != null && r.getCellOffset() >= 0) 
+							cells.add(r.getCellOffset() < curNumCells ? m_cells.get(r.getCellOffset()) : null); 
+					});    
+	
+					m_cells = cells;
+					numCells = m_cells.size();
+				}
+				else if (m_cellsCapacity > numCells)
+					m_cells.trimToSize();
+	
+				m_cellsCapacity = numCells;
+			}
+			else {
+				m_cells = null;
+				m_cellsCapacity = 0;
+			}
+			
+			// the columnar store is indexed by the same cell offsets
+			if (m_store != null) {
+				if (numRows <= 0)
+					m_store = new NumericColumnStore(m_store.getDataType(), 0);
+				else if (reorder)
+					m_store.compact(rows);
 			}
-			else if (m_cellsCapacity > numCells)
-				m_cells.trimToSize();
-
-			m_cellsCapacity = numCells;
 		}
-		else {
-			m_cells = null;
-			m_cellsCapacity = 0;
+		finally {
+			m_stamp.endChange();
 		}
 	}
 
@@ -148,6 +178,13 @@ public class ColumnImpl extends TableSliceElementImpl implements Column
 		TableImpl t = getTable();
 		return t != null ? t.getNumRows() : 0;
 	}
+	
+	@Override
+	SliceList<?> getSliceList() 
+	{
+		TableImpl t = getTable();
+		return t != null ? t.getColumnSlices() : null;
+	}
 
 	@Override
 	public ElementType getSlicesType() 
@@ -164,7 +201,65 @@ public class ColumnImpl extends TableSliceElementImpl implements Column
 	@Override
 	public void setDataType(Class<? extends Object> dataType)
 	{
+		if (m_store != null && m_store.getDataType() != dataType)
+			flushColumnarStore();
+		
 		m_dataType = dataType;
+		syncColumnarStorage();
+	}
+
+	/**
+	 * Returns {@code true} if this column can keep its values in a {@link NumericColumnStore};
+	 * subclasses that load cells on demand, or proxy another column, return false
+	 * @return true if columnar storage is supported
+	 */
+	protected boolean isColumnarStorageSupported()
+	{
+		return m_proxyCol == null;
+	}
+	
+	/**
+	 * Returns {@code true} if this column is currently holding numeric values in a columnar store
+	 * @return true if columnar storage is active
+	 */
+	boolean isColumnarStorage()
+	{
+		return m_store != null;
+	}
+	
+	/**
+	 * Create or release the columnar store, based on the parent table's ColumnarStorage
+	 * property and this column's data type. 
+	 */
+	synchronized void syncColumnarStorage()
+	{
+		TableImpl table = getTable();
+		boolean columnar = table != null && table.isColumnarStorage() && isColumnarStorageSupported() && 
+				NumericColumnStore.isSupportedDataType(m_dataType);
+		
+		if (!columnar)
+			flushColumnarStore();
+		else if (m_store == null)
+			m_store = new NumericColumnStore(m_dataType, table.getNumRows());
+	}
+	
+	/**
+	 * Materialize all values held in the columnar store into cells, then release the store
+	 */
+	synchronized void flushColumnarStore()
+	{
+		if (m_store != null) {
+			TableImpl table = getTable();
+			if (table != null && !m_store.isEmpty()) {
+				for (int cellOffset : m_store.offsets()) {
+					RowImpl row = table.getRowByCellOffset(cellOffset);
+					if (row != null)
+						getCellInternal(row, true, false);
+				}
+			}
+			
+			m_store = null;
+		}
 	}
 
 	int getCellsCapacity()
@@ -219,68 +314,515 @@ public class ColumnImpl extends TableSliceElementImpl implements Column
 					// if the cell offset is not defined, no cells have been created
 					if (!createIfSparse ) return c;
 
-					/*
-					 *  consult the table for an available cell offset; this value is stored in
-					 *  the row structure, and is used as an offset into the column cell array
-					 */
-					synchronized(table) {
-						cellOffset = table.calcNextAvailableCellOffset();
-						assert cellOffset >= 0 : "Invalid cell offset returned";
-
-						row.setCellOffset(cellOffset);
-					}
+					cellOffset = assignCellOffset(table, row);
 				} // of assign cell offset to row
 
+				// values held in the columnar store are materialized into cells on demand
+				boolean isStored = m_store != null && m_store.isSet(cellOffset);
+				
 				// if offset is equal or greater than numCells, we haven't referenced this
 				// cell yet, create it and add it to the array, if createIfSparse is true
 				if (cellOffset < numCells) {
 					c = m_cells.get(cellOffset);
 
-					if (c == null && createIfSparse) {
-						c = createNewCell(row);
-						m_cells.set(cellOffset, c);
+					if (c == null && (createIfSparse || isStored)) {
+						m_stamp.beginChange();
+						try {
+							c = materializeCell(row, cellOffset);
+							m_cells.set(cellOffset, c);
+						}
+						finally {
+							m_stamp.endChange();
+						}
 					}
 				}
 				else {
-					if (!createIfSparse)
+					if (!createIfSparse && !isStored)
 						return c;
 
 					// if cellOffset is equal to or > numCells, this should be a new slot
 					// in which case, cellOffset should equal numCells
 					assert cellOffset >= numCells;
 
-					// make sure sufficient capacity exists
-					ensureCellCapacity(cellOffset + 1); // reget the cells array, in case it was null
-
-					// if cellOffset is equal to or beyond num cells, add slots to cell array
-					while (cellOffset > numCells) {
-						m_cells.add(null);
-						numCells++;
+					m_stamp.beginChange();
+					try {
+						// make sure sufficient capacity exists
+						ensureCellCapacity(cellOffset + 1); // reget the cells array, in case it was null
+	
+						// if cellOffset is equal to or beyond num cells, add slots to cell array
+						while (cellOffset > numCells) {
+							m_cells.add(null);
+							numCells++;
+						}
+	
+						// at this point, cellOffset should equal numCells
+						assert cellOffset == numCells : "cellOffset != numCells";
+	
+						// create a new cell and add it to the column cell array              
+						c = materializeCell(row, cellOffset);
+						m_cells.add(c);
+					}
+					finally {
+						m_stamp.endChange();
 					}
-
-					// at this point, cellOffset should equal numCells
-					assert cellOffset == numCells : "cellOffset != numCells";
-
-					// create a new cell and add it to the column cell array              
-					c = createNewCell(row);
-					m_cells.add(c);
 				}
 			} // of synchronized col
 		} // of table not null
 
 		// if the cell is non-null, mark the row and column as in use
-		if (c != null) {
-			if (setCurrent) {
-				this.setCurrent();
-				row.setCurrent();
-			}
+		if (c != null) 
+			markCellAccessed(row, setCurrent);
+
+		return c;
+	}
 
-			this.setInUse(true);  
-			row.setInUse(true);
+	/**
+	 * Consult the table for an available cell offset; this value is stored in
+	 * the row structure, and is used as an offset into the column cell array
+	 */
+	private int assignCellOffset(TableImpl table, RowImpl row)
+	{
+		synchronized(table) {
+			int cellOffset = table.calcNextAvailableCellOffset();
+			assert cellOffset >= 0 : "Invalid cell offset returned";
+
+			row.setCellOffset(cellOffset);
+			return cellOffset;
+		}
+	}
+	
+	private void markCellAccessed(RowImpl row, boolean setCurrent)
+	{
+		if (setCurrent) {
+			this.setCurrent();
+			row.setCurrent();
 		}
 
+		this.setInUse(true);  
+		row.setInUse(true);
+	}
+	
+	/**
+	 * Create the cell for the specified row, migrating its value out of the 
+	 * columnar store, if one is present
+	 */
+	private CellImpl materializeCell(RowImpl row, int cellOffset)
+	{
+		CellImpl c = createNewCell(row);
+		if (m_store != null && m_store.isSet(cellOffset)) {
+			c.m_cellValue = m_store.get(cellOffset);
+			m_store.clear(cellOffset);
+		}
+		
 		return c;
 	}
+	
+	/**
+	 * Returns {@code true} if cell values can be read without locking; columns that load cells 
+	 * on demand, or proxy another column, must take the locked path
+	 * @return true if optimistic reads are supported
+	 */
+	boolean isOptimisticReadSupported()
+	{
+		return isColumnarStorageSupported();
+	}
+	
+	StructureStamp getStructureStamp()
+	{
+		return m_stamp;
+	}
+	
+	/**
+	 * Returns {@code true} if this column's values can be indexed; columns that load cells 
+	 * on demand, or proxy another column, can't maintain an index
+	 * @return true if a value index is supported
+	 */
+	boolean isValueIndexSupported()
+	{
+		return isColumnarStorageSupported();
+	}
+	
+	boolean isValueIndexed()
+	{
+		return m_valueIndex != null;
+	}
+	
+	/**
+	 * Returns the index of this column's values, building it from the column's cells and columnar 
+	 * store when first requested. Once built, the index is maintained as cell values change.
+	 * @return the value index, or null if this column doesn't support one
+	 */
+	ValueIndex getValueIndex()
+	{
+		if (!isValueIndexSupported())
+			return null;
+		
+		ValueIndex vi = m_valueIndex;
+		if (vi == null) {
+			TableImpl table = getTable();
+			assert table != null : "Parent table required";
+			
+			synchronized(this) {
+				if ((vi = m_valueIndex) == null) {
+					// install the index before populating it, so that concurrent changes are applied
+					vi = new ValueIndex();
+					m_valueIndex = vi;
+					vi.build(table.getRowsInternal(), row -> getIndexableValue(row));
+				}
+			}
+		}
+		
+		return vi;
+	}
+	
+	void clearValueIndex()
+	{
+		m_valueIndex = null;
+	}
+	
+	void updateValueIndex(RowImpl row, Object oldValue, Object newValue)
+	{
+		ValueIndex vi = m_valueIndex;
+		if (vi != null)
+			vi.update(row, oldValue, newValue);
+	}
+	
+	/**
+	 * Returns the value of the cell in the specified row, without creating or materializing the cell
+	 */
+	private Object getIndexableValue(RowImpl row)
+	{
+		int cellOffset = row.getCellOffset();
+		if (m_store != null && m_store.isSet(cellOffset))
+			return m_store.get(cellOffset);
+		
+		CellImpl c = getExistingCell(cellOffset);
+		return c != null ? c.getCellValue() : null;
+	}
+	
+	/**
+	 * Returns the value held in the columnar store at the specified offset, if this column is indexed, 
+	 * so that it can be removed from the index when the value is replaced
+	 */
+	private Object getIndexedStoreValue(int cellOffset)
+	{
+		if (m_valueIndex != null && m_store.isSet(cellOffset))
+			return m_store.get(cellOffset);
+		else
+			return null;
+	}
+	
+	/**
+	 * Reads the value for the specified row without acquiring any locks, and without creating
+	 * cells or changing the current row and column. The result is only meaningful if the
+	 * column and table structure stamps validate after the read.
+	 * @param row the row
+	 * @return the cell value, or null
+	 */
+	Object readCellValue(RowImpl row)
+	{
+		int cellOffset = row.getCellOffset();
+		if (cellOffset < 0)
+			return null;
+		
+		ArrayList<CellImpl> cells = m_cells;
+		if (cells != null && cellOffset < cells.size()) {
+			CellImpl c = cells.get(cellOffset);
+			if (c != null)
+				return c.getCellValue();
+		}
+		
+		NumericColumnStore store = m_store;
+		return store != null ? store.get(cellOffset) : null;
+	}
+	
+	/**
+	 * Returns the existing cell in the row, without acquiring any lock; the caller must validate the read
+	 */
+	CellImpl readCell(RowImpl row)
+	{
+		int cellOffset = row.getCellOffset();
+		ArrayList<CellImpl> cells = m_cells;
+		if (cellOffset < 0 || cells == null || cellOffset >= cells.size())
+			return null;
+		
+		return cells.get(cellOffset);
+	}
+	
+	/**
+	 * Returns {@code true} if a cell or stored value exists for the specified row, without
+	 * acquiring any locks; see {@link #readCellValue(RowImpl)}
+	 * @param row the row
+	 * @return true if the cell is defined
+	 */
+	boolean readCellDefined(RowImpl row)
+	{
+		int cellOffset = row.getCellOffset();
+		if (cellOffset < 0)
+			return false;
+		
+		ArrayList<CellImpl> cells = m_cells;
+		if (cells != null && cellOffset < cells.size() && cells.get(cellOffset) != null)
+			return true;
+		
+		NumericColumnStore store = m_store;
+		return store != null && store.isSet(cellOffset);
+	}
+	
+	/**
+	 * Returns the cell at the intersection of this column and the specified row, if it exists, without
+	 * creating it, or materializing a value held in the columnar store
+	 * @param row the row
+	 * @return the cell, or null
+	 */
+	public CellImpl findCell(Row row)
+	{
+		int cellOffset = ((RowImpl)row).getCellOffset();
+		synchronized(this) {
+			return getExistingCell(cellOffset);
+		}
+	}
+	
+	private CellImpl getExistingCell(int cellOffset)
+	{
+		if (cellOffset >= 0 && cellOffset < getCellsSize())
+			return m_cells.get(cellOffset);
+		else
+			return null;
+	}
+	
+	/**
+	 * Returns the value at the intersection of this column and the specified row. Values held 
+	 * in the columnar store are returned without materializing a cell.
+	 * @param row the row
+	 * @param setCurrent if true, make the row and column current
+	 * @return the cell value, or null
+	 */
+	Object getCellValue(RowImpl row, boolean setCurrent)
+	{
+		if (m_store != null) {
+			synchronized(this) {
+				int cellOffset = row.getCellOffset();
+				if (m_store.isSet(cellOffset)) {
+					markCellAccessed(row, setCurrent);
+					return m_store.get(cellOffset);
+				}
+			}
+		}
+		
+		CellImpl c = getCellInternal(row, false, setCurrent);
+		return c != null ? c.getCellValue() : null;
+	}
+	
+	/**
+	 * Returns {@code true} if a cell, or a value in the columnar store, exists for the specified row
+	 * @param row the row
+	 * @return true if the cell is defined
+	 */
+	boolean isCellDefined(RowImpl row)
+	{
+		if (m_store != null) {
+			synchronized(this) {
+				if (m_store.isSet(row.getCellOffset()))
+					return true;
+			}
+		}
+		
+		return getCellInternal(row, false, false) != null;
+	}
+	
+	/**
+	 * Returns {@code true} if the value can be written directly to the columnar store. This is only 
+	 * possible when no cell exists for the row, the value is null or matches the column data type exactly, 
+	 * and nothing would observe the change at the cell level (listeners, validators, derivations, 
+	 * or write protection).
+	 * @param row the target row
+	 * @param value the new value
+	 * @return true if the value can bypass cell creation
+	 */
+	boolean isColumnarValue(RowImpl row, Object value)
+	{
+		if (m_store == null)
+			return false;
+		
+		if (value == null) {
+			if (!isNullsSupported() || !row.isNullsSupported())
+				return false;
+		}
+		else if (value.getClass() != m_store.getDataType())
+			return false;
+		
+		TableImpl table = getTable();
+		if (table == null || 
+				TableElementListeners.hasAnyListeners(table, TableElementEventType.OnBeforeNewValue, TableElementEventType.OnNewValue))
+			return false;
+		
+		if (isWriteProtected() || row.isWriteProtected())
+			return false;
+		
+		if (isDerived() || row.isDerived())
+			return false;
+		
+		if (getValidator() != null || row.getValidator() != null)
+			return false;
+		
+		if ((m_affects != null && !m_affects.isEmpty()) || (row.m_affects != null && !row.m_affects.isEmpty()))
+			return false;
+		
+		// an existing cell owns its value
+		synchronized(this) {
+			return getExistingCell(row.getCellOffset()) == null;
+		}
+	}
+	
+	/**
+	 * Write a value directly to the columnar store; callers must first vet the 
+	 * value with {@link #isColumnarValue(RowImpl, Object)}
+	 * @param row the target row
+	 * @param value the new value, or null to clear the stored value
+	 * @return true if the stored value changed
+	 */
+	boolean setColumnarValue(RowImpl row, Object value)
+	{
+		TableImpl table = getTable();
+		assert table != null : "Parent table required";
+		assert m_store != null : "Columnar store required";
+		
+		boolean valuesDiffer;
+		synchronized(this) {
+			int cellOffset = row.getCellOffset();
+			Object oldValue = getIndexedStoreValue(cellOffset);
+			if (value == null) {
+				valuesDiffer = m_store.isSet(cellOffset);
+				if (valuesDiffer) {
+					m_stamp.beginChange();
+					try {
+						m_store.clear(cellOffset);
+					}
+					finally {
+						m_stamp.endChange();
+					}
+					
+					updateValueIndex(row, oldValue, null);
+				}
+				
+				return valuesDiffer;
+			}
+			
+			if (cellOffset < 0)
+				cellOffset = assignCellOffset(table, row);
+			
+			m_stamp.beginChange();
+			try {
+				valuesDiffer = m_store.set(cellOffset, (Number)value);
+			}
+			finally {
+				m_stamp.endChange();
+			}
+			
+			if (valuesDiffer)
+				updateValueIndex(row, oldValue, value);
+		}
+		
+		markCellAccessed(row, false);
+		return valuesDiffer;
+	}
+	
+	/**
+	 * Fill the column, writing values that match the column data type, as well as nulls,
+	 * directly to the columnar store, when it is active. Existing cells are set in place.
+	 */
+	@Override
+	boolean fillElement(Object o, boolean preserveDerivedCells) 
+	{
+		if (m_store == null || (o != null && o.getClass() != m_store.getDataType()))
+			return super.fillElement(o, preserveDerivedCells);
+		
+		TableImpl table = getTable();
+		boolean setSome = false;
+		boolean readOnlyExceptionEncountered = false;
+		boolean nullValueExceptionEncountered = false;
+		
+		int numRows = table.getNumRows();
+		for (int i = 1; i <= numRows; i++) {
+			RowImpl row = table.getRowInternal(o != null, false, Access.ByIndex, i);
+			if (row == null)
+				continue;
+			
+			CellImpl c = null;
+			synchronized(this) {
+				c = getExistingCell(row.getCellOffset());
+				if (c == null) {
+					if (preserveDerivedCells && row.isDerived())
+						continue;
+					
+					int cellOffset = row.getCellOffset();
+					Object oldValue = getIndexedStoreValue(cellOffset);
+					if (o == null) {
+						if (m_store.isSet(cellOffset)) {
+							m_stamp.beginChange();
+							try {
+								m_store.clear(cellOffset);
+							}
+							finally {
+								m_stamp.endChange();
+							}
+							
+							updateValueIndex(row, oldValue, null);
+							setSome = true;
+						}
+					}
+					else {
+						if (cellOffset < 0)
+							cellOffset = assignCellOffset(table, row);
+						
+						m_stamp.beginChange();
+						try {
+							if (m_store.set(cellOffset, (Number)o)) {
+								updateValueIndex(row, oldValue, o);
+								setSome = true;
+							}
+						}
+						finally {
+							m_stamp.endChange();
+						}
+						
+						row.setInUse(true);
+					}
+					
+					continue;
+				}
+			}
+			
+			// otherwise, set the existing cell
+	        if (preserveDerivedCells && (c.isDerived() || row.isDerived())) 
+	            continue;
+	        else
+	        	c.clearDerivation();
+	        
+	        try {
+	            if (c.setCellValue(o, true, false))
+	                setSome = true;
+	        }
+	        catch (ReadOnlyException e) {
+	            readOnlyExceptionEncountered = true;
+	        }
+	        catch (NullValueException e) {
+	            nullValueExceptionEncountered = true;
+	        }
+		}
+		
+		// if we set any, ignore exceptions caused by attempting to set a read-only cell
+		// or set a cell that can't hold nulls to null
+		if (!setSome) {
+			if (readOnlyExceptionEncountered)
+			    throw new ReadOnlyException(this, TableProperty.CellValue);
+			else if (nullValueExceptionEncountered)
+			    throw new NullValueException(this, TableProperty.CellValue);
+		}
+		
+		return setSome;
+	}
 
 	@Override
 	protected CellImpl getCellByStringReference(String key) 
@@ -348,6 +890,19 @@ public class ColumnImpl extends TableSliceElementImpl implements Column
 		return (List<CellImpl>) m_cells;
 	}
 
+	/**
+	 * Pre-size the column cell array, or the columnar store, when active, ahead of 
+	 * a bulk update that assigns up to {@code reqCells} cell offsets
+	 * @param reqCells the number of cell offsets required
+	 */
+	void reserveCellCapacity(int reqCells)
+	{
+		if (m_store != null)
+			m_store.ensureCapacity(reqCells);
+		else if (m_cells == null || reqCells > m_cellsCapacity)
+			ensureCellCapacity(reqCells);
+	}
+
 	int getCellsSize()
 	{
 		if (m_cells != null) 
@@ -372,6 +927,9 @@ public class ColumnImpl extends TableSliceElementImpl implements Column
 				m_cells.set(cellOffset, null);
 			}
 		}
+		
+		if (m_store != null)
+			m_store.clear(cellOffset);
 	}
 
 	/*
@@ -417,7 +975,7 @@ public class ColumnImpl extends TableSliceElementImpl implements Column
 		assert parent != null;
 
 		// sanity check, columns list must exist
-		ArrayList<ColumnImpl> cols = parent.getColumnsInternal();
+		List<ColumnImpl> cols = parent.getColumnsInternal();
 		assert cols != null;
 
 		/*
@@ -473,15 +1031,18 @@ public class ColumnImpl extends TableSliceElementImpl implements Column
 	public int getNumCells()
 	{
 		vetElement();
+		
+		// values in the columnar store are never also held in cells
+		int numStoredValues = m_store != null ? m_store.size() : 0;
 		if (m_cells != null) {
 			int numNonNullCells = 0;
 			for (Object o : m_cells)
 				if (o != null) numNonNullCells++;
 
-			return numNonNullCells;
+			return numNonNullCells + numStoredValues;
 		}
 		else 
-			return 0;
+			return numStoredValues;
 	}
 
 	@Override
@@ -530,8 +1091,10 @@ public class ColumnImpl extends TableSliceElementImpl implements Column
 		TableImpl parent = getTable();
 		if (parent != null) {
 			synchronized (parent) {
+				parent.awaitParallelRecalculations();
+
 				// sanity check, columns list must exist
-				ArrayList<ColumnImpl> cols = parent.getColumnsInternal();
+				List<ColumnImpl> cols = parent.getColumnsInternal();
 				if (cols == null)
 					throw new IllegalTableStateException("Parent table requires columns");
 
@@ -554,13 +1117,20 @@ public class ColumnImpl extends TableSliceElementImpl implements Column
 				if (m_cells != null) 
 					m_cells.forEach(c -> { if (c != null) c.invalidateCell(); });
 
-				TableSliceElementImpl rc = cols.remove(idx);
-				assert rc == this : "Removed column mismatch";
+				int nCols;
+				parent.getStructureStamp().beginChange();
+				try {
+					TableSliceElementImpl rc = cols.remove(idx);
+					assert rc == this : "Removed column mismatch";
 
-				// reindex remaining columns
-				int nCols = parent.getNumColumns();
-				if (idx < nCols)
-					cols.listIterator(idx).forEachRemaining(c -> {if (c != null) c.setIndex(c.getIndex() - 1);});
+					// reindex remaining columns
+					nCols = parent.getNumColumns();
+					if (idx < nCols)
+						cols.listIterator(idx).forEachRemaining(c -> {if (c != null) c.setIndex(c.getIndex() - 1);});
+				}
+				finally {
+					parent.getStructureStamp().endChange();
+				}
 
 				// sanity check
 				nCols = nCols--;
@@ -585,6 +1155,7 @@ public class ColumnImpl extends TableSliceElementImpl implements Column
 
 		// help the garbage collector
 		this.m_cells = null;
+		this.m_store = null;
 
 		// mark row as deleted
 		invalidate(); 
@@ -599,6 +1170,19 @@ public class ColumnImpl extends TableSliceElementImpl implements Column
 		return new ColumnCellIterable();
 	}
 
+	/**
+	 * Returns the cells of this column that already exist, in row order. Unlike {@link #cells()}, 
+	 * no cells are created, and values held in the columnar store are not materialized into cells;
+	 * they are passed to {@code storedValues}, in row order, as the iteration reaches them.
+	 * @param storedValues receives the row and value of each value held in the columnar store, may be null
+	 * @return the existing cells
+	 */
+	public Iterable<Cell> existingCells(BiConsumer<Row, Number> storedValues)
+	{
+		vetElement();
+		return new ExistingCellIterable(storedValues);
+	}
+
 	protected Iterable<CellImpl> cellsInternal()
 	{
 		if (m_cells == null)
@@ -654,4 +1238,65 @@ public class ColumnImpl extends TableSliceElementImpl implements Column
 			return c;
 		}       
 	}
+
+	/**
+	 * Iterator to produce a column's existing cells in row order, handing values held
+	 * in the columnar store to a consumer rather than materializing them.
+	 */
+	protected class ExistingCellIterable implements Iterator<Cell>, Iterable<Cell>
+	{
+		private int m_index;
+		private int m_numRows;
+		private TableImpl m_table;
+		private BiConsumer<Row, Number> m_storedValues;
+		private CellImpl m_next;
+
+		public ExistingCellIterable(BiConsumer<Row, Number> storedValues)
+		{
+			m_table = getTable();
+			m_storedValues = storedValues;
+			m_index = 1;
+			m_numRows = m_table != null ? m_table.getNumRows() : 0;
+		}
+
+		@Override
+		public Iterator<Cell> iterator()
+		{
+			return this;
+		}
+
+		@Override
+		public boolean hasNext()
+		{
+			while (m_next == null && m_index <= m_numRows) {
+				RowImpl row = m_table.getRowInternal(false, false, Access.ByIndex, m_index++);
+				if (row == null)
+					continue;
+
+				Number storedValue = null;
+				synchronized(ColumnImpl.this) {
+					int cellOffset = row.getCellOffset();
+					m_next = getExistingCell(cellOffset);
+					if (m_next == null && m_store != null && m_store.isSet(cellOffset))
+						storedValue = (Number)m_store.get(cellOffset);
+				}
+
+				if (storedValue != null && m_storedValues != null)
+					m_storedValues.accept(row, storedValue);
+			}
+
+			return m_next != null;
+		}
+
+		@Override
+		public CellImpl next()
+		{
+			if (!hasNext())
+				throw new NoSuchElementException();
+
+			CellImpl c = m_next;
+			m_next = null;
+			return c;
+		}       
+	}
 }
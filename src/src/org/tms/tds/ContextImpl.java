@@ -22,6 +22,7 @@ import org.tms.api.ElementType;
 import org.tms.api.Table;
 import org.tms.api.TableContext;
 import org.tms.api.TableProperty;
+import org.tms.api.ThreadPoolStrategy;
 import org.tms.api.derivables.DerivableThreadPool;
 import org.tms.api.derivables.DerivableThreadPoolConfig;
 import org.tms.api.derivables.Operator;
@@ -64,18 +65,23 @@ public class ContextImpl extends BaseElementImpl implements TableContext,
     static final int sf_COLUMN_CAPACITY_INCR_DEFAULT = 32;
     static final double sf_FREE_SPACE_THRESHOLD_DEFAULT = 2.0;
     static final boolean sf_TABLE_PERSISTANCE_DEFAULT = false;
+    static final boolean sf_COLUMNAR_STORAGE_DEFAULT = false;
+    static final boolean sf_CONCURRENT_READS_DEFAULT = false;
+    static final boolean sf_PARALLEL_RECALCULATION_DEFAULT = false;
 
     static final int sf_PENDING_CORE_POOL_SIZE_DEFAULT = 8;
     static final int sf_PENDING_MAX_POOL_SIZE_DEFAULT = 128;
     static final int sf_PENDING_KEEP_ALIVE_TIMEOUT_SEC_DEFAULT = 5;
     static final boolean sf_PENDING_ALLOW_CORE_THREAD_TIMEOUT_DEFAULT = true;
     static final boolean sf_PENDING_THREAD_POOL_ENABLED_DEFAULT = true;
+    static final ThreadPoolStrategy sf_PENDING_THREAD_POOL_STRATEGY_DEFAULT = ThreadPoolStrategy.Pooled;
     
     static final boolean sf_EVENTS_NOTIFY_IN_SAME_THREAD_DEFAULT = false;
     static final int sf_EVENTS_CORE_POOL_SIZE_DEFAULT = 2;
     static final int sf_EVENTS_MAX_POOL_SIZE_DEFAULT = 5;
     static final int sf_EVENTS_KEEP_ALIVE_TIMEOUT_SEC_DEFAULT = 30;
     static final boolean sf_EVENTS_ALLOW_CORE_THREAD_TIMEOUT_DEFAULT = false;
+    static final ThreadPoolStrategy sf_EVENTS_THREAD_POOL_STRATEGY_DEFAULT = ThreadPoolStrategy.Pooled;
     
     static final boolean sf_READ_ONLY_DEFAULT = false;
     static final boolean sf_SUPPORTS_NULL_DEFAULT = true;
@@ -152,11 +158,13 @@ public class ContextImpl extends BaseElementImpl implements TableContext,
     private int m_eventsMaxPoolThreads;
     private long m_eventsKeepAliveTimeout;
     private TimeUnit m_eventsKeepAliveTimeUnit;
+    private ThreadPoolStrategy m_eventsThreadPoolStrategy;
     
     private int m_pendingCorePoolThreads;
     private int m_pendingMaxPoolThreads;
     private long m_pendingKeepAliveTimeout;
     private TimeUnit m_pendingKeepAliveTimeUnit;
+    private ThreadPoolStrategy m_pendingThreadPoolStrategy;
     private PendingDerivationExecutor m_pendingThreadPool;
     
     private EventProcessorExecutor m_eventThreadPool;
@@ -301,6 +309,24 @@ public class ContextImpl extends BaseElementImpl implements TableContext,
                     setPersistant((boolean)value);
                     break;
                     
+                case isColumnarStorage:
+                    if (!isValidPropertyValueBoolean(value))
+                        value = sf_COLUMNAR_STORAGE_DEFAULT;
+                    setColumnarStorage((boolean)value);
+                    break;
+                    
+                case isConcurrentReads:
+                    if (!isValidPropertyValueBoolean(value))
+                        value = sf_CONCURRENT_READS_DEFAULT;
+                    setConcurrentReads((boolean)value);
+                    break;
+                    
+                case isParallelRecalculation:
+                    if (!isValidPropertyValueBoolean(value))
+                        value = sf_PARALLEL_RECALCULATION_DEFAULT;
+                    setParallelRecalculation((boolean)value);
+                    break;
+                    
                 case TokenMapper:
                     if (value == null)
                         value = TokenMapper.fetchTokenMapper(this);
@@ -338,6 +364,12 @@ public class ContextImpl extends BaseElementImpl implements TableContext,
                         value = sf_PENDING_KEEP_ALIVE_TIMEOUT_SEC_DEFAULT;
                     setPendingKeepAliveTime((int)value, TimeUnit.SECONDS);
                     break;
+                    
+                case PendingThreadPoolStrategy:
+                    if (!(value instanceof ThreadPoolStrategy))
+                        value = sf_PENDING_THREAD_POOL_STRATEGY_DEFAULT;
+                    setPendingThreadPoolStrategy((ThreadPoolStrategy)value);
+                    break;
                 
                 case isEventsNotifyInSameThread:
                     if (!isValidPropertyValueBoolean(value))
@@ -369,6 +401,12 @@ public class ContextImpl extends BaseElementImpl implements TableContext,
                     setEventsKeepAliveTime((int)value, TimeUnit.SECONDS);
                     break;
                     
+                case EventsThreadPoolStrategy:
+                    if (!(value instanceof ThreadPoolStrategy))
+                        value = sf_EVENTS_THREAD_POOL_STRATEGY_DEFAULT;
+                    setEventsThreadPoolStrategy((ThreadPoolStrategy)value);
+                    break;
+                    
                 default:
                     if (!tp.isOptional())
                         throw new IllegalStateException("No initialization available for TableContext Property: " + tp);                       
@@ -422,6 +460,15 @@ public class ContextImpl extends BaseElementImpl implements TableContext,
             case isPersistant:
                 return isPersistant();
                 
+            case isColumnarStorage:
+                return isColumnarStorage();
+                
+            case isConcurrentReads:
+                return isConcurrentReads();
+                
+            case isParallelRecalculation:
+                return isParallelRecalculation();
+                
             case TokenMapper:
                 return getTokenMapper();
                 
@@ -458,6 +505,12 @@ public class ContextImpl extends BaseElementImpl implements TableContext,
 	        case PendingThreadKeepAliveTimeoutUnit:
 	            return getPendingKeepAliveTimeUnit();                
 	         
+            case PendingThreadPoolStrategy:
+                return getPendingThreadPoolStrategy();
+                
+            case EventsThreadPoolStrategy:
+                return getEventsThreadPoolStrategy();
+                
             default:
                 return super.getProperty(key);
         }        
@@ -622,6 +675,36 @@ public class ContextImpl extends BaseElementImpl implements TableContext,
         set(sf_IS_TABLE_PERSISTANT_FLAG, persistant);
     }
     
+    public boolean isColumnarStorage()
+    {
+        return isSet(sf_COLUMNAR_STORAGE_FLAG);
+    }
+    
+    public void setColumnarStorage(boolean columnar)
+    {
+        set(sf_COLUMNAR_STORAGE_FLAG, columnar);
+    }
+    
+    public boolean isConcurrentReads()
+    {
+        return isSet(sf_CONCURRENT_READS_FLAG);
+    }
+    
+    public void setConcurrentReads(boolean concurrentReads)
+    {
+        set(sf_CONCURRENT_READS_FLAG, concurrentReads);
+    }
+    
+    public boolean isParallelRecalculation()
+    {
+        return isSet(sf_PARALLEL_RECALCULATION_FLAG);
+    }
+    
+    public void setParallelRecalculation(boolean parallel)
+    {
+        set(sf_PARALLEL_RECALCULATION_FLAG, parallel);
+    }
+    
     public String getDisplayFormat()
     {
         return (String)getProperty(TableProperty.DisplayFormat);
@@ -930,6 +1013,25 @@ public class ContextImpl extends BaseElementImpl implements TableContext,
         return isSet(sf_PENDINGS_ALLOW_CORE_THREAD_TIMEOUT_FLAG);
     }
 
+    @Override
+    public ThreadPoolStrategy getPendingThreadPoolStrategy()
+    {
+        return m_pendingThreadPoolStrategy;
+    }
+
+    @Override
+    public void setPendingThreadPoolStrategy(ThreadPoolStrategy strategy)
+    {
+        if (strategy == null) {
+            if (this.isDefault()) 
+                m_pendingThreadPoolStrategy = sf_PENDING_THREAD_POOL_STRATEGY_DEFAULT;
+            else
+                m_pendingThreadPoolStrategy = ContextImpl.getDefaultContext().getPendingThreadPoolStrategy();
+        }
+        else
+            m_pendingThreadPoolStrategy = strategy;
+    }
+
     @Override
     public void setPendingAllowCoreThreadTimeOut(boolean allowCoreThreadTimeout)
     {
@@ -950,7 +1052,8 @@ public class ContextImpl extends BaseElementImpl implements TableContext,
                                                                     maxPoolSize,
                                                                     getPendingKeepAliveTime(unit),
                                                                     unit,
-                                                                    isPendingAllowsCoreThreadTimeOut());  
+                                                                    isPendingAllowsCoreThreadTimeOut(),
+                                                                    getPendingThreadPoolStrategy());  
             }
         }
         
@@ -1064,6 +1167,28 @@ public class ContextImpl extends BaseElementImpl implements TableContext,
         set(sf_EVENTS_ALLOW_CORE_THREAD_TIMEOUT_FLAG, allowCoreThreadTimeout);
     }
     
+    public ThreadPoolStrategy getEventsThreadPoolStrategy()
+    {
+        return m_eventsThreadPoolStrategy;
+    }
+
+    /**
+     * Sets the {@link ThreadPoolStrategy} used to deliver events; the strategy must be set
+     * before the first event is delivered
+     * @param strategy the strategy, or null to use the default
+     */
+    public void setEventsThreadPoolStrategy(ThreadPoolStrategy strategy)
+    {
+        if (strategy == null) {
+            if (this.isDefault()) 
+                m_eventsThreadPoolStrategy = sf_EVENTS_THREAD_POOL_STRATEGY_DEFAULT;
+            else
+                m_eventsThreadPoolStrategy = ContextImpl.getDefaultContext().getEventsThreadPoolStrategy();
+        }
+        else
+            m_eventsThreadPoolStrategy = strategy;
+    }
+    
     /**
      * Create and initialize the thread pool to support event processing.
      */
@@ -1077,7 +1202,8 @@ public class ContextImpl extends BaseElementImpl implements TableContext,
                                                                maxPoolSize,
                                                                getEventsKeepAliveTime(unit),
                                                                unit,
-                                                               eventsAllowsCoreThreadTimeOut());  
+                                                               eventsAllowsCoreThreadTimeOut(),
+                                                               getEventsThreadPoolStrategy());  
             }
         }
     }
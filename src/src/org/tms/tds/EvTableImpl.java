@@ -5,6 +5,7 @@ import java.util.concurrent.TimeUnit;
 
 import org.tms.api.Table;
 import org.tms.api.TableProperty;
+import org.tms.api.ThreadPoolStrategy;
 import org.tms.api.events.TableElementEvent;
 import org.tms.tds.events.EventProcessorExecutor;
 import org.tms.tds.events.EventProcessorThreadPool;
@@ -49,6 +50,7 @@ public class EvTableImpl extends TableImpl implements EventProcessorThreadPool,
     private int m_eventsMaxPoolThreads;
     private long m_eventsKeepAliveTimeout;
     private TimeUnit m_eventsKeepAliveTimeUnit;
+    private ThreadPoolStrategy m_eventsThreadPoolStrategy;
     
     private EventProcessorExecutor m_eventThreadPool;
     private Object m_eventThreadPoolLock;
@@ -115,6 +117,12 @@ public class EvTableImpl extends TableImpl implements EventProcessorThreadPool,
                 setEventsKeepAliveTime((int)value, TimeUnit.SECONDS);
                 return true;      
                 
+            case EventsThreadPoolStrategy:
+                if (!(value instanceof ThreadPoolStrategy))
+                    value = ContextImpl.sf_EVENTS_THREAD_POOL_STRATEGY_DEFAULT;
+                setEventsThreadPoolStrategy((ThreadPoolStrategy)value);
+                return true;      
+                
             default:
                 return super.initializeSpecializedProperty(tp, value);      
         }
@@ -140,6 +148,9 @@ public class EvTableImpl extends TableImpl implements EventProcessorThreadPool,
             case EventsThreadKeepAliveTimeout:
                 return getEventsKeepAliveTime(TimeUnit.SECONDS);
                 
+            case EventsThreadPoolStrategy:
+                return getEventsThreadPoolStrategy();
+                
             default:
                 return super.getProperty(key);
         }        
@@ -234,6 +245,23 @@ public class EvTableImpl extends TableImpl implements EventProcessorThreadPool,
         set(sf_EVENTS_ALLOW_CORE_THREAD_TIMEOUT_FLAG, allowCoreThreadTimeout);
     }
     
+    public ThreadPoolStrategy getEventsThreadPoolStrategy()
+    {
+        return m_eventsThreadPoolStrategy;
+    }
+
+    public void setEventsThreadPoolStrategy(ThreadPoolStrategy strategy)
+    {
+        if (strategy == null) {
+            if (getTableContext() != null) 
+                m_eventsThreadPoolStrategy = getTableContext().getEventsThreadPoolStrategy();
+            else
+                m_eventsThreadPoolStrategy = ContextImpl.getDefaultContext().getEventsThreadPoolStrategy();
+        }
+        else
+            m_eventsThreadPoolStrategy = strategy;
+    }
+    
     /**
      * Create and initialize the thread pool to support event processing.
      */
@@ -247,7 +275,8 @@ public class EvTableImpl extends TableImpl implements EventProcessorThreadPool,
                                                                maxPoolSize,
                                                                getEventsKeepAliveTime(unit),
                                                                unit,
-                                                               eventsAllowsCoreThreadTimeOut());  
+                                                               eventsAllowsCoreThreadTimeOut(),
+                                                               getEventsThreadPoolStrategy());  
             }
         }
     }
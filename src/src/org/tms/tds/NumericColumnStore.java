@@ -0,0 +1,213 @@
+package org.tms.tds;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Packed, primitive storage for the values of a numeric {@link ColumnImpl}. Values are kept
+ * in a {@code double[]} (floating point data types) or {@code long[]} (integral data types),
+ * indexed by row cell offset, along with a bitmap that records which offsets hold a value.
+ * <p>
+ * A value lives either in this store or in a {@link CellImpl}, never in both; the owning column
+ * migrates a value out of the store when a cell handle is materialized for its offset.
+ */
+final class NumericColumnStore
+{
+    private static final int sf_MIN_CAPACITY = 16;
+
+    /**
+     * Returns {@code true} if values of the specified data type can be held in a {@code NumericColumnStore}
+     * @param dataType the column data type
+     * @return true if the data type is supported
+     */
+    static boolean isSupportedDataType(Class<? extends Object> dataType)
+    {
+        return dataType == Double.class || dataType == Float.class || isIntegral(dataType);
+    }
+
+    private static boolean isIntegral(Class<? extends Object> dataType)
+    {
+        return dataType == Long.class || dataType == Integer.class || dataType == Short.class || dataType == Byte.class;
+    }
+
+    private final Class<? extends Object> m_dataType;
+    private final boolean m_isIntegral;
+    private double [] m_doubles;
+    private long [] m_longs;
+    private BitSet m_present;
+
+    NumericColumnStore(Class<? extends Object> dataType, int capacity)
+    {
+        assert isSupportedDataType(dataType) : "Unsupported data type: " + dataType;
+
+        m_dataType = dataType;
+        m_isIntegral = isIntegral(dataType);
+
+        capacity = Math.max(capacity, sf_MIN_CAPACITY);
+        if (m_isIntegral)
+            m_longs = new long[capacity];
+        else
+            m_doubles = new double[capacity];
+
+        m_present = new BitSet(capacity);
+    }
+
+    Class<? extends Object> getDataType()
+    {
+        return m_dataType;
+    }
+
+    int getCapacity()
+    {
+        return m_isIntegral ? m_longs.length : m_doubles.length;
+    }
+
+    /**
+     * Returns the number of cell offsets that currently hold a value
+     * @return the number of stored values
+     */
+    int size()
+    {
+        return m_present.cardinality();
+    }
+
+    boolean isEmpty()
+    {
+        return m_present.isEmpty();
+    }
+
+    boolean isSet(int cellOffset)
+    {
+        return cellOffset >= 0 && m_present.get(cellOffset);
+    }
+
+    /**
+     * Returns the stored value, boxed to the store's data type, or null if no value is stored
+     * at the specified offset
+     * @param cellOffset the row cell offset
+     * @return the boxed value, or null
+     */
+    Object get(int cellOffset)
+    {
+        if (!isSet(cellOffset))
+            return null;
+
+        if (m_isIntegral) {
+            long lv = m_longs[cellOffset];
+            if (m_dataType == Long.class)
+                return lv;
+            else if (m_dataType == Integer.class)
+                return (int)lv;
+            else if (m_dataType == Short.class)
+                return (short)lv;
+            else
+                return (byte)lv;
+        }
+        else {
+            double dv = m_doubles[cellOffset];
+            if (m_dataType == Double.class)
+                return dv;
+            else
+                return (float)dv;
+        }
+    }
+
+    double getDouble(int cellOffset)
+    {
+        return m_isIntegral ? (double)m_longs[cellOffset] : m_doubles[cellOffset];
+    }
+
+    /**
+     * Stores the value at the specified offset
+     * @param cellOffset the row cell offset
+     * @param value the new value
+     * @return true if the new value differs from the previously stored value
+     */
+    boolean set(int cellOffset, Number value)
+    {
+        assert cellOffset >= 0 : "Invalid cell offset";
+        assert value != null : "Value required";
+
+        ensureCapacity(cellOffset + 1);
+
+        boolean wasSet = m_present.get(cellOffset);
+        boolean differs;
+        if (m_isIntegral) {
+            long lv = value.longValue();
+            differs = !wasSet || m_longs[cellOffset] != lv;
+            m_longs[cellOffset] = lv;
+        }
+        else {
+            double dv = value.doubleValue();
+
+            // compare bit patterns, consistent with Double.equals
+            differs = !wasSet || Double.doubleToLongBits(m_doubles[cellOffset]) != Double.doubleToLongBits(dv);
+            m_doubles[cellOffset] = dv;
+        }
+
+        m_present.set(cellOffset);
+        return differs;
+    }
+
+    void clear(int cellOffset)
+    {
+        if (cellOffset >= 0)
+            m_present.clear(cellOffset);
+    }
+
+    void ensureCapacity(int reqCapacity)
+    {
+        int capacity = getCapacity();
+        if (reqCapacity > capacity) {
+            int newCapacity = Math.max(reqCapacity, capacity + (capacity >> 1));
+            if (m_isIntegral)
+                m_longs = Arrays.copyOf(m_longs, newCapacity);
+            else
+                m_doubles = Arrays.copyOf(m_doubles, newCapacity);
+        }
+    }
+
+    /**
+     * Rebuild the store so that values are ordered in row order, mirroring
+     * {@link ColumnImpl#reclaimCellSpace}. Rows with no cell offset are skipped.
+     * @param rows the table rows, in row order
+     */
+    void compact(List<RowImpl> rows)
+    {
+        int numRows = rows.size();
+        BitSet present = new BitSet(numRows);
+        double [] doubles = m_isIntegral ? null : new double[Math.max(numRows, sf_MIN_CAPACITY)];
+        long [] longs = m_isIntegral ? new long[Math.max(numRows, sf_MIN_CAPACITY)] : null;
+
+        int newOffset = 0;
+        for (RowImpl r : rows) {
+            if (r == null || r.getCellOffset() < 0)
+                continue;
+
+            int oldOffset = r.getCellOffset();
+            if (m_present.get(oldOffset)) {
+                present.set(newOffset);
+                if (m_isIntegral)
+                    longs[newOffset] = m_longs[oldOffset];
+                else
+                    doubles[newOffset] = m_doubles[oldOffset];
+            }
+
+            newOffset++;
+        }
+
+        m_present = present;
+        m_doubles = doubles;
+        m_longs = longs;
+    }
+
+    /**
+     * Returns the offsets that currently hold values, in ascending order
+     * @return the occupied offsets
+     */
+    int [] offsets()
+    {
+        return m_present.stream().toArray();
+    }
+}
@@ -86,6 +86,13 @@ public class RowImpl extends TableSliceElementImpl implements Row
 		TableImpl t = getTable();
 		return t != null ? t.getNumColumns() : 0;
 	}
+	
+	@Override
+	SliceList<?> getSliceList() 
+	{
+		TableImpl t = getTable();
+		return t != null ? t.getRowSlices() : null;
+	}
 
 	@Override
 	public ElementType getSlicesType() 
@@ -255,7 +262,7 @@ public class RowImpl extends TableSliceElementImpl implements Row
         assert parent != null : "Parent Table Null";
         
         // sanity check, rows list must exist
-        ArrayList<RowImpl> rows = parent.getRowsInternal();
+        List<RowImpl> rows = parent.getRowsInternal();
         assert rows != null;
         
         /*
@@ -354,8 +361,10 @@ public class RowImpl extends TableSliceElementImpl implements Row
     	TableImpl parent = getTable();
     	if (parent != null) {
     	    synchronized (parent) {
+    	        parent.awaitParallelRecalculations();
+    	        
                 // sanity check, rows list must exist
-                ArrayList<RowImpl> rows = parent.getRowsInternal();
+                List<RowImpl> rows = parent.getRowsInternal();
                 if (rows == null)
                     throw new IllegalTableStateException("Parent table requires rows");
                 
@@ -375,13 +384,20 @@ public class RowImpl extends TableSliceElementImpl implements Row
                 if (m_affects != null) 
                     (new ArrayList<Derivable>(m_affects)).forEach(d -> d.clearDerivation());
                 
-                TableSliceElementImpl rc = rows.remove(idx);
-                assert rc == this : "Removed row mismatch";
-                
-                // reindex remaining rows
-                int nRows = parent.getNumRows();
-                if (idx < nRows)
-                	rows.listIterator(idx).forEachRemaining(r -> {if (r != null) r.setIndex(r.getIndex() - 1);});
+                int nRows;
+                parent.getStructureStamp().beginChange();
+                try {
+                    TableSliceElementImpl rc = rows.remove(idx);
+                    assert rc == this : "Removed row mismatch";
+                    
+                    // reindex remaining rows
+                    nRows = parent.getNumRows();
+                    if (idx < nRows)
+                    	rows.listIterator(idx).forEachRemaining(r -> {if (r != null) r.setIndex(r.getIndex() - 1);});
+                }
+                finally {
+                    parent.getStructureStamp().endChange();
+                }
                 
                 // sanity check
                 nRows = nRows--;
@@ -431,7 +447,7 @@ public class RowImpl extends TableSliceElementImpl implements Row
         assert parent != null : "Parent Table Null";
 
         int numCells = 0;
-        ArrayList<ColumnImpl> cols = parent.getColumnsInternal();
+        List<ColumnImpl> cols = parent.getColumnsInternal();
         if (cols != null) {
             for (ColumnImpl c : cols) {
                 if (c == null) continue;
@@ -0,0 +1,181 @@
+package org.tms.tds;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.RandomAccess;
+
+/**
+ * The rows or columns of a table, held in a ring buffer. Each slice occupies a physical position
+ * in the underlying array; its logical position, or index, is measured from the head of the ring.
+ * {@link #rotate()}, which moves the first slice to the end, advances the head, and so requires
+ * neither shifting the array nor renumbering the slices; time seriesed tables recycle their oldest
+ * row or column this way.
+ * <p>
+ * Slices record their physical position, and map it to and from their index with
+ * {@link #toLogicalIndex(int)} and {@link #toPhysicalIndex(int)}. All structural changes other
+ * than rotation first restore the head to zero, renumbering the slices, so that physical and
+ * logical positions coincide. The caller must hold the table lock to modify the list.
+ */
+final class SliceList<T extends TableSliceElementImpl> extends AbstractList<T> implements RandomAccess
+{
+    private final ArrayList<T> m_slices;
+    private int m_head;
+
+    SliceList(int capacity)
+    {
+        m_slices = new ArrayList<T>(capacity);
+    }
+
+    @Override
+    public T get(int idx)
+    {
+        return m_slices.get(toPhysical(idx));
+    }
+
+    @Override
+    public T set(int idx, T slice)
+    {
+        return m_slices.set(toPhysical(idx), slice);
+    }
+
+    @Override
+    public int size()
+    {
+        return m_slices.size();
+    }
+
+    @Override
+    public boolean add(T slice)
+    {
+        normalize();
+        m_slices.add(slice);
+        modCount++;
+        if (slice != null)
+            slice.setIndex(m_slices.size());
+        return true;
+    }
+
+    @Override
+    public void add(int idx, T slice)
+    {
+        normalize();
+        m_slices.add(idx, slice);
+        modCount++;
+        if (slice != null)
+            slice.setIndex(idx + 1);
+    }
+
+    @Override
+    public T remove(int idx)
+    {
+        normalize();
+        modCount++;
+        return m_slices.remove(idx);
+    }
+
+    @Override
+    public void clear()
+    {
+        m_slices.clear();
+        m_head = 0;
+        modCount++;
+    }
+
+    @Override
+    public void sort(Comparator<? super T> c)
+    {
+        normalize();
+        m_slices.sort(c);
+        modCount++;
+    }
+
+    void ensureCapacity(int minCapacity)
+    {
+        m_slices.ensureCapacity(minCapacity);
+    }
+
+    void trimToSize()
+    {
+        normalize();
+        m_slices.trimToSize();
+    }
+
+    /**
+     * Moves the first slice to the end of the list, in constant time; the indexes
+     * of all slices change, without renumbering them
+     */
+    void rotate()
+    {
+        int n = m_slices.size();
+        if (n > 1) {
+            m_head = m_head + 1 < n ? m_head + 1 : 0;
+            modCount++;
+        }
+    }
+
+    /**
+     * Returns the 1-based index of the slice at the 1-based physical position
+     * @param position the physical position, or a value less than 1 if the slice isn't in the list
+     * @return the index
+     */
+    int toLogicalIndex(int position)
+    {
+        int head = m_head;
+        if (head == 0 || position < 1)
+            return position;
+
+        int idx = position - head;
+        return idx > 0 ? idx : idx + m_slices.size();
+    }
+
+    /**
+     * Returns the 1-based physical position of the slice at the 1-based index
+     * @param idx the index, or a value less than 1 if the slice isn't in the list
+     * @return the physical position
+     */
+    int toPhysicalIndex(int idx)
+    {
+        int head = m_head;
+        if (head == 0 || idx < 1)
+            return idx;
+
+        int position = idx + head;
+        int n = m_slices.size();
+        return position <= n ? position : position - n;
+    }
+
+    private int toPhysical(int idx)
+    {
+        int head = m_head;
+        if (head == 0)
+            return idx;
+
+        int n = m_slices.size();
+        if (idx < 0 || idx >= n)
+            throw new IndexOutOfBoundsException("Index " + idx + " out of bounds for length " + n);
+
+        int position = idx + head;
+        return position < n ? position : position - n;
+    }
+
+    /**
+     * Restores the head of the ring to zero, then renumbers the slices
+     */
+    private void normalize()
+    {
+        if (m_head == 0)
+            return;
+
+        Collections.rotate(m_slices, -m_head);
+        m_head = 0;
+
+        int idx = 1;
+        for (T slice : m_slices) {
+            if (slice != null)
+                slice.setIndex(idx);
+            idx++;
+        }
+    }
+}
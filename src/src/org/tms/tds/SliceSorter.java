@@ -0,0 +1,365 @@
+package org.tms.tds;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import org.tms.api.SortKey;
+
+/**
+ * Sorts the {@link RowImpl}s or {@link ColumnImpl}s of a table on one or more {@link SortKey}s.
+ * <p>
+ * Rather than comparing cells as the sort proceeds, the key values of every row or column are first
+ * extracted into arrays, specialized as {@code long}s or {@code double}s when all of a key's values are
+ * numeric. A permutation of the slice positions is then sorted with a stable merge sort, run on the
+ * common fork/join pool for large tables, and the permutation is applied to the slices, which are
+ * renumbered in the same pass.
+ */
+final class SliceSorter
+{
+    /*
+     * Tables with fewer slices are sorted in the calling thread
+     */
+    private static final int sf_PARALLEL_THRESHOLD = 8192;
+
+    /*
+     * Partitions of the permutation at or below this size are sorted sequentially
+     */
+    private static final int sf_SEQUENTIAL_THRESHOLD = 2048;
+
+    private static final int sf_INSERTION_SORT_THRESHOLD = 32;
+
+    /**
+     * Sort the slices on the specified keys, then renumber them; the caller must hold the table lock
+     * @param slices the table rows or columns, some of which may be null
+     * @param keys the sort keys, in order of precedence; slice keys must be of the other slice type
+     */
+    static <T extends TableSliceElementImpl> void sort(List<T> slices, SortKey... keys)
+    {
+        int n = slices.size();
+        if (n < 2)
+            return;
+
+        KeyValues [] values = new KeyValues[keys.length];
+        for (int k = 0; k < keys.length; k++)
+            values[k] = KeyValues.extract(slices, keys[k]);
+
+        int [] perm = new int[n];
+        for (int i = 0; i < n; i++)
+            perm[i] = i;
+
+        IndexComparator cmp = (i, j) -> {
+            for (KeyValues kv : values) {
+                int result = kv.compare(i, j);
+                if (result != 0)
+                    return result;
+            }
+
+            return 0;
+        };
+
+        int [] tmp = new int[n];
+        if (n >= sf_PARALLEL_THRESHOLD && ForkJoinPool.getCommonPoolParallelism() > 1)
+            ForkJoinPool.commonPool().invoke(new MergeSortTask(perm, tmp, 0, n, cmp));
+        else
+            mergeSort(perm, tmp, 0, n, cmp);
+
+        // apply the permutation and renumber the slices in one pass
+        Object [] unsorted = slices.toArray();
+        for (int i = 0; i < n; i++) {
+            @SuppressWarnings("unchecked")
+            T slice = (T)unsorted[perm[i]];
+            slices.set(i, slice);
+            if (slice != null)
+                slice.setIndex(i + 1);
+        }
+    }
+
+    @FunctionalInterface
+    private interface IndexComparator
+    {
+        int compare(int i, int j);
+    }
+
+    private static final class MergeSortTask extends RecursiveAction
+    {
+        private static final long serialVersionUID = 3415874291386327436L;
+
+        private final int [] m_perm;
+        private final int [] m_tmp;
+        private final int m_lo;
+        private final int m_hi;
+        private final IndexComparator m_cmp;
+
+        MergeSortTask(int [] perm, int [] tmp, int lo, int hi, IndexComparator cmp)
+        {
+            m_perm = perm;
+            m_tmp = tmp;
+            m_lo = lo;
+            m_hi = hi;
+            m_cmp = cmp;
+        }
+
+        @Override
+        protected void compute()
+        {
+            if (m_hi - m_lo <= sf_SEQUENTIAL_THRESHOLD) {
+                mergeSort(m_perm, m_tmp, m_lo, m_hi, m_cmp);
+                return;
+            }
+
+            int mid = (m_lo + m_hi) >>> 1;
+            invokeAll(new MergeSortTask(m_perm, m_tmp, m_lo, mid, m_cmp),
+                      new MergeSortTask(m_perm, m_tmp, mid, m_hi, m_cmp));
+            merge(m_perm, m_tmp, m_lo, mid, m_hi, m_cmp);
+        }
+    }
+
+    /**
+     * Stable sort of perm[lo, hi), using the same range of tmp as scratch space
+     */
+    private static void mergeSort(int [] perm, int [] tmp, int lo, int hi, IndexComparator cmp)
+    {
+        if (hi - lo <= sf_INSERTION_SORT_THRESHOLD) {
+            for (int i = lo + 1; i < hi; i++) {
+                int p = perm[i];
+                int j = i - 1;
+                while (j >= lo && cmp.compare(perm[j], p) > 0) {
+                    perm[j + 1] = perm[j];
+                    j--;
+                }
+
+                perm[j + 1] = p;
+            }
+
+            return;
+        }
+
+        int mid = (lo + hi) >>> 1;
+        mergeSort(perm, tmp, lo, mid, cmp);
+        mergeSort(perm, tmp, mid, hi, cmp);
+        merge(perm, tmp, lo, mid, hi, cmp);
+    }
+
+    private static void merge(int [] perm, int [] tmp, int lo, int mid, int hi, IndexComparator cmp)
+    {
+        // halves are already in order
+        if (cmp.compare(perm[mid - 1], perm[mid]) <= 0)
+            return;
+
+        System.arraycopy(perm, lo, tmp, lo, hi - lo);
+        int i = lo, j = mid, k = lo;
+        while (i < mid && j < hi)
+            perm[k++] = cmp.compare(tmp[j], tmp[i]) < 0 ? tmp[j++] : tmp[i++];
+
+        while (i < mid)
+            perm[k++] = tmp[i++];
+
+        while (j < hi)
+            perm[k++] = tmp[j++];
+    }
+
+    /**
+     * The values of one sort key, indexed by slice position
+     */
+    private static abstract class KeyValues
+    {
+        private final boolean [] m_nulls;
+        private final boolean m_descending;
+        private final boolean m_nullsFirst;
+
+        KeyValues(boolean [] nulls, SortKey key)
+        {
+            m_nulls = nulls;
+            m_descending = key.isDescending();
+            m_nullsFirst = key.isNullsFirst();
+        }
+
+        final int compare(int i, int j)
+        {
+            boolean isNull1 = m_nulls[i];
+            boolean isNull2 = m_nulls[j];
+            if (isNull1 || isNull2) {
+                if (isNull1 && isNull2)
+                    return 0;
+
+                return isNull1 == m_nullsFirst ? -1 : 1;
+            }
+
+            int result = compareValues(i, j);
+            return m_descending ? -result : result;
+        }
+
+        abstract int compareValues(int i, int j);
+
+        static KeyValues extract(List<? extends TableSliceElementImpl> slices, SortKey key)
+        {
+            int n = slices.size();
+            Object [] vals = new Object[n];
+            TableSliceElementImpl other = (TableSliceElementImpl)key.getSlice();
+            if (other instanceof ColumnImpl) {
+                ColumnImpl col = (ColumnImpl)other;
+                synchronized(col) {
+                    for (int i = 0; i < n; i++) {
+                        TableSliceElementImpl row = slices.get(i);
+                        vals[i] = row != null ? getSortValue(col, (RowImpl)row) : null;
+                    }
+                }
+            }
+            else if (other instanceof RowImpl) {
+                RowImpl row = (RowImpl)other;
+                for (int i = 0; i < n; i++) {
+                    TableSliceElementImpl col = slices.get(i);
+                    if (col != null) {
+                        synchronized(col) {
+                            vals[i] = getSortValue((ColumnImpl)col, row);
+                        }
+                    }
+                }
+            }
+            else {
+                for (int i = 0; i < n; i++) {
+                    TableSliceElementImpl slice = slices.get(i);
+                    if (slice != null)
+                        vals[i] = key.getTableProperty() != null ? slice.getProperty(key.getTableProperty()) :
+                                                                   slice.getProperty(key.getProperty());
+                }
+            }
+
+            return of(vals, key);
+        }
+
+        /**
+         * Returns the cell value without materializing cells from the columnar store
+         */
+        private static Object getSortValue(ColumnImpl col, RowImpl row)
+        {
+            if (col.isColumnarStorageSupported())
+                return col.readCellValue(row);
+
+            CellImpl c = col.getCellInternal(row, false, false);
+            return c != null ? c.getCellValue() : null;
+        }
+
+        /**
+         * Choose the most specialized representation that holds all of the values
+         */
+        private static KeyValues of(Object [] vals, SortKey key)
+        {
+            int n = vals.length;
+            boolean [] nulls = new boolean[n];
+            boolean isIntegral = true;
+            boolean isNumeric = true;
+            for (int i = 0; i < n; i++) {
+                Object v = vals[i];
+                if (v == null)
+                    nulls[i] = true;
+                else if (v instanceof Integer || v instanceof Long || v instanceof Short || v instanceof Byte)
+                    continue;
+                else if (v instanceof Double || v instanceof Float)
+                    isIntegral = false;
+                else {
+                    isNumeric = isIntegral = false;
+                    break;
+                }
+            }
+
+            if (isIntegral) {
+                long [] longs = new long[n];
+                for (int i = 0; i < n; i++)
+                    if (vals[i] != null) longs[i] = ((Number)vals[i]).longValue();
+
+                return new LongValues(longs, nulls, key);
+            }
+            else if (isNumeric) {
+                double [] doubles = new double[n];
+                for (int i = 0; i < n; i++)
+                    if (vals[i] != null) doubles[i] = ((Number)vals[i]).doubleValue();
+
+                return new DoubleValues(doubles, nulls, key);
+            }
+
+            for (int i = 0; i < n; i++)
+                nulls[i] = vals[i] == null;
+
+            return new ObjectValues(vals, nulls, key);
+        }
+    }
+
+    private static final class LongValues extends KeyValues
+    {
+        private final long [] m_values;
+
+        LongValues(long [] values, boolean [] nulls, SortKey key)
+        {
+            super(nulls, key);
+            m_values = values;
+        }
+
+        @Override
+        int compareValues(int i, int j)
+        {
+            return Long.compare(m_values[i], m_values[j]);
+        }
+    }
+
+    private static final class DoubleValues extends KeyValues
+    {
+        private final double [] m_values;
+
+        DoubleValues(double [] values, boolean [] nulls, SortKey key)
+        {
+            super(nulls, key);
+            m_values = values;
+        }
+
+        @Override
+        int compareValues(int i, int j)
+        {
+            return Double.compare(m_values[i], m_values[j]);
+        }
+    }
+
+    private static final class ObjectValues extends KeyValues
+    {
+        private final Object [] m_values;
+        private final String [] m_strings;
+
+        ObjectValues(Object [] values, boolean [] nulls, SortKey key)
+        {
+            super(nulls, key);
+            m_values = values;
+
+            // values of different classes are compared as strings; convert them once
+            Set<Class<?>> classes = new HashSet<Class<?>>();
+            for (Object v : values)
+                if (v != null) classes.add(v.getClass());
+
+            if (classes.size() > 1) {
+                m_strings = new String[values.length];
+                for (int i = 0; i < values.length; i++)
+                    if (values[i] != null) m_strings[i] = values[i].toString();
+            }
+            else
+                m_strings = null;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        int compareValues(int i, int j)
+        {
+            Object v1 = m_values[i];
+            Object v2 = m_values[j];
+            if (v1.getClass() == v2.getClass() && v1 instanceof Comparable<?>)
+                return ((Comparable<Object>)v1).compareTo(v2);
+            else if (v1 instanceof Number && v2 instanceof Number)
+                return Double.compare(((Number)v1).doubleValue(), ((Number)v2).doubleValue());
+            else if (m_strings != null)
+                return m_strings[i].compareTo(m_strings[j]);
+            else
+                return v1.toString().compareTo(v2.toString());
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package org.tms.tds;
+
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tracks structural changes to a table element so that readers can access it without
+ * acquiring its monitor. Writers bracket any change that could expose an inconsistent view
+ * of the element's data structures (growing or compacting arrays, reordering rows or columns,
+ * reassigning cell offsets) with {@link #beginChange()} and {@link #endChange()}.
+ * <p>
+ * Readers obtain a stamp with {@link #tryOptimisticRead()}, perform their read, then call
+ * {@link #validate(long)}; if validation fails, the read must be retried under the element's lock.
+ * Changes may nest and may come from different threads; no lock is required to begin or end a change.
+ */
+final class StructureStamp
+{
+    private final AtomicInteger m_changesInProgress = new AtomicInteger();
+    private final AtomicLong m_version = new AtomicLong();
+
+    void beginChange()
+    {
+        m_changesInProgress.incrementAndGet();
+    }
+
+    void endChange()
+    {
+        m_version.incrementAndGet();
+        m_changesInProgress.decrementAndGet();
+    }
+
+    /**
+     * Returns the number of changes completed; the version advances whenever a change ends
+     * @return the current version
+     */
+    long getVersion()
+    {
+        return m_version.get();
+    }
+
+    /**
+     * Returns a stamp for a subsequent {@link #validate(long)}, or -1 if a change is in progress
+     * @return a stamp, or -1
+     */
+    long tryOptimisticRead()
+    {
+        if (m_changesInProgress.get() != 0)
+            return -1;
+
+        return m_version.get();
+    }
+
+    /**
+     * Returns {@code true} if no change has begun since the stamp was issued
+     * @param stamp a stamp returned by {@link #tryOptimisticRead()}
+     * @return true if the optimistic read is valid
+     */
+    boolean validate(long stamp)
+    {
+        // order the optimistic reads before the validation reads
+        VarHandle.acquireFence();
+        return stamp >= 0 && m_changesInProgress.get() == 0 && m_version.get() == stamp;
+    }
+}
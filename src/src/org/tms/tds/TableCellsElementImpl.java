@@ -8,6 +8,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
 import org.tms.api.Cell;
@@ -22,6 +23,7 @@ import org.tms.api.exceptions.InvalidParentException;
 import org.tms.api.exceptions.UnsupportedImplementationException;
 import org.tms.tds.events.EventsProcessorThreadPoolCreator;
 import org.tms.tds.events.TableElementListeners;
+import org.tms.teq.DependencyGraph;
 
 /**
  * This is the abstract superclass for all table elements that contain cells, 
@@ -36,7 +38,7 @@ public abstract class TableCellsElementImpl extends TableElementImpl
     protected TableImpl m_table;   
     protected Set<Derivable> m_affects;
     
-    private int m_pendings;
+    private AtomicInteger m_pendings;
     private TableElementListeners m_listeners;
     private Map<String, Object> m_elemProperties;
     private UUID m_guid;
@@ -120,7 +122,7 @@ public abstract class TableCellsElementImpl extends TableElementImpl
         
         m_affects = new LinkedHashSet<Derivable>();
         m_listeners = null;
-        m_pendings = 0;
+        m_pendings = new AtomicInteger();
     }
     
     @Override
@@ -242,30 +244,43 @@ public abstract class TableCellsElementImpl extends TableElementImpl
      */   
     public void registerAffects(Derivable elem)
     {
-        m_affects.add(elem);
+        if (m_affects.add(elem)) {
+            DependencyGraph.invalidate(this);
+            DependencyGraph.invalidate(elem);
+            invalidateAggregateStatistics();
+        }
     }
     
     public void deregisterAffects(Derivable elem)
     {
-        m_affects.remove(elem);
+        if (m_affects.remove(elem)) {
+            DependencyGraph.invalidate(this);
+            DependencyGraph.invalidate(elem);
+            invalidateAggregateStatistics();
+        }
+    }
+    
+    private void invalidateAggregateStatistics()
+    {
+        TableImpl t = getTable();
+        if (t != null && t.getAggregateStatistics() != null)
+            t.getAggregateStatistics().remove(this);
     }
     
     protected void incrementPendings()
     {
-        m_pendings++;
+        m_pendings.incrementAndGet();
     }
     
     protected void decrementPendings()
     {
-        m_pendings--;
-        if (m_pendings < 0)
-            m_pendings = 0;
+        m_pendings.updateAndGet(p -> p > 0 ? p - 1 : 0);
     }
     
     @Override
     public boolean isPendings()
     {
-        return m_pendings > 0;
+        return m_pendings.get() > 0;
     }
 
     synchronized private TableElementListeners fetchListeners()
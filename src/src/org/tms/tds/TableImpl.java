@@ -8,6 +8,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.Date;
 import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -25,7 +26,10 @@ import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import java.util.function.Function;
 import java.util.function.Predicate;
+import java.util.function.Supplier;
 
 import org.tms.api.Access;
 import org.tms.api.BaseElement;
@@ -33,6 +37,7 @@ import org.tms.api.Cell;
 import org.tms.api.Column;
 import org.tms.api.ElementType;
 import org.tms.api.Row;
+import org.tms.api.SortKey;
 import org.tms.api.Subset;
 import org.tms.api.Table;
 import org.tms.api.TableContext;
@@ -40,6 +45,7 @@ import org.tms.api.TableElement;
 import org.tms.api.TableProperty;
 import org.tms.api.TableRowColumnElement;
 import org.tms.api.Taggable;
+import org.tms.api.ThreadPoolStrategy;
 import org.tms.api.derivables.Derivable;
 import org.tms.api.derivables.DerivableThreadPool;
 import org.tms.api.derivables.DerivableThreadPoolConfig;
@@ -54,12 +60,16 @@ import org.tms.api.exceptions.InvalidAccessException;
 import org.tms.api.exceptions.InvalidException;
 import org.tms.api.exceptions.InvalidParentException;
 import org.tms.api.exceptions.NotUniqueException;
+import org.tms.api.exceptions.NullValueException;
+import org.tms.api.exceptions.ReadOnlyException;
 import org.tms.api.exceptions.UnimplementedException;
 import org.tms.api.exceptions.UnsupportedImplementationException;
 import org.tms.api.io.IOOption;
 import org.tms.io.TableExportAdapter;
 import org.tms.tds.events.TableElementListeners;
 import org.tms.tds.filters.FilteredTableImpl;
+import org.tms.teq.AggregateStatistics;
+import org.tms.teq.DependencyGraph;
 import org.tms.teq.DerivationImpl;
 import org.tms.teq.PendingDerivationExecutor;
 import org.tms.teq.TimeSeriedColumnsWorker;
@@ -94,6 +104,8 @@ public class TableImpl extends TableCellsElementImpl implements Table, Precision
     
     private static final int sf_NUM_THREADS = 1;
     private static final boolean sf_MAY_INTERRUPT_IF_RUNNING = true;
+    private static final Object sf_OPTIMISTIC_READ_FAILED = new Object();
+    private static final ThreadLocal<TableImpl> sf_RECALCULATION_WORKER = new ThreadLocal<TableImpl>();
     
     private static ScheduledExecutorService sf_TimeSeriesScheduler;
     
@@ -148,8 +160,10 @@ public class TableImpl extends TableCellsElementImpl implements Table, Precision
         return new TableImpl(nRows, nCols, t);
     }
     
-    private ArrayList<RowImpl> m_rows;
-    private ArrayList<ColumnImpl> m_cols;
+    private SliceList<RowImpl> m_rows;
+    private SliceList<ColumnImpl> m_cols;
+    private final StructureStamp m_stamp = new StructureStamp();
+    private volatile int m_numParallelRecalculations;
     
     private Map<String, TableElementImpl> m_rowLabelIndex;
     private Map<String, TableElementImpl> m_colLabelIndex;
@@ -167,9 +181,12 @@ public class TableImpl extends TableCellsElementImpl implements Table, Precision
     private Map<CellImpl, Set<SubsetImpl>> m_subsetedCells;
     private Map<CellImpl, DerivationImpl> m_derivedCells;
     private Map<CellImpl, Set<Derivable>> m_cellAffects;
+    private DependencyGraph m_dependencyGraph;
+    private AggregateStatistics m_aggregateStatistics;
     private Map<CellImpl, TableElementListeners> m_cellListeners;
     private Map<CellImpl, Map<String, Object>> m_cellElemProperties;
     private Map<CellImpl, Set<Tag>> m_cellTags;
+    private volatile CellPropertyIndex m_cellPropertyIndex;
     
     private JustInTimeSet<SubsetImpl> m_subsets;
     private Set<SubsetImpl> m_persistentSubsets;
@@ -191,10 +208,14 @@ public class TableImpl extends TableCellsElementImpl implements Table, Precision
     private ScheduledFuture<?> m_rowsTimeSeriesFuture;
 	private long m_rowsTimeSeriesPeriod;
 	private ColumnImpl m_rowsTimeSeriesTimeStampColumn;
+	private int m_rowsTimeSeriesMaxSlices;
+	private long m_rowsTimeSeriesMaxAge;
 
     private ScheduledFuture<?> m_colsTimeSeriesFuture;
 	private long m_columnsTimeSeriesPeriod;
 	private RowImpl m_colsTimeSeriesTimeStampRow;
+	private int m_colsTimeSeriesMaxSlices;
+	private long m_colsTimeSeriesMaxAge;
 	
 	private JustInTimeSet<FilteredTableImpl> m_filters = null;
    
@@ -204,6 +225,7 @@ public class TableImpl extends TableCellsElementImpl implements Table, Precision
     private PendingDerivationExecutor m_pendingThreadPool;
 	private TimeUnit m_pendingKeepAliveTimeUnit;
 	private long m_pendingKeepAliveTimeout;    
+	private ThreadPoolStrategy m_pendingThreadPoolStrategy;
     
     protected TableImpl()
     {
@@ -256,8 +278,8 @@ public class TableImpl extends TableCellsElementImpl implements Table, Precision
         initializeProperties(t);
         
         // allocate base memory for rows and columns
-        m_rows = new ArrayList<RowImpl>(Math.max(nRows, m_rowsCapacity));
-        m_cols = new ArrayList<ColumnImpl>(Math.max(nCols, m_colsCapacity));
+        m_rows = new SliceList<RowImpl>(Math.max(nRows, m_rowsCapacity));
+        m_cols = new SliceList<ColumnImpl>(Math.max(nCols, m_colsCapacity));
                 
         setRowsCapacity(calcRowsCapacity(nRows));
         setColumnsCapacity(calcColumnsCapacity(nCols));
@@ -281,6 +303,8 @@ public class TableImpl extends TableCellsElementImpl implements Table, Precision
         int expectedNoOfDerivedCells = m_rowsCapacity * m_colsCapacity / 5; // assume 20%
         m_derivedCells = new HashMap<CellImpl, DerivationImpl>(expectedNoOfDerivedCells);
         m_cellAffects = new HashMap<CellImpl, Set<Derivable>>(expectedNoOfDerivedCells);
+        m_dependencyGraph = new DependencyGraph();
+        m_aggregateStatistics = new AggregateStatistics(te -> getAggregateStatisticsVersion(te));
         m_cellListeners = new ConcurrentHashMap<CellImpl, TableElementListeners>();
         m_cellTags = new HashMap<CellImpl, Set<Tag>>();
         set(sf_AUTO_RECALCULATE_DISABLED_FLAG, false);
@@ -382,6 +406,24 @@ public class TableImpl extends TableCellsElementImpl implements Table, Precision
                     setPersistant((boolean)value);
                     break;
                     
+                case isColumnarStorage:
+                    if (!isValidPropertyValueBoolean(value))
+                        value = ContextImpl.sf_COLUMNAR_STORAGE_DEFAULT;
+                    setColumnarStorage((boolean)value);
+                    break;
+                    
+                case isConcurrentReads:
+                    if (!isValidPropertyValueBoolean(value))
+                        value = ContextImpl.sf_CONCURRENT_READS_DEFAULT;
+                    setConcurrentReads((boolean)value);
+                    break;
+                    
+                case isParallelRecalculation:
+                    if (!isValidPropertyValueBoolean(value))
+                        value = ContextImpl.sf_PARALLEL_RECALCULATION_DEFAULT;
+                    setParallelRecalculation((boolean)value);
+                    break;
+                    
                 case DisplayFormat:
                     if (!isValidPropertyValueString(value))
                         value = null;
@@ -411,6 +453,12 @@ public class TableImpl extends TableCellsElementImpl implements Table, Precision
                         value = ContextImpl.sf_PENDING_KEEP_ALIVE_TIMEOUT_SEC_DEFAULT;
                     setPendingKeepAliveTime((int)value, TimeUnit.SECONDS);
                     break;
+                    
+                case PendingThreadPoolStrategy:
+                    if (!(value instanceof ThreadPoolStrategy))
+                        value = ContextImpl.sf_PENDING_THREAD_POOL_STRATEGY_DEFAULT;
+                    setPendingThreadPoolStrategy((ThreadPoolStrategy)value);
+                    break;
                 
                 default:
                 	if (initializeSpecializedProperty(tp, value))
@@ -499,6 +547,17 @@ public class TableImpl extends TableCellsElementImpl implements Table, Precision
      * If FreeSpaceThreshold is set to 0, free space is not removed. 
      */
     protected void reclaimColumnSpace()
+    {
+        beginStructuralChange();
+        try {
+            compressColumns();
+        }
+        finally {
+            m_stamp.endChange();
+        }
+    }
+    
+    private void compressColumns()
     {
         // if the column count is 0, reset all row cell offsets
         int numCols = m_cols.size();       
@@ -546,6 +605,17 @@ public class TableImpl extends TableCellsElementImpl implements Table, Precision
      * If FreeSpaceThreshold is set to 0, free space is not removed. 
      */
     protected void reclaimRowSpace()
+    {
+        beginStructuralChange();
+        try {
+            compressRows();
+        }
+        finally {
+            m_stamp.endChange();
+        }
+    }
+    
+    private void compressRows()
     {
         int numRows = m_rows.size();
         if (numRows == 0) {
@@ -626,13 +696,29 @@ public class TableImpl extends TableCellsElementImpl implements Table, Precision
     @Override
     public boolean isCellDefined(Row row, Column col)
     {
-        CellImpl c = getCell((RowImpl)row, (ColumnImpl)col, false);
-        return c != null;
+        if (isConcurrentReads() || isRecalculationWorker()) {
+            Object defined = readOptimistically((RowImpl)row, (ColumnImpl)col, (c, r) -> c.readCellDefined(r));
+            if (defined != sf_OPTIMISTIC_READ_FAILED)
+                return (Boolean)defined;
+        }
+        
+        synchronized(this) {
+            if (!vetCellReference((RowImpl)row, (ColumnImpl)col))
+                return false;
+            
+            return ((ColumnImpl)col).isCellDefined((RowImpl)row);
+        }
     }
     
     @Override
     public Object getCellValue(Row row, Column col)
     {
+        if (isConcurrentReads() || isRecalculationWorker()) {
+            Object value = readOptimistically((RowImpl)row, (ColumnImpl)col, ColumnImpl::readCellValue);
+            if (value != sf_OPTIMISTIC_READ_FAILED)
+                return value;
+        }
+        
         return getCellValue((RowImpl)row, (ColumnImpl)col);        
     }
     
@@ -718,6 +804,15 @@ public class TableImpl extends TableCellsElementImpl implements Table, Precision
             case isPersistant:
                 return isPersistant();
                 
+            case isColumnarStorage:
+                return isColumnarStorage();
+                
+            case isConcurrentReads:
+                return isConcurrentReads();
+                
+            case isParallelRecalculation:
+                return isParallelRecalculation();
+                
             case isTimeSeriesedRows:
                 return isTimeSeriesedRows();
                 
@@ -730,6 +825,12 @@ public class TableImpl extends TableCellsElementImpl implements Table, Precision
             case TimeSeriesedRowsTimeStampColumn:
                 return getTimeSeriesedRowsTimeStampColumn();
                 
+            case TimeSeriesedRowsMaxSlices:
+                return getTimeSeriesedRowsMaxSlices();
+                
+            case TimeSeriesedRowsMaxAge:
+                return getTimeSeriesedRowsMaxAgeInMilliSeconds();
+                
             case isTimeSeriesedColumns:
                 return isTimeSeriesedColumns();
                 
@@ -742,6 +843,12 @@ public class TableImpl extends TableCellsElementImpl implements Table, Precision
             case TimeSeriesedColumnsTimeStampRow:
                 return getTimeSeriesedColumnsTimeStampRow();
                 
+            case TimeSeriesedColumnsMaxSlices:
+                return getTimeSeriesedColumnsMaxSlices();
+                
+            case TimeSeriesedColumnsMaxAge:
+                return getTimeSeriesedColumnsMaxAgeInMilliSeconds();
+                
             case isPendingThreadPoolEnabled:
                 return isPendingThreadPoolEnabled();
                 
@@ -760,6 +867,9 @@ public class TableImpl extends TableCellsElementImpl implements Table, Precision
 	        case PendingThreadKeepAliveTimeoutUnit:
 	            return getPendingKeepAliveTimeUnit();                
 	         
+	        case PendingThreadPoolStrategy:
+	            return getPendingThreadPoolStrategy();
+	            
             default:
                 return super.getProperty(key);
         }
@@ -873,6 +983,21 @@ public class TableImpl extends TableCellsElementImpl implements Table, Precision
         set(sf_PENDINGS_ALLOW_CORE_THREAD_TIMEOUT_FLAG, allowCoreThreadTimeout);
     }
 
+    @Override
+    public ThreadPoolStrategy getPendingThreadPoolStrategy()
+    {
+        return m_pendingThreadPoolStrategy;
+    }
+
+    @Override
+    public void setPendingThreadPoolStrategy(ThreadPoolStrategy strategy)
+    {
+        if (strategy == null) 
+            m_pendingThreadPoolStrategy = ContextImpl.sf_PENDING_THREAD_POOL_STRATEGY_DEFAULT;
+        else
+            m_pendingThreadPoolStrategy = strategy;
+    }
+
     @Override
     public void submitCalculation(UUID transactionId, Runnable r)
     {
@@ -887,7 +1012,8 @@ public class TableImpl extends TableCellsElementImpl implements Table, Precision
                                                                     maxPoolSize,
                                                                     getPendingKeepAliveTime(unit),
                                                                     unit,
-                                                                    isPendingAllowsCoreThreadTimeOut());  
+                                                                    isPendingAllowsCoreThreadTimeOut(),
+                                                                    getPendingThreadPoolStrategy());  
             }
         }
         
@@ -1091,14 +1217,23 @@ public class TableImpl extends TableCellsElementImpl implements Table, Precision
             this.m_persistentSubsets.clear();
         	this.m_affects.clear();
         	this.m_cellAffects.clear();
+        	this.m_dependencyGraph.clear();
+        	this.m_aggregateStatistics.clear();
         	this.m_cellOffsetRowMap.clear();
         	this.m_derivedCells.clear();
         	this.m_subsetedCells.clear();
         	this.m_unusedCellOffsets.clear();
         	this.m_rowsTimeSeries.clear();
         	this.m_colsTimeSeries.clear();
-        	this.m_cols.clear();
-        	this.m_rows.clear();
+        	
+        	beginStructuralChange();
+        	try {
+        	    this.m_cols.clear();
+        	    this.m_rows.clear();
+        	}
+        	finally {
+        	    m_stamp.endChange();
+        	}
         }
         finally {
             invalidate();
@@ -1297,6 +1432,297 @@ public class TableImpl extends TableCellsElementImpl implements Table, Precision
         set(sf_IS_TABLE_PERSISTANT_FLAG, persistant);
     }
     
+    @Override
+    public boolean isColumnarStorage()
+    {
+        return isSet(sf_COLUMNAR_STORAGE_FLAG);
+    }
+    
+    @Override
+    synchronized public void setColumnarStorage(boolean columnar)
+    {
+        vetElement();
+        set(sf_COLUMNAR_STORAGE_FLAG, columnar);
+        
+        // create or release the column stores
+        if (m_cols != null)
+            m_cols.forEach(c -> { if (c != null) c.syncColumnarStorage(); });
+    }
+    
+    @Override
+    public boolean isConcurrentReads()
+    {
+        return isSet(sf_CONCURRENT_READS_FLAG);
+    }
+    
+    @Override
+    public void setConcurrentReads(boolean concurrentReads)
+    {
+        vetElement();
+        set(sf_CONCURRENT_READS_FLAG, concurrentReads);
+    }
+    
+    @Override
+    public boolean isParallelRecalculation()
+    {
+        return isSet(sf_PARALLEL_RECALCULATION_FLAG);
+    }
+    
+    @Override
+    public void setParallelRecalculation(boolean parallel)
+    {
+        vetElement();
+        set(sf_PARALLEL_RECALCULATION_FLAG, parallel);
+    }
+    
+    @Override
+    public boolean isCellPropertiesIndexed()
+    {
+        return m_cellPropertyIndex != null;
+    }
+    
+    @Override
+    public void setCellPropertiesIndexed(boolean cellPropertiesIndexed)
+    {
+        vetElement();
+        if (cellPropertiesIndexed) {
+            CellPropertyIndex cpi = null;
+            Map<CellImpl, Map<String, Object>> cellProperties = null;
+            Map<CellImpl, Set<Tag>> cellTags = null;
+            synchronized(this) {
+                if (m_cellPropertyIndex == null) {
+                    m_cellPropertyIndex = cpi = new CellPropertyIndex();
+                    
+                    // snapshot the cells to index while holding the lock, as tags are changed under it
+                    cellProperties = new HashMap<CellImpl, Map<String, Object>>(m_cellElemProperties);
+                    cellTags = new HashMap<CellImpl, Set<Tag>>(m_cellTags.size());
+                    for (Map.Entry<CellImpl, Set<Tag>> e : m_cellTags.entrySet())
+                        cellTags.put(e.getKey(), new HashSet<Tag>(e.getValue()));
+                }
+            }
+            
+            // populate the index after installing it, so concurrent changes aren't missed
+            if (cpi != null)
+                cpi.build(cellProperties, cellTags);
+        }
+        else
+            m_cellPropertyIndex = null;
+    }
+    
+    @Override
+    public boolean isCellValuesIndexed()
+    {
+        return isSet(sf_CELL_VALUES_INDEXED_FLAG);
+    }
+    
+    @Override
+    synchronized public void setCellValuesIndexed(boolean cellValuesIndexed)
+    {
+        vetElement();
+        set(sf_CELL_VALUES_INDEXED_FLAG, cellValuesIndexed);
+        
+        // column indexes are built when first queried
+        if (!cellValuesIndexed && m_cols != null)
+            m_cols.forEach(c -> { if (c != null) c.clearValueIndex(); });
+    }
+    
+    void cellPropertyChanged(CellImpl cell, String key, Object oldValue, Object newValue)
+    {
+        CellPropertyIndex cpi = m_cellPropertyIndex;
+        if (cpi != null)
+            cpi.update(cell, key, oldValue, newValue);
+    }
+    
+    void cellTagsChanged(CellImpl cell, Collection<Tag> removedTags, Collection<Tag> addedTags)
+    {
+        CellPropertyIndex cpi = m_cellPropertyIndex;
+        if (cpi != null) {
+            cpi.untag(cell, removedTags);
+            cpi.tag(cell, addedTags);
+        }
+    }
+    
+    StructureStamp getStructureStamp()
+    {
+        return m_stamp;
+    }
+    
+    /**
+     * Begin a change to the table structure, once any parallel recalculations have completed
+     */
+    void beginStructuralChange()
+    {
+        awaitParallelRecalculations();
+        m_stamp.beginChange();
+    }
+    
+    /**
+     * Begin a parallel recalculation. Until it ends, changes to the table structure (adding, deleting, 
+     * and sorting rows and columns, reclaiming cell space) requested by threads other than the 
+     * recalculation's workers wait, so that workers can read and write existing cells without 
+     * acquiring the table monitor. Each call must be paired with a call to {@link #endParallelRecalculation()}.
+     */
+    public void beginParallelRecalculation()
+    {
+        synchronized(this) {
+            m_numParallelRecalculations++;
+        }
+    }
+    
+    public void endParallelRecalculation()
+    {
+        synchronized(this) {
+            if (--m_numParallelRecalculations == 0)
+                notifyAll();
+        }
+    }
+    
+    /**
+     * Run the task as a worker of a parallel recalculation of this table
+     * @param task the task
+     * @return the task result
+     */
+    public <T> T runAsRecalculationWorker(Supplier<T> task)
+    {
+        TableImpl prior = sf_RECALCULATION_WORKER.get();
+        sf_RECALCULATION_WORKER.set(this);
+        try {
+            return task.get();
+        }
+        finally {
+            if (prior != null)
+                sf_RECALCULATION_WORKER.set(prior);
+            else
+                sf_RECALCULATION_WORKER.remove();
+        }
+    }
+    
+    /**
+     * Returns true if the current thread is a worker of a parallel recalculation in progress
+     */
+    boolean isRecalculationWorker()
+    {
+        return m_numParallelRecalculations > 0 && sf_RECALCULATION_WORKER.get() == this;
+    }
+    
+    /**
+     * Wait for parallel recalculations to complete; callers should hold the table monitor, 
+     * so that no recalculation can begin before their change is made
+     */
+    void awaitParallelRecalculations()
+    {
+        if (m_numParallelRecalculations == 0 || sf_RECALCULATION_WORKER.get() == this)
+            return;
+        
+        synchronized(this) {
+            boolean interrupted = false;
+            while (m_numParallelRecalculations > 0) {
+                try {
+                    wait();
+                }
+                catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            
+            if (interrupted)
+                Thread.currentThread().interrupt();
+        }
+    }
+    
+    /**
+     * Returns the existing cell, read without acquiring the table monitor, or null 
+     * if there is none, or the read could not be validated
+     */
+    private CellImpl readCell(RowImpl row, ColumnImpl col)
+    {
+        Object cell = readOptimistically(row, col, ColumnImpl::readCell);
+        return cell != sf_OPTIMISTIC_READ_FAILED ? (CellImpl)cell : null;
+    }
+    
+    /**
+     * Read a cell value, or cell existence, without acquiring the table monitor. Returns 
+     * sf_OPTIMISTIC_READ_FAILED if the read could not be validated, because a structural 
+     * change to the table or column interfered, in which case the caller must retry under the lock.
+     */
+    private Object readOptimistically(RowImpl row, ColumnImpl col, BiFunction<ColumnImpl, RowImpl, Object> reader)
+    {
+        if (row == null || col == null || !col.isOptimisticReadSupported())
+            return sf_OPTIMISTIC_READ_FAILED;
+        
+        StructureStamp colStamp = col.getStructureStamp();
+        long tStamp = m_stamp.tryOptimisticRead();
+        long cStamp = colStamp.tryOptimisticRead();
+        if (tStamp < 0 || cStamp < 0)
+            return sf_OPTIMISTIC_READ_FAILED;
+        
+        try {
+            // let the locked path raise the appropriate exception
+            if (isInvalid() || row.isInvalid() || col.isInvalid() || row.getTable() != this || col.getTable() != this)
+                return sf_OPTIMISTIC_READ_FAILED;
+            
+            Object result = reader.apply(col, row);
+            if (m_stamp.validate(tStamp) && colStamp.validate(cStamp))
+                return result;
+        }
+        catch (RuntimeException e) {
+            // a concurrent structural change, retry under the lock
+        }
+        
+        return sf_OPTIMISTIC_READ_FAILED;
+    }
+    
+    /**
+     * Returns the existing row or column at the 1-based index without acquiring the table
+     * monitor, or null if there is none or the read could not be validated
+     */
+    private <T extends TableSliceElementImpl> T readSliceOptimistically(List<T> slices, int idx)
+    {
+        long stamp = m_stamp.tryOptimisticRead();
+        if (stamp < 0 || idx < 1 || isInvalid())
+            return null;
+        
+        try {
+            T slice = idx <= slices.size() ? slices.get(idx - 1) : null;
+            if (m_stamp.validate(stamp) && slice != null && !slice.isInvalid())
+                return slice;
+        }
+        catch (RuntimeException e) {
+            // a concurrent structural change, retry under the lock
+        }
+        
+        return null;
+    }
+    
+    /**
+     * Sort the rows or columns, then renumber them
+     */
+    private <T extends TableSliceElementImpl> void sortSlices(List<T> slices, Comparator<? super T> sorter)
+    {
+        beginStructuralChange();
+        try {
+            Collections.sort(slices, sorter);
+            reindex(slices);
+        }
+        finally {
+            m_stamp.endChange();
+        }
+    }
+    
+    /**
+     * Sort the rows or columns on the specified keys; the slices are renumbered as they are reordered
+     */
+    private <T extends TableSliceElementImpl> void sortSlicesByKeys(List<T> slices, SortKey... keys)
+    {
+        beginStructuralChange();
+        try {
+            SliceSorter.sort(slices, keys);
+        }
+        finally {
+            m_stamp.endChange();
+        }
+    }
+    
     @Override
     public boolean isDataTypeEnforced()
     {
@@ -1442,65 +1868,224 @@ public class TableImpl extends TableCellsElementImpl implements Table, Precision
         }
     }
     
-    private CellImpl findCells(String key, Object query)
+    @Override
+    synchronized public List<Cell> getCells(Access mode, Object... mda)
     {
-        for (ColumnImpl col : m_cols) {
-            if (col != null) {
-                for (CellImpl c : col.cellsInternal()) {
-                    if (c != null) {
-                        Object value = c.getProperty(key);
-                        if (query.equals(value))
-                            return c;
-                    }
-                }
-            }
+        vetElement();
+        
+        List<CellImpl> cells;
+        Object md = null;
+        switch (mode) {
+            case ByUUID:
+            case ByLabel:
+            case ByDescription:
+                md = mda != null && mda.length > 0 ? mda[0] : null;
+                if (md == null || !(md instanceof String))
+                    throw new InvalidException(this.getElementType(), 
+                            String.format("Invalid %s %s argument: %s", ElementType.Cell, mode, (md == null ? "<null>" : md.toString())));
+                
+                TableProperty prop = mode == Access.ByUUID ? TableProperty.UUID : 
+                                     (mode == Access.ByLabel ? TableProperty.Label : TableProperty.Description);
+                cells = findCells(prop, md, false);
+                break;
+                
+            case ByTag:
+                md = mda != null && mda.length > 0 ? mda[0] : null;
+                if (md == null || !(md instanceof String))
+                    throw new InvalidException(this.getElementType(), 
+                            String.format("Invalid %s %s argument: %s", ElementType.Cell, mode, (md == null ? "<null>" : md.toString())));
+                cells = findTaggedCells(mda, false);
+                break;
+                
+            case ByProperty:
+                Object key = mda != null && mda.length > 0 ? mda[0] : null;
+                Object value = mda != null && mda.length > 1 ? mda[1] : null;
+                if (key == null || value == null)
+                    throw new InvalidException(this.getElementType(), 
+                            String.format("Invalid %s %s argument: %s", ElementType.Cell, mode, (key == null ? "<null>" : key.toString()))); 
+                
+                if (key instanceof TableProperty) 
+                    cells = findCells((TableProperty)key, value, false);
+                else if (key instanceof String) 
+                    cells = findCells((String)key, value, false);
+                else
+                    throw new InvalidException(this.getElementType(), 
+                            String.format("Invalid %s %s argument: %s", ElementType.Cell, mode, key.toString()));  
+                break;
+                
+            default:
+                throw new InvalidAccessException(ElementType.Table, ElementType.Cell, mode, false, mda);                
         }
         
-        return null;
+        return new ArrayList<Cell>(cells);
     }
-
-    private CellImpl findCells(TableProperty key,  Object query)
-    {
+    
+    @Override
+    synchronized public List<Row> getRows(Column col, Object value)
+    {
+        vetElement();
+        ColumnImpl column = vetSlice((ColumnImpl)col);
+        if (column == null || value == null)
+            throw new InvalidException(this.getElementType(), 
+                    String.format("Invalid %s query: %s", ElementType.Row, (column == null ? "<null column>" : "<null value>")));
+        
+        List<RowImpl> rows;
+        if (isCellValuesIndexed() && column.isValueIndexSupported())
+            rows = column.getValueIndex().getRows(value);
+        else
+            rows = scanRows(column, v -> value.equals(v));
+        
+        return new ArrayList<Row>(rows);
+    }
+    
+    @Override
+    synchronized public List<Row> getRows(Column col, Object fromValue, Object toValue)
+    {
+        vetElement();
+        ColumnImpl column = vetSlice((ColumnImpl)col);
+        if (column == null || (fromValue == null && toValue == null) || 
+                (fromValue != null && !(fromValue instanceof Comparable)) || 
+                (toValue != null && !(toValue instanceof Comparable)))
+            throw new InvalidException(this.getElementType(), 
+                    String.format("Invalid %s range query: %s to %s", ElementType.Row, 
+                            (fromValue == null ? "<null>" : fromValue.toString()), (toValue == null ? "<null>" : toValue.toString())));
+        
+        List<RowImpl> rows;
+        if (isCellValuesIndexed() && column.isValueIndexSupported())
+            rows = column.getValueIndex().getRows(fromValue, toValue);
+        else {
+            Object bound = fromValue != null ? fromValue : toValue;
+            rows = scanRows(column, v -> v instanceof Comparable && ValueIndex.isSameKind(bound, v) &&
+                                         (fromValue == null || ValueIndex.sf_VALUE_ORDER.compare(fromValue, v) <= 0) &&
+                                         (toValue == null || ValueIndex.sf_VALUE_ORDER.compare(v, toValue) <= 0));
+        }
+        
+        return new ArrayList<Row>(rows);
+    }
+    
+    private List<RowImpl> scanRows(ColumnImpl col, Predicate<Object> matches)
+    {
+        List<RowImpl> rows = new ArrayList<RowImpl>();
+        for (RowImpl row : getRowsInternal()) {
+            if (row != null && matches.test(getCellValue(row, col)))
+                rows.add(row);
+        }
+        
+        return rows;
+    }
+    
+    private CellImpl findCells(String key, Object query)
+    {
+        return firstCell(findCells(key, query, true));
+    }
+    
+    private List<CellImpl> findCells(String key, Object query, boolean firstOnly)
+    {
+        Predicate<CellImpl> matches = c -> query.equals(c.getProperty(key));
+        
+        CellPropertyIndex cpi = m_cellPropertyIndex;
+        String indexKey = CellPropertyIndex.toKey(key);
+        if (cpi != null && indexKey != null)
+            return verifyCells(cpi.getCells(indexKey, query), matches, firstOnly);
+        
+        return scanCells(matches, firstOnly);
+    }
+
+    private CellImpl findCells(TableProperty key,  Object query)
+    {
         if (key == TableProperty.Label && isCellLabelsIndexed())
             return (CellImpl)find(ElementType.Cell, null, key, query);
         
+        return firstCell(findCells(key, query, true));
+    }
+    
+    private List<CellImpl> findCells(TableProperty key,  Object query, boolean firstOnly)
+    {
         if (key == TableProperty.Tags )
-            return (CellImpl)findTaggedCells(query);
+            return findTaggedCells(query, firstOnly);
         
-        for (ColumnImpl col : m_cols) {
-            if (col != null) {
-                for (CellImpl c : col.cellsInternal()) {
-                    if (c != null) {
-                        Object value = c.getProperty(key);
-                        if (query.equals(value))
-                            return c;
-                    }
-                }
-            }
-        }
+        Predicate<CellImpl> matches = c -> query.equals(c.getProperty(key));
         
-        return null;
+        CellPropertyIndex cpi = m_cellPropertyIndex;
+        String indexKey = CellPropertyIndex.toKey(key);
+        if (cpi != null && indexKey != null)
+            return verifyCells(cpi.getCells(indexKey, query), matches, firstOnly);
+        
+        return scanCells(matches, firstOnly);
     }
 
-    private CellImpl findTaggedCells(Object tagObjs) 
+    private List<CellImpl> findTaggedCells(Object tagObjs, boolean firstOnly) 
     {
     	ContextImpl tc = this.getTableContext();
     	if (tc != null) {
     		String [] tagStrs = harvestTagStrs(tagObjs);
     		if (tagStrs != null && tagStrs.length > 0) {
 		    	Set<Tag> tags = Tag.encodeTags(tagStrs, tc, false);
-		    	if (tags != null && tags.size() == tagStrs.length) {		    	
+		    	if (tags != null && tags.size() == tagStrs.length) {
+		    	    CellPropertyIndex cpi = m_cellPropertyIndex;
+		    	    if (cpi != null)
+		    	        return verifyCells(cpi.getTaggedCells(tags), c -> c.isTagged(tagStrs), firstOnly);
+		    	    
+		    	    List<CellImpl> cells = new ArrayList<CellImpl>();
 			        for (Map.Entry<CellImpl, Set<Tag>> e: m_cellTags.entrySet()) {
 		            	Taggable te = (Taggable)e.getKey();
-		            	if (te.isTagged(tagStrs))
-		            		return e.getKey();
+		            	if (te.isTagged(tagStrs)) {
+		            		cells.add(e.getKey());
+		            		if (firstOnly)
+		            		    break;
+		            	}
 			        }
+			        
+			        return CellPropertyIndex.inColumnOrder(cells);
 		    	}
     		}
     	}
         
-        return null;
+        return new ArrayList<CellImpl>(0);
 	}
+    
+    /**
+     * Scan the table's cells, column by column, for those that match
+     */
+    private List<CellImpl> scanCells(Predicate<CellImpl> matches, boolean firstOnly)
+    {
+        List<CellImpl> cells = new ArrayList<CellImpl>();
+        for (ColumnImpl col : m_cols) {
+            if (col != null) {
+                for (CellImpl c : col.cellsInternal()) {
+                    if (c != null && matches.test(c)) {
+                        cells.add(c);
+                        if (firstOnly)
+                            return cells;
+                    }
+                }
+            }
+        }
+        
+        return cells;
+    }
+    
+    /**
+     * Confirm that the cells returned by the cell property index still match the query
+     */
+    private static List<CellImpl> verifyCells(List<CellImpl> candidates, Predicate<CellImpl> matches, boolean firstOnly)
+    {
+        List<CellImpl> cells = new ArrayList<CellImpl>(candidates.size());
+        for (CellImpl c : candidates) {
+            if (matches.test(c)) {
+                cells.add(c);
+                if (firstOnly)
+                    break;
+            }
+        }
+        
+        return cells;
+    }
+    
+    private static CellImpl firstCell(List<CellImpl> cells)
+    {
+        return cells.isEmpty() ? null : cells.get(0);
+    }
 
 	/*
      * Subset manipulation routines
@@ -1873,6 +2458,12 @@ public class TableImpl extends TableCellsElementImpl implements Table, Precision
     @Override
     public RowImpl getRow(int idx)
     {
+        if (isConcurrentReads()) {
+            RowImpl row = readSliceOptimistically(m_rows, idx);
+            if (row != null)
+                return row;
+        }
+        
         return getRow(Access.ByIndex, idx);
     }
     
@@ -2052,7 +2643,12 @@ public class TableImpl extends TableCellsElementImpl implements Table, Precision
      * Note: <b>for systems use only!</b>
      * @return ArrayList&lt;ColumnImpl&gt;
      */
-    protected ArrayList<ColumnImpl> getColumnsInternal()
+    protected List<ColumnImpl> getColumnsInternal()
+    {
+        return m_cols;
+    }
+    
+    SliceList<ColumnImpl> getColumnSlices()
     {
         return m_cols;
     }
@@ -2204,6 +2800,12 @@ public class TableImpl extends TableCellsElementImpl implements Table, Precision
     @Override
     public ColumnImpl getColumn(int idx)
     {
+        if (isConcurrentReads()) {
+            ColumnImpl col = readSliceOptimistically(m_cols, idx);
+            if (col != null)
+                return col;
+        }
+        
         return getColumn(Access.ByIndex, idx);
     }
     
@@ -2292,6 +2894,7 @@ public class TableImpl extends TableCellsElementImpl implements Table, Precision
                                                      Access mode, Object... md)
     {
         vetElement();
+        awaitParallelRecalculations();
 
         // handle onBeforeDelete processing
         try {
@@ -2311,7 +2914,16 @@ public class TableImpl extends TableCellsElementImpl implements Table, Precision
                 throw new InvalidAccessException(ElementType.Table, sliceType, mode, true, md);
             
             // insert row into data structure at correct index
-            if (tse.insertSlice(idx) != null && setCurrent)
+            TableSliceElementImpl inserted = null;
+            m_stamp.beginChange();
+            try {
+                inserted = tse.insertSlice(idx);
+            }
+            finally {
+                m_stamp.endChange();
+            }
+            
+            if (inserted != null && setCurrent)
                 tse.setCurrent();
             
             successfullyCreated = true;
@@ -2337,7 +2949,7 @@ public class TableImpl extends TableCellsElementImpl implements Table, Precision
     {
         int numSlices = -1;
         TableSliceElementImpl curSlice = null;
-        ArrayList<? extends TableSliceElementImpl> slices;
+        List<? extends TableSliceElementImpl> slices;
         
         if (et == ElementType.Row) {
             numSlices = getNumRows();
@@ -2640,11 +3252,31 @@ public class TableImpl extends TableCellsElementImpl implements Table, Precision
         return getCell(row, col, true);
     }
     
-    synchronized protected CellImpl getCell(RowImpl row, ColumnImpl col, boolean createIfNull)
+    protected CellImpl getCell(RowImpl row, ColumnImpl col, boolean createIfNull)
+    {
+        if (isRecalculationWorker()) {
+            CellImpl cell = readCell(row, col);
+            if (cell != null)
+                return cell;
+        }
+        
+        synchronized(this) {
+            if (!vetCellReference(row, col))
+                return null;
+            
+            return col.getCellInternal(row, createIfNull, true);
+        }
+    }
+    
+    /**
+     * Verify the row and column are valid and belong to this table
+     * @return false if either the row or column is null
+     */
+    private boolean vetCellReference(RowImpl row, ColumnImpl col)
     {
         vetElement();
         if (row == null || col == null)
-            return null;
+            return false;
         
         vetElement(row);
         vetElement(col);
@@ -2654,7 +3286,7 @@ public class TableImpl extends TableCellsElementImpl implements Table, Precision
         if (this != col.getTable())
             throw new InvalidParentException(col, this);
         
-        return col.getCellInternal(row, createIfNull, true);
+        return true;
     }
     
 
@@ -2671,21 +3303,315 @@ public class TableImpl extends TableCellsElementImpl implements Table, Precision
  		return col.getCellInternal(row, createIfNull, setCurrent);
 	}
 
-    synchronized protected boolean setCellValue(RowImpl row, ColumnImpl col, Object o) 
+    protected boolean setCellValue(RowImpl row, ColumnImpl col, Object o) 
     {
-        CellImpl cell = getCell(row, col, o != null);
-        if (cell != null) {
-            if (o instanceof Token)
+        // parallel recalculation workers post results to existing cells without the table monitor
+        if (o instanceof Token && col != null && !col.isColumnarStorage() && isRecalculationWorker()) {
+            CellImpl cell = readCell(row, col);
+            if (cell != null)
                 return cell.postResult((Token)o);
+        }
+        
+        synchronized(this) {
+            // numeric values can bypass cell creation when the column is columnar
+            if (col != null && col.isColumnarStorage() && vetCellReference(row, col) && col.isColumnarValue(row, o))
+                return col.setColumnarValue(row, o);
+            
+            CellImpl cell = getCell(row, col, o != null);
+            if (cell != null) {
+                if (o instanceof Token)
+                    return cell.postResult((Token)o);
+                else
+                    return cell.setCellValue(o);
+            }
             else
-                return cell.setCellValue(o);
+            	return false;
         }
-        else
-        	return false;
+    }
+    
+    @Override
+    synchronized public List<Row> addRows(Object [][] rowValues)
+    {
+        vetElement();
+        if (rowValues == null || rowValues.length == 0)
+            return Collections.emptyList();
+        
+        int nCols = 0;
+        for (Object [] rv : rowValues) {
+            if (rv != null && rv.length > nCols)
+                nCols = rv.length;
+        }
+        
+        int firstRowIdx = getNumRows() + 1;
+        setCellValues(firstRowIdx, rowValues.length, ensureColumns(1, nCols), 
+                (i, j) -> rowValues[i] != null && j < rowValues[i].length ? rowValues[i][j] : null);
+        
+        return getRows(firstRowIdx, rowValues.length);
+    }
+    
+    @Override
+    synchronized public List<Row> addRows(Column [] cols, Object []... colValues)
+    {
+        vetElement();
+        if (cols == null || cols.length == 0 || colValues == null)
+            return Collections.emptyList();
+        
+        List<ColumnImpl> columns = new ArrayList<ColumnImpl>(cols.length);
+        for (Column col : cols) 
+            columns.add(vetSlice((ColumnImpl)col));
+        
+        int nRows = 0;
+        for (int j = 0; j < cols.length && j < colValues.length; j++) {
+            if (colValues[j] != null && colValues[j].length > nRows)
+                nRows = colValues[j].length;
+        }
+        
+        if (nRows == 0)
+            return Collections.emptyList();
+        
+        int firstRowIdx = getNumRows() + 1;
+        setCellValues(firstRowIdx, nRows, columns, 
+                (i, j) -> j < colValues.length && colValues[j] != null && i < colValues[j].length ? colValues[j][i] : null);
+        
+        return getRows(firstRowIdx, nRows);
+    }
+    
+    @Override
+    synchronized public boolean setCellValues(Row firstRow, Column firstCol, Object [][] values)
+    {
+        vetElement();
+        RowImpl row = vetSlice((RowImpl)firstRow);
+        ColumnImpl col = vetSlice((ColumnImpl)firstCol);
+        if (row == null || col == null || values == null || values.length == 0)
+            return false;
+        
+        int nCols = 0;
+        for (Object [] rv : values) {
+            if (rv != null && rv.length > nCols)
+                nCols = rv.length;
+        }
+        
+        return setCellValues(row.getIndex(), values.length, ensureColumns(col.getIndex(), nCols), 
+                (i, j) -> values[i] != null && j < values[i].length ? values[i][j] : null);
+    }
+    
+    @Override
+    synchronized public boolean setColumnValues(Column col, Object... values)
+    {
+        vetElement();
+        ColumnImpl column = vetSlice((ColumnImpl)col);
+        if (column == null)
+            return false;
+        
+        int nValues = values != null ? values.length : 0;
+        int nRows = Math.max(nValues, getNumRows());
+        
+        return setCellValues(1, nRows, Collections.singletonList(column), (i, j) -> i < nValues ? values[i] : null);
+    }
+    
+    /**
+     * Supplies the values of a bulk update, by their 0-based offset from the first row and column updated 
+     */
+    @FunctionalInterface
+    private interface BulkValues
+    {
+        public Object getValue(int rowOffset, int colOffset);
+    }
+    
+    /**
+     * Set the values of the cells in {@code nRows} consecutive rows, starting with the row with index 
+     * {@code firstRowIdx}, and the specified columns, adding rows, as needed. Cell capacity is allocated
+     * up front, values are set a column at a time, within a single structural change, affected derivations 
+     * are recalculated once, in dependency order, after all values are set, and a single OnNewValue event 
+     * is fired on the table.
+     * @return true if any cell value was changed
+     */
+    private boolean setCellValues(int firstRowIdx, int nRows, List<ColumnImpl> cols, BulkValues values)
+    {
+        int nCols = cols.size();
+        if (nRows <= 0 || nCols == 0)
+            return false;
+        
+        boolean setSome = false;
+        boolean readOnlyExceptionEncountered = false;
+        boolean nullValueExceptionEncountered = false;        
+        Set<TableElement> modified = new LinkedHashSet<TableElement>();
+        
+        CellReference cr = getCurrent();
+        deactivateAutoRecalculate();
+        beginStructuralChange();
+        try {
+            List<RowImpl> rows = ensureRows(firstRowIdx, nRows);
+            
+            // allocate space for the cells the update may create, once, rather than as each is created
+            int reqCells = m_nextCellOffset;
+            for (RowImpl row : rows) {
+                if (row != null && row.getCellOffset() < 0)
+                    reqCells++;
+            }
+            
+            for (ColumnImpl col : cols) {
+                if (col != null && !col.isDerived())
+                    col.reserveCellCapacity(reqCells);
+            }
+            
+            boolean [] rowsModified = new boolean[nRows];
+            for (int j = 0; j < nCols; j++) {
+                ColumnImpl col = cols.get(j);
+                if (col == null || col.isDerived())
+                    continue;
+                
+                boolean colModified = false;
+                for (int i = 0; i < nRows; i++) {
+                    RowImpl row = rows.get(i);
+                    if (row == null || row.isDerived())
+                        continue;
+                    
+                    try {
+                        if (setCellValueInBatch(row, col, values.getValue(i, j), modified)) {
+                            colModified = rowsModified[i] = true;
+                        }
+                    }
+                    catch (ReadOnlyException e) {
+                        readOnlyExceptionEncountered = true;
+                    }
+                    catch (NullValueException e) {
+                        nullValueExceptionEncountered = true;
+                    }
+                }
+                
+                if (colModified) {
+                    modified.add(col);
+                    setSome = true;
+                }
+            }
+            
+            for (int i = 0; i < nRows; i++) {
+                if (rowsModified[i]) 
+                    modified.add(rows.get(i));
+            }
+        }
+        finally {
+            m_stamp.endChange();
+            activateAutoRecalculate();
+            cr.setCurrentCellReference(this);
+        }
+        
+        if (setSome) {
+            if (isAutoRecalculateEnabled())
+                DerivationImpl.recalculateAffected(modified);
+            
+            fireEvents(this, TableElementEventType.OnNewValue);
+        }
+        else if (readOnlyExceptionEncountered)
+            throw new ReadOnlyException(this, TableProperty.CellValue);
+        else if (nullValueExceptionEncountered)
+            throw new NullValueException(this, TableProperty.CellValue);
+        
+        return setSome;
+    }
+    
+    private boolean setCellValueInBatch(RowImpl row, ColumnImpl col, Object o, Set<TableElement> modified)
+    {
+        // numeric values can bypass cell creation when the column is columnar
+        if (col.isColumnarStorage() && col.isColumnarValue(row, o))
+            return col.setColumnarValue(row, o);
+        
+        CellImpl cell = col.getCellInternal(row, o != null, false);
+        if (cell == null || cell.isDerived())
+            return false;
+        
+        if (o instanceof Token)
+            return cell.postResult((Token)o);
+        
+        if (!cell.setCellValueInBatch(o))
+            return false;
+        
+        // derivations that reference the cell directly are recalculated with those that reference its row or column 
+        if (m_cellAffects.containsKey(cell))
+            modified.add(cell);
+        
+        return true;
+    }
+    
+    /**
+     * Returns the {@code nRows} consecutive rows starting with the row with index {@code firstRowIdx}, 
+     * appending rows to the table, as needed. Row capacity is grown once, to hold all of the rows.
+     */
+    private List<RowImpl> ensureRows(int firstRowIdx, int nRows)
+    {
+        int lastRowIdx = firstRowIdx + nRows - 1;
+        if (lastRowIdx > getRowsCapacity())
+            setRowsCapacity(calcRowsCapacity(lastRowIdx));
+        
+        while (getNumRows() < lastRowIdx) {
+            if (add(new RowImpl(this), false, true, Access.Last) == null)
+                break;
+        }
+        
+        int numRows = getNumRows();
+        List<RowImpl> rows = new ArrayList<RowImpl>(nRows);
+        for (int idx = firstRowIdx; idx <= lastRowIdx; idx++)
+            rows.add(idx <= numRows ? getRowInternal(true, false, Access.ByIndex, idx) : null);
+        
+        return rows;
+    }
+    
+    /**
+     * Returns the {@code nCols} consecutive columns starting with the column with index {@code firstColIdx}, 
+     * appending columns to the table, as needed.
+     */
+    private List<ColumnImpl> ensureColumns(int firstColIdx, int nCols)
+    {
+        int lastColIdx = firstColIdx + nCols - 1;
+        if (lastColIdx > getColumnsCapacity())
+            setColumnsCapacity(calcColumnsCapacity(lastColIdx));
+        
+        while (getNumColumns() < lastColIdx) {
+            if (add(new ColumnImpl(this), false, true, Access.Last) == null)
+                break;
+        }
+        
+        int numCols = getNumColumns();
+        List<ColumnImpl> cols = new ArrayList<ColumnImpl>(nCols);
+        for (int idx = firstColIdx; idx <= lastColIdx; idx++)
+            cols.add(idx <= numCols ? getColumnInternal(true, false, Access.ByIndex, idx) : null);
+        
+        return cols;
+    }
+    
+    private List<Row> getRows(int firstRowIdx, int nRows)
+    {
+        int lastRowIdx = Math.min(firstRowIdx + nRows - 1, getNumRows());
+        List<Row> rows = new ArrayList<Row>(Math.max(lastRowIdx - firstRowIdx + 1, 0));
+        for (int idx = firstRowIdx; idx <= lastRowIdx; idx++)
+            rows.add(getRowInternal(true, false, Access.ByIndex, idx));
+        
+        return rows;
+    }
+    
+    private <T extends TableSliceElementImpl> T vetSlice(T slice)
+    {
+        if (slice != null) {
+            vetElement(slice);
+            if (slice.getTable() != this)
+                throw new InvalidParentException(slice, this);
+        }
+        
+        return slice;
     }
     
     protected Object getCellValue(RowImpl row, ColumnImpl col) 
     {
+        if (col != null && col.isColumnarStorage()) {
+            synchronized(this) {
+                if (!vetCellReference(row, col))
+                    return null;
+                
+                return col.getCellValue(row, true);
+            }
+        }
+        
         CellImpl cell = getCell(row, col, false);
         if (cell != null) 
             return cell.getCellValue();
@@ -2819,7 +3745,20 @@ public class TableImpl extends TableCellsElementImpl implements Table, Precision
     }
     
 	@Override
-	synchronized public void recalculate()
+	public void recalculate()
+	{
+	    // parallel recalculation requires that the table lock not be held by the calling thread,
+	    // as the worker threads must acquire it to read and write cells
+	    if (isParallelRecalculation() && !Thread.holdsLock(this)) 
+	        recalculateInternal();
+	    else {
+	        synchronized(this) {
+	            recalculateInternal();
+	        }
+	    }
+	}
+	
+	private void recalculateInternal()
 	{
         vetElement();        
         CellReference cr = getCurrent();
@@ -2842,6 +3781,7 @@ public class TableImpl extends TableCellsElementImpl implements Table, Precision
     {
         if (cell != null && d != null) {
             cell.set(sf_IS_DERIVED_CELL_FLAG, true);
+            m_dependencyGraph.invalidate();
             return m_derivedCells.put(cell, d);
         }
         else
@@ -2852,6 +3792,7 @@ public class TableImpl extends TableCellsElementImpl implements Table, Precision
     {
         if (cell != null) {
             cell.set(sf_IS_DERIVED_CELL_FLAG, false);
+            m_dependencyGraph.invalidate();
             return m_derivedCells.remove(cell);
         }
         else
@@ -2869,12 +3810,40 @@ public class TableImpl extends TableCellsElementImpl implements Table, Precision
         return m_cellTags.get(cell);
     }
     
-    void setCellTags(CellImpl cell, Set<Tag> tags)
+    synchronized void setCellTags(CellImpl cell, Set<Tag> tags)
     {
+        Set<Tag> oldTags;
         if (tags == null)
-            m_cellTags.remove(cell);
+            oldTags = m_cellTags.remove(cell);
         else
-            m_cellTags.put(cell,  tags);
+            oldTags = m_cellTags.put(cell,  tags);
+        
+        cellTagsChanged(cell, oldTags, tags);
+    }
+    
+    synchronized boolean addCellTags(CellImpl cell, Set<Tag> tags)
+    {
+        Set<Tag> curTags = m_cellTags.get(cell);
+        if (curTags == null) {
+            setCellTags(cell, tags);
+            return true;
+        }
+        
+        boolean anyAdded = curTags.addAll(tags);
+        if (anyAdded)
+            cellTagsChanged(cell, null, tags);
+        
+        return anyAdded;
+    }
+    
+    synchronized boolean removeCellTags(CellImpl cell, Set<Tag> tags)
+    {
+        Set<Tag> curTags = m_cellTags.get(cell);
+        boolean removedAny = curTags != null && curTags.removeAll(tags);
+        if (removedAny)
+            cellTagsChanged(cell, tags, null);
+        
+        return removedAny;
     }
     
     @Override
@@ -3110,6 +4079,242 @@ public class TableImpl extends TableCellsElementImpl implements Table, Precision
     	return m_columnsTimeSeriesPeriod;
     }
     
+	@Override
+	synchronized public void setTimeSeriesedRowsRetention(int maxSlices, long maxAge, TimeUnit unit)
+	{
+    	vetElement();
+    	if (maxSlices < 0 || maxAge < 0)
+    		throw new IllegalArgumentException("TimeSeries retention limits must be >= 0");
+    	
+    	if (unit == null)
+    		unit = TimeUnit.MILLISECONDS;
+    	
+    	m_rowsTimeSeriesMaxSlices = maxSlices;
+    	m_rowsTimeSeriesMaxAge = TimeUnit.MILLISECONDS.convert(maxAge, unit);
+	}
+	
+	@Override
+	public int getTimeSeriesedRowsMaxSlices()
+	{
+		return m_rowsTimeSeriesMaxSlices;
+	}
+	
+	@Override
+	public long getTimeSeriesedRowsMaxAgeInMilliSeconds()
+	{
+		return m_rowsTimeSeriesMaxAge;
+	}
+	
+	@Override
+	synchronized public void setTimeSeriesedColumnsRetention(int maxSlices, long maxAge, TimeUnit unit)
+	{
+    	vetElement();
+    	if (maxSlices < 0 || maxAge < 0)
+    		throw new IllegalArgumentException("TimeSeries retention limits must be >= 0");
+    	
+    	if (unit == null)
+    		unit = TimeUnit.MILLISECONDS;
+    	
+    	m_colsTimeSeriesMaxSlices = maxSlices;
+    	m_colsTimeSeriesMaxAge = TimeUnit.MILLISECONDS.convert(maxAge, unit);
+	}
+	
+	@Override
+	public int getTimeSeriesedColumnsMaxSlices()
+	{
+		return m_colsTimeSeriesMaxSlices;
+	}
+	
+	@Override
+	public long getTimeSeriesedColumnsMaxAgeInMilliSeconds()
+	{
+		return m_colsTimeSeriesMaxAge;
+	}
+	
+	/**
+	 * Returns the row to hold the next time series values. If the time series retention limits
+	 * have been reached, the oldest row is recycled: it is moved to the end of the table and its
+	 * values are cleared, avoiding the deletion, reallocation, and space reclamation of rows.
+	 * Note: <b>for systems use only!</b>
+	 * @return the new or recycled row
+	 */
+	synchronized public RowImpl addTimeSeriesedRow()
+	{
+		vetElement();
+		ColumnImpl tsCol = m_rowsTimeSeriesTimeStampColumn;
+		RowImpl row = recycleTimeSeriesSlice(m_rows, m_rowsTimeSeriesMaxSlices, m_rowsTimeSeriesMaxAge, 
+				tsCol != null && !tsCol.isInvalid() ? r -> getCellValue(r, tsCol) : null);
+		if (row == null)
+			return addRow();
+		
+		List<TableElement> cleared = new ArrayList<TableElement>();
+		boolean reactivateAutoRecalc = !isSet(sf_AUTO_RECALCULATE_DISABLED_FLAG);
+		if (reactivateAutoRecalc)
+			deactivateAutoRecalculate();
+		try {
+			for (ColumnImpl col : m_cols) {
+				if (col != null && !col.isDerived() && getCellValue(row, col) != null) {
+					setCellValue(row, col, null);
+					if (!m_rowsTimeSeries.contains(col)) {
+						CellImpl cell = getCell(row, col, false);
+						cleared.add(cell != null ? cell : col);
+					}
+				}
+			}
+		}
+		finally {
+			if (reactivateAutoRecalc)
+				activateAutoRecalculate();
+		}
+		
+		// time series values are recalculated by the time series worker, 
+		// recalculate elements affected by any other cleared values
+		if (isAutoRecalculateEnabled())
+			cleared.forEach(te -> DerivationImpl.recalculateAffected(te));
+		
+		setCurrentRow(row);
+		return row;
+	}
+	
+	/**
+	 * Returns the column to hold the next time series values. If the time series retention limits
+	 * have been reached, the oldest column is recycled: it is moved to the end of the table and its
+	 * values are cleared.
+	 * Note: <b>for systems use only!</b>
+	 * @return the new or recycled column
+	 */
+	synchronized public ColumnImpl addTimeSeriesedColumn()
+	{
+		vetElement();
+		RowImpl tsRow = m_colsTimeSeriesTimeStampRow;
+		ColumnImpl col = recycleTimeSeriesSlice(m_cols, m_colsTimeSeriesMaxSlices, m_colsTimeSeriesMaxAge, 
+				tsRow != null && !tsRow.isInvalid() ? c -> getCellValue(tsRow, c) : null);
+		if (col == null)
+			return addColumn();
+		
+		List<TableElement> cleared = new ArrayList<TableElement>();
+		boolean reactivateAutoRecalc = !isSet(sf_AUTO_RECALCULATE_DISABLED_FLAG);
+		if (reactivateAutoRecalc)
+			deactivateAutoRecalculate();
+		try {
+			for (RowImpl row : m_rows) {
+				if (row != null && !row.isDerived() && getCellValue(row, col) != null) {
+					setCellValue(row, col, null);
+					if (!m_colsTimeSeries.contains(row)) {
+						CellImpl cell = getCell(row, col, false);
+						cleared.add(cell != null ? cell : row);
+					}
+				}
+			}
+		}
+		finally {
+			if (reactivateAutoRecalc)
+				activateAutoRecalculate();
+		}
+		
+		if (isAutoRecalculateEnabled())
+			cleared.forEach(te -> DerivationImpl.recalculateAffected(te));
+		
+		setCurrentColumn(col);
+		return col;
+	}
+	
+	/**
+	 * Apply the time series retention limits to the rows or columns of this table. Expired slices, 
+	 * other than the most recent one, are deleted; the most recent expired slice is moved to the end 
+	 * of the table and returned, so its cells can be reused. At steady state, one slice expires 
+	 * per time series period, so the slice is recycled without a scan of the table.
+	 * @return the slice to recycle, or null if a new slice should be added
+	 */
+	private <T extends TableSliceElementImpl> T recycleTimeSeriesSlice(SliceList<T> slices, int maxSlices, long maxAge, 
+			Function<T, Object> timeStamp)
+	{
+		if (maxSlices <= 0 && maxAge <= 0)
+			return null;
+		
+		int numSlices = slices.size();
+		int numExpired = maxSlices > 0 ? Math.max(0, numSlices + 1 - maxSlices) : 0;
+		if (maxAge > 0 && timeStamp != null) {
+			long cutoff = System.currentTimeMillis() - maxAge;
+			while (numExpired < numSlices && slices.get(numExpired) != null) {
+				Object ts = timeStamp.apply(slices.get(numExpired));
+				if (ts instanceof Date && ((Date)ts).getTime() < cutoff)
+					numExpired++;
+				else
+					break;
+			}
+		}
+		
+		if (numExpired == 0)
+			return null;
+		
+		// delete all but the most recent expired slice
+		for (int i = 1; i < numExpired; i++) {
+			T slice = slices.get(0);
+			if (slice == null)
+				break;
+			
+			slice.delete(false);
+			if (!slice.isInvalid())
+				break;
+		}
+		
+		T slice = slices.get(0);
+		if (!isRecyclable(slice)) {
+			if (slice != null)
+				slice.delete(false);
+			return null;
+		}
+		
+		// rotating the ring of slices moves the oldest to the end, without shifting or renumbering the others
+		beginStructuralChange();
+		try {
+			slices.rotate();
+		}
+		finally {
+			m_stamp.endChange();
+		}
+		
+		return slice;
+	}
+	
+	/**
+	 * Slices with state beyond their cell values, such as derivations, labels, listeners, 
+	 * subsets, or cells referenced by derivations, can't be recycled
+	 */
+	private boolean isRecyclable(TableSliceElementImpl slice)
+	{
+		if (slice == null || slice.isInvalid() || !m_filters.isEmpty())
+			return false;
+		
+		if (slice.isDerived() || slice.isTimeSeries() || slice.getLabel() != null || slice.hasListeners() || 
+				!slice.getAffects().isEmpty() || !slice.getSubsets().isEmpty())
+			return false;
+		
+		// only check the cells that exist; iterating cells() would create the rest
+		if (slice instanceof RowImpl) {
+			RowImpl row = (RowImpl)slice;
+			for (ColumnImpl col : getColumnsInternal()) {
+				if (col != null && !isRecyclable(col.findCell(row)))
+					return false;
+			}
+		}
+		else if (slice instanceof ColumnImpl) {
+			for (Cell c : ((ColumnImpl)slice).existingCells(null)) {
+				if (!isRecyclable((CellImpl)c))
+					return false;
+			}
+		}
+		
+		return true;
+	}
+	
+	private boolean isRecyclable(CellImpl cell)
+	{
+		return cell == null || !(cell.isDerived() || cell.getLabel() != null || m_cellAffects.containsKey(cell) || 
+				m_cellListeners.containsKey(cell) || m_subsetedCells.containsKey(cell) || m_cellTags.containsKey(cell));
+	}
+    
     Map<String, Object> getCellElemProperties(CellImpl cell, boolean createIfEmpty)
     {
         if (cell != null) {
@@ -3129,8 +4334,13 @@ public class TableImpl extends TableCellsElementImpl implements Table, Precision
     
     void resetCellElemProperties(CellImpl cell)
     {
-        if (cell != null) 
-            m_cellElemProperties.remove(cell);
+        if (cell != null) {
+            Map<String, Object> props = m_cellElemProperties.remove(cell);
+            
+            CellPropertyIndex cpi = m_cellPropertyIndex;
+            if (cpi != null)
+                cpi.remove(cell, props, m_cellTags.get(cell));
+        }
     }
     
     /**
@@ -3154,6 +4364,9 @@ public class TableImpl extends TableCellsElementImpl implements Table, Precision
             
             affected.add(d);
         }
+        
+        m_dependencyGraph.invalidate();
+        DependencyGraph.invalidate(d);
     }
     
     protected void deregisterAffects(CellImpl cell, Derivable d)
@@ -3170,6 +4383,46 @@ public class TableImpl extends TableCellsElementImpl implements Table, Precision
                     m_cellAffects.remove(cell);
             }
         }
+        
+        m_dependencyGraph.invalidate();
+        DependencyGraph.invalidate(d);
+    }
+    
+    /**
+     * Returns the dependency graph of this table, and the recalculation plans computed from it
+     * @return the table's {@link DependencyGraph}
+     */
+    public DependencyGraph getDependencyGraph()
+    {
+        return m_dependencyGraph;
+    }
+    
+    /**
+     * Returns the aggregate statistics maintained for rows and columns in this table
+     * @return the table's {@link AggregateStatistics}
+     */
+    public AggregateStatistics getAggregateStatistics()
+    {
+        return m_aggregateStatistics;
+    }
+    
+    /**
+     * Returns the structural version of a row or column, for use by {@link AggregateStatistics}.
+     * Columns holding values in a columnar store are also versioned by their store, as are rows 
+     * when columnar storage is enabled, as values written directly to a store bypass cells. 
+     * Returns -1 for elements whose values may change by other means, such as those of 
+     * tables backed by external data sources.
+     */
+    private long getAggregateStatisticsVersion(TableElement te)
+    {
+        if (te == null || te.getTable() != this || te.isInvalid())
+            return -1;
+        else if (te.getClass() == ColumnImpl.class)
+            return m_stamp.getVersion() + ((ColumnImpl)te).getStructureStamp().getVersion();
+        else if (te.getClass() == RowImpl.class && !isColumnarStorage())
+            return m_stamp.getVersion();
+        else
+            return -1;
     }
     
     protected List<Derivable> getCellAffects(CellImpl cell, boolean includeIndirects)
@@ -3255,26 +4508,19 @@ public class TableImpl extends TableCellsElementImpl implements Table, Precision
         return null;
     }
     
-	protected void sort(TableSliceElementImpl tse) 
+	synchronized protected void sort(TableSliceElementImpl tse) 
 	{
-	    if (tse instanceof ColumnImpl) {
-	        TableSliceElementComparator rowSorter = new TableSliceElementComparator((ColumnImpl)tse);
-    		Collections.sort(m_rows, rowSorter);
-            reindex(m_rows);
-	    }
-	    else if (tse instanceof RowImpl) {
-	        TableSliceElementComparator colSorter = new TableSliceElementComparator((RowImpl)tse);
-            Collections.sort(m_cols, colSorter);
-            reindex(m_cols);
-	    }
+	    if (tse instanceof ColumnImpl) 
+	        sortSlicesByKeys(m_rows, SortKey.by(tse));
+	    else if (tse instanceof RowImpl) 
+	        sortSlicesByKeys(m_cols, SortKey.by(tse));
 	}
 
-	protected void sort(TableSliceElementImpl tse, Comparator<Cell> cellSorter)
+	synchronized protected void sort(TableSliceElementImpl tse, Comparator<Cell> cellSorter)
 	{
         if (tse instanceof ColumnImpl) {
             TableSliceElementComparator rowSorter = new TableSliceElementComparator((ColumnImpl)tse);
-            Collections.sort(m_rows, rowSorter);
-            reindex(m_rows);
+            sortSlices(m_rows, rowSorter);
         }
 	}
 	
@@ -3300,17 +4546,42 @@ public class TableImpl extends TableCellsElementImpl implements Table, Precision
     	
 	    if (et == null || (tp == null && (others == null || others.length == 0))) 
 	        throw new IllegalArgumentException("Element type and Table Property and/or other Sort Elements required");
+	    
+	    List<SortKey> keys = new ArrayList<SortKey>();
+	    if (tp != null)
+	        keys.add(SortKey.by(tp));
+	    
+	    if (others != null) {
+	        for (TableRowColumnElement e : others) {
+	            if (e == null)
+	                throw new NullPointerException("TableRowColumnElement");
+	            
+	            keys.add(SortKey.by(e));
+	        }
+	    }
+	    
+	    sort(et, keys.toArray(new SortKey[keys.size()]));
+	}
+	
+	@Override
+	synchronized public void sort(ElementType et, SortKey... keys)
+	{
+	    vetElement();
+	    if (et == null || keys == null || keys.length == 0) 
+	        throw new IllegalArgumentException("Element type and Sort Keys required");
 	        
 	    ElementType otherType;
 	    switch (et) {
 	        case Row:
 	        case Column:
 	            otherType = et == ElementType.Row ? ElementType.Column : ElementType.Row;
-	            if (others != null) {
-	                for (TableRowColumnElement e : others) {
-	                    if (e == null)
-	                        throw new NullPointerException("TableRowColumnElement");
-                        else if (e.getElementType() != otherType)
+	            for (SortKey key : keys) {
+	                if (key == null)
+	                    throw new NullPointerException("SortKey");
+	                
+	                TableRowColumnElement e = key.getSlice();
+	                if (e != null) {
+                        if (e.getElementType() != otherType)
                             throw new InvalidException("All elements must be of the same type: " + otherType);
                         else if (!(e instanceof TableSliceElementImpl))
                             throw new UnsupportedImplementationException(e);
@@ -3326,30 +4597,23 @@ public class TableImpl extends TableCellsElementImpl implements Table, Precision
 	            throw new InvalidException("Can only sort Rows or Columns");
 	    }
 	    
-	    TablePropertySorter tpSorter = new TablePropertySorter(tp, others);
-	    if (et == ElementType.Row) {
-            Collections.sort(m_rows, tpSorter);
-            reindex(m_rows);
-	    }
-	    else {
-	        Collections.sort(m_cols, tpSorter);
-	        reindex(m_cols);
-	    }
+	    if (et == ElementType.Row) 
+	        sortSlicesByKeys(m_rows, keys);
+	    else 
+	        sortSlicesByKeys(m_cols, keys);
 	}
 	
 	private void sortRowLabels() 
 	{
-        Collections.sort(m_rows);
-        reindex(m_rows);        
+        sortSlices(m_rows, null);
 	}
 
 	private void sortColumnLabels() 
 	{
-        Collections.sort(m_cols);
-        reindex(m_cols);        
+        sortSlices(m_cols, null);
 	}
 
-	private void reindex(ArrayList<? extends TableSliceElementImpl> slices) 
+	private void reindex(List<? extends TableSliceElementImpl> slices) 
 	{
 		if (slices != null) {
 		    int idx = 1;
@@ -3379,9 +4643,14 @@ public class TableImpl extends TableCellsElementImpl implements Table, Precision
     /**
      * Return the raw rows arraylist. Allows Row class to insert a row into the table.
      * Note: <b>for systems use only!</b>
-     * @return ArrayList&lt;RowImpl&gt;
+     * @return List&lt;RowImpl&gt;
      */
-    protected ArrayList<RowImpl> getRowsInternal()
+    protected List<RowImpl> getRowsInternal()
+    {
+        return m_rows;
+    }
+    
+    SliceList<RowImpl> getRowSlices()
     {
         return m_rows;
     }
@@ -3484,79 +4753,6 @@ public class TableImpl extends TableCellsElementImpl implements Table, Precision
     	}
 	}
     
-    protected static class TablePropertySorter implements Comparator<TableSliceElementImpl>
-    {
-        private TableProperty m_tp;
-        private String m_tpStr;
-        private TableRowColumnElement[] m_others;
-        
-        protected TablePropertySorter(TableProperty tp, TableRowColumnElement... others) 
-        {
-            m_tp = tp;
-            m_others = others;
-        }
-
-        protected TablePropertySorter(String tp, TableRowColumnElement... others) 
-        {
-            m_tpStr = tp != null ? tp.trim() : null;
-            m_others = others;
-        }
-
-        @Override
-        public int compare(TableSliceElementImpl tse1, TableSliceElementImpl tse2)
-        {
-            if (tse1 == tse2) return 0;
-            
-            // if a property was specified, sort on it first
-            if (m_tp != null || m_tpStr != null) {
-                Object tpv1 = tse1 != null ? m_tp != null ? tse1.getProperty(m_tp) : tse1.getProperty(m_tpStr) : null;
-                Object tpv2 = tse2 != null ? m_tp != null ? tse2.getProperty(m_tp) : tse2.getProperty(m_tpStr) : null;
-                
-                int result = compareValue(tpv1, tpv2);
-                if (result != 0)
-                    return result;
-            }
-            
-            // compare the cells in the specified slices
-            if (m_others != null) {
-                for (TableRowColumnElement s : m_others) {
-                    CellImpl c1 = tse1 != null ? ((TableSliceElementImpl)s).getCellInternal(tse1) : null;
-                    CellImpl c2 = tse2 != null ? ((TableSliceElementImpl)s).getCellInternal(tse2) : null;
-                    
-                    // if both cells are null, return equal
-                    if ((c1 == null || c1.isNull()) && (c2 == null || c2.isNull())) return 0;
-                    if (c1 == null || c1.isNull()) return 1;
-                    if (c2 == null || c2.isNull()) return -1;
-                    
-                    int result = compareValue(c1.getCellValue(), c2.getCellValue());
-                    if (result != 0)
-                        return result;
-                }
-            }
-            
-            // if we get here, we have a match!
-            return 0;
-        }
-
-        @SuppressWarnings("unchecked")
-        private int compareValue(Object v1, Object v2)
-        {
-            if (v1 == v2)
-                return 0;
-            else if (v2 == null)
-                return -1;
-            else if (v1 == null)
-                return 1;
-            
-            // nulls are dealt with, now handle values
-            if ((v1 instanceof Comparable<?>) && (v1.getClass().isAssignableFrom(v2.getClass())))
-                return ((Comparable<Comparable<?>>)v1).compareTo((Comparable<?>)v2);
-            
-            // if not directly comparable, compare string representations                        
-            return v1.toString().compareTo(v2.toString());
-        }
-    }
-    
     protected static class TableSliceElementComparator implements Comparator<TableSliceElementImpl>
     {
         private TableSliceElementImpl m_sortSlice;
@@ -33,6 +33,7 @@ import org.tms.api.utils.TableCellTransformer;
 import org.tms.api.utils.TableCellValidator;
 import org.tms.tds.TableImpl.CellReference;
 import org.tms.teq.DerivationBuilder;
+import org.tms.teq.DependencyGraph;
 import org.tms.teq.DerivationImpl;
 import org.tms.util.JustInTimeSet;
 
@@ -44,6 +45,12 @@ public abstract class TableSliceElementImpl extends TableCellsElementImpl implem
     abstract public int getNumSlices();
     abstract public ElementType getSlicesType();
     
+    /**
+     * Returns the parent table's list of rows or columns containing this slice, 
+     * which maps the slice's position in the list to its index
+     */
+    abstract SliceList<?> getSliceList();
+    
     private JustInTimeSet<SubsetImpl> m_subsets;
     private int m_index = -1;    
     private DerivationImpl m_deriv;
@@ -570,12 +577,14 @@ public abstract class TableSliceElementImpl extends TableCellsElementImpl implem
     @Override
     public int getIndex()
     {
-        return m_index ;
+        SliceList<?> slices = getSliceList();
+        return slices != null ? slices.toLogicalIndex(m_index) : m_index;
     }
     
     void setIndex(int idx)
     {
-        m_index = idx;
+        SliceList<?> slices = getSliceList();
+        m_index = slices != null ? slices.toPhysicalIndex(idx) : idx;
     }
     
     protected List<CellImpl> getCells()
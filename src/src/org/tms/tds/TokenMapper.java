@@ -575,6 +575,11 @@ public class TokenMapper
     	m_userOverloadedOps.clear();
     }
 
+    public boolean isOverloaded()
+    {
+    	return !m_userOverloadedOps.isEmpty();
+    }
+
     public Operator fetchOverload(String theOp, Class<?>... paramTypes) 
     {
     	validateOverload(theOp, paramTypes);
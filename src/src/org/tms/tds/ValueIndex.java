@@ -0,0 +1,163 @@
+package org.tms.tds;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+/**
+ * An index of the values in a {@link ColumnImpl}, used to find the rows containing a value, or a range
+ * of values, without scanning the column. The index is built when first queried, then maintained by delta
+ * as cell values change, removing the row from the entry for its old value and adding it to the entry for
+ * its new one.
+ * <p>
+ * Equality lookups use {@code equals}, as do scans of the column, so {@code 1} and {@code 1.0} are distinct
+ * values. Range lookups order {@code Number}s by their double values, and other {@code Comparable} values by
+ * their natural order; values of different kinds never fall within the same range. Rows are returned in row order.
+ */
+final class ValueIndex
+{
+    /*
+     * Numbers are ordered by value, regardless of type, and precede all other values,
+     * which are grouped by class
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    static final Comparator<Object> sf_VALUE_ORDER = (o1, o2) -> {
+        boolean isNum1 = o1 instanceof Number;
+        boolean isNum2 = o2 instanceof Number;
+        if (isNum1 && isNum2)
+            return Double.compare(((Number)o1).doubleValue(), ((Number)o2).doubleValue());
+        else if (isNum1 || isNum2)
+            return isNum1 ? -1 : 1;
+        else if (o1.getClass() != o2.getClass())
+            return o1.getClass().getName().compareTo(o2.getClass().getName());
+        else
+            return ((Comparable)o1).compareTo(o2);
+    };
+
+    private final Map<Object, Set<RowImpl>> m_values;
+    private final NavigableMap<Object, Set<RowImpl>> m_sortedValues;
+
+    ValueIndex()
+    {
+        m_values = new HashMap<Object, Set<RowImpl>>();
+        m_sortedValues = new TreeMap<Object, Set<RowImpl>>(sf_VALUE_ORDER);
+    }
+
+    /**
+     * Index the values of the specified rows; called once, after the index is installed, so that
+     * concurrent changes wait until the index is populated
+     * @param rows the table rows, some of which may be null
+     * @param values returns the column value in a row
+     */
+    synchronized void build(List<RowImpl> rows, Function<RowImpl, Object> values)
+    {
+        for (RowImpl row : rows) {
+            if (row != null)
+                update(row, null, values.apply(row));
+        }
+    }
+
+    /**
+     * Move the row from the index entry for {@code oldValue} to the entry for {@code newValue}
+     * @param row the row containing the modified cell
+     * @param oldValue the previous cell value, or null
+     * @param newValue the new cell value, or null
+     */
+    synchronized void update(RowImpl row, Object oldValue, Object newValue)
+    {
+        if (row == null)
+            return;
+
+        if (oldValue != null) {
+            remove(m_values, row, oldValue);
+            if (oldValue instanceof Comparable)
+                remove(m_sortedValues, row, oldValue);
+        }
+
+        if (newValue != null) {
+            m_values.computeIfAbsent(newValue, k -> new HashSet<RowImpl>()).add(row);
+            if (newValue instanceof Comparable)
+                m_sortedValues.computeIfAbsent(newValue, k -> new HashSet<RowImpl>()).add(row);
+        }
+    }
+
+    /**
+     * Returns the rows containing the specified value, in row order
+     * @param value the value
+     * @return the matching rows
+     */
+    synchronized List<RowImpl> getRows(Object value)
+    {
+        return inRowOrder(m_values.get(value));
+    }
+
+    /**
+     * Returns the rows containing values between {@code fromValue} and {@code toValue}, inclusive, in row order.
+     * Either bound may be null, in which case the range is bounded only by values of the same kind as the other bound.
+     * @param fromValue the lower bound, or null
+     * @param toValue the upper bound, or null
+     * @return the matching rows
+     */
+    synchronized List<RowImpl> getRows(Object fromValue, Object toValue)
+    {
+        NavigableMap<Object, Set<RowImpl>> range;
+        if (fromValue != null && toValue != null) {
+            if (sf_VALUE_ORDER.compare(fromValue, toValue) > 0)
+                return new ArrayList<RowImpl>(0);
+            range = m_sortedValues.subMap(fromValue, true, toValue, true);
+        }
+        else if (fromValue != null)
+            range = m_sortedValues.tailMap(fromValue, true);
+        else
+            range = m_sortedValues.headMap(toValue, true).descendingMap();
+
+        // values of the same kind as the bound are contiguous
+        Object bound = fromValue != null ? fromValue : toValue;
+        Set<RowImpl> rows = new HashSet<RowImpl>();
+        for (Map.Entry<Object, Set<RowImpl>> e : range.entrySet()) {
+            if (!isSameKind(bound, e.getKey()))
+                break;
+
+            rows.addAll(e.getValue());
+        }
+
+        return inRowOrder(rows);
+    }
+
+    static boolean isSameKind(Object o1, Object o2)
+    {
+        if (o1 instanceof Number)
+            return o2 instanceof Number;
+        else
+            return o1.getClass() == o2.getClass();
+    }
+
+    private static void remove(Map<Object, Set<RowImpl>> index, RowImpl row, Object value)
+    {
+        Set<RowImpl> rows = index.get(value);
+        if (rows != null && rows.remove(row) && rows.isEmpty())
+            index.remove(value);
+    }
+
+    static List<RowImpl> inRowOrder(Collection<RowImpl> rows)
+    {
+        if (rows == null || rows.isEmpty())
+            return new ArrayList<RowImpl>(0);
+
+        // deleted rows are dropped from the index as their cells are invalidated, but
+        // values held in columnar storage don't have cells
+        List<RowImpl> ordered = new ArrayList<RowImpl>(rows.size());
+        rows.forEach(r -> { if (r.isValid()) ordered.add(r); });
+        ordered.sort((r1, r2) -> Integer.compare(r1.getIndex(), r2.getIndex()));
+
+        return ordered;
+    }
+}
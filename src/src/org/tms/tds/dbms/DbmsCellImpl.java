@@ -68,6 +68,19 @@ public class DbmsCellImpl extends CellImpl implements ExternalDependenceTableEle
 	private void processResultSetRow(DbmsRowImpl row)
     {
         DbmsTableImpl table = row.getTable();
+        if (table.isStreaming()) {
+            DbmsResultPage page = table.getResultPage(row.getResultSetIndex());
+            for (Cell cell : row.cells()) {
+                if (cell == null || !(cell instanceof DbmsCellImpl)) continue;
+                
+                Column c = cell.getColumn();
+                if (c != null && c instanceof DbmsColumnImpl) 
+                    ((DbmsCellImpl)cell).m_cellValue = page.getValue(row.getResultSetIndex(), ((DbmsColumnImpl)c).getResultSetIndex());
+            }
+            
+            return;
+        }
+        
         ResultSet rs = table.getResultSet();
         try
         {
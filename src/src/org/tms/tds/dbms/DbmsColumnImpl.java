@@ -32,6 +32,13 @@ public class DbmsColumnImpl extends ColumnImpl implements ExternalDependenceTabl
         }
     }
 
+    @Override
+    protected boolean isColumnarStorageSupported()
+    {
+        // cells are loaded on demand from the underlying database
+        return false;
+    }
+    
     @Override
     protected CellImpl getCellInternal(RowImpl row, boolean createIfSparse, boolean setCurrent)
     {
@@ -0,0 +1,94 @@
+package org.tms.tds.dbms;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+
+/**
+ * A page of consecutive result set rows, buffered by column. Pages are filled as a
+ * forward-only result set is streamed, and are checksummed so that a refresh can
+ * determine which pages have changed.
+ */
+class DbmsResultPage
+{
+    private final int m_firstRow;
+    private final Object [][] m_columns;
+    private int m_numRows;
+    private long m_checksum;
+
+    /**
+     * Create an empty page
+     * @param firstRow the 1-based result set index of the first row in the page
+     * @param pageSize the maximum number of rows in the page
+     * @param numCols the number of result set columns
+     */
+    DbmsResultPage(int firstRow, int pageSize, int numCols)
+    {
+        m_firstRow = firstRow;
+        m_columns = new Object[numCols][pageSize];
+        m_numRows = 0;
+        m_checksum = 1;
+    }
+
+    int getFirstRow()
+    {
+        return m_firstRow;
+    }
+
+    int getNumRows()
+    {
+        return m_numRows;
+    }
+
+    boolean isFull()
+    {
+        return m_columns.length == 0 || m_numRows == m_columns[0].length;
+    }
+
+    long getChecksum()
+    {
+        return m_checksum;
+    }
+
+    /**
+     * Append the current row of the result set to the page
+     * @param rs the result set, positioned on the row to append
+     * @throws SQLException if the row values can't be read
+     */
+    void add(ResultSet rs)
+    throws SQLException
+    {
+        long rowHash = 1;
+        for (int i = 0; i < m_columns.length; i++) {
+            Object value = rs.getObject(i + 1);
+            m_columns[i][m_numRows] = value;
+            rowHash = 31 * rowHash + (value != null ? valueHash(value) : 0);
+        }
+
+        m_checksum = 31 * m_checksum + rowHash;
+        m_numRows++;
+    }
+
+    /**
+     * Returns the value of the specified result set row and column
+     * @param rsRow the 1-based result set row index
+     * @param rsCol the 1-based result set column index
+     * @return the value, or null if the row isn't in this page
+     */
+    Object getValue(int rsRow, int rsCol)
+    {
+        int offset = rsRow - m_firstRow;
+        if (offset < 0 || offset >= m_numRows || rsCol < 1 || rsCol > m_columns.length)
+            return null;
+
+        return m_columns[rsCol - 1][offset];
+    }
+
+    private static int valueHash(Object value)
+    {
+        if (value instanceof byte [])
+            return Arrays.hashCode((byte [])value);
+        else
+            return value.hashCode();
+    }
+}
@@ -5,18 +5,27 @@ import java.io.OutputStream;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.sql.Connection;
+import java.sql.DatabaseMetaData;
 import java.sql.DriverManager;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLSyntaxErrorException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.tms.api.Access;
 import org.tms.api.ElementType;
 import org.tms.api.Row;
+import org.tms.api.exceptions.InvalidException;
 import org.tms.api.exceptions.TableIOException;
 import org.tms.api.exceptions.UnsupportedImplementationException;
 import org.tms.api.io.IOOption;
@@ -28,6 +37,23 @@ import org.tms.tds.RowImpl;
 import org.tms.tds.TableImpl;
 import org.tms.util.WeakHashSet;
 
+/**
+ * A table populated from the results of a database query.
+ * <p>
+ * By default, the query is executed with a scrollable result set that is held open until every
+ * row has been read. Tables created with a page size stream the results instead: the query is
+ * executed with a forward-only result set and the given fetch size, and rows are buffered, by
+ * column, in pages of that size. At most the given number of pages are cached; pages evicted from
+ * the cache are re-read on demand by querying for the rows following the last key of the preceding
+ * page, if a key column is specified, or else by having the database skip the preceding rows with an
+ * offset clause, so the query must return rows in a deterministic order. Refreshing a streamed table
+ * only reloads the rows in pages whose contents have changed, and, if a key column is specified,
+ * only queries for rows with keys greater than the last key read.
+ * <p>
+ * Note that some drivers buffer entire result sets unless configured otherwise; for example,
+ * MySQL Connector/J only honors the fetch size when the connection URL specifies
+ * {@code useCursorFetch=true}.
+ */
 public class DbmsTableImpl extends TableImpl implements ExternalDependenceTableElement
 {
     public static final DbmsTableImpl createTable(String connectionUrl, String query) 
@@ -50,6 +76,13 @@ public class DbmsTableImpl extends TableImpl implements ExternalDependenceTableE
         return new DbmsTableImpl(connectionUrl, query, driverClassName, tc);
     }
 
+    public static final DbmsTableImpl createTable(String connectionUrl, String query, String driverClassName, ContextImpl tc,
+                                                  int pageSize, int maxCachedPages) 
+    throws SQLException, ClassNotFoundException
+    {
+        return new DbmsTableImpl(connectionUrl, query, driverClassName, tc, pageSize, maxCachedPages);
+    }
+
     private String m_connectionUrl;
     private String m_query;
     private String m_driverClassName;
@@ -64,6 +97,17 @@ public class DbmsTableImpl extends TableImpl implements ExternalDependenceTableE
     private Set<DbmsRowImpl> m_unprocessedRows;
     private boolean m_processingResultSet = false;
     
+    private int m_pageSize;
+    private int m_maxCachedPages;
+    private int m_numResultSetRows;
+    private long [] m_pageChecksums;
+    private Map<Integer, DbmsResultPage> m_pageCache;
+    private String [] m_dbmsColumnLabels;
+    private String m_keyColumn;
+    private Object m_lastKey;
+    private Object [] m_pageLastKeys;
+    private boolean m_offsetUnsupported;
+    
     public DbmsTableImpl(String connectionUrl, String query)
     throws SQLException, ClassNotFoundException
     {
@@ -72,6 +116,23 @@ public class DbmsTableImpl extends TableImpl implements ExternalDependenceTableE
     
     public DbmsTableImpl(String connectionUrl, String query, String driverClassName, ContextImpl tc) 
     throws ClassNotFoundException, SQLException
+    {
+        this(connectionUrl, query, driverClassName, tc, 0, 0);
+    }
+    
+    /**
+     * Create a table populated from the results of a database query
+     * @param connectionUrl the JDBC connection URL
+     * @param query the SQL query
+     * @param driverClassName the JDBC driver class name, or null
+     * @param tc the table context
+     * @param pageSize the number of rows fetched and buffered at a time, or 0 to use a scrollable result set
+     * @param maxCachedPages the maximum number of pages of rows to cache, when streaming
+     * @throws ClassNotFoundException if the driver class cannot be loaded
+     * @throws SQLException if the query fails
+     */
+    public DbmsTableImpl(String connectionUrl, String query, String driverClassName, ContextImpl tc, int pageSize, int maxCachedPages) 
+    throws ClassNotFoundException, SQLException
     {
         // initialize the default table object
         super(tc.getRowCapacityIncr(), tc.getColumnCapacityIncr(), tc);
@@ -86,6 +147,21 @@ public class DbmsTableImpl extends TableImpl implements ExternalDependenceTableE
         m_connectionUrl = connectionUrl;
         m_query = query;
         
+        // set up the page cache, used when streaming results
+        m_pageSize = Math.max(0, pageSize);
+        m_maxCachedPages = Math.max(1, maxCachedPages);
+        m_pageChecksums = new long[0];
+        m_pageLastKeys = new Object[0];
+        m_pageCache = new LinkedHashMap<Integer, DbmsResultPage>(16, 0.75f, true) {
+            private static final long serialVersionUID = -4117026915530617741L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, DbmsResultPage> eldest)
+            {
+                return size() > m_maxCachedPages;
+            }
+        };
+        
         fetchResultSet(false);
     }
     
@@ -130,6 +206,83 @@ public class DbmsTableImpl extends TableImpl implements ExternalDependenceTableE
         return m_numDbmsRows;
     }
     
+    /**
+     * Returns {@code true} if query results are streamed in pages, rather than read from a scrollable result set
+     * @return true if query results are streamed
+     */
+    public boolean isStreaming()
+    {
+        return m_pageSize > 0;
+    }
+    
+    public int getPageSize()
+    {
+        return m_pageSize;
+    }
+    
+    public int getMaxCachedPages()
+    {
+        return m_maxCachedPages;
+    }
+    
+    synchronized public int getNumCachedPages()
+    {
+        return m_pageCache.size();
+    }
+    
+    public String getKeyColumn()
+    {
+        return m_keyColumn;
+    }
+    
+    /**
+     * Specify the result set column that uniquely identifies, and orders, the query results. When a streamed
+     * table with a key column is refreshed, only rows with keys greater than the last key read are queried for,
+     * and appended to the table; rows already read are assumed to be unchanged. Evicted pages are re-read by
+     * querying for the rows following the last key of the preceding page.
+     * @param columnLabel the key column label, or null to re-query all rows on refresh
+     * @throws InvalidException if the label isn't that of a query result column
+     */
+    synchronized public void setKeyColumn(String columnLabel)
+    {
+        if (!isStreaming())
+            throw new UnsupportedImplementationException(ElementType.Table, "Key columns require streamed query results");
+        
+        String keyColumn = null;
+        if (columnLabel != null && (columnLabel = columnLabel.trim()).length() > 0) {
+            keyColumn = findDbmsColumnLabel(columnLabel);
+            if (keyColumn == null)
+                throw new InvalidException(ElementType.Table, String.format("Invalid key column: %s", columnLabel));
+        }
+        
+        m_keyColumn = keyColumn;
+        
+        // keys are recorded on the next refresh
+        m_lastKey = null;
+        m_pageLastKeys = new Object[0];
+    }
+    
+    /**
+     * Returns the result set column label matching the specified label, ignoring case, as
+     * {@link ResultSet#findColumn(String)} does
+     */
+    private String findDbmsColumnLabel(String columnLabel)
+    {
+        if (m_dbmsColumnLabels != null) {
+            for (String label : m_dbmsColumnLabels) {
+                if (columnLabel.equals(label))
+                    return label;
+            }
+            
+            for (String label : m_dbmsColumnLabels) {
+                if (columnLabel.equalsIgnoreCase(label))
+                    return label;
+            }
+        }
+        
+        return null;
+    }
+    
     synchronized public void refresh() 
     throws SQLException
     {
@@ -141,6 +294,130 @@ public class DbmsTableImpl extends TableImpl implements ExternalDependenceTableE
         return m_resultSet;
     }
     
+    /**
+     * Returns the page containing the specified result set row, re-reading the page if it
+     * isn't cached
+     * @param rsIndex the 1-based result set row index
+     * @return the page containing the row
+     */
+    synchronized DbmsResultPage getResultPage(int rsIndex)
+    {
+        int pageNo = (rsIndex - 1) / m_pageSize;
+        DbmsResultPage page = m_pageCache.get(pageNo);
+        if (page == null) {
+            int firstRow = pageNo * m_pageSize + 1;
+            DbmsResultPage newPage = new DbmsResultPage(firstRow, m_pageSize, m_numDbmsCols);
+            try {
+                readResultPage(pageNo, newPage);
+            }
+            catch (SQLException e) {
+                throw new TableIOException(e);
+            }
+            
+            m_pageCache.put(pageNo, page = newPage);
+        }
+        
+        return page;
+    }
+    
+    /**
+     * Re-read an evicted page, without reading the rows that precede it
+     * @param pageNo the 0-based page number
+     * @param page the empty page to fill
+     */
+    private void readResultPage(int pageNo, DbmsResultPage page)
+    throws SQLException
+    {
+        ResultSetProcessor<DbmsResultPage> fillPage = rs -> {
+            while (!page.isFull() && rs.next())
+                page.add(rs);
+            
+            return page;
+        };
+        
+        // the first page holds the first rows of the results
+        if (pageNo == 0) {
+            streamQuery(m_query, m_pageSize, fillPage);
+            return;
+        }
+        
+        // with a key column, query for the rows following the last key of the preceding page
+        Object prevKey = m_keyColumn != null && pageNo <= m_pageLastKeys.length ? m_pageLastKeys[pageNo - 1] : null;
+        if (prevKey != null) {
+            streamQuery(this::buildKeysetQuery, m_pageSize, fillPage, prevKey);
+            return;
+        }
+        
+        // otherwise, have the database skip the preceding rows
+        int numSkipped = page.getFirstRow() - 1;
+        if (!m_offsetUnsupported) {
+            try {
+                streamQuery(this::buildOffsetQuery, m_pageSize, fillPage, numSkipped, m_pageSize);
+                return;
+            }
+            catch (SQLException e) {
+                if (!isSyntaxError(e))
+                    throw e;
+                
+                m_offsetUnsupported = true;
+            }
+        }
+        
+        // and if it can't, skip them here
+        streamQuery(m_query, numSkipped + m_pageSize, rs -> {
+            for (int i = 0; i < numSkipped && rs.next(); i++)
+                ;
+            
+            return fillPage.process(rs);
+        });
+    }
+    
+    /**
+     * Returns a query for the rows with keys greater than the single parameter, in key order
+     */
+    private String buildKeysetQuery(DatabaseMetaData md)
+    throws SQLException
+    {
+        String key = "tms_keyset." + quoteIdentifier(md, m_keyColumn);
+        return String.format("select * from (%s) tms_keyset where %s > ? order by %s", m_query, key, key);
+    }
+    
+    /**
+     * Returns a query for the rows following the number of rows given by the first parameter, limited
+     * to the number of rows given by the second
+     */
+    private String buildOffsetQuery(DatabaseMetaData md)
+    throws SQLException
+    {
+        String product = md.getDatabaseProductName();
+        product = product != null ? product.toLowerCase() : "";
+        if (product.contains("mysql") || product.contains("mariadb") || product.contains("sqlite"))
+            return String.format("select * from (%s) tms_page limit ?, ?", m_query);
+        else
+            return String.format("select * from (%s) tms_page offset ? rows fetch next ? rows only", m_query);
+    }
+    
+    private static String quoteIdentifier(DatabaseMetaData md, String identifier)
+    throws SQLException
+    {
+        // drivers return a space if identifier quoting isn't supported
+        String quote = md.getIdentifierQuoteString();
+        if (quote == null || (quote = quote.trim()).isEmpty())
+            return identifier;
+        
+        return quote + identifier.replace(quote, quote + quote) + quote;
+    }
+    
+    private static boolean isSyntaxError(SQLException e)
+    {
+        if (e instanceof SQLSyntaxErrorException || e instanceof SQLFeatureNotSupportedException)
+            return true;
+        
+        // SQL state class 42 is syntax error or access rule violation
+        String state = e.getSQLState();
+        return state != null && state.startsWith("42");
+    }
+    
     /**
      * Remove the specified row from the set of unprocessed rows and release JDBC resources
      * if all rows have been processed
@@ -175,6 +452,10 @@ public class DbmsTableImpl extends TableImpl implements ExternalDependenceTableE
     throws SQLException
     {
         releaseJdbcResources();
+        if (isStreaming()) {
+            streamResultSet(isRefresh);
+            return;
+        }
         
         m_connection = DriverManager.getConnection(m_connectionUrl);
         m_statement = m_connection.prepareStatement(m_query,
@@ -223,22 +504,8 @@ public class DbmsTableImpl extends TableImpl implements ExternalDependenceTableE
             }
            
             // process column information
-            if (!isRefresh) {
-                ResultSetMetaData rsmd = resultSet.getMetaData();
-                if (rsmd != null) {
-                    m_numDbmsCols = rsmd.getColumnCount();
-                    setColumnsCapacity(calcColumnsCapacity(m_numDbmsCols));
-                    
-                    for (int i = 1; i <= m_numDbmsCols; i++) {
-                        DbmsColumnImpl col = new DbmsColumnImpl(this, i, rsmd.getColumnClassName(i));
-                        add(col, false, false, Access.ByIndex, i);
-                        
-                        col.setLabelInternal(rsmd.getColumnLabel(i));
-                    }            
-                }
-                else
-                    throw new SQLException("No metadata available");
-            }
+            if (!isRefresh)
+                createDbmsColumns(resultSet);
             
             // if we're refreshing, recalculate all derivations
             if (isRefresh)
@@ -249,6 +516,239 @@ public class DbmsTableImpl extends TableImpl implements ExternalDependenceTableE
         }
     }
 
+    private void streamResultSet(boolean isRefresh) 
+    throws SQLException
+    {
+        m_processingResultSet = true;        
+        try {
+            // with a key column, only query for new rows
+            if (isRefresh && m_keyColumn != null && m_lastKey != null) {
+                int numPrevRows = m_numResultSetRows;
+                m_numResultSetRows = streamQuery(this::buildKeysetQuery, 0, rs -> streamRows(rs, numPrevRows + 1, new BitSet()), 
+                                                 m_lastKey);
+                
+                if (m_numResultSetRows > numPrevRows) {
+                    appendDbmsRows(numPrevRows + 1, m_numResultSetRows);
+                    recalculate();
+                }
+                
+                return;
+            }
+            
+            // otherwise, stream all rows, noting the pages that have changed
+            int numPrevRows = isRefresh ? m_numResultSetRows : 0;
+            BitSet changedPages = new BitSet();
+            m_numResultSetRows = streamQuery(m_query, 0, rs -> {
+                if (!isRefresh)
+                    createDbmsColumns(rs);
+                
+                return streamRows(rs, 1, changedPages);
+            });
+            
+            // discard pages past the end of the results
+            int numPages = (m_numResultSetRows + m_pageSize - 1) / m_pageSize;
+            m_pageCache.keySet().removeIf(pageNo -> pageNo >= numPages);
+            if (m_pageChecksums.length > numPages)
+                m_pageChecksums = Arrays.copyOf(m_pageChecksums, numPages);
+            if (m_pageLastKeys.length > numPages)
+                m_pageLastKeys = Arrays.copyOf(m_pageLastKeys, numPages);
+            
+            if (!isRefresh) {
+                m_numDbmsRows = 0;
+                appendDbmsRows(1, m_numResultSetRows);
+                return;
+            }
+            
+            // delete rows no longer in the results, and mark rows in changed pages for reloading
+            List<Row> toDeleteRows = new ArrayList<Row>();            
+            for (RowImpl row : getRowsInternal()) {
+                if (row instanceof DbmsRowImpl) {
+                    DbmsRowImpl dbmsRow = (DbmsRowImpl)row;
+                    int rsIndex = dbmsRow.getResultSetIndex();
+                    if (rsIndex > m_numResultSetRows)
+                        toDeleteRows.add(dbmsRow);
+                    else if (changedPages.get((rsIndex - 1) / m_pageSize))
+                        dbmsRow.setResultSetRowProcessed(false);
+                }
+            }
+            
+            if (!toDeleteRows.isEmpty()) {
+                this.delete(toDeleteRows.toArray(new Row [] {}));
+                m_numDbmsRows = Math.max(0, m_numDbmsRows - toDeleteRows.size());
+            }
+            
+            // and add rows for new results
+            if (m_numResultSetRows > numPrevRows)
+                appendDbmsRows(numPrevRows + 1, m_numResultSetRows);
+            
+            recalculate();
+        }
+        finally {
+            m_processingResultSet = false;
+        }
+    }
+    
+    /**
+     * Read the remaining rows of a forward-only result set into pages, caching pages while there is room
+     * @param rs the result set
+     * @param firstRow the 1-based result set index of the first row read
+     * @param changedPages set to the pages whose checksums have changed
+     * @return the result set index of the last row read
+     */
+    private int streamRows(ResultSet rs, int firstRow, BitSet changedPages) 
+    throws SQLException
+    {
+        int keyIndex = m_keyColumn != null ? rs.findColumn(m_keyColumn) : 0;
+        int rsIndex = firstRow - 1;
+        DbmsResultPage page = null;
+        while (rs.next()) {
+            if (page == null)
+                page = new DbmsResultPage(rsIndex + 1, m_pageSize - rsIndex % m_pageSize, m_numDbmsCols);
+            
+            rsIndex++;
+            page.add(rs);
+            if (keyIndex > 0)
+                recordLastKey(rsIndex, rs.getObject(keyIndex));
+            
+            if (page.isFull()) {
+                pageStreamed(page, changedPages);
+                page = null;
+            }
+        }
+        
+        if (page != null)
+            pageStreamed(page, changedPages);
+        
+        return rsIndex;
+    }
+    
+    /**
+     * Record the key of the last row read, which is also the last key of its page so far
+     */
+    private void recordLastKey(int rsIndex, Object key)
+    {
+        int pageNo = (rsIndex - 1) / m_pageSize;
+        if (pageNo >= m_pageLastKeys.length)
+            m_pageLastKeys = Arrays.copyOf(m_pageLastKeys, Math.max(pageNo + 1, m_pageLastKeys.length * 2));
+        
+        m_pageLastKeys[pageNo] = m_lastKey = key;
+    }
+    
+    private void pageStreamed(DbmsResultPage page, BitSet changedPages)
+    {
+        int pageNo = (page.getFirstRow() - 1) / m_pageSize;
+        if (pageNo >= m_pageChecksums.length)
+            m_pageChecksums = Arrays.copyOf(m_pageChecksums, Math.max(pageNo + 1, m_pageChecksums.length * 2));
+        
+        // pages filled from the middle, when new rows are queried by key, only hold part of the page
+        if ((page.getFirstRow() - 1) % m_pageSize != 0) {
+            m_pageChecksums[pageNo] = 0;
+            m_pageCache.remove(pageNo);
+            return;
+        }
+        
+        if (m_pageChecksums[pageNo] != page.getChecksum()) {
+            m_pageChecksums[pageNo] = page.getChecksum();
+            changedPages.set(pageNo);
+        }
+        
+        if (m_pageCache.containsKey(pageNo) || m_pageCache.size() < m_maxCachedPages)
+            m_pageCache.put(pageNo, page);
+    }
+    
+    private void appendDbmsRows(int firstRow, int lastRow)
+    {
+        int numNewRows = lastRow - firstRow + 1;
+        if (numNewRows <= 0)
+            return;
+        
+        int insertAt = 1;
+        List<RowImpl> rows = getRowsInternal();
+        for (int i = rows.size(); i > 0; i--) {
+            if (rows.get(i - 1) instanceof DbmsRowImpl) {
+                insertAt = i + 1;
+                break;
+            }
+        }
+        
+        setRowsCapacity(calcRowsCapacity(getNumRows() + numNewRows));
+        for (int i = 0; i < numNewRows; i++) 
+            add(new DbmsRowImpl(this, firstRow + i), false, false, Access.ByIndex, insertAt + i);
+        
+        m_numDbmsRows += numNewRows;
+    }
+    
+    private void createDbmsColumns(ResultSet resultSet) 
+    throws SQLException
+    {
+        ResultSetMetaData rsmd = resultSet.getMetaData();
+        if (rsmd == null)
+            throw new SQLException("No metadata available");
+        
+        m_numDbmsCols = rsmd.getColumnCount();
+        m_dbmsColumnLabels = new String[m_numDbmsCols];
+        setColumnsCapacity(calcColumnsCapacity(m_numDbmsCols));
+        
+        for (int i = 1; i <= m_numDbmsCols; i++) {
+            DbmsColumnImpl col = new DbmsColumnImpl(this, i, rsmd.getColumnClassName(i));
+            add(col, false, false, Access.ByIndex, i);
+            
+            m_dbmsColumnLabels[i - 1] = rsmd.getColumnLabel(i);
+            col.setLabelInternal(m_dbmsColumnLabels[i - 1]);
+        }            
+    }
+    
+    /**
+     * Execute a query with a forward-only result set, fetching rows a page at a time, and process the results;
+     * the connection is closed before returning
+     */
+    private <T> T streamQuery(String query, int maxRows, ResultSetProcessor<T> processor, Object... params) 
+    throws SQLException
+    {
+        return streamQuery(md -> query, maxRows, processor, params);
+    }
+    
+    private <T> T streamQuery(QueryBuilder builder, int maxRows, ResultSetProcessor<T> processor, Object... params) 
+    throws SQLException
+    {
+        try (Connection conn = DriverManager.getConnection(m_connectionUrl)) {
+            // some drivers, such as PostgreSQL, only honor the fetch size outside of auto-commit mode
+            conn.setAutoCommit(false);
+            String query = builder.build(conn.getMetaData());
+            try (PreparedStatement stmt = conn.prepareStatement(query, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                stmt.setFetchSize(m_pageSize);
+                if (maxRows > 0)
+                    stmt.setMaxRows(maxRows);
+                for (int i = 0; i < params.length; i++)
+                    stmt.setObject(i + 1, params[i]);
+                
+                try (ResultSet rs = stmt.executeQuery()) {
+                    return processor.process(rs);
+                }
+            }
+            finally {
+                try {
+                    conn.rollback();
+                }
+                catch (SQLException e) {
+                    // noop
+                }
+            }
+        }
+    }
+    
+    @FunctionalInterface
+    private interface QueryBuilder
+    {
+        String build(DatabaseMetaData md) throws SQLException;
+    }
+    
+    @FunctionalInterface
+    private interface ResultSetProcessor<T>
+    {
+        T process(ResultSet rs) throws SQLException;
+    }
+    
     private long getDbmsRowCount(ResultSet resultSet)
     {
         long totalRows = 0;
@@ -323,6 +823,7 @@ public class DbmsTableImpl extends TableImpl implements ExternalDependenceTableE
         try {
             super.delete(compress);
             m_unprocessedRows = null;
+            m_pageCache.clear();
         }
         finally {
             releaseJdbcResources();
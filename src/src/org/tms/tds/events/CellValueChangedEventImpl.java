@@ -24,6 +24,20 @@ public class CellValueChangedEventImpl extends BaseTableElementEvent implements
         return new CellValueChangedEventImpl(source, trigger, TableElementEventType.OnBeforeNewValue, assemblyId, oldValue, newValue);
     }
 
+    /**
+     * Combine two events for the same cell value into one, with the old value of the first 
+     * and the new value of the last
+     */
+    static final CellValueChangedEventImpl coalesce(CellValueChangedEventImpl first, CellValueChangedEventImpl last)
+    {
+        if (first.isOldValueAvailable())
+            return new CellValueChangedEventImpl(last.getSource(), last.getTrigger(), last.getType(), last.getAssemblyId(), 
+                                                 first.getOldValue(), last.getNewValue());
+        else
+            return new CellValueChangedEventImpl(last.getSource(), last.getTrigger(), last.getType(), last.getAssemblyId(), 
+                                                 last.getNewValue());
+    }
+    
     private boolean m_oldValueAvailable;
     private Object m_oldValue;
     private Object m_newValue;
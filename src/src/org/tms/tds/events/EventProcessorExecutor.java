@@ -1,26 +1,249 @@
 package org.tms.tds.events;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.SynchronousQueue;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
+import org.tms.api.Cell;
+import org.tms.api.ThreadPoolStrategy;
+import org.tms.api.events.BatchTableElementListener;
+import org.tms.api.events.EventOverflowPolicy;
 import org.tms.api.events.Listenable;
 import org.tms.api.events.TableElementEvent;
+import org.tms.api.events.TableElementEventType;
 import org.tms.api.events.TableElementListener;
 import org.tms.api.exceptions.IllegalTableStateException;
 import org.tms.util.ThreadLocalUtils;
+import org.tms.util.ThreadPerTaskExecutor;
 
+/**
+ * Delivers table element events to their listeners. Submitted events are collected into batches, each closed when
+ * it reaches the maximum batch size, or when the batch window, measured from the arrival of its first event, expires.
+ * The events of a batch are grouped by table, and each table's events are delivered by one thread at a time,
+ * in the order they were submitted; {@link BatchTableElementListener}s receive them as a list.
+ * <p>
+ * Repeated {@code OnNewValue} events for the same cell within a batch can be coalesced into one, and the number
+ * of undelivered events can be limited, with an {@link EventOverflowPolicy} determining what happens to events
+ * submitted when the limit is reached. Both are disabled by default. The batch settings apply to all event
+ * processors; the limit and overflow policy apply to those created after they are set.
+ * <p>
+ * Events are often fired by threads that hold the lock of their table, or of the element that fired them, which
+ * the listeners may need. Under the {@code Block} policy, such events never wait for room; they are queued beyond
+ * the limit instead, and the thread submitting the next events outside of the lock waits for the excess to drain.
+ */
 public class EventProcessorExecutor extends ThreadPoolExecutor implements Runnable, EventProcessorThreadPool
 {
+    public static final int sf_DEFAULT_MAX_BATCH_SIZE = 256;
+    
+    private static volatile int sf_MAX_BATCH_SIZE = sf_DEFAULT_MAX_BATCH_SIZE;
+    private static volatile long sf_BATCH_WINDOW_NANOS = 0;
+    private static volatile boolean sf_COALESCE_NEW_VALUES = false;
+    private static volatile int sf_MAX_QUEUED_EVENTS = Integer.MAX_VALUE;
+    private static volatile EventOverflowPolicy sf_OVERFLOW_POLICY = EventOverflowPolicy.Block;
+    
+    public static int getMaxBatchSize()
+    {
+        return sf_MAX_BATCH_SIZE;
+    }
+    
+    public static void setMaxBatchSize(int maxBatchSize)
+    {
+        if (maxBatchSize < 1)
+            throw new IllegalArgumentException("Maximum batch size must be > 0");
+        
+        sf_MAX_BATCH_SIZE = maxBatchSize;
+    }
+    
+    public static long getBatchWindow(TimeUnit unit)
+    {
+        return unit.convert(sf_BATCH_WINDOW_NANOS, TimeUnit.NANOSECONDS);
+    }
+    
+    /**
+     * Sets the maximum time the first event in a batch waits for others to arrive
+     * @param window the batch window, 0 to deliver the events already queued without waiting
+     * @param unit the time unit of the window
+     */
+    public static void setBatchWindow(long window, TimeUnit unit)
+    {
+        if (window < 0)
+            throw new IllegalArgumentException("Batch window must be >= 0");
+        
+        sf_BATCH_WINDOW_NANOS = unit.toNanos(window);
+    }
+    
+    public static boolean isCoalescingNewValues()
+    {
+        return sf_COALESCE_NEW_VALUES;
+    }
+    
+    /**
+     * Enable or disable the coalescing of {@code OnNewValue} events; when enabled, the events for a cell in the 
+     * same batch are replaced by one event, with the old value of the first and the new value of the last
+     * @param coalesce true to coalesce new value events
+     */
+    public static void setCoalescingNewValues(boolean coalesce)
+    {
+        sf_COALESCE_NEW_VALUES = coalesce;
+    }
+    
+    public static int getMaxQueuedEvents()
+    {
+        return sf_MAX_QUEUED_EVENTS;
+    }
+    
+    /**
+     * Sets the maximum number of undelivered events of event processors created hereafter
+     * @param maxQueuedEvents the maximum number of undelivered events
+     */
+    public static void setMaxQueuedEvents(int maxQueuedEvents)
+    {
+        if (maxQueuedEvents < 1)
+            throw new IllegalArgumentException("Maximum queued events must be > 0");
+        
+        sf_MAX_QUEUED_EVENTS = maxQueuedEvents;
+    }
+    
+    public static EventOverflowPolicy getOverflowPolicy()
+    {
+        return sf_OVERFLOW_POLICY;
+    }
+    
+    public static void setOverflowPolicy(EventOverflowPolicy policy)
+    {
+        if (policy == null)
+            throw new NullPointerException("EventOverflowPolicy required");
+        
+        sf_OVERFLOW_POLICY = policy;
+    }
+    
+    /**
+     * Deliver the events to their listeners, in order; batch listeners receive their events in one call
+     * @param events the events
+     */
+    static void deliverEvents(List<TableElementEvent> events)
+    {
+        Map<BatchTableElementListener, List<TableElementEvent>> batched = null;
+        for (TableElementEvent e : events) {
+            List<TableElementListener> listeners = ((Listenable) e.getSource()).getListeners(e.getType());
+            if (listeners != null) {
+                for (TableElementListener listener : listeners) {
+                    if (listener instanceof BatchTableElementListener) {
+                        if (batched == null)
+                            batched = new LinkedHashMap<BatchTableElementListener, List<TableElementEvent>>();
+                        batched.computeIfAbsent((BatchTableElementListener)listener, l -> new ArrayList<TableElementEvent>()).add(e);
+                    }
+                    else
+                        notifyListener(() -> listener.eventOccured(e));
+                }
+            }
+        }
+        
+        if (batched != null) 
+            batched.forEach((listener, batch) -> notifyListener(() -> listener.eventsOccured(batch)));
+    }
+    
+    private static void notifyListener(Runnable notification)
+    {
+        // a failing listener is reported, but doesn't keep the others from being notified
+        try {
+            notification.run();
+        }
+        catch (RuntimeException | Error e) {
+            Thread t = Thread.currentThread();
+            t.getUncaughtExceptionHandler().uncaughtException(t, e);
+        }
+    }
+    
+    /**
+     * Replace the {@code OnNewValue} events for each cell by a single event, at the position of the last one
+     * @return the number of events removed
+     */
+    static int coalesceNewValues(List<TableElementEvent> events)
+    {
+        Map<List<Object>, CellValueChangedEventImpl> firsts = null;
+        Map<List<Object>, Integer> lasts = null;
+        for (int i = 0; i < events.size(); i++) {
+            List<Object> key = coalescingKey(events.get(i));
+            if (key != null) {
+                if (firsts == null) {
+                    firsts = new HashMap<List<Object>, CellValueChangedEventImpl>();
+                    lasts = new HashMap<List<Object>, Integer>();
+                }
+                
+                firsts.putIfAbsent(key, (CellValueChangedEventImpl)events.get(i));
+                lasts.put(key, i);
+            }
+        }
+        
+        if (firsts == null || firsts.size() == countCoalescable(events))
+            return 0;
+        
+        List<TableElementEvent> coalesced = new ArrayList<TableElementEvent>(events.size());
+        for (int i = 0; i < events.size(); i++) {
+            TableElementEvent e = events.get(i);
+            List<Object> key = coalescingKey(e);
+            if (key == null)
+                coalesced.add(e);
+            else if (lasts.get(key) == i) {
+                CellValueChangedEventImpl first = firsts.get(key);
+                coalesced.add(first == e ? e : CellValueChangedEventImpl.coalesce(first, (CellValueChangedEventImpl)e));
+            }
+        }
+        
+        int numRemoved = events.size() - coalesced.size();
+        events.clear();
+        events.addAll(coalesced);
+        
+        return numRemoved;
+    }
+    
+    private static int countCoalescable(List<TableElementEvent> events)
+    {
+        int n = 0;
+        for (TableElementEvent e : events) {
+            if (coalescingKey(e) != null)
+                n++;
+        }
+        
+        return n;
+    }
+    
+    private static List<Object> coalescingKey(TableElementEvent e)
+    {
+        if (e.getType() == TableElementEventType.OnNewValue && e instanceof CellValueChangedEventImpl && e.getTrigger() instanceof Cell)
+            return Arrays.asList(e.getSource(), e.getTrigger());
+        
+        return null;
+    }
+    
     private BlockingQueue<TableElementEvent> m_queuedEvents;
     private boolean m_continueDraining;
     private Thread m_drainThread = null;
+    private ThreadPerTaskExecutor m_taskExecutor = null;
+    private EventCapacity m_capacity;
+    private int m_maxQueuedEvents;
+    private EventOverflowPolicy m_overflowPolicy;
+    private AtomicLong m_numDropped;
+    private Map<Object, TableLane> m_lanes;
     
     public EventProcessorExecutor()
     {
@@ -39,6 +262,19 @@ public class EventProcessorExecutor extends ThreadPoolExecutor implements Runnab
     
     public EventProcessorExecutor(int corePoolSize, int maximumPoolSize, 
                                      long keepAliveTime, TimeUnit unit, boolean timeOutCores)
+    {
+        this(corePoolSize, maximumPoolSize, keepAliveTime, unit, timeOutCores, ThreadPoolStrategy.Pooled);
+    }
+    
+    /**
+     * Creates an event processor using the specified {@link ThreadPoolStrategy}. When the strategy is
+     * {@code ThreadPerTask}, events are delivered in their own threads as they are submitted, with at most
+     * {@code maximumPoolSize} delivered concurrently; the pool sizes and keep alive time only apply to 
+     * the {@code Pooled} strategy.
+     */
+    public EventProcessorExecutor(int corePoolSize, int maximumPoolSize, 
+                                  long keepAliveTime, TimeUnit unit, boolean timeOutCores,
+                                  ThreadPoolStrategy strategy)
     {
         super(corePoolSize, maximumPoolSize, keepAliveTime, unit, 
               new SynchronousQueue<Runnable>(), 
@@ -46,9 +282,15 @@ public class EventProcessorExecutor extends ThreadPoolExecutor implements Runnab
               new ThreadPoolExecutor.AbortPolicy());
         
         m_queuedEvents = new LinkedBlockingQueue<TableElementEvent>();
-        m_continueDraining = true;  
+        m_maxQueuedEvents = sf_MAX_QUEUED_EVENTS;
+        m_capacity = new EventCapacity(m_maxQueuedEvents);
+        m_overflowPolicy = sf_OVERFLOW_POLICY;
+        m_numDropped = new AtomicLong();
+        m_lanes = Collections.synchronizedMap(new WeakHashMap<Object, TableLane>());
+        m_continueDraining = strategy != ThreadPoolStrategy.ThreadPerTask;  
         
-        prestartAllCoreThreads();
+        if (m_continueDraining)
+            prestartAllCoreThreads();
         allowCoreThreadTimeOut(timeOutCores);
         
         setRejectedExecutionHandler(new RejectedExecutionHandler() {
@@ -62,11 +304,23 @@ public class EventProcessorExecutor extends ThreadPoolExecutor implements Runnab
             }
          });  
         
-        // start the drainer thread
-        m_drainThread = new Thread(this);
-        m_drainThread.setDaemon(true);
-        m_drainThread.setName("EventDrainer");
-        m_drainThread.start();
+        if (strategy == ThreadPoolStrategy.ThreadPerTask) {
+            // events are delivered as they are submitted
+            m_taskExecutor = new ThreadPerTaskExecutor("EventProcessorThread", maximumPoolSize) {
+                @Override
+                protected void afterExecute(Runnable r, Throwable t)
+                {
+                    EventProcessorExecutor.this.afterExecute(r, t);
+                }
+            };
+        }
+        else {
+            // start the drainer thread
+            m_drainThread = new Thread(this);
+            m_drainThread.setDaemon(true);
+            m_drainThread.setName("EventDrainer");
+            m_drainThread.start();
+        }
     }
 
     @Override
@@ -75,11 +329,88 @@ public class EventProcessorExecutor extends ThreadPoolExecutor implements Runnab
         if (isShutdown())
             throw new IllegalTableStateException("Event Processor Thread pool has been shutdown...");
         
-        if (events != null) 
-            m_queuedEvents.addAll(events);
+        if (events != null) {
+            if (m_taskExecutor != null) {
+                // events are delivered as they are submitted, so only those submitted together are batched
+                List<TableElementEvent> batch = new ArrayList<TableElementEvent>(events.size());
+                for (TableElementEvent e : events) {
+                    if (!m_capacity.tryAcquire()) {
+                        // deliver what we have, so the capacity we wait for can be freed
+                        dispatchTaskBatch(batch);
+                        batch = new ArrayList<TableElementEvent>();
+                        if (!acquireCapacity(e))
+                            continue;
+                    }
+                    
+                    batch.add(e);
+                }
+                
+                dispatchTaskBatch(batch);
+            }
+            else {
+                for (TableElementEvent e : events) {
+                    if (acquireCapacity(e))
+                        m_queuedEvents.add(e);
+                }
+            }
+        }
         else
             throw new NullPointerException("Collection<TableElementEvent> required.");
     }
+    
+    private void dispatchTaskBatch(List<TableElementEvent> batch)
+    {
+        if (batch.isEmpty())
+            return;
+        
+        if (sf_COALESCE_NEW_VALUES)
+            m_capacity.release(coalesceNewValues(batch));
+        
+        dispatchBatch(batch, m_taskExecutor);
+    }
+    
+    /**
+     * Reserve room for one event, waiting for it or not, as the overflow policy requires; 
+     * threads holding the lock of the event's table or source never wait
+     * @param e the event to be queued
+     * @return true if the event can be queued, false if it is to be dropped
+     */
+    private boolean acquireCapacity(TableElementEvent e)
+    {
+        if (m_capacity.tryAcquire())
+            return true;
+        
+        if (m_overflowPolicy == EventOverflowPolicy.Drop) {
+            m_numDropped.incrementAndGet();
+            return false;
+        }
+        
+        if (isHoldingLock(e)) {
+            // waiting here could deadlock with listeners that need the lock
+            m_capacity.overdraw();
+            return true;
+        }
+        
+        try {
+            m_capacity.acquire();
+            return true;
+        }
+        catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            m_numDropped.incrementAndGet();
+            return false;
+        }
+    }
+    
+    private static boolean isHoldingLock(TableElementEvent e)
+    {
+        Object table = e.getTable();
+        if (table != null && Thread.holdsLock(table))
+            return true;
+        
+        Object source = e.getSource();
+        return source != null && Thread.holdsLock(source);
+    }
 
     @Override
     public boolean remove(TableElementEvent e)
@@ -88,32 +419,121 @@ public class EventProcessorExecutor extends ThreadPoolExecutor implements Runnab
             return false;
         
         // can only remove events from queue
-        return m_queuedEvents.remove(e);
+        if (m_queuedEvents.remove(e)) {
+            m_capacity.release();
+            return true;
+        }
+        
+        return false;
+    }
+    
+    /**
+     * Returns the number of events discarded by the {@code Drop} overflow policy
+     * @return the number of dropped events
+     */
+    public long getNumDroppedEvents()
+    {
+        return m_numDropped.get();
+    }
+    
+    /**
+     * Returns the number of events submitted, but not yet delivered
+     * @return the number of undelivered events
+     */
+    public int getNumQueuedEvents()
+    {
+        return m_maxQueuedEvents - m_capacity.availablePermits();
+    }
+    
+    public ThreadPoolStrategy getThreadPoolStrategy()
+    {
+        return m_taskExecutor != null ? ThreadPoolStrategy.ThreadPerTask : ThreadPoolStrategy.Pooled;
+    }
+    
+    @Override
+    public void setMaximumPoolSize(int maximumPoolSize)
+    {
+        super.setMaximumPoolSize(maximumPoolSize);
+        
+        if (m_taskExecutor != null)
+            m_taskExecutor.setMaxConcurrency(maximumPoolSize);
+    }
+    
+    @Override
+    public int getActiveCount()
+    {
+        return m_taskExecutor != null ? m_taskExecutor.getActiveCount() : super.getActiveCount();
+    }
+    
+    @Override
+    public long getCompletedTaskCount()
+    {
+        return m_taskExecutor != null ? m_taskExecutor.getCompletedTaskCount() : super.getCompletedTaskCount();
     }
     
     @Override
     public void run()
     {
+        List<TableElementEvent> batch = new ArrayList<TableElementEvent>();
         while (m_continueDraining) {
             try
             {
-                TableElementEvent e = m_queuedEvents.take();
+                TableElementEvent first = m_queuedEvents.take();
+                batch.add(first);
+                
+                // collect events until the batch fills or its window closes
+                int maxBatchSize = sf_MAX_BATCH_SIZE;
+                long deadline = System.nanoTime() + sf_BATCH_WINDOW_NANOS;
+                while (batch.size() < maxBatchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        m_queuedEvents.drainTo(batch, maxBatchSize - batch.size());
+                        break;
+                    }
+                    
+                    TableElementEvent e = m_queuedEvents.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (e == null)
+                        break;
+                    
+                    batch.add(e);
+                }
                 
-                Runnable r = new EventRunner(e);
+                if (sf_COALESCE_NEW_VALUES)
+                    m_capacity.release(coalesceNewValues(batch));
                 
-                // offer the runnable to the Executor, 
+                // offer the batch to the Executor, 
                 // blocking if necessary
-                execute(r);
+                dispatchBatch(new ArrayList<TableElementEvent>(batch), this);
             }
             catch (InterruptedException e)
             {
                 m_continueDraining = false;
             }
+            finally {
+                batch.clear();
+            }
         }
         
         m_queuedEvents.clear();
     }
     
+    /**
+     * Split the batch by table, and hand each table's events to its lane
+     */
+    private void dispatchBatch(List<TableElementEvent> batch, Executor executor)
+    {
+        Map<Object, List<TableElementEvent>> byTable = new LinkedHashMap<Object, List<TableElementEvent>>();
+        for (TableElementEvent e : batch) {
+            Object key = e.getTable() != null ? e.getTable() : this;
+            byTable.computeIfAbsent(key, k -> new ArrayList<TableElementEvent>()).add(e);
+        }
+        
+        for (Map.Entry<Object, List<TableElementEvent>> entry : byTable.entrySet()) {
+            TableLane lane = m_lanes.computeIfAbsent(entry.getKey(), k -> new TableLane());
+            lane.submit(entry.getValue(), executor);
+        }
+    }
+    
     @Override
     protected void beforeExecute(Thread t, Runnable r)
     {
@@ -133,7 +553,10 @@ public class EventProcessorExecutor extends ThreadPoolExecutor implements Runnab
         super.shutdown();
         
         m_continueDraining = false;
-        m_drainThread.interrupt();
+        if (m_taskExecutor != null)
+            m_taskExecutor.shutdown();
+        else
+            m_drainThread.interrupt();
         
         m_queuedEvents.clear();       
     }
@@ -153,6 +576,69 @@ public class EventProcessorExecutor extends ThreadPoolExecutor implements Runnab
         }        
     }
     
+    /**
+     * Limits the number of undelivered events; permits can be overdrawn, in which case
+     * they are restored as the excess events are delivered
+     */
+    private static class EventCapacity extends Semaphore
+    {
+        private static final long serialVersionUID = 1L;
+        
+        EventCapacity(int permits)
+        {
+            super(permits);
+        }
+        
+        void overdraw()
+        {
+            reducePermits(1);
+        }
+    }
+    
+    /**
+     * Delivers the events of one table, one batch at a time, in the order the batches were submitted
+     */
+    private class TableLane implements Runnable
+    {
+        private final Deque<List<TableElementEvent>> m_batches = new ArrayDeque<List<TableElementEvent>>();
+        private boolean m_scheduled;
+        
+        void submit(List<TableElementEvent> batch, Executor executor)
+        {
+            synchronized(this) {
+                m_batches.add(batch);
+                if (m_scheduled)
+                    return;
+                
+                m_scheduled = true;
+            }
+            
+            executor.execute(this);
+        }
+        
+        @Override
+        public void run()
+        {
+            while (true) {
+                List<TableElementEvent> batch;
+                synchronized(this) {
+                    batch = m_batches.poll();
+                    if (batch == null) {
+                        m_scheduled = false;
+                        return;
+                    }
+                }
+                
+                try {
+                    deliverEvents(batch);
+                }
+                finally {
+                    m_capacity.release(batch.size());
+                }
+            }
+        }
+    }
+    
     protected static class EventRunner implements Runnable
     {
         private TableElementEvent m_event;
@@ -165,12 +651,7 @@ public class EventProcessorExecutor extends ThreadPoolExecutor implements Runnab
         @Override
         public void run()
         {
-            List<TableElementListener> listeners = ((Listenable) m_event.getSource()).getListeners(m_event.getType());
-            if (listeners != null) {
-                for (TableElementListener listener : listeners) {
-                    listener.eventOccured(m_event);
-                }
-            }
+            deliverEvents(Collections.singletonList(m_event));
         }       
     }
 }
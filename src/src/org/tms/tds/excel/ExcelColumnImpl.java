@@ -45,6 +45,13 @@ public class ExcelColumnImpl extends ColumnImpl implements ExternalDependenceTab
     	return super.getLabel();   		
     }
     
+    @Override
+    protected boolean isColumnarStorageSupported()
+    {
+        // cells are loaded on demand from the underlying workbook
+        return false;
+    }
+    
     @Override
     protected CellImpl getCellInternal(RowImpl row, boolean createIfSparse, boolean setCurrent)
     {
@@ -0,0 +1,200 @@
+package org.tms.tds.logs;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * A random-access index of the starting byte offsets of the lines in a log file. The file is
+ * scanned, and its lines are read, through memory-mapped segments, so any line can be decoded
+ * directly from its offset, regardless of the order in which lines are requested. Lines appended
+ * to the file after it has been indexed are indexed by scanning only the appended bytes.
+ * <p>
+ * As with {@link java.io.LineNumberReader}, lines are terminated by a line feed, a carriage return,
+ * or a carriage return followed by a line feed; a trailing, unterminated line isn't indexed until
+ * its terminator is written. Lines are decoded with the platform default character set, which
+ * must encode line terminators as single bytes.
+ */
+class LogFileLineIndex
+{
+    private static final int sf_SEGMENT_SHIFT = 30;
+    private static final long sf_SEGMENT_SIZE = 1L << sf_SEGMENT_SHIFT;
+    private static final int sf_SEGMENT_MASK = (int)(sf_SEGMENT_SIZE - 1);
+    private static final int sf_INITIAL_CAPACITY = 1024;
+
+    private final File m_file;
+    private final Charset m_charset;
+
+    private long [] m_lineOffsets;
+    private int m_numLines;
+    private long m_scannedLength;
+    private long m_nextLineOffset;
+    private boolean m_pendingCR;
+
+    private FileChannel m_channel;
+    private MappedByteBuffer [] m_segments;
+    private long m_mappedLength;
+
+    LogFileLineIndex(File file)
+    {
+        m_file = file;
+        m_charset = Charset.defaultCharset();
+        m_lineOffsets = new long[sf_INITIAL_CAPACITY];
+    }
+
+    /**
+     * Returns the number of indexed lines
+     * @return the number of indexed lines
+     */
+    synchronized int getNumLines()
+    {
+        return m_numLines;
+    }
+
+    /**
+     * Returns {@code true} if the log file is now shorter than the indexed length, typically because
+     * it was truncated or rotated; the index is no longer valid and must be rebuilt
+     * @return true if the log file has been truncated
+     */
+    synchronized boolean isTruncated()
+    {
+        return m_file.length() < m_scannedLength;
+    }
+
+    /**
+     * Index the lines in the bytes appended to the log file since the previous scan
+     * @return the number of lines added to the index
+     * @throws IOException if the log file can't be mapped
+     */
+    synchronized int update()
+    throws IOException
+    {
+        int numLines = m_numLines;
+        long length = map();
+        long pos = m_scannedLength;
+        while (pos < length) {
+            ByteBuffer segment = m_segments[(int)(pos >>> sf_SEGMENT_SHIFT)];
+            int limit = segment.limit();
+            for (int i = (int)(pos & sf_SEGMENT_MASK); i < limit; i++, pos++) {
+                byte b = segment.get(i);
+                if (b == '\n') {
+                    // a line feed following a carriage return completes the same terminator
+                    if (!m_pendingCR)
+                        addLine(m_nextLineOffset);
+                    m_nextLineOffset = pos + 1;
+                    m_pendingCR = false;
+                }
+                else if (b == '\r') {
+                    addLine(m_nextLineOffset);
+                    m_nextLineOffset = pos + 1;
+                    m_pendingCR = true;
+                }
+                else
+                    m_pendingCR = false;
+            }
+        }
+
+        m_scannedLength = length;
+        return m_numLines - numLines;
+    }
+
+    /**
+     * Returns the text of the specified line, excluding its terminator
+     * @param lineNo the 0-based line number
+     * @return the line, or null if the line isn't indexed
+     * @throws IOException if the log file can't be mapped
+     */
+    synchronized String getLine(int lineNo)
+    throws IOException
+    {
+        if (lineNo < 0 || lineNo >= m_numLines)
+            return null;
+
+        // the mapping is released when all rows have been read, and re-established on demand
+        if (m_segments == null)
+            map();
+
+        long start = m_lineOffsets[lineNo];
+        long end = start;
+        while (end < m_mappedLength) {
+            byte b = m_segments[(int)(end >>> sf_SEGMENT_SHIFT)].get((int)(end & sf_SEGMENT_MASK));
+            if (b == '\n' || b == '\r')
+                break;
+            end++;
+        }
+
+        byte [] bytes = new byte[(int)(end - start)];
+        int copied = 0;
+        while (copied < bytes.length) {
+            long pos = start + copied;
+            ByteBuffer segment = m_segments[(int)(pos >>> sf_SEGMENT_SHIFT)].duplicate();
+            segment.position((int)(pos & sf_SEGMENT_MASK));
+
+            int n = Math.min(bytes.length - copied, segment.remaining());
+            segment.get(bytes, copied, n);
+            copied += n;
+        }
+
+        return new String(bytes, m_charset);
+    }
+
+    /**
+     * Release the file channel and memory mappings; the line index is retained
+     */
+    synchronized void close()
+    {
+        if (m_channel != null) {
+            try {
+                m_channel.close();
+            }
+            catch (IOException e) { /* noop */ }
+            m_channel = null;
+        }
+
+        m_segments = null;
+        m_mappedLength = 0;
+    }
+
+    private void addLine(long offset)
+    {
+        if (m_numLines == m_lineOffsets.length)
+            m_lineOffsets = Arrays.copyOf(m_lineOffsets, m_lineOffsets.length * 2);
+
+        m_lineOffsets[m_numLines++] = offset;
+    }
+
+    /**
+     * Map the entire log file, reusing full segments that are already mapped
+     * @return the mapped file length
+     */
+    private long map()
+    throws IOException
+    {
+        if (m_channel == null)
+            m_channel = FileChannel.open(m_file.toPath(), StandardOpenOption.READ);
+
+        long length = m_channel.size();
+        if (m_segments == null || length != m_mappedLength) {
+            int numSegments = (int)((length + sf_SEGMENT_SIZE - 1) >>> sf_SEGMENT_SHIFT);
+            MappedByteBuffer [] segments = new MappedByteBuffer[numSegments];
+            for (int s = 0; s < numSegments; s++) {
+                long segmentStart = (long)s << sf_SEGMENT_SHIFT;
+                long segmentLength = Math.min(sf_SEGMENT_SIZE, length - segmentStart);
+                if (m_segments != null && s < m_segments.length && m_segments[s].capacity() == segmentLength)
+                    segments[s] = m_segments[s];
+                else
+                    segments[s] = m_channel.map(FileChannel.MapMode.READ_ONLY, segmentStart, segmentLength);
+            }
+
+            m_segments = segments;
+            m_mappedLength = length;
+        }
+
+        return length;
+    }
+}
@@ -9,7 +9,6 @@ import org.tms.api.TableProperty;
 import org.tms.api.derivables.Derivation;
 import org.tms.api.exceptions.ReadOnlyException;
 import org.tms.api.exceptions.UnsupportedImplementationException;
-import org.tms.api.io.logs.LogFileFormat;
 import org.tms.tds.CellImpl;
 import org.tms.tds.ExternalDependenceTableElement;
 
@@ -66,14 +65,7 @@ public class LogsCellImpl extends CellImpl implements ExternalDependenceTableEle
     private void processEntry(LogsRowImpl row)
     {
     	try {
-	    	LogsTableImpl tbl = getTable();
-	    	String lfl = tbl.getLogFileLine(row);
-	    	
-	    	Object [] lfvs = null;
-	    	if (lfl != null) {
-	    		LogFileFormat lff = tbl.getLogFileFormat();
-	    		lfvs = lff.getFieldValues(lfl);
-	    	}
+	    	Object [] lfvs = getTable().getLogFileFieldValues(row);
 	    	
 	    	// fill log file data into log cells
 	        for (Cell cell : row.cells()) {
@@ -27,6 +27,13 @@ public class LogsColumnImpl extends ColumnImpl implements ExternalDependenceTabl
             setDataType(dataType);
     }
 
+    @Override
+    protected boolean isColumnarStorageSupported()
+    {
+        // cells are loaded on demand from the underlying log file
+        return false;
+    }
+    
     @Override
     protected CellImpl getCellInternal(RowImpl row, boolean createIfSparse, boolean setCurrent)
     {
@@ -1,14 +1,13 @@
 package org.tms.tds.logs;
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.LineNumberReader;
 import java.io.OutputStream;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.tms.api.Access;
@@ -27,6 +26,8 @@ import org.tms.util.WeakHashSet;
 
 public class LogsTableImpl extends TableImpl implements ExternalDependenceTableElement
 {
+    private static final int sf_MAX_CACHED_FIELD_VALUES = 1024;
+    
     public static final LogsTableImpl createTable(File logFile, LogFileFormat lff) 
     throws IOException
     {
@@ -47,9 +48,8 @@ public class LogsTableImpl extends TableImpl implements ExternalDependenceTableE
     
 	private File m_logFile;
     private LogFileFormat m_logFileFormat;
-	private LineNumberReader m_logFileReader;
-	private FileInputStream m_logFileInputStream;
-	private int m_nextLineNumber;
+    private LogFileLineIndex m_lineIndex;
+    private Map<Integer, Object []> m_fieldValuesCache;
     
     public LogsTableImpl(File logFile, LogFileFormat lff, ContextImpl tc) 
     throws IOException
@@ -57,7 +57,15 @@ public class LogsTableImpl extends TableImpl implements ExternalDependenceTableE
         // initialize the default table object
         super(tc.getRowCapacityIncr(), tc.getColumnCapacityIncr(), tc);
         m_numLogsCols = m_numLogsRows = 0;
-        m_nextLineNumber = 0;
+        m_fieldValuesCache = new LinkedHashMap<Integer, Object []>(16, 0.75f, true) {
+            private static final long serialVersionUID = 2387354170964622091L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Object []> eldest)
+            {
+                return size() > sf_MAX_CACHED_FIELD_VALUES;
+            }
+        };
         
     	if (logFile == null)
     		throw new IllegalArgumentException("File required");
@@ -110,6 +118,10 @@ public class LogsTableImpl extends TableImpl implements ExternalDependenceTableE
     	return m_logFile;
     }
     
+    /**
+     * Add rows for lines appended to the log file since it was last read. If the log file
+     * has been truncated or rotated, all log file rows are deleted and re-created.
+     */
     synchronized public void refresh() 
     {
     	try {
@@ -153,6 +165,12 @@ public class LogsTableImpl extends TableImpl implements ExternalDependenceTableE
     {
     	m_processingLogFile = true;        
         try {
+            // if the log file has only grown, just index and add rows for the new lines
+            if (isRefresh && m_lineIndex != null && !m_lineIndex.isTruncated()) {
+                appendLogsRows();
+                return;
+            }
+            
             releaseResources();
             
             // delete existing rows
@@ -174,13 +192,12 @@ public class LogsTableImpl extends TableImpl implements ExternalDependenceTableE
             else
                 m_numLogsCols = m_numLogsRows = 0;
             
-            // open log file for read access
-            m_logFileInputStream = new FileInputStream(m_logFile);
-            BufferedReader fr = new BufferedReader(new InputStreamReader(m_logFileInputStream));
-            m_logFileReader = new LineNumberReader(fr);
+            // index the log file lines
+            m_lineIndex = new LogFileLineIndex(m_logFile);
+            m_fieldValuesCache.clear();
             
             // create row data structures
-            m_numLogsRows = getLogsRowCount();
+            m_numLogsRows = m_lineIndex.update();
             
             setRowsCapacity(calcRowsCapacity(Math.max(m_numLogsRows, getNumRows())));
             m_unprocessedRows = new WeakHashSet<LogsRowImpl>(m_numLogsRows);
@@ -213,38 +230,46 @@ public class LogsTableImpl extends TableImpl implements ExternalDependenceTableE
         }
     }
 
-    private int getLogsRowCount() 
+    /**
+     * Index the lines appended to the log file and add rows for them, following the existing
+     * log file rows and preceding any rows added by the user
+     */
+    private void appendLogsRows() 
     throws IOException
     {
-        int totalRows = 0;
-        long totalFileSize = m_logFile.length();
+        int firstLineNumber = m_lineIndex.getNumLines();
+        int numNewRows = m_lineIndex.update();
+        if (numNewRows <= 0)
+            return;
         
-        m_logFileReader.skip(totalFileSize + 1);
-        totalRows = m_logFileReader.getLineNumber();
+        int insertAt = 1;
+        List<RowImpl> rows = getRowsInternal();
+        for (int i = rows.size(); i > 0; i--) {
+            if (rows.get(i - 1) instanceof LogsRowImpl) {
+                insertAt = i + 1;
+                break;
+            }
+        }
         
-        // Reset Stream and line number;
-        resetLineReader();
+        setRowsCapacity(calcRowsCapacity(getNumRows() + numNewRows));
+        if (m_unprocessedRows == null)
+            m_unprocessedRows = new WeakHashSet<LogsRowImpl>(numNewRows);
         
-        return totalRows ;
+        for (int i = 0; i < numNewRows; i++) {
+            LogsRowImpl row = new LogsRowImpl(this, firstLineNumber + i);
+            m_unprocessedRows.add(row);
+            add(row, false, false, Access.ByIndex, insertAt + i);
+        }
+        
+        m_numLogsRows += numNewRows;
+        recalculate();
     }
 
     private void releaseResources()
     {
-    	if (m_logFileReader != null) {
-    		try {
-				m_logFileReader.close();
-			} catch (IOException e) { /* noop */ }
-    		m_logFileReader = null;
-    	}
-    	
-    	if (m_logFileInputStream != null) {
-    		try {
-    			m_logFileInputStream.close();
-			} catch (IOException e) { /* noop */ }
-    		m_logFileInputStream = null;
-    	}
-
-        m_nextLineNumber = 0;
+        // the line index is retained, so the file can be remapped on demand
+    	if (m_lineIndex != null) 
+    	    m_lineIndex.close();
     }
     
     @Override
@@ -287,28 +312,30 @@ public class LogsTableImpl extends TableImpl implements ExternalDependenceTableE
 	synchronized String getLogFileLine(LogsRowImpl row) 
 	throws IOException 
 	{
-		int desiredLineNumber = row.getLineNumber();
-		
-		if (desiredLineNumber < m_nextLineNumber) 
-	        resetLineReader();			
-		
-		String logFileLine;
-		do {
-			logFileLine = m_logFileReader.readLine();
-			m_nextLineNumber = m_logFileReader.getLineNumber();
-		} while (m_nextLineNumber <= desiredLineNumber);
-		
-		return logFileLine;
+		return m_lineIndex != null ? m_lineIndex.getLine(row.getLineNumber()) : null;
 	}
 
-	private void resetLineReader() 
+	/**
+	 * Returns the parsed field values of the log file line associated with the row; 
+	 * recently parsed lines are cached
+	 * @param row the log file row
+	 * @return the field values, or null if the line doesn't exist
+	 * @throws IOException if the log file can't be read
+	 */
+	synchronized Object [] getLogFileFieldValues(LogsRowImpl row) 
 	throws IOException 
 	{
-		m_logFileInputStream.getChannel().position(0);
-		m_logFileReader.setLineNumber(0);
+		int lineNumber = row.getLineNumber();
+		Object [] lfvs = m_fieldValuesCache.get(lineNumber);
+		if (lfvs == null) {
+			String lfl = getLogFileLine(row);
+			if (lfl != null) {
+				lfvs = m_logFileFormat.getFieldValues(lfl);
+				if (lfvs != null)
+					m_fieldValuesCache.put(lineNumber, lfvs);
+			}
+		}
 		
-		BufferedReader fr = new BufferedReader(new InputStreamReader(m_logFileInputStream));
-		m_logFileReader = new LineNumberReader(fr);
-		m_nextLineNumber = 0;
+		return lfvs;
 	}
 }
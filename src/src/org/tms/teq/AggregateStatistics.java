@@ -0,0 +1,259 @@
+package org.tms.teq;
+
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToLongFunction;
+
+import org.tms.api.Cell;
+import org.tms.api.Column;
+import org.tms.api.Row;
+import org.tms.api.TableElement;
+
+/**
+ * Maintains aggregate statistics (count, sums, mean, variance, extremes) for table rows and
+ * columns across recalculations. Once computed by a full scan of an element's cells, the aggregate
+ * state is updated by delta as individual cell values change, removing the old value and adding
+ * the new, so that derivations referencing statistics of large rows or columns, such as
+ * {@code mean(col 1)}, don't rescan the element each time one of its cells is modified.
+ * <p>
+ * Aggregate state is discarded, and rebuilt by the next full scan, whenever it can't be updated
+ * by delta: the element's version changes (rows or columns are added, deleted, or sorted, or
+ * values are written to a column's store), a derivation referencing the element is set or cleared,
+ * a cell-level derivation or pending value is set, or an extreme value is removed (for minimums, maximums and ranges). To bound accumulated rounding error, state is
+ * also rebuilt after a number of updates proportional to the number of values.
+ * Order statistics (median, quartiles, mode, etc.) are always computed by a full scan.
+ */
+public final class AggregateStatistics
+{
+    private static final int sf_MIN_UPDATES_BEFORE_REBUILD = 64;
+
+    private static final Set<BuiltinOperator> sf_DELTA_STATISTICS = EnumSet.of(
+            BuiltinOperator.CountOper, BuiltinOperator.SumOper, BuiltinOperator.Sum2Oper, BuiltinOperator.SumSqD2Oper,
+            BuiltinOperator.MeanOper, BuiltinOperator.StDevPopulationOper, BuiltinOperator.StDevSampleOper,
+            BuiltinOperator.VarPopulationOper, BuiltinOperator.VarSampleOper,
+            BuiltinOperator.MinOper, BuiltinOperator.MaxOper, BuiltinOperator.RangeOper);
+
+    private static final Set<BuiltinOperator> sf_EXTREME_STATISTICS = EnumSet.of(
+            BuiltinOperator.MinOper, BuiltinOperator.MaxOper, BuiltinOperator.RangeOper);
+
+    /**
+     * Returns {@code true} if the statistic can be calculated from delta-maintained aggregate state
+     * @param stat the statistic
+     * @return true if the statistic is supported
+     */
+    static boolean isDeltaStatistic(BuiltinOperator stat)
+    {
+        return stat != null && sf_DELTA_STATISTICS.contains(stat);
+    }
+
+    private final ToLongFunction<TableElement> m_versioner;
+    private final Map<TableElement, RunningMoments> m_states;
+    private final LongAdder m_modCount;
+
+    /**
+     * Create aggregate statistics for a table
+     * @param versioner returns the structural version of a table element, which must change whenever
+     * values are added to or removed from the element other than through its cells,
+     * or -1 if aggregate state for the element should not be maintained
+     */
+    public AggregateStatistics(ToLongFunction<TableElement> versioner)
+    {
+        m_versioner = versioner;
+        m_states = new ConcurrentHashMap<TableElement, RunningMoments>();
+        m_modCount = new LongAdder();
+    }
+
+    /**
+     * Returns a count of the cell value modifications processed; used to detect modifications
+     * made while an element's cells were being scanned
+     */
+    long getModCount()
+    {
+        return m_modCount.sum();
+    }
+
+    public int getNumCachedElements()
+    {
+        return m_states.size();
+    }
+
+    /**
+     * Returns a {@link SingleVariableStatEngine} initialized from the aggregate state of the
+     * element, or null if no valid state exists
+     * @param ref the row or column
+     * @param stat the statistic to calculate
+     * @return an initialized stat engine, or null
+     */
+    SingleVariableStatEngine getStatEngine(TableElement ref, BuiltinOperator stat)
+    {
+        if (!isDeltaStatistic(stat))
+            return null;
+
+        RunningMoments rm = m_states.get(ref);
+        if (rm == null)
+            return null;
+
+        synchronized(rm) {
+            if (rm.m_version != m_versioner.applyAsLong(ref)) {
+                m_states.remove(ref, rm);
+                return null;
+            }
+
+            if (!rm.m_extremesValid && sf_EXTREME_STATISTICS.contains(stat))
+                return null;
+
+            return new SingleVariableStatEngine(rm.m_n, rm.m_sumX, rm.m_sumX2, rm.m_min, rm.m_max);
+        }
+    }
+
+    /**
+     * Record the aggregate state computed by a full scan of the element's cells; the state is
+     * only retained if no cells were excluded, and no cell values changed during the scan
+     * @param ref the row or column
+     * @param svse the stat engine populated by the scan
+     * @param modCount the modification count when the scan began
+     */
+    void cache(TableElement ref, SingleVariableStatEngine svse, long modCount)
+    {
+        if (!(ref instanceof Row || ref instanceof Column) || svse.isAnyExcluded() || modCount != getModCount())
+            return;
+
+        long version = m_versioner.applyAsLong(ref);
+        if (version < 0)
+            return;
+
+        m_states.put(ref, new RunningMoments(svse, version));
+    }
+
+    /**
+     * Discards the aggregate state of the element; called when a derivation referencing the element
+     * is set or cleared, as that changes which of the element's cells are excluded from its aggregates
+     * @param te the row or column
+     */
+    public void remove(TableElement te)
+    {
+        if (te != null)
+            m_states.remove(te);
+    }
+
+    /**
+     * Apply the change in a cell's value to the aggregate state of the cell's row and column
+     * @param cell the modified cell
+     * @param oldValue the previous cell value
+     * @param newValue the new cell value
+     */
+    public void update(Cell cell, Object oldValue, Object newValue)
+    {
+        m_modCount.increment();
+        if (m_states.isEmpty() || cell == null)
+            return;
+
+        // derived cells may be excluded from aggregates that they reference
+        boolean invalidate = cell.isDerived() || cell.isPendings();
+        update(cell.getRow(), oldValue, newValue, invalidate);
+        update(cell.getColumn(), oldValue, newValue, invalidate);
+    }
+
+    private void update(TableElement te, Object oldValue, Object newValue, boolean invalidate)
+    {
+        RunningMoments rm = te != null ? m_states.get(te) : null;
+        if (rm == null)
+            return;
+
+        synchronized(rm) {
+            if (invalidate || !rm.update(oldValue, newValue))
+                m_states.remove(te, rm);
+        }
+    }
+
+    /**
+     * Removes all aggregate state
+     */
+    public void clear()
+    {
+        m_states.clear();
+    }
+
+    /**
+     * Delta-updatable aggregate state of a single row or column
+     */
+    private static class RunningMoments
+    {
+        private int m_n;
+        private double m_sumX;
+        private double m_sumX2;
+        private double m_min;
+        private double m_max;
+        private boolean m_extremesValid;
+        private int m_numUpdates;
+        private final long m_version;
+
+        RunningMoments(SingleVariableStatEngine svse, long version)
+        {
+            m_n = svse.getN();
+            m_sumX = svse.getSumX();
+            m_sumX2 = svse.getSumX2();
+            m_min = svse.getMin();
+            m_max = svse.getMax();
+            m_extremesValid = true;
+            m_version = version;
+        }
+
+        /**
+         * Replace the old value with the new one, returning false if the state can no longer be maintained
+         */
+        boolean update(Object oldValue, Object newValue)
+        {
+            if (++m_numUpdates > Math.max(sf_MIN_UPDATES_BEFORE_REBUILD, m_n))
+                return false;
+
+            double oldX = asValue(oldValue);
+            double newX = asValue(newValue);
+            if (Double.isNaN(oldX) || Double.isNaN(newX) || Double.isInfinite(oldX) || Double.isInfinite(newX))
+                return false;
+
+            if (oldX != Double.MIN_VALUE) {
+                m_n--;
+                if (m_n == 0) {
+                    m_sumX = m_sumX2 = 0;
+                    m_min = Double.POSITIVE_INFINITY;
+                    m_max = Double.NEGATIVE_INFINITY;
+                    m_extremesValid = true;
+                }
+                else {
+                    m_sumX -= oldX;
+                    m_sumX2 -= oldX * oldX;
+                    if (oldX <= m_min || oldX >= m_max)
+                        m_extremesValid = false;
+                }
+            }
+
+            if (newX != Double.MIN_VALUE) {
+                m_n++;
+                m_sumX += newX;
+                m_sumX2 += newX * newX;
+                if (newX > m_max)
+                    m_max = newX;
+                if (newX < m_min)
+                    m_min = newX;
+            }
+
+            return true;
+        }
+
+        /**
+         * Returns the value as entered into a {@link SingleVariableStatEngine};
+         * non-numeric values, which aren't entered, are returned as {@code Double.MIN_VALUE}
+         */
+        private static double asValue(Object value)
+        {
+            if (value instanceof Number)
+                return ((Number)value).doubleValue();
+            else
+                return Double.MIN_VALUE;
+        }
+    }
+}
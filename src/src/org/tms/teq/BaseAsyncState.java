@@ -81,11 +81,23 @@ public abstract class BaseAsyncState
     
     protected Token reevaluate(DerivationContext dc) 
     throws PendingDerivationException, BlockedDerivationException
+    {
+        return reevaluate(dc, true);
+    }
+    
+    /**
+     * Reevaluate the pending derivation and set the pending cell
+     * @param dc the derivation context
+     * @param doUnblock false if the caller will unblock the derivations blocked on the pending cell
+     */
+    protected Token reevaluate(DerivationContext dc, boolean doUnblock) 
+    throws PendingDerivationException, BlockedDerivationException
     {
         // if the target cell is no longer pending, just return, don't override value
         Cell cell = getPendingCell();
         if (cell == null || !cell.isPendings()) {
-            unblockDerivations();
+            if (doUnblock)
+                unblockDerivations();
             return Token.createNullToken();
         }
             
@@ -124,7 +136,7 @@ public abstract class BaseAsyncState
             }
             
             //unblock the cells that were blocked on this pending
-            if (doUnblockDerivations)
+            if (doUnblockDerivations && doUnblock)
                 unblockDerivations();
     
             // return the new token
@@ -0,0 +1,300 @@
+package org.tms.teq;
+
+import java.math.BigDecimal;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.DoubleUnaryOperator;
+
+import org.tms.api.Cell;
+import org.tms.api.Column;
+import org.tms.api.Row;
+import org.tms.api.Table;
+import org.tms.api.TableElement;
+import org.tms.api.derivables.Operator;
+import org.tms.api.derivables.Token;
+import org.tms.api.derivables.TokenType;
+import org.tms.tds.TokenMapper;
+
+/**
+ * A numeric derivation, compiled from its postfix stack into a tree of primitive {@code double}
+ * expressions. Evaluating a compiled derivation allocates nothing, and avoids the token
+ * dispatching performed by the {@link PostfixStackEvaluator}.
+ * <p>
+ * Only derivations consisting of numeric constants, row, column, and cell references,
+ * the row and column index built-ins, the basic arithmetic operators, and the built-in
+ * {@code double}-valued math functions can be compiled. Evaluation is abandoned, and
+ * {@code NaN} returned, whenever the result could differ from that produced by the
+ * interpreter; for example, when a referenced cell is null, pending, or non-numeric,
+ * on division by zero, or if user-defined overloads of the arithmetic operators exist.
+ * The caller is then expected to evaluate the derivation with the interpreter.
+ */
+final class CompiledDerivation
+{
+    /**
+     * Signals that a compiled evaluation must be abandoned in favor of the interpreter
+     */
+    @SuppressWarnings("serial")
+    private static final class InterpretException extends RuntimeException
+    {
+        private InterpretException()
+        {
+            super(null, null, false, false);
+        }
+    }
+
+    private static final InterpretException sf_INTERPRET = new InterpretException();
+
+    @FunctionalInterface
+    private interface Node
+    {
+        double eval(Row row, Column col);
+    }
+
+    /**
+     * Compile the derivation, returning null if it contains tokens that aren't supported
+     * @param deriv the derivation to compile
+     * @return the compiled derivation, or null
+     */
+    static CompiledDerivation compile(DerivationImpl deriv)
+    {
+        if (deriv == null || !deriv.isConverted() || deriv.getPostfixStackInternal() == null)
+            return null;
+
+        Table tbl = deriv.getTable();
+        Token [] pfs = deriv.getPostfixStackInternal().toArray(new Token [] {});
+
+        // postfix stacks are evaluated from tail to head
+        Deque<Node> nodes = new ArrayDeque<Node>();
+        for (int i = pfs.length - 1; i >= 0; i--) {
+            Node node = compile(pfs[i], tbl, nodes);
+            if (node == null)
+                return null;
+
+            nodes.push(node);
+        }
+
+        if (nodes.size() != 1)
+            return null;
+
+        return new CompiledDerivation(nodes.pop(), deriv.getPostfixStackInternal().getTokenMapper());
+    }
+
+    private static Node compile(Token t, Table tbl, Deque<Node> nodes)
+    {
+        TokenType tt = t.getTokenType();
+        Operator oper = t.getOperator();
+        if (tt == null)
+            return null;
+
+        switch (tt) {
+            case Operand:
+                if (!isInterpretedAsDouble(t.getValue()))
+                    return null;
+
+                double constant = ((Number)t.getValue()).doubleValue();
+                return (r, c) -> constant;
+
+            case ColumnRef:
+            case RowRef:
+            case CellRef:
+                return compileReference(t.getReferenceValue(), tbl);
+
+            case BuiltIn:
+                return compileBuiltIn(oper);
+
+            case UnaryFunc:
+                DoubleUnaryOperator uFunc = unaryFunction(oper);
+                if (uFunc == null || nodes.isEmpty())
+                    return null;
+
+                Node x = nodes.pop();
+                return (r, c) -> checked(uFunc.applyAsDouble(x.eval(r, c)));
+
+            case BinaryOp:
+                DoubleBinaryOperator bFunc = binaryOperator(oper);
+                if (bFunc == null || nodes.size() < 2)
+                    return null;
+
+                Node rhs = nodes.pop();
+                Node lhs = nodes.pop();
+                return (r, c) -> checked(bFunc.applyAsDouble(lhs.eval(r, c), rhs.eval(r, c)));
+
+            default:
+                return null;
+        }
+    }
+
+    private static Node compileReference(TableElement ref, Table tbl)
+    {
+        if (ref == null || tbl == null || ref.getTable() != tbl)
+            return null;
+
+        if (ref instanceof Column) {
+            Column refCol = (Column)ref;
+            return (r, c) -> r != null ? asDouble(tbl.getCellValue(r, refCol)) : interpret();
+        }
+        else if (ref instanceof Row) {
+            Row refRow = (Row)ref;
+            return (r, c) -> c != null ? asDouble(tbl.getCellValue(refRow, c)) : interpret();
+        }
+        else if (ref instanceof Cell) {
+            Cell refCell = (Cell)ref;
+            return (r, c) -> asDouble(refCell.getCellValue());
+        }
+
+        return null;
+    }
+
+    private static Node compileBuiltIn(Operator oper)
+    {
+        if (oper == BuiltinOperator.RowIndexOper)
+            return (r, c) -> r != null ? r.getIndex() : interpret();
+        else if (oper == BuiltinOperator.ColumnIndexOper)
+            return (r, c) -> c != null ? c.getIndex() : interpret();
+        else if (oper == BuiltinOperator.PiOper || oper == BuiltinOperator.EOper) {
+            Token t = oper.evaluate();
+            if (t == null || !isInterpretedAsDouble(t.getValue()))
+                return null;
+
+            double constant = ((Number)t.getValue()).doubleValue();
+            return (r, c) -> constant;
+        }
+
+        return null;
+    }
+
+    private static DoubleBinaryOperator binaryOperator(Operator oper)
+    {
+        if (!(oper instanceof BuiltinOperator))
+            return null;
+
+        switch ((BuiltinOperator)oper) {
+            case PlusOper:
+                return (x, y) -> x + y;
+
+            case MinusOper:
+                return (x, y) -> x - y;
+
+            case MultOper:
+                return (x, y) -> x * y;
+
+            case DivOper:
+                return (x, y) -> y != 0.0 ? x / y : interpret();
+
+            case PowerOper:
+                return Math::pow;
+
+            default:
+                return null;
+        }
+    }
+
+    private static DoubleUnaryOperator unaryFunction(Operator oper)
+    {
+        if (!(oper instanceof BuiltinOperator))
+            return null;
+
+        switch ((BuiltinOperator)oper) {
+            case NegOper: return x -> -x;
+            case AbsOper: return Math::abs;
+            case SqrtOper: return Math::sqrt;
+            case CbrtOper: return Math::cbrt;
+            case ExpOper: return Math::exp;
+            case LogOper: return Math::log;
+            case Log10Oper: return Math::log10;
+            case toDegreesOper: return Math::toDegrees;
+            case toRadiansOper: return Math::toRadians;
+            case SinOper: return Math::sin;
+            case CosOper: return Math::cos;
+            case TanOper: return Math::tan;
+            case ASinOper: return Math::asin;
+            case ACosOper: return Math::acos;
+            case ATanOper: return Math::atan;
+            case SinHOper: return Math::sinh;
+            case CosHOper: return Math::cosh;
+            case TanHOper: return Math::tanh;
+            case FloorOper: return Math::floor;
+            case CeilOper: return Math::ceil;
+            case SignOper: return Math::signum;
+            default: return null;
+        }
+    }
+
+    /**
+     * Returns {@code true} if the interpreter would treat the value as a {@code double} operand
+     */
+    private static boolean isInterpretedAsDouble(Object value)
+    {
+        return value instanceof Double || value instanceof Integer || value instanceof Long ||
+               value instanceof Float || value instanceof Short || value instanceof BigDecimal;
+    }
+
+    /**
+     * Returns the value as a double, abandoning the evaluation unless the value is a number
+     * the interpreter would treat the same way
+     */
+    private static double asDouble(Object value)
+    {
+        if (isInterpretedAsDouble(value))
+            return checked(((Number)value).doubleValue());
+
+        return interpret();
+    }
+
+    /**
+     * The interpreter converts NaN to an error, and {@code Double.MIN_VALUE} to null,
+     * so evaluations producing either are left to it
+     */
+    private static double checked(double value)
+    {
+        if (Double.isNaN(value) || value == Double.MIN_VALUE)
+            return interpret();
+
+        return value;
+    }
+
+    private static double interpret()
+    {
+        throw sf_INTERPRET;
+    }
+
+    private final Node m_root;
+    private final TokenMapper m_tokenMapper;
+
+    private CompiledDerivation(Node root, TokenMapper tm)
+    {
+        m_root = root;
+        m_tokenMapper = tm;
+    }
+
+    /**
+     * Returns {@code true} if the compiled derivation can be evaluated; user-defined
+     * overloads of the arithmetic operators are only supported by the interpreter
+     * @return true if the compiled derivation can be evaluated
+     */
+    boolean isEvaluable()
+    {
+        return m_tokenMapper == null || !m_tokenMapper.isOverloaded();
+    }
+
+    /**
+     * Evaluate the derivation for the specified row and column; as the interpreter maps 
+     * {@code NaN} results to errors, {@code NaN} also signals that the derivation must be interpreted
+     * @param row the current row
+     * @param col the current column
+     * @return the result, or {@code Double.NaN} if the derivation must be interpreted
+     */
+    double evaluate(Row row, Column col)
+    {
+        if (!isEvaluable())
+            return Double.NaN;
+
+        try {
+            return m_root.eval(row, col);
+        }
+        catch (InterpretException e) {
+            return Double.NaN;
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package org.tms.teq;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.math3.stat.descriptive.StorelessUnivariateStatistic;
+import org.apache.commons.math3.stat.descriptive.moment.Kurtosis;
+import org.apache.commons.math3.stat.descriptive.moment.Skewness;
+import org.tms.api.exceptions.UnimplementedException;
+
+/**
+ * Computes cumulative statistics over an ordered data series with a single prefix scan.
+ * The statistic at each position is calculated over the values from the start of the series
+ * through that position; sums, moments, extremes, and modes are updated incrementally, and
+ * medians and quartiles are maintained with an {@link OrderStatisticTree}, so the entire
+ * cumulative series costs O(n) or O(n log n), rather than O(n<sup>2</sup>).
+ * <p>
+ * Values are accumulated in the same order, and with the same formulae, as a
+ * {@link SingleVariableStatEngine} populated with each prefix of the series.
+ */
+class CumulativeStatEngine
+{
+    private double [] m_values;
+    private int m_n;
+
+    CumulativeStatEngine(List<Double> values)
+    {
+        m_n = values.size();
+        m_values = new double[m_n];
+        for (int i = 0; i < m_n; i++)
+            m_values[i] = values.get(i);
+    }
+
+    /**
+     * Calculate the cumulative statistic for every position in the data series.
+     * @param baseStat the statistic to calculate over each prefix, e.g., {@code SumOper}
+     * @return the cumulative statistic series
+     */
+    double [] calcCumulativeStatistic(BuiltinOperator baseStat)
+    {
+        double [] series = new double[m_n];
+        switch (baseStat) {
+            case SumOper:
+            case Sum2Oper:
+            case SumSqD2Oper:
+            case MeanOper:
+            case StDevPopulationOper:
+            case StDevSampleOper:
+            case VarPopulationOper:
+            case VarSampleOper:
+            case MinOper:
+            case MaxOper:
+            case RangeOper:
+                calcCumulativeMoments(baseStat, series);
+                break;
+
+            case MedianOper:
+            case FirstQuartileOper:
+            case ThirdQuartileOper:
+                OrderStatisticTree ost = new OrderStatisticTree(m_values);
+                for (int i = 0; i < m_n; i++) {
+                    ost.add(m_values[i]);
+                    series[i] = ost.calcStatistic(baseStat, i + 1);
+                }
+                break;
+
+            case ModeOper:
+                calcCumulativeMode(series);
+                break;
+
+            case SkewOper:
+                calcCumulativeStatistic(new Skewness(), series);
+                break;
+
+            case KurtosisOper:
+                calcCumulativeStatistic(new Kurtosis(), series);
+                break;
+
+            default:
+                throw new UnimplementedException("Unsupported cumulative statistic: " + baseStat);
+        }
+
+        return series;
+    }
+
+    private void calcCumulativeMoments(BuiltinOperator stat, double [] series)
+    {
+        double sumX = 0;
+        double sumX2 = 0;
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < m_n; i++) {
+            double x = m_values[i];
+            sumX += x;
+            sumX2 += x*x;
+            if (x > max)
+                max = x;
+            if (x < min)
+                min = x;
+
+            int n = i + 1;
+            double mean = sumX / n;
+            double stDev;
+            switch (stat) {
+                case SumOper:
+                    series[i] = sumX;
+                    break;
+
+                case Sum2Oper:
+                    series[i] = sumX2;
+                    break;
+
+                case SumSqD2Oper:
+                    series[i] = sumX2 - sumX*sumX/n;
+                    break;
+
+                case MeanOper:
+                    series[i] = mean;
+                    break;
+
+                case StDevPopulationOper:
+                    series[i] = Math.sqrt((sumX2 - n * mean * mean)/n);
+                    break;
+
+                case VarPopulationOper:
+                    stDev = Math.sqrt((sumX2 - n * mean * mean)/n);
+                    series[i] = stDev * stDev;
+                    break;
+
+                case StDevSampleOper:
+                    series[i] = n == 1 ? Double.NaN : Math.sqrt((sumX2 - n * mean * mean)/(n-1));
+                    break;
+
+                case VarSampleOper:
+                    stDev = n == 1 ? Double.NaN : Math.sqrt((sumX2 - n * mean * mean)/(n-1));
+                    series[i] = stDev * stDev;
+                    break;
+
+                case MinOper:
+                    series[i] = min;
+                    break;
+
+                case MaxOper:
+                    series[i] = max;
+                    break;
+
+                default:
+                    series[i] = Math.abs(max - min);
+                    break;
+            }
+        }
+    }
+
+    /**
+     * The mode is the mean of the most frequent values; the number, and sum, of the
+     * distinct values occurring with each frequency are maintained as values are added
+     */
+    private void calcCumulativeMode(double [] series)
+    {
+        Map<Double, Integer> frequencies = new HashMap<Double, Integer>();
+        int [] numAtFrequency = new int[m_n + 2];
+        double [] sumAtFrequency = new double[m_n + 2];
+        int maxFrequency = 0;
+
+        for (int i = 0; i < m_n; i++) {
+            double x = m_values[i];
+            int freq = frequencies.merge(x, 1, Integer::sum);
+            if (freq > 1) {
+                numAtFrequency[freq - 1]--;
+                sumAtFrequency[freq - 1] -= x;
+            }
+
+            numAtFrequency[freq]++;
+            sumAtFrequency[freq] += x;
+            if (freq > maxFrequency)
+                maxFrequency = freq;
+
+            if (i == 0 || numAtFrequency[maxFrequency] == 1)
+                series[i] = maxFrequency == freq ? x : series[i - 1];
+            else
+                series[i] = sumAtFrequency[maxFrequency] / numAtFrequency[maxFrequency];
+        }
+    }
+
+    private void calcCumulativeStatistic(StorelessUnivariateStatistic stat, double [] series)
+    {
+        for (int i = 0; i < m_n; i++) {
+            stat.increment(m_values[i]);
+            series[i] = stat.getResult();
+        }
+    }
+}
@@ -0,0 +1,316 @@
+package org.tms.teq;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.tms.api.Table;
+import org.tms.api.TableElement;
+import org.tms.api.derivables.Derivable;
+import org.tms.tds.TableImpl;
+
+/**
+ * The dependency graph of a table, formed by the {@code affects}/{@code affectedBy} edges between 
+ * the table's elements and the derivations that reference them, along with the recalculation plans
+ * computed from it. A plan lists, in dependency order, the {@link Derivable}s that must be recalculated 
+ * when a given table element is modified; plans are computed once and reused until the graph changes.
+ * <p>
+ * Each table's graph is versioned; the version advances when an edge to or from one of the table's 
+ * elements is added or removed, or when a derivation is set on or cleared from one of its elements.
+ * A plan records the version of every table's graph it was computed from, as derivations can reference 
+ * elements in other tables, and is discarded when any of them advance; changes to tables a plan 
+ * doesn't reach leave it intact.
+ * <p>
+ * Plans are computed without recursion, so long derivation chains cannot exhaust the stack.
+ */
+public final class DependencyGraph
+{
+    /**
+     * Advances the version of the dependency graph of the element's table, invalidating the 
+     * recalculation plans computed from it. Called whenever an edge to or from the element is 
+     * added or removed, or its derivation is set or cleared.
+     * @param te the table element whose dependencies changed
+     */
+    public static void invalidate(TableElement te)
+    {
+        DependencyGraph graph = graphOf(te);
+        if (graph != null)
+            graph.invalidate();
+    }
+
+    private static DependencyGraph graphOf(TableElement te)
+    {
+        Table t = te != null ? te.getTable() : null;
+        return t instanceof TableImpl ? ((TableImpl)t).getDependencyGraph() : null;
+    }
+
+    private final AtomicLong m_version;
+    private final Map<TableElement, Plan> m_plans;
+    private long m_plansVersion;
+
+    public DependencyGraph()
+    {
+        m_version = new AtomicLong();
+        m_plans = new HashMap<TableElement, Plan>();
+    }
+
+    /**
+     * Advances the graph version, invalidating the plans computed from this graph
+     */
+    public void invalidate()
+    {
+        m_version.incrementAndGet();
+    }
+
+    public long getVersion()
+    {
+        return m_version.get();
+    }
+
+    /**
+     * Returns the {@link Derivable}s affected by modifications to the specified element, ordered
+     * with independent elements listed before dependent elements. The returned list is unmodifiable
+     * and may be shared.
+     * @param modifiedElement the modified table element
+     * @return the ordered list of affected {@code Derivable}s, never null
+     */
+    synchronized List<Derivable> getRecalculationPlan(TableElement modifiedElement)
+    {
+        // every plan cached here reaches this graph, so none survive a change to it
+        long version = getVersion();
+        if (version != m_plansVersion) {
+            m_plans.clear();
+            m_plansVersion = version;
+        }
+
+        Plan plan = m_plans.get(modifiedElement);
+        if (plan != null && plan.isCurrent())
+            return plan.m_derivables;
+
+        plan = new Plan();
+        List<Derivable> derivables = calculateRecalculationPlan(modifiedElement, plan);
+        if (derivables.isEmpty())
+            m_plans.remove(modifiedElement);
+        else {
+            plan.m_derivables = derivables;
+            m_plans.put(modifiedElement, plan);
+        }
+
+        return derivables;
+    }
+
+    /**
+     * Removes all cached plans
+     */
+    public synchronized void clear()
+    {
+        m_plans.clear();
+    }
+
+    public synchronized int getNumCachedPlans()
+    {
+        if (getVersion() != m_plansVersion)
+            return 0;
+
+        int numCurrent = 0;
+        for (Plan plan : m_plans.values()) {
+            if (plan.isCurrent())
+                numCurrent++;
+        }
+
+        return numCurrent;
+    }
+
+    static List<Derivable> calculateRecalculationPlan(TableElement modifiedElement)
+    {
+        return calculateRecalculationPlan(modifiedElement, null);
+    }
+
+    private static List<Derivable> calculateRecalculationPlan(TableElement modifiedElement, Plan plan)
+    {
+        assert modifiedElement != null : "TableElement required";
+
+        if (plan != null)
+            plan.reached(modifiedElement);
+
+        List<Derivable> affected = modifiedElement.getAffects();
+        if (affected == null || affected.isEmpty())
+            return Collections.emptyList();
+
+        Set<Derivable> globalAffected = harvestAffects(affected, plan);
+        Derivable med = modifiedElement instanceof Derivable ? (Derivable)modifiedElement : null;
+        Set<Derivable> resolved = resolveDependencies(globalAffected, med, plan);
+
+        // remove specified element from set, as it has already been changed
+        resolved.remove(modifiedElement);
+
+        return Collections.unmodifiableList(new ArrayList<Derivable>(resolved));
+    }
+
+    /**
+     * Calculates a single recalculation plan covering modifications to all of the specified
+     * elements, such as the rows, columns, and cells changed by a bulk update. Each affected
+     * {@link Derivable} appears in the plan once, in dependency order.
+     * @param modifiedElements the modified table elements
+     * @return the ordered list of affected {@code Derivable}s, never null
+     */
+    public static List<Derivable> calculateRecalculationPlan(Collection<? extends TableElement> modifiedElements)
+    {
+        assert modifiedElements != null : "TableElements required";
+
+        List<Derivable> affected = new ArrayList<Derivable>();
+        for (TableElement te : modifiedElements) {
+            List<Derivable> teAffects = te != null ? te.getAffects() : null;
+            if (teAffects != null)
+                affected.addAll(teAffects);
+        }
+
+        if (affected.isEmpty())
+            return Collections.emptyList();
+
+        Set<Derivable> resolved = resolveDependencies(harvestAffects(affected, null), null, null);
+
+        // remove the specified elements from the set, as they have already been changed
+        for (TableElement te : modifiedElements)
+            resolved.remove(te);
+
+        return Collections.unmodifiableList(new ArrayList<Derivable>(resolved));
+    }
+
+    /**
+     * Harvests all of the elements affected, directly or indirectly, by the specified elements
+     */
+    private static Set<Derivable> harvestAffects(List<Derivable> affected, Plan plan)
+    {
+        Set<Derivable> globalAffected = new LinkedHashSet<Derivable>(affected.size());
+        Deque<Derivable> pending = new ArrayDeque<Derivable>(affected);
+        while (!pending.isEmpty()) {
+            Derivable d = pending.pop();
+            if (d == null || !globalAffected.add(d))
+                continue;
+
+            if (plan != null)
+                plan.reached(d);
+
+            List<Derivable> dAffects = d.getAffects();
+            if (dAffects != null)
+                dAffects.forEach(da -> { if (!globalAffected.contains(da)) pending.push(da); });
+        }
+
+        return globalAffected;
+    }
+
+    /**
+     * Orders the specified {@link Derivable}s, along with the derived elements they
+     * depend on, such that each element follows the elements it depends on.
+     * @param derived the elements to order
+     * @param omit an element to exclude from the traversal, or null
+     * @return the ordered set of elements
+     */
+    static Set<Derivable> resolveDependencies(Collection<Derivable> derived, Derivable omit)
+    {
+        return resolveDependencies(derived, omit, null);
+    }
+
+    private static Set<Derivable> resolveDependencies(Collection<Derivable> derived, Derivable omit, Plan plan)
+    {
+        int numAffected = derived.size();
+        Set<Derivable> resolved = new LinkedHashSet<Derivable>(numAffected);
+        Set<Derivable> visiting = new HashSet<Derivable>(numAffected);
+
+        // iterative, depth-first, post-order traversal of the affectedBy edges
+        Deque<Derivable> path = new ArrayDeque<Derivable>();
+        Deque<Iterator<TableElement>> edges = new ArrayDeque<Iterator<TableElement>>();
+        for (Derivable root : derived) {
+            if (root == null || resolved.contains(root))
+                continue;
+
+            path.push(root);
+            edges.push(affectedBy(root));
+            visiting.add(root);
+
+            while (!path.isEmpty()) {
+                Iterator<TableElement> iter = edges.peek();
+                Derivable next = null;
+                while (next == null && iter.hasNext()) {
+                    TableElement te = iter.next();
+                    if (!(te instanceof Derivable)) continue;
+
+                    Derivable ted = (Derivable)te;
+                    if (plan != null)
+                        plan.reached(ted);
+
+                    if (!ted.isDerived()) continue;
+                    if (ted == omit) continue;
+
+                    // skip resolved elements and cycles
+                    if (!resolved.contains(ted) && !visiting.contains(ted))
+                        next = ted;
+                }
+
+                if (next != null) {
+                    path.push(next);
+                    edges.push(affectedBy(next));
+                    visiting.add(next);
+                }
+                else {
+                    Derivable d = path.pop();
+                    edges.pop();
+                    visiting.remove(d);
+                    resolved.add(d);
+                }
+            }
+        }
+
+        return resolved;
+    }
+
+    private static Iterator<TableElement> affectedBy(Derivable d)
+    {
+        List<TableElement> affectedBy = d.getAffectedBy();
+        if (affectedBy == null)
+            return Collections.emptyIterator();
+
+        return affectedBy.iterator();
+    }
+
+    /**
+     * A cached recalculation plan, along with the versions of the graphs it was computed from
+     */
+    private static final class Plan
+    {
+        private final Map<DependencyGraph, Long> m_versions = new IdentityHashMap<DependencyGraph, Long>();
+        private List<Derivable> m_derivables;
+
+        /**
+         * Record the version of the element's graph, before the element's edges are read
+         */
+        void reached(TableElement te)
+        {
+            DependencyGraph graph = graphOf(te);
+            if (graph != null && !m_versions.containsKey(graph))
+                m_versions.put(graph, graph.getVersion());
+        }
+
+        boolean isCurrent()
+        {
+            for (Map.Entry<DependencyGraph, Long> e : m_versions.entrySet()) {
+                if (e.getKey().getVersion() != e.getValue())
+                    return false;
+            }
+
+            return true;
+        }
+    }
+}
@@ -2,9 +2,11 @@ package org.tms.teq;
 
 import java.math.BigDecimal;
 import java.math.MathContext;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -17,6 +19,8 @@ import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
@@ -47,6 +51,7 @@ import org.tms.api.exceptions.IllegalTableStateException;
 import org.tms.api.exceptions.ReadOnlyException;
 import org.tms.api.exceptions.UnsupportedImplementationException;
 import org.tms.api.factories.TableContextFactory;
+import org.tms.tds.TableImpl;
 import org.tms.teq.BaseAsyncState.PendingState;
 import org.tms.util.Tuple;
 
@@ -71,6 +76,7 @@ public final class DerivationImpl implements Derivation, TimeSeries, TableElemen
     
     private static final int sf_NUM_THREADS = 1;
     private static final boolean sf_MAY_INTERRUPT_IF_RUNNING = true;
+    private static final int sf_PARALLEL_ROWS_THRESHOLD = 1024;
     
     private static ScheduledExecutorService sf_DerivationScheduler;
     
@@ -96,6 +102,7 @@ public final class DerivationImpl implements Derivation, TimeSeries, TableElemen
         DerivationImpl deriv = new DerivationImpl();
         deriv.m_asEntered = new String(expr);
         deriv.m_target = elem;
+        DependencyGraph.invalidate(elem);
         
         // parse the expression
         Table t = elem.getTable();
@@ -178,9 +185,19 @@ public final class DerivationImpl implements Derivation, TimeSeries, TableElemen
         if (affectedBy == null)
             return false;
         
-        for (TableElement d : affectedBy) {
-            if (target == d || (d instanceof Derivable && checkCircularReference(target, ((Derivable)d).getAffectedBy())))
+        // walk the affectedBy graph iteratively, as derivation chains can be arbitrarily long
+        Set<TableElement> visited = new HashSet<TableElement>();
+        Deque<TableElement> pending = new ArrayDeque<TableElement>(affectedBy);
+        while (!pending.isEmpty()) {
+            TableElement d = pending.pop();
+            if (target == d)
                 return true;
+            
+            if (d instanceof Derivable && visited.add(d)) {
+                List<TableElement> dAffectedBy = ((Derivable)d).getAffectedBy();
+                if (dAffectedBy != null)
+                    pending.addAll(dAffectedBy);
+            }
         }
         
         return false;
@@ -226,21 +243,189 @@ public final class DerivationImpl implements Derivation, TimeSeries, TableElemen
         
         if (parent != null) parent.pushCurrent();
         try {
+            recalculateTargets(orderedDerivables, element, dc);
+            
+            // start background calculation threads, if any
+            dc.processPendings();
+        }
+        finally {
+            if (parent != null) parent.pushCurrent();
+        }
+    }
+
+    /**
+     * Recalculate all derivations affected by changes to the specified elements, in one 
+     * dependency-ordered pass; derivations affected by more than one element are recalculated once.
+     * The elements must all belong to the same table.
+     * @param elements the modified table elements
+     */
+    public static void recalculateAffected(Collection<? extends TableElement> elements)
+    {
+        if (elements == null || elements.isEmpty())
+            return;
+        
+        Table parent = null;
+        List<TableElement> modified = new ArrayList<TableElement>(elements.size());
+        for (TableElement te : elements) {
+            if (te == null || te.isInvalid())
+                continue;
+            
+            modified.add(te);
+            if (parent == null)
+                parent = te.getTable();
+        }
+        
+        List<Derivable> orderedDerivables = DependencyGraph.calculateRecalculationPlan(modified);
+        if (orderedDerivables.isEmpty())
+            return;
+        
+        DerivationContext dc = new DerivationContext();
+        dc.setRecalculateAffected(false);
+        
+        if (parent != null) parent.pushCurrent();
+        try {
+            // no single element was modified, so derived slices are recalculated in their entirety
+            recalculateTargets(orderedDerivables, null, dc);
+            
+            // start background calculation threads, if any
+            dc.processPendings();
+        }
+        finally {
+            if (parent != null) parent.popCurrent();
+        }
+    }
+
+    /**
+     * Recalculate the derivations in the specified list, which must be in dependency order.
+     * If parallel recalculation is enabled, derived columns that don't depend on each other 
+     * are recalculated concurrently.
+     * @param orderedDerivables the derivables to recalculate, in dependency order
+     * @param modifiedElement the modified element, or null
+     * @param dc the derivation context
+     */
+    private static void recalculateTargets(List<Derivable> orderedDerivables, TableElement modifiedElement, DerivationContext dc)
+    {
+        Derivable first = orderedDerivables.get(0);
+        if (orderedDerivables.size() < 2 || dc.isRecalculateAffected() || !isParallelRecalculation(first.getTable())) {
             for (Derivable derivable : orderedDerivables) {
                 if (derivable == null) continue;
                 
                 Derivation d = derivable.getDerivation();
-                ((DerivationImpl)d).recalculateTarget(element, dc);
+                ((DerivationImpl)d).recalculateTarget(modifiedElement, dc);
             }
             
-            // start background calculation threads, if any
-            dc.processPendings();
+            return;
+        }
+        
+        // the table structure is held fixed for the entire recalculation, which allows 
+        // workers to read and write cells without acquiring the table lock
+        TableImpl tbl = (TableImpl)first.getTable();
+        tbl.beginParallelRecalculation();
+        try {
+            tbl.runAsRecalculationWorker(() -> {
+                recalculateLevelsInParallel(tbl, orderedDerivables, modifiedElement, dc);
+                return null;
+            });
         }
         finally {
-            if (parent != null) parent.pushCurrent();
+            tbl.endParallelRecalculation();
         }
     }
-
+    
+    private static void recalculateLevelsInParallel(TableImpl tbl, List<Derivable> orderedDerivables, 
+            TableElement modifiedElement, DerivationContext dc)
+    {
+        for (List<Derivable> level : partitionIntoLevels(orderedDerivables)) {
+            // derived columns within a level are independent of each other; other 
+            // derivables are processed in order, and serve as barriers
+            List<DerivationImpl> columns = new ArrayList<DerivationImpl>(level.size());
+            for (Derivable derivable : level) {
+                if (derivable == null) continue;
+                
+                DerivationImpl d = (DerivationImpl)derivable.getDerivation();
+                if (derivable instanceof Column && derivable.getTable() == tbl)
+                    columns.add(d);
+                else {
+                    recalculateInParallel(tbl, columns, modifiedElement, dc);
+                    d.recalculateTarget(modifiedElement, dc);
+                }
+            }
+            
+            recalculateInParallel(tbl, columns, modifiedElement, dc);
+        }
+    }
+    
+    private static void recalculateInParallel(TableImpl tbl, List<DerivationImpl> derivs, TableElement modifiedElement, DerivationContext dc)
+    {
+        if (derivs.isEmpty())
+            return;
+        else if (derivs.size() == 1) 
+            derivs.get(0).recalculateTarget(modifiedElement, dc);
+        else {
+            List<DerivationContext> workerDcs = new ArrayList<DerivationContext>(derivs.size());
+            List<ForkJoinTask<?>> tasks = new ArrayList<ForkJoinTask<?>>(derivs.size());
+            for (DerivationImpl d : derivs) {
+                DerivationContext workerDc = dc.fork();
+                workerDcs.add(workerDc);
+                tasks.add(ForkJoinTask.adapt(() -> tbl.runAsRecalculationWorker(() -> {
+                    d.recalculateTarget(modifiedElement, workerDc);
+                    return null;
+                })));
+            }
+            
+            ForkJoinTask.invokeAll(tasks);
+            dc.join(workerDcs);
+        }
+        
+        derivs.clear();
+    }
+    
+    /**
+     * Partitions a list of derivables, in dependency order, into levels, such that no 
+     * derivable depends on another derivable in the same, or a subsequent, level. 
+     * Derivables retain their relative order within each level.
+     * @param orderedDerivables the derivables, in dependency order
+     * @return the derivables, partitioned into levels
+     */
+    static List<List<Derivable>> partitionIntoLevels(List<Derivable> orderedDerivables)
+    {
+        Map<TableElement, Integer> levels = new HashMap<TableElement, Integer>(orderedDerivables.size());
+        List<List<Derivable>> partitions = new ArrayList<List<Derivable>>();
+        for (Derivable d : orderedDerivables) {
+            if (d == null) continue;
+            
+            int level = 0;
+            List<TableElement> affectedBy = d.getAffectedBy();
+            if (affectedBy != null) {
+                for (TableElement te : affectedBy) {
+                    Integer teLevel = levels.get(te);
+                    if (teLevel != null && teLevel >= level)
+                        level = teLevel + 1;
+                }
+            }
+            
+            levels.put(d, level);
+            while (partitions.size() <= level)
+                partitions.add(new ArrayList<Derivable>());
+            partitions.get(level).add(d);
+        }
+        
+        return partitions;
+    }
+    
+    /**
+     * Returns true if derivations in the specified table can be recalculated in parallel
+     * by the current thread. Structural changes are held off for the duration of a parallel
+     * recalculation by waiting on the table lock, so it isn't possible if the lock is already held.
+     * @param tbl the parent table
+     * @return true if parallel recalculation is possible
+     */
+    private static boolean isParallelRecalculation(Table tbl)
+    {
+        return tbl instanceof TableImpl && tbl.isParallelRecalculation() && !Thread.holdsLock(tbl) && 
+               ForkJoinPool.getCommonPoolParallelism() > 1;
+    }
+    
     /**
      * Calculates the complete list of Derivables affected by modifications to
      * the specified modifiedElement. The list is ordered in dependency order
@@ -252,35 +437,17 @@ public final class DerivationImpl implements Derivation, TimeSeries, TableElemen
     {
         assert modifiedElement != null : "TableElement required";
         
-        List<Derivable> affected = modifiedElement.getAffects();
-        if (affected == null || affected.isEmpty())
-            return null;
-        
-        // harvest all of the elements affected 
-        Set<Derivable> visited = new HashSet<Derivable>();
-        Set<Derivable> globalAffected = new HashSet<Derivable>(affected.size());
-        
-        calculateGlobalAffected(globalAffected, visited, affected);        
-        int numAffected = globalAffected.size();
-        
-        Set<Derivable> resolved = new LinkedHashSet<Derivable>(numAffected);
-        Set<Derivable> unresolved = new HashSet<Derivable>(numAffected);
-        
-        Derivable med = modifiedElement instanceof Derivable ? (Derivable)modifiedElement : null;
-        for (Derivable d : globalAffected) {
-            if (!resolved.contains(d))
-                resolveDependencies(d, resolved, unresolved, med);
-        }
-        
-        // remove specified element from set, as it has already been changed
-        resolved.remove(modifiedElement);
+        // use the parent table's cached plan, if available
+        Table parent = modifiedElement.getTable();
+        if (parent instanceof TableImpl)
+            return ((TableImpl)parent).getDependencyGraph().getRecalculationPlan(modifiedElement);
         
-        List<Derivable> orderedDerivables = new ArrayList<Derivable>(resolved);        
-        return orderedDerivables;
+        return DependencyGraph.calculateRecalculationPlan(modifiedElement);
     }
 
     /**
-     * 
+     * Orders the specified derived elements, along with the derived elements they depend on, 
+     * in dependency order
      * @param derived
      * @return
      */
@@ -288,48 +455,9 @@ public final class DerivationImpl implements Derivation, TimeSeries, TableElemen
     {
         assert derived != null : "Set<Derived> required";
 
-        int numAffected = derived.size();
-
-        Set<Derivable> resolved = new LinkedHashSet<Derivable>(numAffected);
-        Set<Derivable> unresolved = new HashSet<Derivable>(numAffected);
-
-        for (Derivable d : derived) {
-           if (!resolved.contains(d))
-               resolveDependencies(d, resolved, unresolved, null);
-        }
-
-        List<Derivable> orderedDerivables = new ArrayList<Derivable>(resolved);        
+        List<Derivable> orderedDerivables = new ArrayList<Derivable>(DependencyGraph.resolveDependencies(derived, null));        
         return orderedDerivables;
     }
-   
-    /**
-     * Helper method that uses simple graph analysis to order dependencies
-     * @param d
-     * @param resolved
-     * @param unresolved
-     * @param omit
-     */
-    private static void resolveDependencies(Derivable d, Set<Derivable> resolved, Set<Derivable> unresolved, Derivable omit)
-    {
-        List<TableElement> affectedBy = d.getAffectedBy();
-        if (affectedBy != null) {
-            unresolved.add(d);
-            for (TableElement te : affectedBy) {
-                if (!(te instanceof Derivable)) continue;
-                
-                Derivable ted = (Derivable)te;
-                if (!ted.isDerived()) continue;
-                if (ted == omit) continue;
-                
-                if (!resolved.contains(ted))
-                    resolveDependencies(ted, resolved, unresolved, omit);
-            }
-            
-            unresolved.remove(d); 
-        }
-        
-        resolved.add(d);
-    }
 
     static List<TimeSeriesable> calculateTimeSeriesDependencies(Collection<TimeSeriesable> derived)
     {
@@ -379,25 +507,6 @@ public final class DerivationImpl implements Derivation, TimeSeries, TableElemen
         resolved.add(ts);
     }
 
-    /**
-     * Recursive method to determine complete set of Derivables to recalculate
-     * @param globalAffected
-     * @param visited
-     * @param affected
-     */
-    private static void calculateGlobalAffected(Set<Derivable> globalAffected, Set<Derivable> visited, List<Derivable> affected)
-    {
-        if (affected == null || affected.isEmpty())
-            return;
-        
-        for (Derivable d : affected) {
-            if (visited.contains(d)) continue;
-            visited.add(d);
-            globalAffected.add(d);
-            calculateGlobalAffected(globalAffected, visited, d.getAffects());
-        }        
-    }
-
     /**
      * Returns the Transaction ID assigned to the current thread. This ID can be used by asynchronous
      * operators to post completed results and restart blocked derivations. Thread-local storage
@@ -456,69 +565,155 @@ public final class DerivationImpl implements Derivation, TimeSeries, TableElemen
         if (transactId == null) 
             return;
         
-        BaseAsyncState ps = sf_UUID_PENDING_STATE_MAP.remove(transactId);
+        // if batching, the result is applied by the batcher's drainer thread
+        if (PostedResultBatcher.isEnabled()) {
+            PostedResultBatcher.post(transactId, value);
+            return;
+        }
+        
+        BaseAsyncState ps = acceptResult(transactId, value);
         if (ps != null) { 
-            DerivationImpl psDeriv = null;
+            DerivationContext dc = new DerivationContext();
+            if (reevaluatePendingState(ps, dc, true))
+                dc.processPendings();
+        }
+    }
+
+    /**
+     * Apply a batch of posted results. The pending cells are all set before any of the 
+     * derivations blocked on them are unblocked, in dependency order, so that derivations 
+     * blocked on more than one of the cells are reevaluated once. Calculations made pending 
+     * by the batch are started together, once the batch has been applied.
+     * @param batch the posted results, in the order they were posted
+     */
+    static void postResults(List<PostedResultBatcher.PostedResult> batch)
+    {
+        List<BaseAsyncState> accepted = new ArrayList<BaseAsyncState>(batch.size());
+        for (PostedResultBatcher.PostedResult pr : batch) {
+            BaseAsyncState ps = acceptResult(pr.m_transactId, pr.m_value);
+            if (ps != null)
+                accepted.add(ps);
+        }
+        
+        if (accepted.isEmpty())
+            return;
+        
+        // reevaluate upstream derivations first, so their values are
+        // available to the derivations that depend on them
+        if (accepted.size() > 1) {
+            Map<BaseAsyncState, Derivable> targets = new HashMap<BaseAsyncState, Derivable>(accepted.size());
+            accepted.forEach(ps -> {
+                DerivationImpl psDeriv = ps.getDerivation();
+                if (psDeriv != null)
+                    targets.put(ps, psDeriv.getTarget());
+            });
             
-            // need exclusive access to this process state, otherwise,
-            // token could become null
+            Map<Derivable, Integer> order = new HashMap<Derivable, Integer>();
+            for (Derivable d : DependencyGraph.resolveDependencies(new LinkedHashSet<Derivable>(targets.values()), null))
+                order.put(d, order.size());
+            
+            accepted.sort((ps1, ps2) -> Integer.compare(order.getOrDefault(targets.get(ps1), 0),
+                                                        order.getOrDefault(targets.get(ps2), 0)));
+        }
+        
+        List<DerivationContext> pendingDcs = new ArrayList<DerivationContext>();
+        for (BaseAsyncState ps : accepted) {
+            // cached statistics are invalidated as each cell is set, so contexts aren't shared
+            DerivationContext dc = new DerivationContext();
+            if (reevaluatePendingState(ps, dc, false))
+                pendingDcs.add(dc);
+        }
+        
+        for (BaseAsyncState ps : accepted)
+            ps.unblockDerivations();
+        
+        DerivationContext batchDc = new DerivationContext();
+        batchDc.join(pendingDcs);
+        batchDc.processPendings();
+    }
+
+    /**
+     * Sets the pending token of the calculation identified by the transaction id to the posted value
+     * @return the pending state to reevaluate, or null if the calculation is no longer pending
+     */
+    private static BaseAsyncState acceptResult(UUID transactId, Object value)
+    {
+        BaseAsyncState ps = sf_UUID_PENDING_STATE_MAP.remove(transactId);
+        if (ps == null)
+            return null;
+        
+        // need exclusive access to this process state, otherwise,
+        // token could become null
+        ps.lock();
+        try {
+            // could be null if derivation is being cleared while pending 
+            // calculations are being processed
+            DerivationImpl psDeriv = ps.getDerivation();
+            Token t = ps.getPendingToken();
+            if (!ps.isStillPending() || t == null || psDeriv == null) {
+                ps.unblockDerivations();
+                ps.delete();
+                return null;
+            }
+            
+            if (value != null && value instanceof Token) {
+                Token rsltToken = (Token) value;
+                t.from(rsltToken);
+            }
+            else  {
+                t.setValue(value);                   
+                t.setTokenType(TokenType.Operand);
+                t.setOperator(BuiltinOperator.NOP);
+            }
+            
+            return ps;
+        }
+        finally {
+            ps.unlock();
+        }
+    }
+    
+    /**
+     * Reevaluate the derivation of an accepted pending state; calculations that become pending 
+     * are added to the derivation context, to be started by the caller
+     * @return true if the derivation is pending again, and the context's pendings should be processed
+     */
+    private static boolean reevaluatePendingState(BaseAsyncState ps, DerivationContext dc, boolean doUnblock)
+    {
+        DerivationImpl psDeriv = ps.getDerivation();
+        try
+        {
+            // blocks on access to ps
+            ps.reevaluate(dc, doUnblock);
+            return false;
+        }
+        catch (PendingDerivationException pc)
+        {
+            // if derivation is being cleared, it could go away,
+            // get exclusive access while we perform cache
             ps.lock();
             try {
-                // could be null if derivation is being cleared while pending 
-                // calculations are being processed
-                psDeriv = ps.getDerivation();
-                Token t = ps.getPendingToken();
-                if (!ps.isStillPending() || t == null || psDeriv == null) {
-                    ps.unblockDerivations();
-                    ps.delete();
-                    return;
-                }
-                
-                if (value != null && value instanceof Token) {
-                    Token rsltToken = (Token) value;
-                    t.from(rsltToken);
+                if (ps.isValid() && psDeriv != null) {
+                    PendingState newPs = pc.getAwaitingState();
+                    psDeriv.cacheDeferredCalculation(newPs, dc);
                 }
-                else  {
-                    t.setValue(value);                   
-                    t.setTokenType(TokenType.Operand);
-                    t.setOperator(BuiltinOperator.NOP);
+                else {
+                    ps.delete();
+                    dc.clearPendings();
                 }
             }
             finally {
                 ps.unlock();
             }
             
-            DerivationContext dc = new DerivationContext();
-            try
-            {
-                // blocks on access to ps
-                ps.reevaluate(dc);
-            }
-            catch (PendingDerivationException pc)
-            {
-                // if derivation is being cleared, it could go away,
-                // get exclusive access while we perform cache
-                ps.lock();
-                try {
-                    if (ps.isValid()) {
-                        PendingState newPs = pc.getAwaitingState();
-                        psDeriv.cacheDeferredCalculation(newPs, dc);
-                    }
-                    else {
-                        ps.delete();
-                        dc.clearPendings();
-                    }
-                }
-                finally {
-                    ps.unlock();
-                }
-                
-                dc.processPendings();
-            }
-            catch (BlockedDerivationException e) { } // noop
-            finally {
+            return true;
+        }
+        catch (BlockedDerivationException e) { 
+            return false;
+        }
+        finally {
+            if (psDeriv != null)
                 psDeriv.awaitingStateProcessed(ps);
-            }
         }
     }
 
@@ -539,6 +734,10 @@ public final class DerivationImpl implements Derivation, TimeSeries, TableElemen
     private Derivable m_target;
     private MathContext m_precision;
     private DerivableThreadPool m_threadPool;
+    private volatile CompiledDerivation m_compiled;
+    private volatile boolean m_compileAttempted;
+    private volatile VectorizedDerivation m_vectorized;
+    private volatile boolean m_vectorizeAttempted;
     
     private Set<PendingState> m_cachedAwaitingStates;
     private Map<TableElement, PendingStatistic> m_cachedPendingStats;
@@ -722,6 +921,7 @@ public final class DerivationImpl implements Derivation, TimeSeries, TableElemen
     public void destroy()
     {
         m_beingDestroyed = true;    
+        DependencyGraph.invalidate(m_target);
 
         if (m_remoteUUIDs != null && !m_remoteUUIDs.isEmpty()) {
 	        RemoteValueService.removeRemoteHandlers(m_remoteUUIDs.toArray(new String [] {}));
@@ -1014,22 +1214,16 @@ public final class DerivationImpl implements Derivation, TimeSeries, TableElemen
     
     private void recalculateAffectedElements(DerivationContext dc)
     {
+        // the recalc plan excludes the current element
         List<Derivable> affected = calculateDependencies(getTarget());
-        if (affected == null ) return;
-        
-        // remove current element from recalc plan
-        affected.remove(m_target);
-        if (affected.isEmpty()) return;
+        if (affected == null || affected.isEmpty()) return;
         
         // recalculate impacted elements
         Table parentTable = getTable();
         if (parentTable != null)
             parentTable.pushCurrent();
         try {
-            for (Derivable d : affected) {
-                Derivation deriv = d.getDerivation();
-                ((DerivationImpl)deriv).recalculateTarget(getTarget(), dc);
-            }
+            recalculateTargets(affected, getTarget(), dc);
         }
         finally {
             if (parentTable != null)
@@ -1071,6 +1265,62 @@ public final class DerivationImpl implements Derivation, TimeSeries, TableElemen
         dc.processPendings();
     }
     
+    /**
+     * Evaluate this derivation for the specified row and column, using its compiled 
+     * form when possible, falling back to the {@link PostfixStackEvaluator} otherwise.
+     * Compiled results are returned in {@code result}, when supplied, so that callers 
+     * recalculating many cells can reuse a single token
+     */
+    private Token evaluate(Row row, Column col, DerivationContext dc, Token result) 
+    throws PendingDerivationException, BlockedDerivationException
+    {
+        CompiledDerivation cd = getCompiledDerivation();
+        if (cd != null) {
+            double value = cd.evaluate(row, col);
+            
+            // Double.MIN_VALUE denotes null to the interpreter
+            if (!Double.isNaN(value) && value != Double.MIN_VALUE) {
+                if (result == null)
+                    return new Token(value);
+                
+                result.setTokenType(TokenType.Operand);
+                result.setValue(value);
+                return result;
+            }
+        }
+        
+        PostfixStackEvaluator pfe = new PostfixStackEvaluator(this);        
+        return pfe.evaluate(row, col, dc);
+    }
+    
+    CompiledDerivation getCompiledDerivation()
+    {
+        if (!m_compileAttempted) {
+            synchronized(this) {
+                if (!m_compileAttempted) {
+                    m_compiled = CompiledDerivation.compile(this);
+                    m_compileAttempted = true;
+                }
+            }
+        }
+        
+        return m_compiled;
+    }
+    
+    VectorizedDerivation getVectorizedDerivation()
+    {
+        if (!m_vectorizeAttempted) {
+            synchronized(this) {
+                if (!m_vectorizeAttempted) {
+                    m_vectorized = VectorizedDerivation.compile(this);
+                    m_vectorizeAttempted = true;
+                }
+            }
+        }
+        
+        return m_vectorized;
+    }
+    
     boolean recalculateTargetCell(Row row, Column col, DerivationContext dc) 
     {
         if (row == null || col == null)
@@ -1082,8 +1332,7 @@ public final class DerivationImpl implements Derivation, TimeSeries, TableElemen
         
         boolean modified = false;
         try {
-            PostfixStackEvaluator pfe = new PostfixStackEvaluator(this);        
-            Token t = pfe.evaluate(row, col, dc);
+            Token t = evaluate(row, col, dc, null);
             
             if (t.isNumeric()) 
                 t.setValue(applyPrecision(t.getNumericValue()));
@@ -1125,6 +1374,7 @@ public final class DerivationImpl implements Derivation, TimeSeries, TableElemen
             cols = tbl.columns();
         
         boolean anyModified = false;
+        Token result = new Token(TokenType.Operand);
         for (Column col : cols) {
             if (col == null)
                 continue;
@@ -1134,8 +1384,7 @@ public final class DerivationImpl implements Derivation, TimeSeries, TableElemen
         	if (cell != null && cell.isDerived()) continue;
         	
         	try {
-                PostfixStackEvaluator pfe = new PostfixStackEvaluator(this);        
-                Token t = pfe.evaluate(row, col, dc);
+                Token t = evaluate(row, col, dc, result);
                 if (t.isNumeric() )
                     t.setValue(applyPrecision(t.getNumericValue()));
                 
@@ -1172,10 +1421,70 @@ public final class DerivationImpl implements Derivation, TimeSeries, TableElemen
             assert row != null : "Row required";
             rows = Collections.singletonList(row);
         }
+        else if (tbl.getNumRows() >= sf_PARALLEL_ROWS_THRESHOLD && isParallelRecalculation(tbl)) {
+            recalculateTargetColumnInParallel(col, (TableImpl)tbl, dc);
+            return;
+        }
         else
             rows = tbl.rows();
         
+        if (recalculateTargetColumnRows(col, tbl, rows, dc) && dc != null)
+        	dc.remove(col);
+    }
+    
+    /**
+     * Recalculate the rows of the target column in parallel, by partitioning them 
+     * into blocks, each recalculated by a worker thread
+     */
+    private void recalculateTargetColumnInParallel(Column col, TableImpl tbl, DerivationContext dc) 
+    {
+        tbl.beginParallelRecalculation();
+        try {
+            List<Row> rows = tbl.getRows();
+            int numRows = rows.size();
+            
+            // recalculate the first row in this thread, so that any statistics the derivation
+            // references are computed once, and cached in the context shared with the workers
+            boolean anyModified = tbl.runAsRecalculationWorker(
+                    () -> recalculateTargetColumnRows(col, tbl, rows.subList(0, 1), dc));
+            
+            int numRemaining = numRows - 1;
+            int numBlocks = Math.min(ForkJoinPool.getCommonPoolParallelism() * 4, 
+                                     (numRemaining + sf_PARALLEL_ROWS_THRESHOLD / 2 - 1) / (sf_PARALLEL_ROWS_THRESHOLD / 2));
+            int blockSize = (numRemaining + numBlocks - 1) / numBlocks;
+            
+            List<DerivationContext> workerDcs = new ArrayList<DerivationContext>(numBlocks);
+            List<ForkJoinTask<Boolean>> tasks = new ArrayList<ForkJoinTask<Boolean>>(numBlocks);
+            for (int i = 1; i < numRows; i += blockSize) {
+                List<Row> block = rows.subList(i, Math.min(i + blockSize, numRows));
+                DerivationContext workerDc = dc != null ? dc.fork() : null;
+                workerDcs.add(workerDc);
+                tasks.add(ForkJoinTask.adapt(() -> tbl.runAsRecalculationWorker(
+                        () -> recalculateTargetColumnRows(col, tbl, block, workerDc))));
+            }
+            
+            for (ForkJoinTask<Boolean> task : ForkJoinTask.invokeAll(tasks)) 
+                anyModified |= task.join();
+            
+            if (dc != null) {
+                dc.join(workerDcs);
+                if (anyModified)
+                    dc.remove(col);
+            }
+        }
+        finally {
+            tbl.endParallelRecalculation();
+        }
+    }
+    
+    private boolean recalculateTargetColumnRows(Column col, Table tbl, Iterable<Row> rows, DerivationContext dc) 
+    {
+        VectorizedDerivation vd = getVectorizedDerivation();
+        if (vd != null)
+            return recalculateTargetColumnRows(vd, col, tbl, rows, dc);
+        
         boolean anyModified = false;
+        Token result = new Token(TokenType.Operand);
         for (Row row : rows) {
             if (row == null)
                 continue;
@@ -1186,25 +1495,96 @@ public final class DerivationImpl implements Derivation, TimeSeries, TableElemen
         	Cell cell = tbl.getCell(row,  col);
         	if (cell != null && cell.isDerived()) continue;
         	
-        	try {
-                PostfixStackEvaluator pfe = new PostfixStackEvaluator(this);        
-                Token t = pfe.evaluate(row, col, dc);
-                if (t.isNumeric())
-                    t.setValue(applyPrecision(t.getNumericValue()));
-                boolean modified = tbl.setCellValue(row, col, t);
-                if (modified && dc != null) {
-                	dc.remove(row);
-                	anyModified = true;
-                }
-            }
-            catch (PendingDerivationException pc) {
-                cacheDeferredCalculation(pc.getAwaitingState(), dc);
-            }
-            catch (BlockedDerivationException e) { } // noop
+        	anyModified |= recalculateTargetColumnRow(row, col, tbl, dc, result);
         }  
         
-        if (anyModified && dc != null)
-        	dc.remove(col);
+        return anyModified;
+    }
+    
+    private boolean recalculateTargetColumnRow(Row row, Column col, Table tbl, DerivationContext dc, Token result) 
+    {
+    	try {
+            Token t = evaluate(row, col, dc, result);
+            return setTargetColumnCell(row, col, tbl, t, dc);
+        }
+        catch (PendingDerivationException pc) {
+            cacheDeferredCalculation(pc.getAwaitingState(), dc);
+        }
+        catch (BlockedDerivationException e) { } // noop
+    	
+    	return false;
+    }
+    
+    private boolean setTargetColumnCell(Row row, Column col, Table tbl, Token t, DerivationContext dc) 
+    {
+        if (t.isNumeric())
+            t.setValue(applyPrecision(t.getNumericValue()));
+        boolean modified = tbl.setCellValue(row, col, t);
+        if (modified && dc != null) {
+        	dc.remove(row);
+        	return true;
+        }
+        
+        return false;
+    }
+    
+    /**
+     * Recalculate the rows of the target column in batches, with one call to the vectorized
+     * operator per batch; rows whose arguments the operator can't be passed are interpreted
+     */
+    private boolean recalculateTargetColumnRows(VectorizedDerivation vd, Column col, Table tbl, Iterable<Row> rows, DerivationContext dc) 
+    {
+        boolean anyModified = false;
+        List<Row> batchRows = new ArrayList<Row>();
+        List<Token []> batchArgs = new ArrayList<Token []>();
+        for (Row row : rows) {
+            if (row == null)
+                continue;
+            
+        	// derived rows have precedent
+        	if (row.isDerived()) continue;
+        	
+        	Cell cell = tbl.getCell(row,  col);
+        	if (cell != null && cell.isDerived()) continue;
+        	
+        	Token [] args = vd.collectArgs(row);
+        	if (args == null) {
+        		anyModified |= recalculateTargetColumnRow(row, col, tbl, dc, null);
+        		continue;
+        	}
+        	
+        	batchRows.add(row);
+        	batchArgs.add(args);
+        	if (batchRows.size() >= VectorizedDerivation.sf_MAX_BATCH_SIZE) {
+        		anyModified |= recalculateTargetColumnBatch(vd, col, tbl, batchRows, batchArgs, dc);
+        		batchRows.clear();
+        		batchArgs.clear();
+        	}
+        }
+        
+        if (!batchRows.isEmpty())
+        	anyModified |= recalculateTargetColumnBatch(vd, col, tbl, batchRows, batchArgs, dc);
+        
+        return anyModified;
+    }
+    
+    private boolean recalculateTargetColumnBatch(VectorizedDerivation vd, Column col, Table tbl, 
+    		List<Row> batchRows, List<Token []> batchArgs, DerivationContext dc) 
+    {
+        Token [] results = vd.evaluate(batchArgs.toArray(new Token [batchArgs.size()][]));
+        
+        boolean anyModified = false;
+        for (int i = 0; i < batchRows.size(); i++) {
+        	Token t = results != null && i < results.length ? results[i] : null;
+        	
+        	// vectorized operators are synchronous; anything else is left to the interpreter
+        	if (t == null || t.isPending() || t.isAwaiting())
+        		anyModified |= recalculateTargetColumnRow(batchRows.get(i), col, tbl, dc, null);
+        	else
+        		anyModified |= setTargetColumnCell(batchRows.get(i), col, tbl, t, dc);
+        }
+        
+        return anyModified;
     }
 
     /**
@@ -1432,18 +1812,46 @@ public final class DerivationImpl implements Derivation, TimeSeries, TableElemen
     {
         private Map<TableElement, SingleVariableStatEngine> m_cachedSVSEs;
         private Map<Tuple<TableElement>, TwoVariableStatEngine> m_cachedTVSEs;
-    	private boolean m_cachedAny = false;
     	private Set<PendingState> m_pendings;
     	private boolean m_isRecalculateAffected;
     	
     	DerivationContext()
     	{
-            m_cachedSVSEs = new HashMap<TableElement, SingleVariableStatEngine>();
-            m_cachedTVSEs = new HashMap<Tuple<TableElement>, TwoVariableStatEngine>();
+            m_cachedSVSEs = new ConcurrentHashMap<TableElement, SingleVariableStatEngine>();
+            m_cachedTVSEs = new ConcurrentHashMap<Tuple<TableElement>, TwoVariableStatEngine>();
             m_pendings = new LinkedHashSet<PendingState>();
             m_isRecalculateAffected = true;
     	}
     	
+    	private DerivationContext(DerivationContext parent)
+    	{
+            m_cachedSVSEs = parent.m_cachedSVSEs;
+            m_cachedTVSEs = parent.m_cachedTVSEs;
+            m_pendings = new LinkedHashSet<PendingState>();
+            m_isRecalculateAffected = false;
+    	}
+    	
+    	/**
+    	 * Returns a new context for use by a worker thread during parallel recalculation;
+    	 * cached statistics are shared with this context, pending calculations are not
+    	 */
+    	DerivationContext fork()
+    	{
+    	    return new DerivationContext(this);
+    	}
+    	
+    	/**
+    	 * Merges the pending calculations from worker contexts back into this context. 
+    	 * Statistics made stale by the workers have already been removed from the shared cache
+    	 */
+    	void join(Collection<DerivationContext> workerDcs)
+    	{
+    	    for (DerivationContext workerDc : workerDcs) {
+    	        if (workerDc != null)
+    	            m_pendings.addAll(workerDc.m_pendings);
+    	    }
+    	}
+    	
     	void clearPendings()
         {
     	    m_pendings.clear();
@@ -1483,7 +1891,7 @@ public final class DerivationImpl implements Derivation, TimeSeries, TableElemen
     	 */
     	void remove(TableElement tse) 
     	{
-    		if (!m_cachedAny)
+    		if (m_cachedSVSEs.isEmpty() && m_cachedTVSEs.isEmpty())
     			return;
     		
     		assert tse != null : "TableElement required";
@@ -1514,7 +1922,6 @@ public final class DerivationImpl implements Derivation, TimeSeries, TableElemen
             assert se != null : "SingleVariableStatEngine required";
             
             m_cachedSVSEs.put(d, se);
-            m_cachedAny = true;
         }
         
         public void cacheTVSE(TableElement e1, TableElement e2, TwoVariableStatEngine se) 
@@ -1523,7 +1930,6 @@ public final class DerivationImpl implements Derivation, TimeSeries, TableElemen
             assert se != null : "TwoVariableStatEngine required";
             
             m_cachedTVSEs.put(new Tuple<TableElement>(e1, e2), se);
-            m_cachedAny = true;
         }
         
         public SingleVariableStatEngine getCachedSVSE(TableElement d)
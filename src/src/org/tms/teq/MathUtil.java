@@ -14,6 +14,7 @@ import org.json.simple.JSONObject;
 import org.tms.api.Cell;
 import org.tms.api.TableElement;
 import org.tms.api.derivables.InvalidOperandsException;
+import org.tms.tds.ColumnImpl;
 
 public class MathUtil
 {
@@ -402,7 +403,14 @@ public class MathUtil
         if (te != null && q != null) {
         	List<TableElement> affected = null;
             BigDecimal bdQ = toBigDecimal(q);
-            Iterable<Cell> cellIter = te.cells();
+            
+            // values held in a columnar store are compared directly, without materializing their cells
+            int [] numStored = {0};
+            Iterable<Cell> cellIter = te instanceof ColumnImpl ? 
+                    ((ColumnImpl)te).existingCells((r, v) -> {
+                        if (isEqual(q, bdQ, v)) 
+                            numStored[0]++;
+                    }) : te.cells();
             if (cellIter != null) {
                 for (Cell c : cellIter) {
                     if (c == null)
@@ -414,19 +422,25 @@ public class MathUtil
                 			continue;
                 	}
                 	
-                    Object cellValue = c.getCellValue();
-                    if (q.equals(cellValue) ||
-                        (bdQ != null && cellValue != null && 
-                            (cellValue instanceof Number) && 
-                            bdQ.compareTo(toBigDecimal(cellValue)) == 0))
+                    if (isEqual(q, bdQ, c.getCellValue()))
                         count++;
                 }
             }
+            
+            count += numStored[0];
         }
         
         return count;
     }   
     
+    static final private boolean isEqual(Object q, BigDecimal bdQ, Object cellValue)
+    {
+        return q.equals(cellValue) ||
+               (bdQ != null && cellValue != null && 
+                   (cellValue instanceof Number) && 
+                   bdQ.compareTo(toBigDecimal(cellValue)) == 0);
+    }
+    
     static final private BigDecimal toBigDecimal(Object n)
     {
         if (n != null && (n instanceof Number)) {
@@ -706,6 +720,12 @@ public class MathUtil
             else if (!ignoreLeadingZeros && s.trim().length() > 0 && (c = s.trim().charAt(0)) == '0')
                 return ignoreSpaces ? s.trim() : s;
             
+            // plain decimal numbers are parsed without raising exceptions; all
+            // other forms fall through to the parsers below
+            Number n = parseDecimalNumber(s);
+            if (n != null)
+                return n;
+            
             return Integer.parseInt(s);
         }
         catch (Exception e) {
@@ -717,4 +737,75 @@ public class MathUtil
             }
         }
     }
+    
+    /**
+     * Parses strings of the form {@code [+-]digits[.digits][(e|E)[+-]digits]}, consisting only of ASCII characters,
+     * without throwing exceptions. Integral values that fit in an {@code int} are returned as {@link Integer}s, all 
+     * other values as {@link Double}s, just as {@link Integer#parseInt(String)} and {@link Double#parseDouble(String)}
+     * would.
+     * @param s the string to parse
+     * @return the parsed number, or null if {@code s} is not of this form
+     */
+    static final Number parseDecimalNumber(String s)
+    {
+        int len = s.length();
+        int i = 0;
+        boolean negative = false;
+        if (len > 0 && (s.charAt(0) == '+' || s.charAt(0) == '-')) {
+            negative = s.charAt(0) == '-';
+            i++;
+        }
+        
+        // integer part, accumulated as a negative value to accommodate Integer.MIN_VALUE
+        long value = 0;
+        int numDigits = 0;
+        boolean overflow = false;
+        for (; i < len; i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9')
+                break;
+            
+            if (!overflow) {
+                value = value * 10 - (c - '0');
+                if (value < Integer.MIN_VALUE)
+                    overflow = true;
+            }
+            numDigits++;
+        }
+        
+        if (i == len) {
+            if (numDigits == 0)
+                return null;
+            
+            if (!overflow && (negative || value != Integer.MIN_VALUE))
+                return (int)(negative ? value : -value);
+            
+            return Double.parseDouble(s);
+        }
+        
+        // fractional part
+        if (s.charAt(i) == '.') {
+            for (i++; i < len && s.charAt(i) >= '0' && s.charAt(i) <= '9'; i++)
+                numDigits++;
+        }
+        
+        if (numDigits == 0)
+            return null;
+        
+        // exponent
+        if (i < len && (s.charAt(i) == 'e' || s.charAt(i) == 'E')) {
+            i++;
+            if (i < len && (s.charAt(i) == '+' || s.charAt(i) == '-'))
+                i++;
+            
+            int expDigits = 0;
+            for (; i < len && s.charAt(i) >= '0' && s.charAt(i) <= '9'; i++)
+                expDigits++;
+            
+            if (expDigits == 0)
+                return null;
+        }
+        
+        return i == len ? Double.parseDouble(s) : null;
+    }
 }
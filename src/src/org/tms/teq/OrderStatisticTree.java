@@ -0,0 +1,146 @@
+package org.tms.teq;
+
+import java.util.Arrays;
+
+import org.tms.api.exceptions.UnimplementedException;
+
+/**
+ * A Fenwick (binary indexed) tree over the ranks of the distinct values in a data series,
+ * supporting insertion, removal, and selection of the k-th smallest value in O(log n).
+ * Used to maintain medians and quartiles of moving and cumulative statistics.
+ */
+class OrderStatisticTree
+{
+    private double [] m_keys;
+    private int [] m_tree;
+    private int m_highBit;
+
+    OrderStatisticTree(double [] values)
+    {
+        double [] sorted = values.clone();
+        Arrays.sort(sorted);
+
+        int numKeys = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (numKeys == 0 || Double.compare(sorted[i], sorted[numKeys - 1]) != 0)
+                sorted[numKeys++] = sorted[i];
+        }
+
+        m_keys = Arrays.copyOf(sorted, numKeys);
+        m_tree = new int[numKeys + 1];
+        m_highBit = Integer.highestOneBit(Math.max(1, numKeys));
+    }
+
+    void add(double x)
+    {
+        update(Arrays.binarySearch(m_keys, x) + 1, 1);
+    }
+
+    void remove(double x)
+    {
+        update(Arrays.binarySearch(m_keys, x) + 1, -1);
+    }
+
+    private void update(int pos, int delta)
+    {
+        for (; pos < m_tree.length; pos += pos & -pos)
+            m_tree[pos] += delta;
+    }
+
+    private int prefixCount(int numKeys)
+    {
+        int count = 0;
+        for (int pos = numKeys; pos > 0; pos -= pos & -pos)
+            count += m_tree[pos];
+
+        return count;
+    }
+
+    /**
+     * Returns the k-th (0-based) smallest value in the tree
+     */
+    double select(int k)
+    {
+        int pos = 0;
+        for (int step = m_highBit; step > 0; step >>= 1) {
+            int next = pos + step;
+            if (next < m_tree.length && m_tree[next] <= k) {
+                pos = next;
+                k -= m_tree[pos];
+            }
+        }
+
+        return m_keys[pos];
+    }
+
+    /**
+     * Returns the median, first, or third quartile of the {@code numValues} values in the tree,
+     * calculated as the {@link SingleVariableStatEngine} does
+     */
+    double calcStatistic(BuiltinOperator stat, int numValues)
+    {
+        double median = median(0, numValues);
+        switch (stat) {
+            case MedianOper:
+                return median;
+
+            case FirstQuartileOper:
+                // median of the values less than the median
+                return median(0, countLessThan(median));
+
+            case ThirdQuartileOper:
+                // median of the values greater than the median
+                int numGreater = countGreaterThan(median, numValues);
+                return median(numValues - numGreater, numGreater);
+
+            default:
+                throw new UnimplementedException("Unsupported order statistic: " + stat);
+        }
+    }
+
+    /**
+     * Returns the median of the {@code count} values starting with the {@code first} smallest
+     */
+    double median(int first, int count)
+    {
+        if (count <= 0)
+            return Double.NaN;
+
+        int half = count/2;
+        if (half * 2 == count)
+            return (select(first + half - 1) + select(first + half))/2.0;
+        else
+            return select(first + half);
+    }
+
+    int countLessThan(double x)
+    {
+        return prefixCount(lowerBound(x));
+    }
+
+    int countGreaterThan(double x, int numValues)
+    {
+        int upper = lowerBound(x);
+        if (upper < m_keys.length && m_keys[upper] == x)
+            upper++;
+
+        return numValues - prefixCount(upper);
+    }
+
+    /**
+     * Returns the number of keys less than x
+     */
+    private int lowerBound(double x)
+    {
+        int lo = 0, hi = m_keys.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (m_keys[mid] < x)
+                lo = mid + 1;
+            else
+                hi = mid;
+        }
+
+        return lo;
+    }
+}
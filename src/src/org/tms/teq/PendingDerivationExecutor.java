@@ -11,9 +11,11 @@ import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 
+import org.tms.api.ThreadPoolStrategy;
 import org.tms.api.derivables.DerivableThreadPool;
 import org.tms.api.exceptions.IllegalTableStateException;
 import org.tms.util.ThreadLocalUtils;
+import org.tms.util.ThreadPerTaskExecutor;
 
 public class PendingDerivationExecutor extends ThreadPoolExecutor implements Runnable, DerivableThreadPool
 {
@@ -22,6 +24,7 @@ public class PendingDerivationExecutor extends ThreadPoolExecutor implements Run
     private BlockingQueue<Runnable> m_queuedRunnables;
     private boolean m_continueDraining;
     private Thread m_drainThread = null;
+    private ThreadPerTaskExecutor m_taskExecutor = null;
     
     public PendingDerivationExecutor()
     {
@@ -40,6 +43,19 @@ public class PendingDerivationExecutor extends ThreadPoolExecutor implements Run
     
     public PendingDerivationExecutor(int corePoolSize, int maximumPoolSize, 
                                      long keepAliveTime, TimeUnit unit, boolean timeOutCores)
+    {
+        this(corePoolSize, maximumPoolSize, keepAliveTime, unit, timeOutCores, ThreadPoolStrategy.Pooled);
+    }
+    
+    /**
+     * Creates a pending derivation executor using the specified {@link ThreadPoolStrategy}. When the 
+     * strategy is {@code ThreadPerTask}, calculations are started in their own threads as they are
+     * submitted, with at most {@code maximumPoolSize} running concurrently; the pool sizes and keep alive 
+     * time only apply to the {@code Pooled} strategy.
+     */
+    public PendingDerivationExecutor(int corePoolSize, int maximumPoolSize, 
+                                     long keepAliveTime, TimeUnit unit, boolean timeOutCores,
+                                     ThreadPoolStrategy strategy)
     {
         super(corePoolSize, maximumPoolSize, keepAliveTime, unit, 
               new SynchronousQueue<Runnable>(), 
@@ -63,11 +79,31 @@ public class PendingDerivationExecutor extends ThreadPoolExecutor implements Run
             }
          });  
         
-        // start the drainer thread
-        m_drainThread = new Thread(this);
-        m_drainThread.setDaemon(true);
-        m_drainThread.setName("PendingQueueDrainer");
-        m_drainThread.start();
+        if (strategy == ThreadPoolStrategy.ThreadPerTask) {
+            m_taskExecutor = new ThreadPerTaskExecutor("PendingCalculationThread", maximumPoolSize) {
+                @Override
+                protected void beforeExecute(Thread t, Runnable r)
+                {
+                    PendingDerivationExecutor.this.beforeExecute(t, r);
+                }
+
+                @Override
+                protected void afterExecute(Runnable r, Throwable t)
+                {
+                    PendingDerivationExecutor.this.afterExecute(r, t);
+                }
+            };
+            
+            // calculations are started as they are submitted
+            m_continueDraining = false;
+        }
+        else {
+            // start the drainer thread
+            m_drainThread = new Thread(this);
+            m_drainThread.setDaemon(true);
+            m_drainThread.setName("PendingQueueDrainer");
+            m_drainThread.start();
+        }
     }
 
     @Override
@@ -79,7 +115,10 @@ public class PendingDerivationExecutor extends ThreadPoolExecutor implements Run
         if (transactionId != null && r != null) {
             m_runnableUuidMap.put(r,  transactionId);
             m_uuidRunnableMap.put(transactionId, r);
-            m_queuedRunnables.add(r);
+            if (m_taskExecutor != null)
+                m_taskExecutor.execute(r);
+            else
+                m_queuedRunnables.add(r);
         }
         else
             throw new NullPointerException("TransactionId and Runnable are required.");
@@ -98,6 +137,9 @@ public class PendingDerivationExecutor extends ThreadPoolExecutor implements Run
             m_runnableUuidMap.remove(r);
             
             // runnable could be in the executors queue, the unbounded queue, or already running
+            if (m_taskExecutor != null)
+                return m_taskExecutor.remove(r);
+            
             return getQueue().remove(r) ||
                    m_queuedRunnables.remove(r);
         }
@@ -148,12 +190,41 @@ public class PendingDerivationExecutor extends ThreadPoolExecutor implements Run
         ThreadLocalUtils.resetThreadLocal(this);
     }
     
+    public ThreadPoolStrategy getThreadPoolStrategy()
+    {
+        return m_taskExecutor != null ? ThreadPoolStrategy.ThreadPerTask : ThreadPoolStrategy.Pooled;
+    }
+    
+    @Override
+    public void setMaximumPoolSize(int maximumPoolSize)
+    {
+        super.setMaximumPoolSize(maximumPoolSize);
+        
+        if (m_taskExecutor != null)
+            m_taskExecutor.setMaxConcurrency(maximumPoolSize);
+    }
+    
+    @Override
+    public int getActiveCount()
+    {
+        return m_taskExecutor != null ? m_taskExecutor.getActiveCount() : super.getActiveCount();
+    }
+    
+    @Override
+    public long getCompletedTaskCount()
+    {
+        return m_taskExecutor != null ? m_taskExecutor.getCompletedTaskCount() : super.getCompletedTaskCount();
+    }
+    
     @Override
     public void shutdownDerivableThreadPool()
     {
         super.shutdown();
         
-        m_drainThread.interrupt();
+        if (m_taskExecutor != null)
+            m_taskExecutor.shutdown();
+        else
+            m_drainThread.interrupt();
         m_continueDraining = false;
         m_queuedRunnables.clear(); 
         m_runnableUuidMap.clear();
@@ -9,6 +9,7 @@ import java.util.concurrent.Semaphore;
 import org.tms.api.Cell;
 import org.tms.api.TableElement;
 import org.tms.api.derivables.Operator;
+import org.tms.tds.ColumnImpl;
 import org.tms.teq.DerivationImpl.DerivationContext;
 import org.tms.teq.BaseAsyncState.PendingState;
 import org.tms.teq.BaseAsyncState.BlockedStatisticState;
@@ -220,7 +221,9 @@ public class PendingStatistic
             // if so, continue waiting
             // if threading synchronization is working correctly, this final check 
             // shouldn't be needed...
-            for (Cell c: m_refElement.cells()) {
+            Iterable<Cell> cells = m_refElement instanceof ColumnImpl ? 
+                    ((ColumnImpl)m_refElement).existingCells(null) : m_refElement.cells();
+            for (Cell c: cells) {
                 if (isBlockingCell(c)) 
                     return removedCell ;
                 
@@ -0,0 +1,320 @@
+package org.tms.teq;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collects the results posted by asynchronous operators and applies them in micro-batches. A batch is
+ * closed when it reaches the maximum batch size, or when the batch window, measured from the arrival of
+ * its first result, expires. All of the results in a batch are applied to their pending cells before any
+ * of the derivations blocked on those cells are unblocked, so that a derivation blocked on several cells
+ * completed in the same batch is reevaluated once, rather than once per cell.
+ * <p>
+ * Batches are applied by a daemon drainer thread. Exceptions raised applying a batch are reported to the
+ * thread's uncaught exception handler, and the drainer continues with the next batch; if the drainer is
+ * interrupted, it applies the results it has already dequeued and exits, and the next posted result starts
+ * a new one.
+ * <p>
+ * Batching is disabled by default, in which case results are applied as they are posted.
+ */
+public final class PostedResultBatcher implements Runnable
+{
+    public static final long sf_DEFAULT_BATCH_WINDOW_MILLIS = 5;
+    public static final int sf_DEFAULT_MAX_BATCH_SIZE = 256;
+
+    private static final PostedResultBatcher sf_BATCHER = new PostedResultBatcher();
+
+    private static volatile boolean sf_ENABLED = false;
+    private static volatile long sf_BATCH_WINDOW_NANOS = TimeUnit.MILLISECONDS.toNanos(sf_DEFAULT_BATCH_WINDOW_MILLIS);
+    private static volatile int sf_MAX_BATCH_SIZE = sf_DEFAULT_MAX_BATCH_SIZE;
+
+    public static boolean isEnabled()
+    {
+        return sf_ENABLED;
+    }
+
+    /**
+     * Enable or disable batching; results queued when batching is disabled are still applied
+     * @param enabled true to batch posted results
+     */
+    public static void setEnabled(boolean enabled)
+    {
+        sf_ENABLED = enabled;
+    }
+
+    public static long getBatchWindow(TimeUnit unit)
+    {
+        return unit.convert(sf_BATCH_WINDOW_NANOS, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Sets the maximum time the first result in a batch waits for others to arrive
+     * @param window the batch window, 0 to apply the results already queued without waiting
+     * @param unit the time unit of the window
+     */
+    public static void setBatchWindow(long window, TimeUnit unit)
+    {
+        if (window < 0)
+            throw new IllegalArgumentException("Batch window must be >= 0");
+
+        sf_BATCH_WINDOW_NANOS = unit.toNanos(window);
+    }
+
+    public static int getMaxBatchSize()
+    {
+        return sf_MAX_BATCH_SIZE;
+    }
+
+    public static void setMaxBatchSize(int maxBatchSize)
+    {
+        if (maxBatchSize < 1)
+            throw new IllegalArgumentException("Maximum batch size must be > 0");
+
+        sf_MAX_BATCH_SIZE = maxBatchSize;
+    }
+
+    /**
+     * Returns a snapshot of the batching metrics
+     * @return the current metrics
+     */
+    public static Metrics getMetrics()
+    {
+        return sf_BATCHER.snapshotMetrics();
+    }
+
+    public static void resetMetrics()
+    {
+        sf_BATCHER.clearMetrics();
+    }
+
+    /**
+     * Returns the number of posted results waiting to be applied
+     * @return the number of queued results
+     */
+    public static int getNumQueued()
+    {
+        return sf_BATCHER.m_queue.size();
+    }
+
+    static void post(UUID transactId, Object value)
+    {
+        sf_BATCHER.enqueue(new PostedResult(transactId, value));
+    }
+
+    /*
+     * Instance fields
+     */
+    private final BlockingQueue<PostedResult> m_queue;
+    private volatile Thread m_drainThread;
+
+    // metrics, guarded by this
+    private long m_numBatches;
+    private long m_numResults;
+    private int m_largestBatch;
+    private long m_totalLatencyNanos;
+    private long m_maxLatencyNanos;
+
+    private PostedResultBatcher()
+    {
+        m_queue = new LinkedBlockingQueue<PostedResult>();
+    }
+
+    private void enqueue(PostedResult pr)
+    {
+        m_queue.add(pr);
+
+        // start the drainer thread on first use, or after it was interrupted
+        if (m_drainThread == null)
+            startDrainer();
+    }
+
+    synchronized private void startDrainer()
+    {
+        if (m_drainThread == null) {
+            m_drainThread = new Thread(this);
+            m_drainThread.setDaemon(true);
+            m_drainThread.setName("PostedResultDrainer");
+            m_drainThread.start();
+        }
+    }
+
+    @Override
+    public void run()
+    {
+        List<PostedResult> batch = new ArrayList<PostedResult>();
+        try {
+            drain(batch);
+        }
+        finally {
+            // results queued from now on start a new drainer; those queued 
+            // while this one was exiting may have seen it still running
+            synchronized(this) {
+                if (m_drainThread == Thread.currentThread()) {
+                    m_drainThread = null;
+                    if (!m_queue.isEmpty())
+                        startDrainer();
+                }
+            }
+        }
+    }
+
+    /**
+     * Apply queued results in batches until the thread is interrupted
+     */
+    private void drain(List<PostedResult> batch)
+    {
+        while (true) {
+            try {
+                PostedResult first = m_queue.take();
+                batch.add(first);
+
+                // collect results until the batch fills or its window closes
+                int maxBatchSize = sf_MAX_BATCH_SIZE;
+                long deadline = first.m_postedAt + sf_BATCH_WINDOW_NANOS;
+                while (batch.size() < maxBatchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        m_queue.drainTo(batch, maxBatchSize - batch.size());
+                        break;
+                    }
+
+                    PostedResult pr = m_queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (pr == null)
+                        break;
+
+                    batch.add(pr);
+                }
+
+                postBatch(batch);
+            }
+            catch (InterruptedException e) {
+                // apply the results already dequeued, then stop
+                Thread.currentThread().interrupt();
+                if (!batch.isEmpty())
+                    postBatch(batch);
+                return;
+            }
+            finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void postBatch(List<PostedResult> batch)
+    {
+        recordBatch(batch);
+        try {
+            DerivationImpl.postResults(batch);
+        }
+        catch (RuntimeException e) {
+            // one failed result shouldn't stall all subsequent ones
+            Thread t = Thread.currentThread();
+            t.getUncaughtExceptionHandler().uncaughtException(t, e);
+        }
+    }
+
+    synchronized private void recordBatch(List<PostedResult> batch)
+    {
+        long now = System.nanoTime();
+        m_numBatches++;
+        m_numResults += batch.size();
+        m_largestBatch = Math.max(m_largestBatch, batch.size());
+        for (PostedResult pr : batch) {
+            long latency = now - pr.m_postedAt;
+            m_totalLatencyNanos += latency;
+            m_maxLatencyNanos = Math.max(m_maxLatencyNanos, latency);
+        }
+    }
+
+    synchronized private Metrics snapshotMetrics()
+    {
+        return new Metrics(m_numBatches, m_numResults, m_largestBatch, m_totalLatencyNanos, m_maxLatencyNanos);
+    }
+
+    synchronized private void clearMetrics()
+    {
+        m_numBatches = m_numResults = m_totalLatencyNanos = m_maxLatencyNanos = 0;
+        m_largestBatch = 0;
+    }
+
+    /**
+     * A result posted by an asynchronous operator, and the time it was queued
+     */
+    static final class PostedResult
+    {
+        final UUID m_transactId;
+        final Object m_value;
+        final long m_postedAt;
+
+        PostedResult(UUID transactId, Object value)
+        {
+            m_transactId = transactId;
+            m_value = value;
+            m_postedAt = System.nanoTime();
+        }
+    }
+
+    /**
+     * Batch size and queue latency statistics; queue latency is the time from when a result
+     * is posted until its batch is applied
+     */
+    public static final class Metrics
+    {
+        private final long m_numBatches;
+        private final long m_numResults;
+        private final int m_largestBatch;
+        private final long m_totalLatencyNanos;
+        private final long m_maxLatencyNanos;
+
+        private Metrics(long numBatches, long numResults, int largestBatch, long totalLatencyNanos, long maxLatencyNanos)
+        {
+            m_numBatches = numBatches;
+            m_numResults = numResults;
+            m_largestBatch = largestBatch;
+            m_totalLatencyNanos = totalLatencyNanos;
+            m_maxLatencyNanos = maxLatencyNanos;
+        }
+
+        public long getNumBatches()
+        {
+            return m_numBatches;
+        }
+
+        public long getNumResults()
+        {
+            return m_numResults;
+        }
+
+        public int getLargestBatchSize()
+        {
+            return m_largestBatch;
+        }
+
+        public double getAverageBatchSize()
+        {
+            return m_numBatches > 0 ? (double)m_numResults / m_numBatches : 0.0;
+        }
+
+        public long getAverageQueueLatency(TimeUnit unit)
+        {
+            return m_numResults > 0 ? unit.convert(m_totalLatencyNanos / m_numResults, TimeUnit.NANOSECONDS) : 0;
+        }
+
+        public long getMaxQueueLatency(TimeUnit unit)
+        {
+            return unit.convert(m_maxLatencyNanos, TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public String toString()
+        {
+            return String.format("Batches: %d Results: %d Avg size: %.1f Max size: %d Avg latency: %d us Max latency: %d us",
+                    m_numBatches, m_numResults, getAverageBatchSize(), m_largestBatch,
+                    getAverageQueueLatency(TimeUnit.MICROSECONDS), getMaxQueueLatency(TimeUnit.MICROSECONDS));
+        }
+    }
+}
@@ -21,6 +21,8 @@ import org.tms.api.derivables.Token;
 import org.tms.api.derivables.TokenType;
 import org.tms.api.exceptions.IllegalTableStateException;
 import org.tms.api.exceptions.UnimplementedException;
+import org.tms.tds.ColumnImpl;
+import org.tms.tds.TableImpl;
 import org.tms.tds.TokenMapper;
 import org.tms.teq.DerivationImpl.DerivationContext;
 import org.tms.teq.BaseAsyncState.PendingState;
@@ -568,6 +570,18 @@ public class PostfixStackEvaluator
                 svse = null;
         }
         
+        // aggregate statistics maintained across recalculations avoid rescanning the element
+        AggregateStatistics aggregates = null;
+        long modCount = 0;
+        if (svse == null && ref.getTable() instanceof TableImpl) {
+            aggregates = ((TableImpl)ref.getTable()).getAggregateStatistics();
+            svse = aggregates.getStatEngine(ref, bio);
+            if (svse != null)
+                return svse;
+            
+            modCount = aggregates.getModCount();
+        }
+        
         if (svse == null) {
             List<TableElement> affectedBy = null;
             svse = new SingleVariableStatEngine(bio.isRequiresRetainedDataset(), bio.isRequiresRetainedSequence(), ref.getElementType());   
@@ -578,7 +592,12 @@ public class PostfixStackEvaluator
             if (d == null)
                 throw new IllegalTableStateException("DerivationImpl is required");
             
-            for (Cell c : ref.cells()) {
+            // values held in a columnar store are entered directly, without materializing their cells
+            final SingleVariableStatEngine engine = svse;
+            Iterable<Cell> cells = ref instanceof ColumnImpl ? 
+                    ((ColumnImpl)ref).existingCells((r, v) -> engine.enter(r, v)) : ref.cells();
+            
+            for (Cell c : cells) {
                 if (c == null)
                     continue;
                 
@@ -614,6 +633,9 @@ public class PostfixStackEvaluator
             if (arePendings)
                 throw new BlockingSetDerivationException(blockingSet, ref);
             
+            if (aggregates != null)
+                aggregates.cache(ref, svse, modCount);
+            
             if (dc != null)
                 dc.cacheSVSE(ref, svse);
         }
@@ -12,12 +12,17 @@ import java.util.concurrent.TimeUnit;
 
 import org.tms.api.Column;
 import org.tms.api.Row;
+import org.tms.api.TableContext;
+import org.tms.api.ThreadPoolStrategy;
+import org.tms.api.derivables.DerivableThreadPoolConfig;
 import org.tms.api.derivables.ErrorCode;
 import org.tms.api.derivables.Operator;
 import org.tms.api.derivables.Token;
 import org.tms.api.exceptions.IllegalTableStateException;
+import org.tms.api.factories.TableContextFactory;
 import org.tms.tds.RowImpl;
 import org.tms.teq.PendingDerivationExecutor.PendingThreadFactory;
+import org.tms.util.ThreadPerTaskExecutor;
 import org.tms.tds.ColumnImpl;
 
 public class RemoteValueService extends ThreadPoolExecutor implements Runnable
@@ -164,6 +169,7 @@ public class RemoteValueService extends ThreadPoolExecutor implements Runnable
 	private LinkedBlockingQueue<String> m_queuedCalculations;
 	private boolean m_continueDraining;
 	private Thread m_drainThread;
+	private ThreadPerTaskExecutor m_taskExecutor;
 	
     private RemoteValueService()
     {
@@ -187,11 +193,20 @@ public class RemoteValueService extends ThreadPoolExecutor implements Runnable
               }
            });  
           
-          // start the drainer thread
-          m_drainThread = new Thread(this);
-          m_drainThread.setDaemon(true);
-          m_drainThread.setName("AwaitingQueueDrainer");
-          m_drainThread.start();  	
+          // remote values follow the default context's pending derivation strategy
+          TableContext tc = TableContextFactory.fetchDefaultTableContext();
+          if (tc instanceof DerivableThreadPoolConfig && 
+                  ((DerivableThreadPoolConfig)tc).getPendingThreadPoolStrategy() == ThreadPoolStrategy.ThreadPerTask) {
+              m_taskExecutor = new ThreadPerTaskExecutor("AwaitingCalculationThread", getMaximumPoolSize());
+              m_continueDraining = false;
+          }
+          else {
+              // start the drainer thread
+              m_drainThread = new Thread(this);
+              m_drainThread.setDaemon(true);
+              m_drainThread.setName("AwaitingQueueDrainer");
+              m_drainThread.start();  	
+          }
     }
     
 	private void queueRecalculation(String uuid, RCKey key) 
@@ -199,7 +214,15 @@ public class RemoteValueService extends ThreadPoolExecutor implements Runnable
         if (isShutdown())
             throw new IllegalTableStateException("Awaiting Remote Value Thread pool has been shutdown...");
         
-		m_queuedCalculations.add(uuid);	
+        if (m_taskExecutor != null) 
+            // the key is looked up when the calculation runs, as the handler may be removed while it waits
+            m_taskExecutor.execute(() -> {
+                Runnable r = buildCalculationRunnable(uuid, sf_UUID_TO_KEY.get(uuid));
+                if (r != null)
+                    r.run();
+            });
+        else
+            m_queuedCalculations.add(uuid);	
 	}
 	
 	private void removeRecalculation(String uuid)
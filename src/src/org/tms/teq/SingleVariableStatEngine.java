@@ -49,6 +49,7 @@ public class SingleVariableStatEngine
     private Set<Column> m_excludedColumns;
     
     private Map<TableRowColumnElement, Integer> m_tableElementToDataElementMap;
+    private Map<String, double []> m_derivedSeries;
     
     public SingleVariableStatEngine()
     {
@@ -83,6 +84,20 @@ public class SingleVariableStatEngine
         enter(values);
     }
 
+    /**
+     * Create a stat engine from aggregate state maintained by {@link AggregateStatistics}; 
+     * only statistics computable from the count, sums, and extremes are supported
+     */
+    SingleVariableStatEngine(int n, double sumX, double sumX2, double min, double max)
+    {
+        this();
+        m_n = n;
+        m_sumX = sumX;
+        m_sumX2 = sumX2;
+        m_min = min;
+        m_max = max;
+    }
+
 	public boolean isRetainDataset() 
 	{
 		return m_retainDataset;
@@ -98,6 +113,31 @@ public class SingleVariableStatEngine
 		return m_elemType;
 	}
 	
+	int getN()
+	{
+		return m_n;
+	}
+	
+	double getSumX()
+	{
+		return m_sumX;
+	}
+	
+	double getSumX2()
+	{
+		return m_sumX2;
+	}
+	
+	double getMin()
+	{
+		return m_min;
+	}
+	
+	double getMax()
+	{
+		return m_max;
+	}
+	
     public void reset() 
     {
         m_n = 0;
@@ -130,6 +170,7 @@ public class SingleVariableStatEngine
         m_median = Double.MIN_VALUE;
         m_1stQ = Double.MIN_VALUE;
         m_3rdQ = Double.MIN_VALUE;
+        m_derivedSeries = null;
     }
 
     public int enter(Double... vals) 
@@ -162,6 +203,23 @@ public class SingleVariableStatEngine
         return m_n;		
 	}   
 	
+    /**
+     * Enter the value of a column that has no cell in the specified row, such as one held in a columnar store
+     * @param row the row of the value
+     * @param x the value
+     * @return the number of values entered
+     */
+    public int enter(Row row, Number x) 
+    {
+        int oldCnt = m_n;
+        enter(x);
+        
+        if (isRetainSequence() && m_n > oldCnt && row != null)
+            m_tableElementToDataElementMap.put(row, m_values.size() - 1);
+        
+        return m_n;
+    }
+    
     public int enter(Number x) 
     {
         if (x != null)
@@ -209,6 +267,11 @@ public class SingleVariableStatEngine
         }
     }
     
+    boolean isAnyExcluded()
+    {
+        return !m_excludedCells.isEmpty();
+    }
+    
     public boolean isExcluded(Cell cell) 
     {
         if (cell == null)
@@ -257,7 +320,7 @@ public class SingleVariableStatEngine
     	return calcStatistic(stat, (Row)null, (Column)null, params);
     }
     
-    public Object calcStatistic(BuiltinOperator stat, Row cRow, Column cCol, Token... params)
+    synchronized public Object calcStatistic(BuiltinOperator stat, Row cRow, Column cCol, Token... params)
     {        
         if (stat == BuiltinOperator.CountOper)
             return m_n;
@@ -465,22 +528,65 @@ public class SingleVariableStatEngine
 		
 		// determine the base statistic we need to calculate
 		BuiltinOperator baseStat = stat.getBaseStatistic();
+		if (baseStat == BuiltinOperator.CountOper)
+			return window;
+		else if (baseStat == BuiltinOperator.QuartileOper)
+			baseStat = toQuartileStatistic(baseStat, params);
 		
-		// create a stat engine to do the work
-		SingleVariableStatEngine svse = new SingleVariableStatEngine(baseStat.isRequiresRetainedDataset(), baseStat.isRequiresRetainedSequence(), m_elemType);
-		
-		// gather the data for the moving
-		for (int i = window - 1; i >= 0; i--) {
-			svse.enter(m_values.get(eIdx - i));
-		}
-		
-		// and calculate the moving stat
-		Object val = svse.calcStatistic(baseStat, params);
-		svse.reset();
-		svse = null;
-		return val;
+		// the moving statistic is calculated for the entire series at once, and cached, 
+		// so that each remaining cell in the series simply looks up its value
+		return fetchDerivedSeries(baseStat, window)[eIdx];
 	}
 
+    /**
+     * Returns the moving statistic series for the specified window size, or, 
+     * if the window size is 0, the cumulative statistic series
+     */
+    private double [] fetchDerivedSeries(BuiltinOperator baseStat, int window) 
+    {
+    	if (m_derivedSeries == null)
+    		m_derivedSeries = new HashMap<String, double []>();
+    	
+    	String key = baseStat.name() + ":" + window;
+    	double [] series = m_derivedSeries.get(key);
+    	if (series == null) {
+    		if (window > 0)
+    			series = new SlidingWindowStatEngine(m_values).calcMovingStatistic(baseStat, window);
+    		else
+    			series = new CumulativeStatEngine(m_values).calcCumulativeStatistic(baseStat);
+    		m_derivedSeries.put(key, series);
+    	}
+    	
+    	return series;
+    }
+    
+    private BuiltinOperator toQuartileStatistic(BuiltinOperator stat, Token... params) 
+    {
+        if (params == null || params.length != 1 || !params[0].isNumeric())
+            throw new UnimplementedException("Invalid statistic params: " + stat);  
+        
+        int quartile = params[0].getNumericValue().intValue();
+        switch(quartile) {
+            case 0:
+                return BuiltinOperator.MinOper;
+                
+            case 1:
+                return BuiltinOperator.FirstQuartileOper;
+                
+            case 2:
+                return BuiltinOperator.MedianOper;
+                
+            case 3:
+                return BuiltinOperator.ThirdQuartileOper;
+                
+            case 4:
+                return BuiltinOperator.MaxOper;
+                
+            default:
+                throw new UnimplementedException(String.format("Invalid statistic param: %s -> %d ", stat, quartile));  
+        }
+    }
+
     private Object calcCumulativeStatistic(BuiltinOperator stat, Row cRow, Column cCol, Token... params) 
     {
 		// based on cRow/cCol, figure out where to end the calculation
@@ -496,24 +602,13 @@ public class SingleVariableStatEngine
 		
 		// determine the base statistic we need to calculate
 		BuiltinOperator baseStat = stat.getBaseStatistic();
+		if (baseStat == BuiltinOperator.CountOper)
+			return eIdx + 1;
+		else if (baseStat == BuiltinOperator.QuartileOper)
+			baseStat = toQuartileStatistic(baseStat, params);
 		
-		// if this is the last element, use the main svse
-		if (eIdx == m_n - 1)
-			return this.calcStatistic(baseStat, params);
-		
-		// create a stat engine to do the work
-		SingleVariableStatEngine svse = new SingleVariableStatEngine(baseStat.isRequiresRetainedDataset(), baseStat.isRequiresRetainedSequence(), m_elemType);
-		
-		// gather the cumulative data
-		for (int i = 0; i <= eIdx; i++) {
-			svse.enter(m_values.get(i));
-		}
-		
-		// and calculate the cumulative base statistic
-		Object val = svse.calcStatistic(baseStat, params);
-		svse.reset();
-		svse = null;
-		return val;
+		// as with moving statistics, the cumulative series is calculated once, and cached
+		return fetchDerivedSeries(baseStat, 0)[eIdx];
 	}
 
 	private double calcMode()
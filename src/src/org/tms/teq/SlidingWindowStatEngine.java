@@ -0,0 +1,272 @@
+package org.tms.teq;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.math3.stat.descriptive.AbstractUnivariateStatistic;
+import org.apache.commons.math3.stat.descriptive.moment.Kurtosis;
+import org.apache.commons.math3.stat.descriptive.moment.Skewness;
+import org.tms.api.exceptions.UnimplementedException;
+
+/**
+ * Computes moving (sliding window) statistics over an ordered data series in a single pass.
+ * Sums, means, variances and standard deviations are maintained with running accumulators,
+ * minimums and maximums with monotonic deques, and medians and quartiles with an
+ * order statistic tree, so that each window position costs O(1) or O(log n),
+ * rather than the O(window) required to recompute the statistic from scratch.
+ * <p>
+ * Results match those calculated by a {@link SingleVariableStatEngine} populated with the
+ * values in each window; running sums are periodically recomputed to bound rounding error.
+ */
+class SlidingWindowStatEngine
+{
+    private double [] m_values;
+    private int m_n;
+
+    SlidingWindowStatEngine(List<Double> values)
+    {
+        m_n = values.size();
+        m_values = new double[m_n];
+        for (int i = 0; i < m_n; i++)
+            m_values[i] = values.get(i);
+    }
+
+    /**
+     * Calculate the moving statistic for every position in the data series. Positions
+     * preceding the first full window are set to {@code Double.MIN_VALUE}, the null value.
+     * @param baseStat the statistic to calculate over each window, e.g., {@code MeanOper}
+     * @param window the window size
+     * @return the moving statistic series
+     */
+    double [] calcMovingStatistic(BuiltinOperator baseStat, int window)
+    {
+        if (window < 1)
+            throw new UnimplementedException("Second argument must be > 1");
+
+        double [] series = new double[m_n];
+        Arrays.fill(series, Double.MIN_VALUE);
+        if (window > m_n)
+            return series;
+
+        switch (baseStat) {
+            case SumOper:
+            case Sum2Oper:
+            case SumSqD2Oper:
+            case MeanOper:
+            case StDevPopulationOper:
+            case StDevSampleOper:
+            case VarPopulationOper:
+            case VarSampleOper:
+                calcMovingMoments(baseStat, window, series);
+                break;
+
+            case MinOper:
+            case MaxOper:
+            case RangeOper:
+                calcMovingExtremes(baseStat, window, series);
+                break;
+
+            case MedianOper:
+            case FirstQuartileOper:
+            case ThirdQuartileOper:
+                calcMovingOrderStatistic(baseStat, window, series);
+                break;
+
+            case ModeOper:
+                calcMovingMode(window, series);
+                break;
+
+            case SkewOper:
+                calcMovingStatistic(new Skewness(), window, series);
+                break;
+
+            case KurtosisOper:
+                calcMovingStatistic(new Kurtosis(), window, series);
+                break;
+
+            default:
+                throw new UnimplementedException("Unsupported moving statistic: " + baseStat);
+        }
+
+        return series;
+    }
+
+    private void calcMovingMoments(BuiltinOperator stat, int window, double [] series)
+    {
+        double sumX = 0;
+        double sumX2 = 0;
+        for (int i = 0; i < m_n; i++) {
+            double x = m_values[i];
+            if (i >= window && (i + 1) % window == 0) {
+                // recompute the window sums from scratch to bound accumulated rounding error
+                sumX = sumX2 = 0;
+                for (int j = i - window + 1; j <= i; j++) {
+                    sumX += m_values[j];
+                    sumX2 += m_values[j] * m_values[j];
+                }
+            }
+            else {
+                sumX += x;
+                sumX2 += x * x;
+                if (i >= window) {
+                    double y = m_values[i - window];
+                    sumX -= y;
+                    sumX2 -= y * y;
+                }
+            }
+
+            if (i >= window - 1)
+                series[i] = calcMoment(stat, window, sumX, sumX2);
+        }
+    }
+
+    /**
+     * Calculate the statistic from the window sums, using the same formulae
+     * as the {@link SingleVariableStatEngine}
+     */
+    private double calcMoment(BuiltinOperator stat, int n, double sumX, double sumX2)
+    {
+        double mean = sumX / n;
+        double stDev;
+        switch (stat) {
+            case SumOper:
+                return sumX;
+
+            case Sum2Oper:
+                return sumX2;
+
+            case SumSqD2Oper:
+                return sumX2 - sumX*sumX/n;
+
+            case MeanOper:
+                return mean;
+
+            case StDevPopulationOper:
+                return Math.sqrt((sumX2 - n * mean * mean)/n);
+
+            case VarPopulationOper:
+                stDev = Math.sqrt((sumX2 - n * mean * mean)/n);
+                return stDev * stDev;
+
+            case StDevSampleOper:
+                if (n == 1)
+                    return Double.NaN;
+                return Math.sqrt((sumX2 - n * mean * mean)/(n-1));
+
+            case VarSampleOper:
+                if (n == 1)
+                    return Double.NaN;
+                stDev = Math.sqrt((sumX2 - n * mean * mean)/(n-1));
+                return stDev * stDev;
+
+            default:
+                throw new UnimplementedException("Unsupported moving statistic: " + stat);
+        }
+    }
+
+    private void calcMovingExtremes(BuiltinOperator stat, int window, double [] series)
+    {
+        // monotonic deques of value indices; the head of each is the index of the window min/max
+        int [] minQ = new int[m_n];
+        int [] maxQ = new int[m_n];
+        int minHead = 0, minTail = 0;
+        int maxHead = 0, maxTail = 0;
+
+        for (int i = 0; i < m_n; i++) {
+            double x = m_values[i];
+            while (minTail > minHead && m_values[minQ[minTail - 1]] >= x)
+                minTail--;
+            minQ[minTail++] = i;
+
+            while (maxTail > maxHead && m_values[maxQ[maxTail - 1]] <= x)
+                maxTail--;
+            maxQ[maxTail++] = i;
+
+            // discard indices that have left the window
+            if (minQ[minHead] <= i - window)
+                minHead++;
+            if (maxQ[maxHead] <= i - window)
+                maxHead++;
+
+            if (i >= window - 1) {
+                double min = m_values[minQ[minHead]];
+                double max = m_values[maxQ[maxHead]];
+                switch (stat) {
+                    case MinOper:
+                        series[i] = min;
+                        break;
+
+                    case MaxOper:
+                        series[i] = max;
+                        break;
+
+                    default:
+                        series[i] = Math.abs(max - min);
+                        break;
+                }
+            }
+        }
+    }
+
+    private void calcMovingOrderStatistic(BuiltinOperator stat, int window, double [] series)
+    {
+        OrderStatisticTree ost = new OrderStatisticTree(m_values);
+        for (int i = 0; i < m_n; i++) {
+            ost.add(m_values[i]);
+            if (i >= window)
+                ost.remove(m_values[i - window]);
+
+            if (i >= window - 1)
+                series[i] = ost.calcStatistic(stat, window);
+        }
+    }
+
+    private void calcMovingMode(int window, double [] series)
+    {
+        Map<Double, Integer> frequencies = new HashMap<Double, Integer>(window * 2);
+        for (int i = 0; i < m_n; i++) {
+            frequencies.merge(m_values[i], 1, Integer::sum);
+            if (i >= window)
+                frequencies.computeIfPresent(m_values[i - window], (k, v) -> v > 1 ? v - 1 : null);
+
+            if (i >= window - 1) {
+                if (window == 1) {
+                    series[i] = m_values[i];
+                    continue;
+                }
+
+                // the mode is the mean of the most frequent values
+                int maxFrequency = Integer.MIN_VALUE;
+                int numModes = 0;
+                double sumModes = 0;
+                for (Map.Entry<Double, Integer> e : frequencies.entrySet()) {
+                    int freq = e.getValue();
+                    if (freq > maxFrequency) {
+                        maxFrequency = freq;
+                        numModes = 0;
+                        sumModes = 0;
+                    }
+
+                    if (freq == maxFrequency) {
+                        numModes++;
+                        sumModes += e.getKey();
+                    }
+                }
+
+                series[i] = sumModes / numModes;
+            }
+        }
+    }
+
+    /**
+     * Skewness and kurtosis aren't maintained incrementally, as doing so from running power
+     * sums is numerically unstable; they are recomputed over each window in place
+     */
+    private void calcMovingStatistic(AbstractUnivariateStatistic stat, int window, double [] series)
+    {
+        for (int i = window - 1; i < m_n; i++)
+            series[i] = stat.evaluate(m_values, i - window + 1, window);
+    }
+}
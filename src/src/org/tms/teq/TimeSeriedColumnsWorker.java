@@ -19,7 +19,7 @@ public class TimeSeriedColumnsWorker extends AbstractTimeSeriesWorker
 	@Override
 	protected TableSliceElementImpl addNextSlice() 
 	{
-		return super.m_parentTable.addColumn();
+		return super.m_parentTable.addTimeSeriesedColumn();
 	}
 
 	@Override
@@ -19,7 +19,7 @@ public class TimeSeriedRowsWorker extends AbstractTimeSeriesWorker
 	@Override
 	protected TableSliceElementImpl addNextSlice() 
 	{
-		return super.m_parentTable.addRow();
+		return super.m_parentTable.addTimeSeriesedRow();
 	}
 
 	@Override
@@ -71,7 +71,7 @@ public class TwoVariableStatEngine
         return this.m_nonUniform;
     }
     
-    public Object calcStatistic(BuiltinOperator stat, Token... params)
+    synchronized public Object calcStatistic(BuiltinOperator stat, Token... params)
     {        
         if (stat == BuiltinOperator.CountOper)
             return m_n;
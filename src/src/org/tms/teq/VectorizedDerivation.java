@@ -0,0 +1,141 @@
+package org.tms.teq;
+
+import org.tms.api.Cell;
+import org.tms.api.Column;
+import org.tms.api.Row;
+import org.tms.api.Table;
+import org.tms.api.TableElement;
+import org.tms.api.derivables.Operator;
+import org.tms.api.derivables.Token;
+import org.tms.api.derivables.TokenType;
+import org.tms.api.derivables.VectorizedOperator;
+
+/**
+ * A column derivation consisting of a single call to a {@link VectorizedOperator}, whose arguments are
+ * constants and references to other columns in the same table. Such a derivation is evaluated for batches of
+ * rows with one call to the operator, rather than by interpreting its postfix stack once per cell.
+ * <p>
+ * A row is only added to a batch if the interpreter would pass the operator the same arguments;
+ * rows with null, pending, or error arguments, or, for generic functions, arguments of the wrong type,
+ * are left to the interpreter.
+ */
+final class VectorizedDerivation
+{
+    /** The maximum number of rows evaluated in a single call */
+    static final int sf_MAX_BATCH_SIZE = 1024;
+
+    /**
+     * Analyze the derivation, returning null if it can't be vectorized
+     * @param deriv the derivation
+     * @return the vectorized derivation, or null
+     */
+    static VectorizedDerivation compile(DerivationImpl deriv)
+    {
+        if (deriv == null || !deriv.isConverted() || deriv.getPostfixStackInternal() == null)
+            return null;
+
+        if (!(deriv.getTarget() instanceof Column))
+            return null;
+
+        Column target = (Column)deriv.getTarget();
+        Table tbl = target.getTable();
+        Token [] pfs = deriv.getPostfixStackInternal().toArray(new Token [] {});
+        if (tbl == null || pfs.length < 2)
+            return null;
+
+        // the operator is at the head of the postfix stack, its arguments follow, last to first
+        Operator oper = pfs[0].getOperator();
+        TokenType tt = pfs[0].getTokenType();
+        if (!(oper instanceof VectorizedOperator) || oper instanceof BuiltinOperator || oper.isVariableArgs() ||
+            oper.numArgs() != pfs.length - 1 ||
+            (tt != TokenType.UnaryFunc && tt != TokenType.BinaryFunc && tt != TokenType.GenericFunc))
+            return null;
+
+        // like the interpreter, only check argument types for generic functions
+        boolean checkTypes = tt == TokenType.GenericFunc;
+        int numArgs = oper.numArgs();
+        Column [] refs = new Column [numArgs];
+        Object [] constants = new Object [numArgs];
+        for (int i = 0; i < numArgs; i++) {
+            Token t = pfs[pfs.length - 1 - i];
+            if (t.getTokenType() == TokenType.ColumnRef) {
+                TableElement ref = t.getReferenceValue();
+                if (!(ref instanceof Column) || ref == target || ref.getTable() != tbl)
+                    return null;
+
+                refs[i] = (Column)ref;
+            }
+            else if (t.getTokenType() == TokenType.Operand) {
+                Token constant = new Token(TokenType.Operand, t.getValue());
+                if (constant.isNull() || !constant.isOperand() || (checkTypes && !constant.isA(oper.getArgTypes()[i])))
+                    return null;
+
+                constants[i] = t.getValue();
+            }
+            else
+                return null;
+        }
+
+        return new VectorizedDerivation((VectorizedOperator)oper, tbl, refs, constants, checkTypes);
+    }
+
+    private final VectorizedOperator m_oper;
+    private final Table m_table;
+    private final Column [] m_refs;
+    private final Object [] m_constants;
+    private final Class<?> [] m_argTypes;
+    private final boolean m_checkTypes;
+
+    private VectorizedDerivation(VectorizedOperator oper, Table tbl, Column [] refs, Object [] constants, boolean checkTypes)
+    {
+        m_oper = oper;
+        m_table = tbl;
+        m_refs = refs;
+        m_constants = constants;
+        m_argTypes = oper.getArgTypes();
+        m_checkTypes = checkTypes;
+    }
+
+    /**
+     * Returns the operator arguments for the specified row, as the interpreter would pass them,
+     * or null if the row must be evaluated by the interpreter
+     * @param row the row
+     * @return the operator arguments, or null
+     */
+    Token [] collectArgs(Row row)
+    {
+        Token [] args = new Token [m_refs.length];
+        for (int i = 0; i < args.length; i++) {
+            Token arg;
+            if (m_refs[i] != null) {
+                if (!m_table.isCellDefined(row, m_refs[i]))
+                    return null;
+
+                Cell cell = m_table.getCell(row, m_refs[i]);
+                if (cell == null || cell.isPendings() || cell.isNull() || cell.isErrorValue())
+                    return null;
+
+                arg = new Token(TokenType.Operand, cell.getCellValue());
+            }
+            else
+                arg = new Token(TokenType.Operand, m_constants[i]);
+
+            if (!arg.isOperand() || arg.isNull() || (m_checkTypes && !arg.isA(m_argTypes[i])))
+                return null;
+
+            args[i] = arg;
+        }
+
+        return args;
+    }
+
+    /**
+     * Evaluate the operator for a batch of rows
+     * @param args the operator arguments of each row
+     * @return the results, one per row
+     */
+    Token [] evaluate(Token [][] args)
+    {
+        return m_oper.evaluateBatch(args);
+    }
+}
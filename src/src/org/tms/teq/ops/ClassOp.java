@@ -1,16 +1,21 @@
 package org.tms.teq.ops;
 
+import java.lang.reflect.Array;
 import java.lang.reflect.Constructor;
-import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Set;
 
+import org.tms.api.derivables.InvalidOperatorException;
 import org.tms.api.derivables.Operator;
+import org.tms.api.derivables.Token;
 import org.tms.api.utils.AsynchronousOp;
 import org.tms.api.utils.RegisterOp;
 import org.tms.api.utils.SynchronousOp;
 import org.tms.tds.TokenMapper;
+import org.tms.teq.NullsNotAllowedException;
 
 public class ClassOp  
 {
@@ -70,14 +75,31 @@ public class ClassOp
 					String methodName = m.getName();
 					if (!sf_ExcludedMethods.contains(methodName) || (anno != null && !anno.exclude())) {
 						boolean async = anno != null ? anno.async() : false;
+						boolean vectorized = anno != null ? anno.vectorized() : false;
 						String label = anno != null && anno.token().length() > 0 ? anno.token() : methodName;
 						Class<?>[] argTypes = m.getParameterTypes();
 						
-						Class<?>[] opTypes = new Class<?>[argTypes.length + 1];
-						opTypes[0] = clazz;
-						
-						for (int i = 0; i < argTypes.length; i++) {
-							opTypes[i + 1] = argTypes[i];
+						Class<?>[] opTypes = null;
+						if (vectorized) {
+							// vectorized methods are static, and take and return arrays; 
+							// the operator takes and returns their elements
+							if (async || !Modifier.isStatic(m.getModifiers()) || !retType.isArray() || argTypes.length == 0)
+								throw new InvalidOperatorException("Vectorized operators must be synchronous static methods taking and returning arrays: " + methodName);
+							
+							opTypes = new Class<?>[argTypes.length];
+							for (int i = 0; i < argTypes.length; i++) {
+								if (!argTypes[i].isArray())
+									throw new InvalidOperatorException("Vectorized operators must be synchronous static methods taking and returning arrays: " + methodName);
+								opTypes[i] = argTypes[i].getComponentType();
+							}
+						}
+						else {
+							opTypes = new Class<?>[argTypes.length + 1];
+							opTypes[0] = clazz;
+							
+							for (int i = 0; i < argTypes.length; i++) {
+								opTypes[i + 1] = argTypes[i];
+							}
 						}
 						
 						cats.clear();
@@ -92,7 +114,9 @@ public class ClassOp
 						}
 						
 						Operator op = null;
-						if (async)
+						if (vectorized)
+							op = new VectorizedClassOp(label, opTypes, retType.getComponentType(), m, cats.toArray(new String [] {}));
+						else if (async)
 							op = new AsyncClassOp(label, opTypes, retType, m, cats.toArray(new String [] {}));
 						else
 							op = new SyncClassOp(label, opTypes, retType, m, cats.toArray(new String [] {}));
@@ -106,73 +130,135 @@ public class ClassOp
 	
 	protected static class ConstructClassOp extends SynchronousOp
 	{
-		private Constructor<?> m_constructor;
+		private MethodBinding m_constructor;
 
 		public ConstructClassOp(String label, Class<?>[] argTypes, Class<?> resultType, Constructor<?> maker, String... categories) 
 		{
 			super(label, argTypes, resultType, categories);
-			m_constructor = maker;
+			m_constructor = MethodBinding.bind(maker);
 		}
 
 		@Override
-		public Object performCalculation(Object[] mArgs) throws InstantiationException, IllegalAccessException, IllegalArgumentException, InvocationTargetException  
+		public Object performCalculation(Object[] mArgs) throws Exception  
 		{			
-			Object o = m_constructor.newInstance(mArgs);
+			Object o = m_constructor.invoke(mArgs);
 			return o;
 		}		
 	}
 	
+	/*
+	 * Instance methods are invoked with the object to invoke them on as their first argument
+	 */
 	protected static class SyncClassOp extends SynchronousOp
 	{
-		private Method m_method;
+		private MethodBinding m_method;
 
 		public SyncClassOp(String label, Class<?>[] argTypes, Class<?> resultType, Method method, String... categories) 
 		{
 			super(label, argTypes, resultType, categories);
-			m_method = method;
+			m_method = MethodBinding.bind(method);
 		}
 
 		@Override
-		public Object performCalculation(Object[] mArgs) throws IllegalAccessException, IllegalArgumentException, InvocationTargetException 
+		public Object performCalculation(Object[] mArgs) throws Exception 
 		{
-			Object baseObj = mArgs[0];
-			
-			Object [] opArgs = null;
-			if (numArgs() > 1) {
-				opArgs = new Object [numArgs() - 1];
-				for (int i = 1; i < numArgs(); i++) {
-					opArgs[i - 1] = mArgs[i];
-				}
-			}
-			
-			return m_method.invoke(baseObj, opArgs);
+			return m_method.invoke(mArgs);
 		}		
 	}
 	
 	protected static class AsyncClassOp extends AsynchronousOp
 	{
-		private Method m_method;
+		private MethodBinding m_method;
 
 		public AsyncClassOp(String label, Class<?>[] argTypes, Class<?> resultType, Method method, String... categories) 
 		{
 			super(label, argTypes, resultType, categories);
-			m_method = method;
+			m_method = MethodBinding.bind(method);
+		}
+
+		@Override
+		public Object performCalculation(Object[] mArgs) throws Exception 
+		{
+			return m_method.invoke(mArgs);
+		}		
+	}
+	
+	/*
+	 * Static methods that take arrays of their arguments, and return an array of results, 
+	 * called once per batch of rows
+	 */
+	protected static class VectorizedClassOp extends SynchronousOp
+	{
+		private MethodBinding m_method;
+
+		public VectorizedClassOp(String label, Class<?>[] argTypes, Class<?> resultType, Method method, String... categories) 
+		{
+			super(label, argTypes, resultType, categories);
+			m_method = MethodBinding.bind(method, null);
 		}
 
 		@Override
-		public Object performCalculation(Object[] mArgs) throws IllegalAccessException, IllegalArgumentException, InvocationTargetException 
+		public Object performCalculation(Object[] mArgs) throws Exception 
 		{
-			Object baseObj = mArgs[0];
+			Object results = m_method.invoke(toArrays(new Object[][] {mArgs}));
+			return Array.get(results, 0);
+		}
+		
+		@Override
+		public Token [] evaluateBatch(Token [][] args) 
+		{
+			Token [] results = new Token [args.length];
+			
+			// unpack the arguments of each row; rows with null arguments evaluate to null
+			int numRows = 0;
+			int [] rowIdx = new int [args.length];
+			Object [][] rowArgs = new Object [args.length][];
+			for (int i = 0; i < args.length; i++) {
+				try {
+					rowArgs[numRows] = unpack(args[i]);
+					rowIdx[numRows++] = i;
+				}
+				catch (NullsNotAllowedException e) {
+					results[i] = Token.createNullToken();
+				}
+			}
 			
-			Object [] opArgs = null;
-			if (numArgs() > 1) {
-				opArgs = new Object [numArgs() - 1];
-				for (int i = 1; i < numArgs(); i++) {
-					opArgs[i - 1] = mArgs[i];
+			if (numRows > 0) {
+				Object [][] batchArgs = numRows < rowArgs.length ? Arrays.copyOf(rowArgs, numRows) : rowArgs;
+				try {
+					Object batchResults = m_method.invoke(toArrays(batchArgs));
+					if (batchResults == null || Array.getLength(batchResults) != numRows)
+						throw new IllegalStateException(String.format("%s returned %d results, expected %d", getLabel(), 
+								batchResults != null ? Array.getLength(batchResults) : 0, numRows));
+					
+					for (int i = 0; i < numRows; i++)
+						results[rowIdx[i]] = Token.createOperandToken(Array.get(batchResults, i));
+				}
+				catch (Exception e) {
+					for (int i = 0; i < numRows; i++)
+						results[rowIdx[i]] = Token.createErrorToken(e);
 				}
 			}
 			
-			return m_method.invoke(baseObj, opArgs);
-		}		
+			return results;
+		}
+		
+		/*
+		 * Transpose the rows of arguments into one array per argument, of the method's parameter type
+		 */
+		private Object [] toArrays(Object [][] rowArgs)
+		{
+			Class<?> [] argTypes = getArgTypes();
+			Object [] arrays = new Object [argTypes.length];
+			for (int j = 0; j < argTypes.length; j++) {
+				Object array = Array.newInstance(argTypes[j], rowArgs.length);
+				for (int i = 0; i < rowArgs.length; i++)
+					Array.set(array, i, rowArgs[i][j]);
+				
+				arrays[j] = array;
+			}
+			
+			return arrays;
+		}
 	}
 }
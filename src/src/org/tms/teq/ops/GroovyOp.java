@@ -2,7 +2,7 @@ package org.tms.teq.ops;
 
 import java.io.File;
 import java.io.IOException;
-import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Constructor;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 
@@ -11,16 +11,16 @@ import org.tms.api.derivables.InvalidOperatorException;
 import org.tms.api.derivables.Operator;
 import org.tms.api.derivables.Token;
 import org.tms.api.derivables.TokenType;
+import org.tms.api.derivables.VectorizedOperator;
 import org.tms.api.exceptions.IllegalTableStateException;
 import org.tms.api.utils.AbstractOperator;
 import org.tms.api.utils.RegisterOp;
 import org.tms.tds.TokenMapper;
-import org.tms.teq.NullsNotAllowedException;
 
 import groovy.lang.GroovyClassLoader;
 import groovy.lang.GroovyObject;
 
-public class GroovyOp extends BaseOp
+public class GroovyOp extends BaseOp implements VectorizedOperator
 {   
 	private static GroovyClassLoader sfGroovyClassLoader = null;
 	
@@ -57,7 +57,7 @@ public class GroovyOp extends BaseOp
             // Then, see if we can instantiate the object, and if we can, is it an Operator?
             // if it is, register it and return
             try {
-				GroovyObject groovyObject = (GroovyObject)groovyClazz.newInstance();
+				GroovyObject groovyObject = (GroovyObject)groovyClazz.getDeclaredConstructor().newInstance();
 				if (groovyObject != null && groovyObject instanceof AbstractOperator) {
 					tokenMapper.registerOperator((AbstractOperator)groovyObject);
 					return;
@@ -67,7 +67,7 @@ public class GroovyOp extends BaseOp
 					return;
 				}
             } 
-            catch (IllegalTableStateException | InstantiationException | IllegalAccessException e) {}
+            catch (IllegalTableStateException | ReflectiveOperationException e) {}
             
             // Otherwise, register executable methods
             for (Method m : groovyClazz.getDeclaredMethods()) {
@@ -107,13 +107,22 @@ public class GroovyOp extends BaseOp
     private String m_methodName;
     private Class<?> m_groovyClazz;
     private Method m_method;
-    private Object m_groovyInst;
+    private volatile MethodBinding m_binding;
+    private volatile ThreadLocal<MethodBinding> m_threadBindings;
     
     private GroovyOp(String label, Class<?>[] pTypes, Class<?> resultType, Class<?> groovyClazz, Method m)
     {
         super(label, TokenType.numArgsToTokenType(pTypes != null ? pTypes.length : 0), pTypes, resultType);
         m_groovyClazz = groovyClazz;
         m_method = m;
+        
+        // the class is already compiled; bind the method now
+        try {
+            bindMethod();
+        }
+        catch (NoSuchMethodException e) {
+            throw new InvalidOperatorException(e);
+        }
     }
 
     public GroovyOp(String label, Class<?> [] pTypes, Class<?> resultType, String fileName)
@@ -136,49 +145,89 @@ public class GroovyOp extends BaseOp
     @Override
     public Token evaluate(Token... args)
     {
-    	GroovyClassLoader gcl = null;
         try {
-            // compile the Groovy class
-            if (m_groovyClazz == null && m_file != null) {
-            	gcl = new GroovyClassLoader();
-                m_groovyClazz = gcl.parseClass(m_file); 
-            }
-            
-            // if the class is null at this point, we're done
-            if (m_groovyClazz == null)
-                throw new InvalidOperatorException("cannot load Groovy class");
+            MethodBinding binding = getBinding();
             
-            // now get the method name we're going to call
-            if (m_method == null)
-                m_method = m_groovyClazz.getDeclaredMethod(m_methodName, getArgTypes());
-            
-            // and create an instance object from the class 
-            m_groovyInst = m_groovyClazz.newInstance();
-
             // Transfer the args from the TMS system into
             // an array to set up for the method call
             Object [] mArgs = unpack(args);
             
             // Invoke the method on the Groovy object, with args
-            Object result = m_method.invoke(m_groovyInst, mArgs);
+            Object result = binding.invoke(mArgs);
             
             // and return the result
             return new Token(TokenType.Operand, result);
         }
-        catch (CompilationFailedException | IOException | InstantiationException | 
-               IllegalAccessException | NoSuchMethodException | SecurityException | 
-               IllegalArgumentException | InvocationTargetException | NullsNotAllowedException e)
+        catch (Exception e)
         {
             return Token.createErrorToken(e.getMessage());
         }
-        finally {
-        	try {
-	        	if (gcl != null) {
-	        		gcl.close();
-	        		gcl = null;
-	        	}
-        	} 
-        	catch (IOException e) { /* noop */ }
+    }
+    
+    /*
+     * Compile the Groovy class, if need be, and bind the method, on first use
+     */
+    private MethodBinding getBinding() 
+    throws CompilationFailedException, IOException, NoSuchMethodException
+    {
+        ThreadLocal<MethodBinding> threadBindings = m_threadBindings;
+        if (threadBindings != null)
+            return threadBindings.get();
+        
+        if (m_binding != null)
+            return m_binding;
+        
+        synchronized(this) {
+            if (m_binding == null && m_threadBindings == null) {
+                GroovyClassLoader gcl = null;
+                try {
+                    // compile the Groovy class
+                    if (m_groovyClazz == null && m_file != null) {
+                        gcl = new GroovyClassLoader();
+                        m_groovyClazz = gcl.parseClass(m_file); 
+                    }
+                    
+                    // if the class is null at this point, we're done
+                    if (m_groovyClazz == null)
+                        throw new InvalidOperatorException("cannot load Groovy class");
+                    
+                    // now get the method name we're going to call
+                    if (m_method == null)
+                        m_method = m_groovyClazz.getDeclaredMethod(m_methodName, getArgTypes());
+                    
+                    // and bind it
+                    bindMethod();
+                }
+                finally {
+                    if (gcl != null) 
+                        gcl.close();
+                }
+            }
+            
+            return m_threadBindings != null ? m_threadBindings.get() : m_binding;
+        }
+    }
+    
+    /*
+     * Static methods are bound once; Groovy objects, and scripts in particular, hold mutable state 
+     * and aren't thread safe, so instance methods are bound to an object created for each thread 
+     * that evaluates the operator
+     */
+    private void bindMethod() 
+    throws NoSuchMethodException
+    {
+        if (Modifier.isStatic(m_method.getModifiers()))
+            m_binding = MethodBinding.bind(m_method, null);
+        else {
+            Constructor<?> maker = m_groovyClazz.getDeclaredConstructor();
+            m_threadBindings = ThreadLocal.withInitial(() -> {
+                try {
+                    return MethodBinding.bind(m_method, maker.newInstance());
+                }
+                catch (ReflectiveOperationException e) {
+                    throw new InvalidOperatorException(e);
+                }
+            });
         }
     }
 }
@@ -8,6 +8,7 @@ import java.util.Map;
 
 import org.python.core.Py;
 import org.python.core.PyCode;
+import org.python.core.PyFloat;
 import org.python.core.PyFunction;
 import org.python.core.PyNone;
 import org.python.core.PyObject;
@@ -18,11 +19,12 @@ import org.tms.api.derivables.InvalidOperatorException;
 import org.tms.api.derivables.Operator;
 import org.tms.api.derivables.Token;
 import org.tms.api.derivables.TokenType;
+import org.tms.api.derivables.VectorizedOperator;
 import org.tms.api.utils.AbstractOperator;
 import org.tms.tds.TokenMapper;
 import org.tms.tds.util.JythonHelper;
 
-public class JythonOp extends BaseOp 
+public class JythonOp extends BaseOp implements VectorizedOperator
 {	
 	private static PythonInterpreter sf_PyInterpreter;
 	protected static final PythonInterpreter getPyInterpreterInstance()
@@ -161,14 +163,43 @@ public class JythonOp extends BaseOp
         }
     }
     
+    /**
+     * Converts an argument value to its Python equivalent
+     */
+    @FunctionalInterface
+    private interface PyConverter
+    {
+        PyObject toPy(Object value);
+    }
+    
+    private static final PyConverter sf_DEFAULT_CONVERTER = Py::java2py;
+    private static final PyConverter sf_FLOAT_CONVERTER = v -> v instanceof Double ? new PyFloat((Double)v) : Py.java2py(v);
+    
+    private static PyConverter pyConverterFor(Class<?> argType)
+    {
+        // most values are doubles; avoid the adapter lookup for them
+        if (argType == double.class || argType == Double.class || argType == float.class || argType == Float.class)
+            return sf_FLOAT_CONVERTER;
+        
+        return sf_DEFAULT_CONVERTER;
+    }
+    
     private String m_methodName;
     private PyObject m_pyObj;
+    private PyFunction m_pyFunc;
+    private PyConverter [] m_converters;
     
     private JythonOp(String label, Class<?>[] pTypes, Class<?> resultType, String methodName, PyObject pyObj)
     {
         super(label, TokenType.numArgsToTokenType(pTypes != null ? pTypes.length : 0), pTypes, resultType);
         m_methodName = methodName;
         m_pyObj = pyObj;
+        m_pyFunc = pyObj instanceof PyFunction ? (PyFunction)pyObj : null;
+        
+        // determine the argument conversions once, from the declared signature
+        m_converters = new PyConverter [numArgs()];
+        for (int i = 0; i < m_converters.length; i++) 
+            m_converters[i] = pyConverterFor(pTypes[i]);
     }
 
     private JythonOp(String label, TokenType tt, Class<?>[] argTypes, Class<?> resultType) 
@@ -183,13 +214,13 @@ public class JythonOp extends BaseOp
 	        // Transfer the args from the TMS system into
 	        // an array to set up for the method call
 	        PyObject [] mArgs = new PyObject [numArgs()];
-	        for (int i = 0; i < numArgs(); i++) {
-	            mArgs[i] = Py.java2py(args[i].getValue());
+	        for (int i = 0; i < mArgs.length; i++) {
+	            mArgs[i] = m_converters != null ? m_converters[i].toPy(args[i].getValue()) : Py.java2py(args[i].getValue());
 	        }
 	        
 	        PyObject pyResult;
-	        if (m_pyObj instanceof PyFunction)
-	        	pyResult = ((PyFunction)m_pyObj).__call__(mArgs);
+	        if (m_pyFunc != null)
+	        	pyResult = m_pyFunc.__call__(mArgs);
 	        else
 	        	pyResult = m_pyObj.invoke(m_methodName, mArgs);
 	        
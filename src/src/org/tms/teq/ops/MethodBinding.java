@@ -0,0 +1,120 @@
+package org.tms.teq.ops;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.AccessibleObject;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+import org.tms.api.derivables.InvalidOperatorException;
+
+/**
+ * A {@link MethodHandle} bound, when an operator is registered, to a user method or constructor, and adapted
+ * to take its arguments as a single object array. Invoking a binding avoids the access checks and argument
+ * array copying performed by {@link Method#invoke}; primitive arguments are unboxed, and primitive results
+ * boxed, by the handle itself.
+ */
+final class MethodBinding
+{
+    private static final MethodHandles.Lookup sf_LOOKUP = MethodHandles.lookup();
+
+    /**
+     * Bind a method, invoked with the object to invoke it on followed by its arguments;
+     * the object is ignored for static methods
+     * @param m the method
+     * @return the binding
+     */
+    static MethodBinding bind(Method m)
+    {
+        return new MethodBinding(spread(unreflect(m), m.getParameterCount() + 1));
+    }
+
+    /**
+     * Bind a method to the object to invoke it on, invoked with the method arguments
+     * @param m the method
+     * @param target the object to invoke the method on, ignored for static methods
+     * @return the binding
+     */
+    static MethodBinding bind(Method m, Object target)
+    {
+        return new MethodBinding(spread(MethodHandles.insertArguments(unreflect(m), 0, target), m.getParameterCount()));
+    }
+
+    /**
+     * Bind a constructor, invoked with its arguments
+     * @param c the constructor
+     * @return the binding
+     */
+    static MethodBinding bind(Constructor<?> c)
+    {
+        try {
+            return new MethodBinding(spread(sf_LOOKUP.unreflectConstructor(accessible(c)), c.getParameterCount()));
+        }
+        catch (IllegalAccessException e) {
+            throw new InvalidOperatorException(e);
+        }
+    }
+
+    /**
+     * Returns a handle to the method that takes the object to invoke it on, typed as {@code Object},
+     * as its first argument, whether or not the method is static
+     */
+    private static MethodHandle unreflect(Method m)
+    {
+        try {
+            MethodHandle mh = sf_LOOKUP.unreflect(accessible(m));
+            if (Modifier.isStatic(m.getModifiers()))
+                return MethodHandles.dropArguments(mh, 0, Object.class);
+
+            return mh.asType(mh.type().changeParameterType(0, Object.class));
+        }
+        catch (IllegalAccessException e) {
+            throw new InvalidOperatorException(e);
+        }
+    }
+
+    private static MethodHandle spread(MethodHandle mh, int numArgs)
+    {
+        return mh.asType(MethodType.genericMethodType(numArgs)).asSpreader(Object[].class, numArgs);
+    }
+
+    private static <T extends AccessibleObject> T accessible(T member)
+    {
+        // public members of non-public classes, such as those compiled from scripts, need this
+        try {
+            member.setAccessible(true);
+        }
+        catch (RuntimeException e) { /* noop; rely on the member's own access */ }
+
+        return member;
+    }
+
+    private final MethodHandle m_handle;
+
+    private MethodBinding(MethodHandle handle)
+    {
+        m_handle = handle;
+    }
+
+    /**
+     * Invoke the bound method or constructor
+     * @param args the arguments, which may be null if there are none
+     * @return the result, boxed if primitive
+     * @throws Exception any exception thrown by the method
+     */
+    Object invoke(Object [] args) throws Exception
+    {
+        try {
+            return (Object)m_handle.invokeExact(args);
+        }
+        catch (Exception | Error e) {
+            throw e;
+        }
+        catch (Throwable t) {
+            throw new InvocationTargetException(t);
+        }
+    }
+}
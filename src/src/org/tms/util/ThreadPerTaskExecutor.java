@@ -0,0 +1,208 @@
+package org.tms.util;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An {@link Executor} that runs each task in a new thread, virtual if the Java runtime supports them, and
+ * daemon platform threads otherwise, with at most {@code maxConcurrency} tasks running at once. Tasks
+ * submitted when the limit is reached are queued, and are run, in submission order, by the threads
+ * of the tasks that complete; tasks are started by the submitting thread, without an intermediate
+ * drainer thread.
+ */
+public class ThreadPerTaskExecutor implements Executor
+{
+    private static final ThreadFactory sf_VIRTUAL_THREAD_FACTORY = createVirtualThreadFactory();
+
+    /**
+     * Returns true if tasks run in virtual threads
+     * @return true if the Java runtime supports virtual threads
+     */
+    public static boolean isVirtualThreadsSupported()
+    {
+        return sf_VIRTUAL_THREAD_FACTORY != null;
+    }
+
+    private static ThreadFactory createVirtualThreadFactory()
+    {
+        // virtual threads were added in Java 21; use reflection so we still build for older runtimes
+        try {
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            return (ThreadFactory)builderClass.getMethod("factory").invoke(builder);
+        }
+        catch (Exception e) {
+            return null;
+        }
+    }
+
+    private final String m_namePrefix;
+    private final Queue<Runnable> m_queued;
+    private final AtomicInteger m_numRunning;
+    private final AtomicInteger m_threadNo;
+    private final AtomicLong m_numCompleted;
+    private volatile int m_maxConcurrency;
+    private volatile boolean m_shutdown;
+
+    public ThreadPerTaskExecutor(String namePrefix, int maxConcurrency)
+    {
+        m_namePrefix = namePrefix;
+        m_queued = new ConcurrentLinkedQueue<Runnable>();
+        m_numRunning = new AtomicInteger();
+        m_threadNo = new AtomicInteger();
+        m_numCompleted = new AtomicLong();
+        setMaxConcurrency(maxConcurrency);
+    }
+
+    @Override
+    public void execute(Runnable r)
+    {
+        if (r == null)
+            throw new NullPointerException("Runnable required");
+
+        if (m_shutdown)
+            return;
+
+        m_queued.add(r);
+        if (tryAcquire())
+            newThread(new Worker()).start();
+    }
+
+    /**
+     * Remove a task that is waiting to run
+     * @param r the task
+     * @return true if the task was queued, and has been removed
+     */
+    public boolean remove(Runnable r)
+    {
+        return m_queued.remove(r);
+    }
+
+    /**
+     * Discard the queued tasks; running tasks complete normally
+     */
+    public void shutdown()
+    {
+        m_shutdown = true;
+        m_queued.clear();
+    }
+
+    public boolean isShutdown()
+    {
+        return m_shutdown;
+    }
+
+    public int getMaxConcurrency()
+    {
+        return m_maxConcurrency;
+    }
+
+    public void setMaxConcurrency(int maxConcurrency)
+    {
+        if (maxConcurrency < 1)
+            throw new IllegalArgumentException("Maximum concurrency must be > 0");
+
+        m_maxConcurrency = maxConcurrency;
+
+        // start threads for queued tasks, if the limit has been raised
+        while (!m_queued.isEmpty() && tryAcquire())
+            newThread(new Worker()).start();
+    }
+
+    public int getActiveCount()
+    {
+        return m_numRunning.get();
+    }
+
+    public int getQueuedCount()
+    {
+        return m_queued.size();
+    }
+
+    public long getCompletedTaskCount()
+    {
+        return m_numCompleted.get();
+    }
+
+    /**
+     * Called in the task's thread before the task is run
+     * @param t the thread running the task
+     * @param r the task
+     */
+    protected void beforeExecute(Thread t, Runnable r) { }
+
+    /**
+     * Called in the task's thread after the task completes
+     * @param r the task
+     * @param t the exception thrown by the task, or null
+     */
+    protected void afterExecute(Runnable r, Throwable t) { }
+
+    private boolean tryAcquire()
+    {
+        int running;
+        while ((running = m_numRunning.get()) < m_maxConcurrency) {
+            if (m_numRunning.compareAndSet(running, running + 1))
+                return true;
+        }
+
+        return false;
+    }
+
+    private Thread newThread(Runnable r)
+    {
+        String name = m_namePrefix + "-" + m_threadNo.getAndIncrement();
+        if (sf_VIRTUAL_THREAD_FACTORY != null) {
+            Thread t = sf_VIRTUAL_THREAD_FACTORY.newThread(r);
+            t.setName(name);
+            return t;
+        }
+
+        Thread t = new Thread(r, name);
+        t.setDaemon(true);
+        return t;
+    }
+
+    /**
+     * Runs queued tasks until the queue is empty
+     */
+    private class Worker implements Runnable
+    {
+        @Override
+        public void run()
+        {
+            Thread thread = Thread.currentThread();
+            while (true) {
+                Runnable r;
+                while ((r = m_queued.poll()) != null) {
+                    Throwable thrown = null;
+                    beforeExecute(thread, r);
+                    try {
+                        r.run();
+                    }
+                    catch (RuntimeException | Error e) {
+                        thrown = e;
+                    }
+                    finally {
+                        m_numCompleted.incrementAndGet();
+                        afterExecute(r, thrown);
+                    }
+
+                    // report the failure, but keep this thread's slot, so queued tasks still run
+                    if (thrown != null)
+                        thread.getUncaughtExceptionHandler().uncaughtException(thread, thrown);
+                }
+
+                // release this thread's slot, then make sure a task queued
+                // in the meantime wasn't left without a thread to run it
+                m_numRunning.decrementAndGet();
+                if (m_queued.isEmpty() || !tryAcquire())
+                    return;
+            }
+        }
+    }
+}
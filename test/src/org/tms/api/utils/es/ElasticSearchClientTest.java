@@ -6,7 +6,13 @@ import static org.junit.Assert.assertThat;
 import static org.junit.Assert.fail;
 
 import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.elasticsearch.ElasticsearchStatusException;
 import org.elasticsearch.rest.RestStatus;
@@ -23,6 +29,8 @@ import org.tms.api.io.CSVOptions;
 import org.tms.api.utils.googleapis.ToLatLongStrOp;
 import org.tms.tds.TableImpl;
 
+import com.sun.net.httpserver.HttpServer;
+
 public class ElasticSearchClientTest extends BaseTest 
 {
 	@Test
@@ -130,6 +138,68 @@ public class ElasticSearchClientTest extends BaseTest
 		}
 	}
 	
+	@Test
+	public void testBatchedBulkLoad() throws IOException 
+	{
+		// a stand-in bulk endpoint that rejects the first document of the first request
+		AtomicInteger numRequests = new AtomicInteger();
+		AtomicInteger numDocsReceived = new AtomicInteger();
+		HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+		server.createContext("/_bulk", exchange -> {
+			String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+			int numDocs = (int)body.lines().filter(l -> !l.trim().isEmpty()).count() / 2;
+			boolean reject = numRequests.incrementAndGet() == 1;
+			numDocsReceived.addAndGet(numDocs);
+			
+			StringBuilder sb = new StringBuilder();
+			sb.append(String.format("{\"took\":5,\"errors\":%s,\"items\":[", reject));
+			for (int i = 0; i < numDocs; i++) {
+				if (i > 0)
+					sb.append(',');
+				if (reject && i == 0)
+					sb.append("{\"index\":{\"_index\":\"idx\",\"_type\":\"_doc\",\"_id\":\"0\",\"status\":429," +
+							  "\"error\":{\"type\":\"es_rejected_execution_exception\",\"reason\":\"rejected execution\"}}}");
+				else
+					sb.append(String.format("{\"index\":{\"_index\":\"idx\",\"_type\":\"_doc\",\"_id\":\"%d\",\"_version\":1," +
+							  "\"result\":\"created\",\"_shards\":{\"total\":1,\"successful\":1,\"failed\":0}," +
+							  "\"_seq_no\":%d,\"_primary_term\":1,\"status\":201}}", i, i));
+			}
+			sb.append("]}");
+			
+			byte [] resp = sb.toString().getBytes(StandardCharsets.UTF_8);
+			exchange.getResponseHeaders().set("Content-Type", "application/json; charset=UTF-8");
+			exchange.sendResponseHeaders(200, resp.length);
+			exchange.getResponseBody().write(resp);
+			exchange.close();
+		});
+		server.start();
+		
+		try {
+			Table t = TableFactory.createTable();
+			Column c1 = t.addColumn(Access.ByLabel, "c1");
+			int maxRows = 250;
+			for (int i = 1; i <= maxRows; i++) 
+				t.setCellValue(t.addRow(i), c1, i);
+			
+			ESCOptions opts = ESCOptions.Default.withRecreateIndex(false).withPort(server.getAddress().getPort())
+					.withBulkActions(100).withBulkConcurrentRequests(2).withBulkRetryDelay(10);
+			
+			List<ESBulkStats> stats = Collections.synchronizedList(new ArrayList<ESBulkStats>());
+			int numItems = ElasticSearchClient.bulkLoad(t, "idx", opts, stats::add);
+			assertThat(numItems, is(maxRows));
+			
+			// three batches, one of which resent a rejected document
+			assertThat(stats.size(), is(3));
+			assertThat(stats.stream().mapToInt(s -> s.getNumDocs()).sum(), is(maxRows));
+			assertThat(stats.stream().mapToInt(s -> s.getNumFailed()).sum(), is(0));
+			assertThat(numRequests.get(), is(4));
+			assertThat(numDocsReceived.get(), is(maxRows + 1));
+		}
+		finally {
+			server.stop(0);
+		}
+	}
+	
 	@Ignore
 	@SuppressWarnings("unchecked")
 	@Test
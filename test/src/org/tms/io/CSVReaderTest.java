@@ -6,13 +6,17 @@ import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.fail;
 
+import java.io.File;
+import java.io.FileWriter;
 import java.io.IOException;
+import java.io.PrintWriter;
 
 import org.junit.Test;
 import org.tms.api.Column;
 import org.tms.api.Row;
 import org.tms.api.Table;
 import org.tms.api.exceptions.TableIOException;
+import org.tms.api.factories.TableContextFactory;
 import org.tms.api.io.CSVOptions;
 
 public class CSVReaderTest extends BaseIOTest
@@ -318,4 +322,47 @@ public class CSVReaderTest extends BaseIOTest
             fail(e.getMessage());
         }
     }
+    
+    @Test
+    public final void testParseInParallel() throws IOException
+    {
+        // generate a file large enough to be divided, with quoted values that span lines
+        File f = File.createTempFile("parallel", ".csv");
+        f.deleteOnExit();
+        try {
+            int nRows = 40000;
+            try (PrintWriter pw = new PrintWriter(new FileWriter(f))) {
+                pw.println(",Int,Double,Text,Bool,Sparse");
+                for (int i = 1; i <= nRows; i++) {
+                    pw.print("Row " + i + "," + i + "," + (i * 0.25) + ",");
+                    pw.print(i % 7 == 0 ? "\"Line 1\nLine \"\"2\"\", " + i + "\"" : "Text " + i);
+                    pw.println("," + (i % 2 == 0) + "," + (i % 1000 == 0 ? String.valueOf(-i) : ""));
+                }
+            }
+            
+            Table seq = new CSVReader(f, TableContextFactory.fetchDefaultTableContext(), CSVOptions.Default).parse();
+            Table par = new CSVReader(f, TableContextFactory.fetchDefaultTableContext(), CSVOptions.Default.withParallelImport(4)).parse();
+            
+            assertThat(par.getNumRows(), is(nRows));
+            assertThat(par.getNumRows(), is(seq.getNumRows()));
+            assertThat(par.getNumColumns(), is(seq.getNumColumns()));
+            assertThat(par.getNumCells(), is(seq.getNumCells()));
+            
+            for (int c = 1; c <= seq.getNumColumns(); c++)
+                assertThat(par.getColumn(c).getLabel(), is(seq.getColumn(c).getLabel()));
+            
+            for (int r = 1; r <= nRows; r++) {
+                Row sr = seq.getRow(r);
+                Row pr = par.getRow(r);
+                assertThat(pr.getLabel(), is(sr.getLabel()));
+                for (int c = 1; c <= seq.getNumColumns(); c++) 
+                    assertThat(par.getCellValue(pr, par.getColumn(c)), is(seq.getCellValue(sr, seq.getColumn(c))));
+            }
+            
+            assertThat(par.getCellValue(par.getRow(7), par.getColumn(4)), is("Line 1\nLine \"2\", 7"));
+        }
+        finally {
+            f.delete();
+        }
+    }
 }
@@ -18,6 +18,7 @@ import org.tms.api.Row;
 import org.tms.api.Subset;
 import org.tms.api.Table;
 import org.tms.api.io.PDFOptions;
+import org.tms.io.jasper.TMSReport;
 
 public class PDFWriterTest extends BaseIOTest
 {
@@ -135,6 +136,44 @@ public class PDFWriterTest extends BaseIOTest
         assertThat(pdf.length > 0, is(true));
     }
     
+    @Test
+    public final void testExportCompiledReportReuse() throws IOException
+    {
+        Table t = importCVSFile(qualifiedFileName(SAMPLE1, "csv"), true, true);
+        assertNotNull(t);
+        
+        TMSReport.clearCompiledReports();
+        PDFOptions options = PDFOptions.Default
+                .withPageNumbers(true)
+                .withIgnoreEmptyColumns()
+                .withDefaultColumnWidthInInches(2.8)
+                .withTitle("First Export")
+                .withPages(true);
+        
+        byte [] first = exportTable(t, options);
+        assertThat(first.length > 0, is(true));
+        
+        // same layout, different title, reuses the compiled report
+        byte [] second = exportTable(t, options.withTitle("Second Export"));
+        assertThat(closeTo(first.length, second.length, 50), is(true));
+        
+        // relabeling a column changes the layout
+        t.getColumn(1).setLabel("A Much Longer Column Label");
+        byte [] third = exportTable(t, options);
+        assertThat(third.length > 0, is(true));
+    }
+    
+    private byte [] exportTable(Table t, PDFOptions options) throws IOException
+    {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        t.export(bos, options);
+        bos.close();
+        
+        byte [] pdf = bos.toByteArray();
+        assertNotNull(pdf);
+        return pdf;
+    }
+    
     @Ignore
     @Test
     public final void testExportTablePersistant() throws IOException
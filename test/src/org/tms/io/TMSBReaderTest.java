@@ -0,0 +1,219 @@
+package org.tms.io;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.AfterClass;
+import org.junit.Test;
+import org.tms.api.Access;
+import org.tms.api.Cell;
+import org.tms.api.Column;
+import org.tms.api.Row;
+import org.tms.api.Subset;
+import org.tms.api.Table;
+import org.tms.api.TableContext;
+import org.tms.api.derivables.ErrorCode;
+import org.tms.api.exceptions.TableIOException;
+import org.tms.api.factories.TableContextFactory;
+import org.tms.api.factories.TableFactory;
+import org.tms.api.io.TMSBOptions;
+import org.tms.api.io.TMSOptions;
+import org.tms.tds.TdsUtils;
+
+public class TMSBReaderTest extends BaseArchivalTest
+{
+    @AfterClass
+    static public void cleanup()
+    {
+        TableContext tc = TableContextFactory.fetchDefaultTableContext();
+        TdsUtils.clearGlobalTagCache(tc);
+    }
+
+    private static final String ExportTableGold = "simpleTable.tms";
+
+    @Test
+    public final void testTMSBReaderConstructor()
+    {
+        TMSBReader r = new TMSBReader(qualifiedFileName(ExportTableGold, "tms"), TMSBOptions.Default);
+        assertNotNull(r);
+        assertThat(r.getFileName(), is(ExportTableGold));
+        assertThat(r.isRowNames(), is(true));
+        assertThat(r.isColumnNames(), is(true));
+    }
+
+    @Test
+    public final void testParseTMSFile() throws IOException
+    {
+        // read the TMS gold standard, then round trip it through the binary format
+        Table tms = new TMSReader(qualifiedFileName(ExportTableGold, "tms"), TMSOptions.Default).parse();
+        assertNotNull(tms);
+
+        Table t = roundTrip(tms, TMSBOptions.Default);
+        assertBasicTable(t, tms);
+    }
+
+    @Test
+    public final void testParse() throws IOException
+    {
+        Table gst = getBasicTable();
+        Table t = roundTrip(gst, TMSBOptions.Default);
+        assertBasicTable(t, gst);
+
+        // table properties and tags
+        assertThat(t.getLabel(), is(gst.getLabel()));
+        assertThat(t.isTagged("red", "green"), is(true));
+
+        // subsets
+        assertThat(t.getNumSubsets(), is(gst.getNumSubsets()));
+        Subset s2 = t.getSubset(Access.ByLabel, "Some Cols");
+        assertNotNull(s2);
+        assertThat(s2.getNumColumns(), is(3));
+        assertThat(s2.isTagged("red", "subset"), is(true));
+
+        // derivations
+        Column c5 = t.getColumn(gst.getNumColumns());
+        assertThat(c5.isDerived(), is(true));
+        assertThat(c5.isTagged("derived", "calculated"), is(true));
+
+        Column c1 = t.getColumn(1);
+        Row r1 = t.getRow(1);
+        double v = ((Number)t.getCellValue(r1, c1)).doubleValue();
+        assertThat(((Number)t.getCellValue(r1, c5)).doubleValue(), is(v * v));
+    }
+
+    @Test
+    public final void testParseChunks() throws IOException
+    {
+        int nRows = 1000;
+        Table gst = TableFactory.createTable(nRows, 8);
+        Column dc = gst.addColumn(Access.ByLabel, "Doubles");
+        Column sc = gst.addColumn(Access.ByLabel, "Strings");
+        Column bc = gst.addColumn(Access.ByLabel, "Booleans");
+        Column mc = gst.addColumn(Access.ByLabel, "Mixed");
+        Column ec = gst.addColumn(Access.ByLabel, "Empty");
+
+        for (int i = 1; i <= nRows; i++) {
+            Row r = gst.addRow();
+            gst.setCellValue(r, dc, i * 1.5);
+            if (i % 3 != 0)
+                gst.setCellValue(r, sc, "Row " + (i % 17));
+            gst.setCellValue(r, bc, i % 2 == 0);
+
+            switch (i % 4) {
+                case 0: gst.setCellValue(r, mc, (long)i); break;
+                case 1: gst.setCellValue(r, mc, "Mixed " + i); break;
+                case 2: gst.setCellValue(r, mc, i % 5 == 0); break;
+                default: break;
+            }
+        }
+
+        Cell errCell = gst.getCell(gst.getRow(7), ec);
+        errCell.setCellValue(ErrorCode.DivideByZero);
+
+        Table t = roundTrip(gst, TMSBOptions.Default.withChunkSize(64));
+        assertThat(t.getNumRows(), is(nRows));
+        assertThat(t.getNumColumns(), is(5));
+        assertThat(t.getNumCells(), is(gst.getNumCells()));
+
+        for (int i = 1; i <= nRows; i++) {
+            Row r = t.getRow(i);
+            Row gr = gst.getRow(i);
+            for (int j = 1; j <= 4; j++)
+                assertThat(t.getCellValue(r, t.getColumn(j)), is(gst.getCellValue(gr, gst.getColumn(j))));
+        }
+
+        Cell c = t.getCell(t.getRow(7), t.getColumn(5));
+        assertThat(c.isErrorValue(), is(true));
+        assertThat(c.getErrorCode(), is(ErrorCode.DivideByZero));
+    }
+
+    @Test
+    public final void testParseFile() throws IOException
+    {
+        Table gst = getBasicTable();
+        File f = File.createTempFile("tmsb", ".tmsb");
+        f.deleteOnExit();
+        try {
+            gst.export(f.getAbsolutePath(), TMSBOptions.Default.withChunkSize(2));
+
+            // imported through a memory mapping
+            Table t = TableFactory.importFile(f.getAbsolutePath());
+            assertBasicTable(t, gst);
+
+            // read a single column, without building the table
+            TMSBReader r = new TMSBReader(f.getAbsolutePath(), TMSBOptions.Default);
+            Object [] vals = r.parseColumnValues(1);
+            assertThat(vals.length, is(gst.getNumRows()));
+            for (Row row : gst.rows())
+                assertThat(vals[row.getIndex() - 1], is(gst.getCellValue(row, gst.getColumn(1))));
+
+            assertNull(r.parseColumnValues(gst.getNumColumns())[0]);
+        }
+        finally {
+            f.delete();
+        }
+    }
+
+    @Test
+    public final void testInvalidFile()
+    {
+        try {
+            TMSBReader r = new TMSBReader(qualifiedFileName(ExportTableGold, "tms"), TMSBOptions.Default);
+            r.parse();
+            fail("import succeeded");
+        }
+        catch (Exception e) {
+            assertThat(e instanceof TableIOException, is(true));
+        }
+    }
+
+    private Table roundTrip(Table gst, TMSBOptions options) throws IOException
+    {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        gst.export(bos, options);
+        bos.close();
+
+        byte [] output = bos.toByteArray();
+        assertThat(output.length > 0, is(true));
+
+        TMSBReader r = new TMSBReader(new ByteArrayInputStream(output), TableContextFactory.fetchDefaultTableContext(), options);
+        Table t = r.parse();
+        assertNotNull(t);
+        return t;
+    }
+
+    private void assertBasicTable(Table t, Table gst)
+    {
+        assertThat(t.getNumRows(), is(gst.getNumRows()));
+        assertThat(t.getNumColumns(), is(gst.getNumColumns()));
+        assertThat(t.getNumCells(), is(gst.getNumCells()));
+
+        assertThat(t.getColumn(1).getLabel(), is("A"));
+        assertThat(t.getColumn(2).getLabel(), is("B"));
+        assertThat(t.getColumn(3).getLabel(), is("C"));
+
+        Column c1 = t.getColumn(1);
+        Column c2 = t.getColumn(2);
+        Column c3 = t.getColumn(3);
+        for (Row row : t.rows()) {
+            assertThat(t.getCellValue(row, c1), is(gst.getCellValue(gst.getRow(row.getIndex()), gst.getColumn(1))));
+            assertThat(row.getLabel(), is(t.getCellValue(row, c2) + " Row"));
+
+            if (row.getIndex() != 1)
+                assertThat(Boolean.class.isAssignableFrom(t.getCellValue(row, c3).getClass()), is(true));
+            else {
+                assertThat(t.getCell(row,  c3).getLabel(), is("foo"));
+                assertThat(t.getCell(row,  c3).getUnits(), is("mph"));
+                assertThat(t.getCell(row,  c3).getDescription(), is("Cell Description"));
+            }
+        }
+    }
+}
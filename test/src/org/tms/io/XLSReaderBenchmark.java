@@ -0,0 +1,124 @@
+package org.tms.io;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.ss.usermodel.WorkbookFactory;
+import org.apache.poi.xssf.model.CommentsTable;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.tms.api.Table;
+import org.tms.api.factories.TableContextFactory;
+import org.tms.api.io.XLSOptions;
+
+/**
+ * Compares time to first row, total import time, and peak heap usage of the workbook model
+ * and streamed import of a large xlsx file.
+ * This is not a unit test; run it from the command line:
+ * <pre>
+ * java org.tms.io.XLSReaderBenchmark [numRows [numCols]]
+ * </pre>
+ */
+public class XLSReaderBenchmark
+{
+    public static void main(String [] args) throws Exception
+    {
+        int numRows = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+        int numCols = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+
+        File xlsxFile = File.createTempFile("largeImport", ".xlsx");
+        xlsxFile.deleteOnExit();
+        createWorkbook(xlsxFile, numRows, numCols);
+
+        // time to first row
+        resetPeakHeap();
+        long start = System.currentTimeMillis();
+        try (InputStream in = new FileInputStream(xlsxFile); Workbook dom = WorkbookFactory.create(in)) {
+            dom.getSheetAt(0).getRow(0);
+            System.out.println(String.format("Workbook model: First row (ms): %d, Peak heap (MB): %d",
+                    System.currentTimeMillis() - start, getPeakHeap() >> 20));
+        }
+
+        resetPeakHeap();
+        final long streamStart = System.currentTimeMillis();
+        long [] firstRowAt = {0};
+        try (XlsxStreamReader xsr = new XlsxStreamReader(xlsxFile)) {
+            xsr.readSheets(0, new XlsxStreamReader.SheetProcessor() {
+                @Override
+                public void startSheet(int sheetIndex, String sheetName, CommentsTable comments) {}
+
+                @Override
+                public void row(XlsxStreamReader.StreamedRow row)
+                {
+                    if (firstRowAt[0] == 0)
+                        firstRowAt[0] = System.currentTimeMillis();
+                }
+
+                @Override
+                public void endSheet() {}
+            });
+        }
+        System.out.println(String.format("Streamed: First row (ms): %d, All rows (ms): %d, Peak heap (MB): %d",
+                firstRowAt[0] - streamStart, System.currentTimeMillis() - streamStart, getPeakHeap() >> 20));
+
+        // full imports
+        XLSOptions opts = XLSOptions.Default.withDerivations(false);
+        for (int i = 0; i < 2; i++) {
+            resetPeakHeap();
+            start = System.currentTimeMillis();
+            XlsReader r = new XlsReader(xlsxFile, TableContextFactory.createTableContext(), i == 0 ? opts : opts.withStreaming());
+            Table t = r.parseActiveSheet();
+            System.out.println(String.format("%s import: Rows: %d, Elapsed (ms): %d, Peak heap (MB): %d",
+                    i == 0 ? "Workbook model" : "Streamed", t.getNumRows(), System.currentTimeMillis() - start, getPeakHeap() >> 20));
+        }
+    }
+
+    private static void createWorkbook(File xlsxFile, int numRows, int numCols) throws Exception
+    {
+        SXSSFWorkbook wb = new SXSSFWorkbook(100);
+        try (OutputStream out = new FileOutputStream(xlsxFile)) {
+            org.apache.poi.ss.usermodel.Sheet sheet = wb.createSheet("Large");
+            org.apache.poi.ss.usermodel.Row header = sheet.createRow(0);
+            for (int c = 0; c < numCols; c++)
+                header.createCell(c).setCellValue("Col " + c);
+
+            for (int r = 1; r <= numRows; r++) {
+                org.apache.poi.ss.usermodel.Row row = sheet.createRow(r);
+                row.createCell(0).setCellValue("Row " + r);
+                for (int c = 1; c < numCols; c++)
+                    row.createCell(c).setCellValue(r * c);
+            }
+
+            wb.write(out);
+        }
+        finally {
+            wb.dispose();
+            wb.close();
+        }
+    }
+
+    private static void resetPeakHeap()
+    {
+        System.gc();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP)
+                pool.resetPeakUsage();
+        }
+    }
+
+    private static long getPeakHeap()
+    {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP)
+                peak += pool.getPeakUsage().getUsed();
+        }
+        return peak;
+    }
+}
@@ -6,8 +6,14 @@ import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.fail;
 
+import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 
+import org.apache.poi.xssf.model.CommentsTable;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.junit.Test;
 import org.tms.BaseTest;
 import org.tms.api.Access;
@@ -427,6 +433,15 @@ public class XLSReaderTest extends BaseTest
         simpleFileTester(r);
     }
 
+    @Test
+    public final void testImportSimpleSheetStreaming() 
+    {
+        XlsReader r = new XlsReader(qualifiedFileName(SAMPLE1, "xls"), XLSOptions.Default.withStreaming().withDerivations(false)); 
+        assertNotNull(r);
+        
+        simpleFileTester(r);
+    }
+
     @Test
     public final void testImportSimpleSheetXls() 
     {
@@ -592,6 +607,16 @@ public class XLSReaderTest extends BaseTest
         testImportSheetStatisticEquations(r);
     }
 
+    @Test
+    public final void testImportSheetStatisticEquationsStreaming() 
+    {
+        // sheets with formulas are imported from the workbook model, so that formulas can be translated
+        XlsReader r = new XlsReader(qualifiedFileName(SAMPLE3, "xls"), XLSOptions.Default.withStreaming()); 
+        assertNotNull(r);
+        
+        testImportSheetStatisticEquations(r);
+    }
+
     @Test
     public final void testImportSheetStatisticEquationsWithEmptyRows() 
     {
@@ -677,4 +702,139 @@ public class XLSReaderTest extends BaseTest
         }
     }  
     
+    /**
+     * Imports a large xlsx file with and without streaming, and compares the imported values
+     */
+    @Test
+    public final void testStreamingImportOfLargeWorkbook() throws Exception 
+    {
+        int numRows = 20000;
+        int numCols = 10;
+        File xlsxFile = File.createTempFile("largeImport", ".xlsx");
+        xlsxFile.deleteOnExit();
+        
+        SXSSFWorkbook wb = new SXSSFWorkbook(100);
+        try (OutputStream out = new FileOutputStream(xlsxFile)) {
+            org.apache.poi.ss.usermodel.Sheet sheet = wb.createSheet("Large");
+            org.apache.poi.ss.usermodel.Row header = sheet.createRow(0);
+            for (int c = 0; c < numCols; c++)
+                header.createCell(c).setCellValue("Col " + c);
+            
+            for (int r = 1; r <= numRows; r++) {
+                org.apache.poi.ss.usermodel.Row row = sheet.createRow(r);
+                row.createCell(0).setCellValue("Row " + r);
+                for (int c = 1; c < numCols; c++)
+                    row.createCell(c).setCellValue(r * c);
+            }
+            
+            wb.write(out);
+        }
+        finally {
+            wb.dispose();
+            wb.close();
+        }
+        
+        // rows are streamed in sheet order
+        int [] numStreamedRows = {0};
+        try (XlsxStreamReader xsr = new XlsxStreamReader(xlsxFile)) {
+            xsr.readSheets(0, new XlsxStreamReader.SheetProcessor() {
+                @Override
+                public void startSheet(int sheetIndex, String sheetName, CommentsTable comments) 
+                {
+                    assertThat(sheetIndex, is(0));
+                    assertThat(sheetName, is("Large"));
+                }
+                
+                @Override
+                public void row(XlsxStreamReader.StreamedRow row)
+                {
+                    assertThat(row.getRowNum(), is(numStreamedRows[0]++));
+                    assertThat(row.getNumCells(), is(numCols));
+                }
+
+                @Override
+                public void endSheet() {}
+            });
+        }
+        
+        assertThat(numStreamedRows[0], is(numRows + 1));
+        
+        XLSOptions opts = XLSOptions.Default.withDerivations(false);
+        Table [] tables = new Table[2];
+        for (int i = 0; i < 2; i++) {
+            XlsReader r = new XlsReader(xlsxFile, TableContextFactory.createTableContext(), i == 0 ? opts : opts.withStreaming());
+            tables[i] = r.parseActiveSheet();
+        }
+        
+        assertThat(tables[1].getNumRows(), is(numRows));
+        assertThat(tables[1].getNumColumns(), is(numCols - 1));
+        assertThat(tables[1].getNumRows(), is(tables[0].getNumRows()));
+        assertThat(tables[1].getNumColumns(), is(tables[0].getNumColumns()));
+        for (int r = 1; r <= numRows; r += 997) {
+            Row r0 = tables[0].getRow(r);
+            Row r1 = tables[1].getRow(r);
+            assertThat(r1.getLabel(), is(r0.getLabel()));
+            for (int c = 1; c < numCols; c++)
+                assertThat(tables[1].getCellValue(r1, tables[1].getColumn(c)), is(tables[0].getCellValue(r0, tables[0].getColumn(c))));
+        }
+        
+        assertThat(tables[1].getColumn(1).getLabel(), is("Col 1"));
+    }
+    
+    /**
+     * Only sheets containing formulas are imported from the workbook model; the others are streamed
+     */
+    @Test
+    public final void testStreamingImportOfMixedWorkbook() throws Exception 
+    {
+        File xlsxFile = File.createTempFile("mixedImport", ".xlsx");
+        xlsxFile.deleteOnExit();
+        
+        try (XSSFWorkbook wb = new XSSFWorkbook(); OutputStream out = new FileOutputStream(xlsxFile)) {
+            for (String sheetName : new String [] {"Values", "Formulas", "More Values"}) {
+                org.apache.poi.ss.usermodel.Sheet sheet = wb.createSheet(sheetName);
+                org.apache.poi.ss.usermodel.Row header = sheet.createRow(0);
+                header.createCell(0).setCellValue("A");
+                header.createCell(1).setCellValue("B");
+                
+                for (int r = 1; r <= 5; r++) {
+                    org.apache.poi.ss.usermodel.Row row = sheet.createRow(r);
+                    row.createCell(0).setCellValue(r);
+                    if (sheetName.equals("Formulas"))
+                        row.createCell(1).setCellFormula(String.format("A%d*2", r + 1));
+                    else
+                        row.createCell(1).setCellValue(r * 3);
+                }
+            }
+            
+            wb.write(out);
+        }
+        
+        TableContext tc = TableContextFactory.createTableContext();
+        XlsReader r = new XlsReader(xlsxFile, tc, XLSOptions.Default.withRowLabels(false).withStreaming());
+        r.parseWorkbook();
+        
+        Table values = tc.getTable(Access.ByLabel, "Values");
+        Table formulas = tc.getTable(Access.ByLabel, "Formulas");
+        Table moreValues = tc.getTable(Access.ByLabel, "More Values");
+        assertNotNull(values);
+        assertNotNull(formulas);
+        assertNotNull(moreValues);
+        
+        for (Table t : new Table [] {values, formulas, moreValues}) {
+            assertThat(t.getNumRows(), is(5));
+            assertThat(t.getNumColumns(), is(2));
+        }
+        
+        for (int i = 1; i <= 5; i++) {
+            assertThat(values.getCellValue(values.getRow(i), values.getColumn(2)), is(i * 3.0));
+            assertThat(moreValues.getCellValue(moreValues.getRow(i), moreValues.getColumn(2)), is(i * 3.0));
+            
+            Cell c = formulas.getCell(formulas.getRow(i), formulas.getColumn(2));
+            assertThat(c.isDerived(), is(true));
+            assertThat(c.getCellValue(), is(i * 2.0));
+        }
+    }
+    
+    
 }
@@ -252,6 +252,82 @@ public class XLSXWriterTest extends BaseIOTest
         }        
     }
 
+    @Test
+    public final void testStreamingExportTable() throws IOException
+    {
+        int numRows = 20000;
+        int numCols = 5;
+        Table t = TableFactory.createTable(numRows, numCols + 1);
+        t.setLabel("Large Table");
+        for (int r = 1; r <= numRows; r++)
+            t.addRow(Access.ByIndex, r);
+        
+        for (int c = 1; c <= numCols; c++) {
+            Column col = t.addColumn(Access.ByIndex, c);
+            col.setLabel("Col " + c);
+            col.fill(c);
+        }
+        
+        Column dCol = t.addColumn();
+        dCol.setLabel("D Col");
+        dCol.setDerivation("col 1 * 3");
+        
+        Row r5 = t.getRow(5);
+        r5.setLabel("Row 5");
+        Cell tCell = t.getCell(r5, dCol);
+        tCell.setLabel("Cell5");
+        tCell.setDescription("This cell is commented");
+        
+        File wbFile = File.createTempFile("tmsExcelExportTest", ".xlsx");
+        File sWbFile = File.createTempFile("tmsExcelStreamingExportTest", ".xlsx");
+        try {
+            XLSOptions opts = XLSOptions.Default.withColumnLabels(true).withRowLabels(true);
+            
+            t.export(wbFile.getAbsolutePath(), opts);
+            t.export(sWbFile.getAbsolutePath(), opts.withStreamingRowWindow(100));
+            
+            // formulas and comments are written to rows long since flushed
+            try (Workbook wb = WorkbookFactory.create(sWbFile)) {
+                assertThat(wb.getNumberOfSheets(), is(1));
+                
+                Sheet sheet = wb.getSheet("Large Table");
+                assertNotNull(sheet);
+                assertThat(sheet.getLastRowNum(), is(numRows));
+                assertThat(sheet.getRow(numRows).getLastCellNum(), is((short)(numCols + 2)));
+                
+                vetExcelCell(sheet, 0, 6, "D Col", null, false);
+                vetExcelCell(sheet, 1, 1, 1.0, null, false);
+                vetExcelCell(sheet, 5, 6, 3.0, "B6 * 3.0", true);
+                vetExcelCell(sheet, numRows, 6, 3.0, String.format("B%d * 3.0", numRows + 1), false);
+                
+                assertNotNull(wb.getName("Cell5"));
+                
+                // and the streamed workbook matches the one written from the workbook model
+                try (Workbook mWb = WorkbookFactory.create(wbFile)) {
+                    Sheet mSheet = mWb.getSheet("Large Table");
+                    assertNotNull(mSheet);
+                    assertThat(sheet.getLastRowNum(), is(mSheet.getLastRowNum()));
+                    for (int r = 0; r <= numRows; r += 499) {
+                        org.apache.poi.ss.usermodel.Row mRow = mSheet.getRow(r);
+                        for (int c = 0; c < mRow.getLastCellNum(); c++) {
+                            org.apache.poi.ss.usermodel.Cell mCell = mRow.getCell(c);
+                            if (mCell == null || fetchCellValue(mCell) == null)
+                                assertThat(fetchCellValue(sheet.getRow(r).getCell(c)), nullValue());
+                            else
+                                vetExcelCell(sheet, r, c, fetchCellValue(mCell), 
+                                        mCell.getCellType() == CellType.FORMULA ? mCell.getCellFormula() : null, 
+                                        mCell.getCellComment() != null);
+                        }
+                    }
+                }
+            }
+        }
+        finally {
+            wbFile.delete();
+            sWbFile.delete();
+        }
+    }
+
     private void vetExcelCell(Sheet sheet, int rowIdx, int colIdx, Object cellVal, String formula, boolean hasComment)
     {
         org.apache.poi.ss.usermodel.Row eRow = sheet.getRow(rowIdx);
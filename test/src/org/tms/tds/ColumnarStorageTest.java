@@ -0,0 +1,232 @@
+package org.tms.tds;
+
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNull.notNullValue;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+import org.tms.api.Access;
+import org.tms.api.Cell;
+import org.tms.api.TableProperty;
+
+public class ColumnarStorageTest
+{
+    @Test
+    public void testColumnarStorageProperty()
+    {
+        ContextImpl tc = new ContextImpl();
+        assertThat(tc.isColumnarStorage(), is(false));
+        assertThat(tc.getPropertyBoolean(TableProperty.isColumnarStorage), is(false));
+
+        tc.setColumnarStorage(true);
+        TableImpl t = TableImpl.createTable(tc);
+        assertThat(t, notNullValue());
+        assertThat(t.isColumnarStorage(), is(true));
+        assertThat(t.getPropertyBoolean(TableProperty.isColumnarStorage), is(true));
+
+        t.setColumnarStorage(false);
+        assertThat(t.isColumnarStorage(), is(false));
+    }
+
+    @Test
+    public void testColumnarCellValues()
+    {
+        TableImpl t = new TableImpl(10, 10);
+        t.setColumnarStorage(true);
+
+        ColumnImpl c1 = t.addColumn(Access.ByIndex, 1);
+        c1.setDataType(Double.class);
+        assertThat(c1.isColumnarStorage(), is(true));
+
+        ColumnImpl c2 = t.addColumn(Access.ByIndex, 2);
+        assertThat(c2.isColumnarStorage(), is(false));
+
+        for (int i = 1; i <= 100; i++) {
+            RowImpl r = t.addRow(Access.ByIndex, i);
+            assertThat(t.setCellValue(r, c1, (double)i), is(true));
+        }
+
+        // values are held in the columnar store, no cells created
+        assertThat(c1.getNumCells(), is(100));
+        assertThat(c1.getCellsSize(), is(0));
+
+        RowImpl r10 = t.getRow(Access.ByIndex, 10);
+        assertThat(t.isCellDefined(r10, c1), is(true));
+        assertThat(t.getCellValue(r10, c1), is(10.0));
+        assertThat(c1.getCellsSize(), is(0));
+
+        // setting the same value again reports no change
+        assertThat(t.setCellValue(r10, c1, 10.0), is(false));
+
+        // values that don't match the data type are handled by cells
+        assertThat(t.setCellValue(r10, c1, 12), is(true));
+        assertThat(t.getCellValue(r10, c1), is(12));
+        assertThat(c1.getNumCells(), is(100));
+
+        // requesting a cell migrates the value out of the store
+        RowImpl r20 = t.getRow(Access.ByIndex, 20);
+        CellImpl cell = t.getCell(r20, c1);
+        assertThat(cell, notNullValue());
+        assertThat(cell.getCellValue(), is(20.0));
+        assertThat(c1.getNumCells(), is(100));
+
+        cell.setCellValue(200.0);
+        assertThat(t.getCellValue(r20, c1), is(200.0));
+
+        // nulls remove the value
+        RowImpl r30 = t.getRow(Access.ByIndex, 30);
+        t.setCellValue(r30, c1, null);
+        assertThat(t.getCellValue(r30, c1), nullValue());
+        assertThat(c1.getNumCells(), is(99));
+    }
+
+    @Test
+    public void testColumnarIntegralValues()
+    {
+        TableImpl t = new TableImpl(10, 10);
+        t.setColumnarStorage(true);
+
+        ColumnImpl c1 = t.addColumn(Access.ByIndex, 1);
+        c1.setDataType(Integer.class);
+        assertThat(c1.isColumnarStorage(), is(true));
+
+        RowImpl r1 = t.addRow(Access.ByIndex, 1);
+        t.setCellValue(r1, c1, 42);
+
+        Object value = t.getCellValue(r1, c1);
+        assertThat(value instanceof Integer, is(true));
+        assertThat(value, is(42));
+        assertThat(c1.getCellsSize(), is(0));
+    }
+
+    @Test
+    public void testColumnarFill()
+    {
+        TableImpl t = new TableImpl(10, 10);
+        t.setColumnarStorage(true);
+
+        ColumnImpl c1 = t.addColumn(Access.ByIndex, 1);
+        c1.setDataType(Double.class);
+        t.addRow(Access.ByIndex, 50);
+
+        assertThat(c1.fill(3.5), is(true));
+        assertThat(c1.getNumCells(), is(50));
+        assertThat(c1.getCellsSize(), is(0));
+        assertThat(t.getCellValue(t.getRow(Access.ByIndex, 25), c1), is(3.5));
+
+        // stats read the stored values, without materializing cells
+        ColumnImpl c2 = t.addColumn(Access.ByIndex, 2);
+        c2.setDerivation("sum(col 1)");
+        assertThat(t.getCellValue(t.getRow(Access.ByIndex, 1), c2), is(175.0));
+        assertThat(c1.getCellsSize(), is(0));
+        assertThat(c1.getNumCells(), is(50));
+
+        assertThat(c1.clear(), is(true));
+        assertThat(t.getCellValue(t.getRow(Access.ByIndex, 25), c1), nullValue());
+    }
+
+    @Test
+    public void testExistingCells()
+    {
+        TableImpl t = new TableImpl(10, 10);
+        t.setColumnarStorage(true);
+
+        ColumnImpl c1 = t.addColumn(Access.ByIndex, 1);
+        c1.setDataType(Double.class);
+        for (int i = 1; i <= 10; i++)
+            t.setCellValue(t.addRow(Access.ByIndex, i), c1, (double)i);
+
+        // materialize one cell; the others remain in the store
+        RowImpl r5 = t.getRow(Access.ByIndex, 5);
+        CellImpl cell = t.getCell(r5, c1);
+
+        List<Object> values = new ArrayList<Object>();
+        List<Cell> cells = new ArrayList<Cell>();
+        for (Cell c : c1.existingCells((r, v) -> values.add(v))) {
+            cells.add(c);
+            values.add(c.getCellValue());
+        }
+
+        assertThat(cells.size(), is(1));
+        assertThat(cells.get(0), is(cell));
+        assertThat(values.size(), is(10));
+        for (int i = 0; i < 10; i++)
+            assertThat(values.get(i), is((double)(i + 1)));
+
+        assertThat(c1.findCell(r5), is(cell));
+        assertThat(c1.findCell(t.getRow(Access.ByIndex, 6)), nullValue());
+        assertThat(t.getCellValue(t.getRow(Access.ByIndex, 6), c1), is(6.0));
+    }
+
+    @Test
+    public void testColumnarDerivations()
+    {
+        TableImpl t = new TableImpl(10, 10);
+        t.setColumnarStorage(true);
+
+        ColumnImpl c1 = t.addColumn(Access.ByIndex, 1);
+        c1.setDataType(Double.class);
+        ColumnImpl c2 = t.addColumn(Access.ByIndex, 2);
+        c2.setDataType(Double.class);
+
+        RowImpl r1 = t.addRow(Access.ByIndex, 1);
+        t.setCellValue(r1, c1, 2.0);
+
+        c2.setDerivation("col 1 * 2");
+        assertThat(t.getCellValue(r1, c2), is(4.0));
+
+        // c1 affects c2, so the new value must trigger recalculation
+        t.setCellValue(r1, c1, 5.0);
+        assertThat(t.getCellValue(r1, c2), is(10.0));
+    }
+
+    @Test
+    public void testDisableColumnarStorage()
+    {
+        TableImpl t = new TableImpl(10, 10);
+        t.setColumnarStorage(true);
+
+        ColumnImpl c1 = t.addColumn(Access.ByIndex, 1);
+        c1.setDataType(Long.class);
+
+        for (int i = 1; i <= 10; i++) {
+            RowImpl r = t.addRow(Access.ByIndex, i);
+            t.setCellValue(r, c1, (long)i);
+        }
+
+        assertThat(c1.getCellsSize(), is(0));
+
+        t.setColumnarStorage(false);
+        assertThat(c1.isColumnarStorage(), is(false));
+        assertThat(c1.getNumCells(), is(10));
+        assertThat(c1.getCellsSize(), is(10));
+        assertThat(t.getCellValue(t.getRow(Access.ByIndex, 5), c1), is(5L));
+    }
+
+    @Test
+    public void testColumnarRowDeletion()
+    {
+        TableImpl t = new TableImpl(10, 10);
+        t.setColumnarStorage(true);
+
+        ColumnImpl c1 = t.addColumn(Access.ByIndex, 1);
+        c1.setDataType(Double.class);
+
+        for (int i = 1; i <= 20; i++) {
+            RowImpl r = t.addRow(Access.ByIndex, i);
+            t.setCellValue(r, c1, (double)i);
+        }
+
+        t.getRow(Access.ByIndex, 5).delete();
+        assertThat(c1.getNumCells(), is(19));
+        assertThat(t.getCellValue(t.getRow(Access.ByIndex, 5), c1), is(6.0));
+
+        // reused cell offsets must not expose the deleted value
+        RowImpl r = t.addRow(Access.ByIndex, 21);
+        assertThat(t.getCellValue(r, c1), nullValue());
+    }
+}
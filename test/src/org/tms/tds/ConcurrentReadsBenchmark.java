@@ -0,0 +1,95 @@
+package org.tms.tds;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.tms.api.Access;
+
+/**
+ * Reports cell read throughput as the number of reader threads grows, while a single writer
+ * modifies cell values, with and without concurrent reads enabled.
+ * This is not a unit test; run it from the command line:
+ * <pre>
+ * java org.tms.tds.ConcurrentReadsBenchmark [maxReaders [millis]]
+ * </pre>
+ */
+public class ConcurrentReadsBenchmark
+{
+    private static final int sf_NUM_ROWS = 1000;
+    private static final int sf_NUM_COLS = 10;
+
+    public static void main(String [] args) throws InterruptedException
+    {
+        int maxReaders = args.length > 0 ? Integer.parseInt(args[0]) :
+            Math.max(2, Runtime.getRuntime().availableProcessors());
+        long millis = args.length > 1 ? Long.parseLong(args[1]) : 1000;
+
+        for (boolean concurrent : new boolean [] {false, true}) {
+            TableImpl t = populate(concurrent);
+
+            // warm up
+            measureReads(t, 1, millis);
+
+            for (int nReaders = 1; nReaders <= maxReaders; nReaders *= 2) {
+                long reads = measureReads(t, nReaders, millis);
+                System.out.println(String.format("Concurrent reads: %s, Readers: %d, Reads/sec: %,d",
+                        concurrent, nReaders, reads * 1000 / millis));
+            }
+        }
+    }
+
+    private static long measureReads(TableImpl t, int nReaders, long millis) throws InterruptedException
+    {
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicLong reads = new AtomicLong();
+
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int i = 0; i < nReaders; i++) {
+            threads.add(new Thread(() -> {
+                long n = 0;
+                while (running.get()) {
+                    for (int rIdx = 1; rIdx <= sf_NUM_ROWS; rIdx++) {
+                        t.getCellValue(t.getRow(rIdx), t.getColumn(1 + rIdx % sf_NUM_COLS));
+                        n++;
+                    }
+                }
+                reads.addAndGet(n);
+            }));
+        }
+
+        threads.add(new Thread(() -> {
+            ColumnImpl c = t.getColumn(Access.ByIndex, sf_NUM_COLS);
+            double v = 0;
+            while (running.get())
+                t.setCellValue(t.getRow(Access.ByIndex, 1 + (int)(v % sf_NUM_ROWS)), c, v++);
+        }));
+
+        threads.forEach(th -> th.start());
+        Thread.sleep(millis);
+        running.set(false);
+        for (Thread th : threads)
+            th.join();
+
+        return reads.get();
+    }
+
+    private static TableImpl populate(boolean concurrentReads)
+    {
+        TableImpl t = new TableImpl(sf_NUM_ROWS, sf_NUM_COLS);
+        t.setConcurrentReads(concurrentReads);
+
+        for (int cIdx = 1; cIdx <= sf_NUM_COLS; cIdx++)
+            t.addColumn(Access.ByIndex, cIdx);
+
+        for (int rIdx = 1; rIdx <= sf_NUM_ROWS; rIdx++) {
+            RowImpl r = t.addRow(Access.ByIndex, rIdx);
+            r.setLabel("Row " + rIdx);
+            for (int cIdx = 1; cIdx <= sf_NUM_COLS; cIdx++)
+                t.setCellValue(r, t.getColumn(Access.ByIndex, cIdx), (double)rIdx);
+        }
+
+        return t;
+    }
+}
@@ -0,0 +1,204 @@
+package org.tms.tds;
+
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNull.notNullValue;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+import org.tms.api.Access;
+import org.tms.api.TableProperty;
+
+public class ConcurrentReadsTest
+{
+    private static final int sf_NUM_ROWS = 1000;
+    private static final int sf_NUM_COLS = 10;
+
+    @Test
+    public void testConcurrentReadsProperty()
+    {
+        ContextImpl tc = new ContextImpl();
+        assertThat(tc.isConcurrentReads(), is(false));
+        assertThat(tc.getPropertyBoolean(TableProperty.isConcurrentReads), is(false));
+
+        tc.setConcurrentReads(true);
+        TableImpl t = TableImpl.createTable(tc);
+        assertThat(t, notNullValue());
+        assertThat(t.isConcurrentReads(), is(true));
+        assertThat(t.getPropertyBoolean(TableProperty.isConcurrentReads), is(true));
+
+        t.setConcurrentReads(false);
+        assertThat(t.isConcurrentReads(), is(false));
+    }
+
+    @Test
+    public void testReadWhileTableLocked() throws InterruptedException
+    {
+        TableImpl t = populate(true);
+        RowImpl r = t.getRow(Access.ByIndex, 10);
+        ColumnImpl c = t.getColumn(Access.ByIndex, 5);
+
+        AtomicReference<Object> result = new AtomicReference<Object>();
+        AtomicBoolean defined = new AtomicBoolean();
+        CountDownLatch done = new CountDownLatch(1);
+
+        // a reader completes even though another thread holds the table monitor
+        synchronized (t) {
+            Thread reader = new Thread(() -> {
+                result.set(t.getCellValue(t.getRow(10), t.getColumn(5)));
+                defined.set(t.isCellDefined(t.getRow(10), t.getColumn(5)));
+                done.countDown();
+            });
+
+            reader.start();
+            assertThat(done.await(5, TimeUnit.SECONDS), is(true));
+        }
+
+        assertThat(result.get(), is(t.getCellValue(r, c)));
+        assertThat(defined.get(), is(true));
+    }
+
+    @Test
+    public void testReadsDuringStructuralChanges() throws InterruptedException
+    {
+        TableImpl t = populate(true);
+        ColumnImpl c1 = t.getColumn(Access.ByIndex, 1);
+
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+
+        // readers verify that every value they see belongs to the row that was read
+        List<Thread> readers = new ArrayList<Thread>();
+        for (int i = 0; i < 4; i++) {
+            Thread reader = new Thread(() -> {
+                try {
+                    while (running.get()) {
+                        for (int rIdx = 1; rIdx <= sf_NUM_ROWS; rIdx++) {
+                            RowImpl r = t.getRow(rIdx);
+                            if (r == null)
+                                continue;
+
+                            Object label = r.getLabel();
+                            Object value = t.getCellValue(r, c1);
+                            if (label != null && value != null && !label.equals("Row " + ((Double)value).intValue()))
+                                throw new AssertionError("Value " + value + " read from " + label);
+                        }
+                    }
+                }
+                catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                }
+            });
+
+            readers.add(reader);
+            reader.start();
+        }
+
+        // writer adds, sorts, and deletes rows
+        for (int i = 0; i < 50; i++) {
+            RowImpl r = t.addRow(Access.First);
+            r.setLabel("Row " + (sf_NUM_ROWS + i + 1));
+            t.setCellValue(r, c1, (double)(sf_NUM_ROWS + i + 1));
+
+            c1.sort();
+            t.getRow(Access.ByIndex, 1 + (i % 10)).delete();
+        }
+
+        running.set(false);
+        for (Thread reader : readers)
+            reader.join();
+
+        if (failure.get() != null)
+            throw new AssertionError(failure.get());
+    }
+
+    @Test
+    public void testReadsDuringValueChanges() throws InterruptedException
+    {
+        for (boolean concurrent : new boolean [] {false, true}) {
+            TableImpl t = populate(concurrent);
+            AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+            long reads = readWhileWriting(t, 4, 250, failure);
+            
+            if (failure.get() != null)
+                throw new AssertionError(failure.get());
+            assertThat(reads > 0, is(true));
+        }
+    }
+
+    /**
+     * Read the cells not modified by a concurrent writer, verifying each value read
+     * @return the number of reads
+     */
+    private long readWhileWriting(TableImpl t, int nReaders, long millis, AtomicReference<Throwable> failure) 
+            throws InterruptedException
+    {
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicLong reads = new AtomicLong();
+
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int i = 0; i < nReaders; i++) {
+            threads.add(new Thread(() -> {
+                long n = 0;
+                try {
+                    while (running.get()) {
+                        for (int rIdx = 1; rIdx <= sf_NUM_ROWS; rIdx++) {
+                            ColumnImpl c = t.getColumn(1 + rIdx % (sf_NUM_COLS - 1));
+                            if (!t.isCellDefined(t.getRow(rIdx), c))
+                                throw new AssertionError("Cell not defined: " + rIdx);
+                            
+                            Object value = t.getCellValue(t.getRow(rIdx), c);
+                            if (value == null || ((Double)value).intValue() != rIdx)
+                                throw new AssertionError("Value " + value + " read from row " + rIdx);
+                            n++;
+                        }
+                    }
+                }
+                catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                }
+                reads.addAndGet(n);
+            }));
+        }
+
+        threads.add(new Thread(() -> {
+            ColumnImpl c = t.getColumn(Access.ByIndex, sf_NUM_COLS);
+            double v = 0;
+            while (running.get())
+                t.setCellValue(t.getRow(Access.ByIndex, 1 + (int)(v % sf_NUM_ROWS)), c, v++);
+        }));
+
+        threads.forEach(th -> th.start());
+        Thread.sleep(millis);
+        running.set(false);
+        for (Thread th : threads)
+            th.join();
+
+        return reads.get();
+    }
+
+    private TableImpl populate(boolean concurrentReads)
+    {
+        TableImpl t = new TableImpl(sf_NUM_ROWS, sf_NUM_COLS);
+        t.setConcurrentReads(concurrentReads);
+
+        for (int cIdx = 1; cIdx <= sf_NUM_COLS; cIdx++)
+            t.addColumn(Access.ByIndex, cIdx);
+
+        for (int rIdx = 1; rIdx <= sf_NUM_ROWS; rIdx++) {
+            RowImpl r = t.addRow(Access.ByIndex, rIdx);
+            r.setLabel("Row " + rIdx);
+            for (int cIdx = 1; cIdx <= sf_NUM_COLS; cIdx++)
+                t.setCellValue(r, t.getColumn(Access.ByIndex, cIdx), (double)rIdx);
+        }
+
+        return t;
+    }
+}
@@ -2,10 +2,13 @@ package org.tms.tds;
 
 import static org.hamcrest.core.Is.is;
 import static org.hamcrest.core.IsNull.notNullValue;
+import static org.hamcrest.core.IsNull.nullValue;
 import static org.junit.Assert.assertThat;
 
 import org.junit.Test;
 import org.tms.api.Access;
+import org.tms.api.ElementType;
+import org.tms.api.SortKey;
 
 public class SortTableTest
 {
@@ -79,4 +82,61 @@ public class SortTableTest
         assertThat(r10.getIndex(), is(1));
         assertThat(r5000.getIndex(), is(2));      
     } 
+    
+    @Test
+    public void testSortKeys()
+    {
+        TableImpl t = new TableImpl(10, 10);
+        ColumnImpl c1 = t.addColumn(Access.ByIndex, 1);
+        ColumnImpl c2 = t.addColumn(Access.ByIndex, 2);
+        t.addRows(new Object [][] {{"b", 2}, {"a", 5}, {null, 1}, {"b", 1.5}, {"a", null}, {"b", 2}});
+        RowImpl r1 = t.getRow(1);
+        RowImpl r6 = t.getRow(6);
+        
+        // nulls sort last, and numbers of different types compare by value
+        t.sort(ElementType.Row, SortKey.by(c1), SortKey.by(c2).descending());
+        assertThat(t.getCellValue(t.getRow(1), c1), is("a"));
+        assertThat(t.getCellValue(t.getRow(1), c2), is(5));
+        assertThat(t.getCellValue(t.getRow(2), c2), nullValue());
+        assertThat(t.getCellValue(t.getRow(5), c2), is(1.5));
+        assertThat(t.getCellValue(t.getRow(6), c1), nullValue());
+        
+        // the sort is stable
+        assertThat(r1.getIndex(), is(3));
+        assertThat(r6.getIndex(), is(4));
+        
+        t.sort(ElementType.Row, SortKey.by(c2).nullsFirst());
+        assertThat(t.getCellValue(t.getRow(1), c2), nullValue());
+        assertThat(t.getCellValue(t.getRow(2), c2), is(1));
+        assertThat(t.getCellValue(t.getRow(3), c2), is(1.5));
+        assertThat(t.getCellValue(t.getRow(6), c2), is(5));
+        
+        for (int i = 1; i <= t.getNumRows(); i++)
+            assertThat(t.getRow(i).getIndex(), is(i));
+    }
+    
+    @Test
+    public void testSortLargeTable()
+    {
+        int nRows = 50000;
+        TableImpl t = new TableImpl(nRows, 10);
+        ColumnImpl c1 = t.addColumn(Access.ByIndex, 1);
+        ColumnImpl c2 = t.addColumn(Access.ByIndex, 2);
+        
+        Object [][] vals = new Object[nRows][];
+        for (int i = 0; i < nRows; i++)
+            vals[i] = new Object [] {(long)((i * 7919) % 101), i};
+        t.addRows(vals);
+        
+        t.sort(ElementType.Row, SortKey.by(c1).descending());
+        
+        // ties retain their original order
+        for (int i = 2; i <= nRows; i++) {
+            long prev = (Long)t.getCellValue(t.getRow(i - 1), c1);
+            long cur = (Long)t.getCellValue(t.getRow(i), c1);
+            assertThat(prev >= cur, is(true));
+            if (prev == cur)
+                assertThat((Integer)t.getCellValue(t.getRow(i - 1), c2) < (Integer)t.getCellValue(t.getRow(i), c2), is(true));
+        }
+    }
 }
@@ -2,6 +2,7 @@ package org.tms.tds;
 
 import static org.hamcrest.core.Is.is;
 import static org.hamcrest.core.IsNull.notNullValue;
+import static org.hamcrest.core.IsNull.nullValue;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.fail;
 
@@ -9,7 +10,10 @@ import java.util.List;
 
 import org.junit.Test;
 import org.tms.api.Access;
+import org.tms.api.Cell;
+import org.tms.api.Column;
 import org.tms.api.ElementType;
+import org.tms.api.Row;
 import org.tms.api.TableProperty;
 import org.tms.api.exceptions.InvalidException;
 import org.tms.api.exceptions.ReadOnlyException;
@@ -232,6 +236,174 @@ public class TableTest
         assertThat(rng.isInvalid(), is(true));        
     }
     
+    @Test
+    public void bulkAddRowsTest()
+    {
+        TableImpl t = new TableImpl(10, 10);
+        ColumnImpl c1 = t.addColumn(Access.ByIndex, 1);
+        ColumnImpl c3 = t.addColumn(Access.ByIndex, 3);
+        c3.setDerivation("col 1 * 2");
+        
+        List<Row> rows = t.addRows(new Object [][] {{1, "a"}, {2, "b"}, {3}});
+        assertThat(rows.size(), is(3));
+        assertThat(t.getNumRows(), is(3));
+        assertThat(t.getNumColumns(), is(3));
+        
+        assertThat(t.getCellValue(rows.get(1), c1), is(2));
+        assertThat(t.getCellValue(rows.get(1), t.getColumn(2)), is("b"));
+        assertThat(t.getCellValue(rows.get(2), t.getColumn(2)), nullValue());
+        
+        // derived columns are recalculated, not set
+        assertThat(t.getCellValue(rows.get(0), c3), is(2.0));
+        assertThat(t.getCellValue(rows.get(2), c3), is(6.0));
+        
+        // append rows by column
+        rows = t.addRows(new Column [] {c1}, new Object [] {4, 5});
+        assertThat(rows.size(), is(2));
+        assertThat(rows.get(0).getIndex(), is(4));
+        assertThat(t.getNumRows(), is(5));
+        assertThat(t.getCellValue(rows.get(1), c1), is(5));
+        assertThat(t.getCellValue(rows.get(1), c3), is(10.0));
+    }
+    
+    @Test
+    public void bulkSetCellValuesTest()
+    {
+        TableImpl t = new TableImpl(10, 10);
+        ColumnImpl c1 = t.addColumn(Access.ByIndex, 1);
+        ColumnImpl c2 = t.addColumn(Access.ByIndex, 2);
+        ColumnImpl c3 = t.addColumn(Access.ByIndex, 3);
+        c3.setDerivation("col 1 + col 2");
+        
+        assertThat(t.setColumnValues(c1, 1, 2, 3, 4), is(true));
+        assertThat(t.getNumRows(), is(4));
+        
+        // set a block extending beyond the last row
+        RowImpl r3 = t.getRow(3);
+        assertThat(t.setCellValues(r3, c2, new Object [][] {{10}, {20}, {30}}), is(true));
+        assertThat(t.getNumRows(), is(5));
+        assertThat(t.getCellValue(r3, c2), is(10));
+        assertThat(t.getCellValue(t.getRow(5), c2), is(30));
+        assertThat(t.getCellValue(r3, c3), is(13.0));
+        assertThat(t.getCellValue(t.getRow(4), c3), is(24.0));
+        
+        // setting the same values again changes nothing
+        assertThat(t.setCellValues(r3, c2, new Object [][] {{10}, {20}, {30}}), is(false));
+        
+        // replacing a column's values clears the rows beyond the last value
+        assertThat(t.setColumnValues(c1, 5, 6), is(true));
+        assertThat(t.getCellValue(t.getRow(2), c1), is(6));
+        assertThat(t.getCellValue(r3, c1), nullValue());
+        
+        // derived columns are left unchanged
+        assertThat(t.setColumnValues(c3, 1, 2, 3), is(false));
+    }
+    
+    @Test
+    public void cellPropertyIndexTest()
+    {
+        TableImpl t = new TableImpl(10, 10);
+        ColumnImpl c1 = t.addColumn(Access.ByIndex, 1);
+        ColumnImpl c2 = t.addColumn(Access.ByIndex, 2);
+        t.setColumnValues(c1, 1, 2, 3, 4);
+        t.setColumnValues(c2, 5, 6, 7, 8);
+        
+        CellImpl a = t.getCell(t.getRow(1), c1);
+        CellImpl b = t.getCell(t.getRow(3), c1);
+        CellImpl c = t.getCell(t.getRow(2), c2);
+        a.setDescription("Desc");
+        c.setDescription("Desc");
+        a.setProperty("color", "red");
+        a.tag("alpha", "beta");
+        b.setUnits("mph");
+        
+        for (boolean indexed : new boolean [] {false, true}) {
+            t.setCellPropertiesIndexed(indexed);
+            assertThat(t.isCellPropertiesIndexed(), is(indexed));
+            
+            assertThat(t.getCell(Access.ByProperty, TableProperty.Units, "mph"), is(b));
+            assertThat(t.getCell(Access.ByProperty, "color", "red"), is(a));
+            assertThat(t.getCell(Access.ByTag, "alpha", "beta"), is(a));
+            
+            List<Cell> cells = t.getCells(Access.ByDescription, "Desc");
+            assertThat(cells.size(), is(2));
+            assertThat(cells.get(0), is(a));
+            assertThat(cells.get(1), is(c));
+        }
+        
+        // the index follows property and tag changes
+        b.setProperty("color", "red");
+        a.setProperty("color", "blue");
+        c.tag("alpha", "beta");
+        a.untag("beta");
+        assertThat(t.getCells(Access.ByProperty, "color", "red").size(), is(1));
+        assertThat(t.getCell(Access.ByProperty, "color", "red"), is(b));
+        assertThat(t.getCell(Access.ByProperty, "color", "blue"), is(a));
+        assertThat(t.getCells(Access.ByTag, "alpha", "beta").size(), is(1));
+        assertThat(t.getCell(Access.ByTag, "alpha", "beta"), is(c));
+        
+        // cells of deleted rows are dropped
+        t.getRow(3).delete();
+        assertThat(t.getCell(Access.ByProperty, TableProperty.Units, "mph"), nullValue());
+        assertThat(t.getCells(Access.ByProperty, "color", "red").isEmpty(), is(true));
+    }
+    
+    @Test
+    public void cellValueIndexTest()
+    {
+        TableImpl t = new TableImpl(10, 10);
+        ColumnImpl c1 = t.addColumn(Access.ByIndex, 1);
+        ColumnImpl c2 = t.addColumn(Access.ByIndex, 2);
+        t.setColumnValues(c1, 3, 1.0, 4, 1, 5, "abc", 9, 2.5);
+        t.setColumnValues(c2, "b", "a", "c", "a");
+        
+        for (boolean indexed : new boolean [] {false, true}) {
+            t.setCellValuesIndexed(indexed);
+            assertThat(t.isCellValuesIndexed(), is(indexed));
+            
+            // equality matches values of the same type
+            List<Row> rows = t.getRows(c1, 1);
+            assertThat(rows.size(), is(1));
+            assertThat(rows.get(0).getIndex(), is(4));
+            
+            rows = t.getRows(c2, "a");
+            assertThat(rows.size(), is(2));
+            assertThat(rows.get(0).getIndex(), is(2));
+            assertThat(rows.get(1).getIndex(), is(4));
+            
+            // ranges compare numbers by value, and exclude values of other kinds
+            rows = t.getRows(c1, 1, 3);
+            assertThat(rows.size(), is(4));
+            assertThat(rows.get(0).getIndex(), is(1));
+            assertThat(rows.get(3).getIndex(), is(8));
+            
+            assertThat(t.getRows(c1, 5, null).size(), is(2));
+            assertThat(t.getRows(c1, null, 1.0).size(), is(2));
+            assertThat(t.getRows(c1, "a", "z").size(), is(1));
+            assertThat(t.getRows(c2, "b", null).size(), is(2));
+            assertThat(t.getRows(c1, 9, 1).isEmpty(), is(true));
+        }
+        
+        // the index follows value changes
+        t.setCellValue(t.getRow(4), c1, 7);
+        t.setCellValue(t.getRow(6), c1, 1);
+        List<Row> rows = t.getRows(c1, 1);
+        assertThat(rows.size(), is(1));
+        assertThat(rows.get(0).getIndex(), is(6));
+        assertThat(t.getRows(c1, 6, 8).get(0).getIndex(), is(4));
+        
+        t.getRow(6).delete();
+        assertThat(t.getRows(c1, 1).isEmpty(), is(true));
+        
+        try {
+            t.getRows(c1, null);
+            fail("null value query succeeded");
+        }
+        catch (InvalidException e) {
+            // expected
+        }
+    }
+    
     @Test
     public void testTableSort()
     {
@@ -4,6 +4,7 @@ import static org.hamcrest.core.Is.is;
 import static org.hamcrest.core.IsNull.notNullValue;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
@@ -19,9 +20,11 @@ import org.tms.api.Access;
 import org.tms.api.Cell;
 import org.tms.api.Column;
 import org.tms.api.Row;
+import org.tms.api.exceptions.InvalidException;
 import org.tms.api.TableContext;
 import org.tms.api.factories.TableContextFactory;
 import org.tms.api.io.TMSOptions;
+import org.tms.tds.ContextImpl;
 
 public class DbmsTableImplTest extends BaseDbmsTest
 {
@@ -93,6 +96,60 @@ public class DbmsTableImplTest extends BaseDbmsTest
         r.setDerivation("mean(colref('empno'))");
         r.setDerivation("mean(colref(1))");
     }
+    
+    @Test
+    public final void testStreamingDBMSTable() throws ClassNotFoundException, SQLException
+    {
+        TableContext tc = TableContextFactory.fetchDefaultTableContext();
+        tc.loadDatabaseDriver("com.mysql.jdbc.Driver");
+        
+        String connUrl = "jdbc:mysql://localhost/cds?user=davids&password=mysql&useCursorFetch=true";
+        DbmsTableImpl st = new DbmsTableImpl(connUrl, "select * from employee order by empno", null, (ContextImpl)tc, 3, 2);
+        DbmsTableImpl t = new DbmsTableImpl(connUrl, "select * from employee order by empno");
+        
+        assertThat(st.isStreaming(), is(true));
+        assertThat(t.isStreaming(), is(false));
+        assertThat(st.getNumRows(), is(t.getNumRows()));
+        assertThat(st.getNumColumns(), is(t.getNumColumns()));
+        assertThat(st.getNumCachedPages(), is(2));
+        
+        // read rows in reverse order, forcing pages to be evicted and re-read
+        Column stEmpNo = st.getColumn(Access.ByLabel, "empno");
+        Column tEmpNo = t.getColumn(Access.ByLabel, "empno");
+        for (int i = st.getNumRows(); i > 0; i--) 
+            assertThat(st.getCellValue(st.getRow(Access.ByIndex, i), stEmpNo), is(t.getCellValue(t.getRow(Access.ByIndex, i), tEmpNo)));
+        
+        assertThat(st.getNumCachedPages(), is(2));
+        
+        // unchanged results leave the table intact
+        Column c = st.addColumn();
+        c.setDerivation("col empno * 2");
+        st.refresh();
+        assertThat(st.getNumDbmsRows(), is(t.getNumRows()));
+        assertThat(st.getCellValue(st.getRow(Access.Last), c), is(2.0 * (int)t.getCellValue(t.getRow(Access.Last), tEmpNo)));
+        
+        // keyset refresh only queries for new rows
+        st.setKeyColumn("EMPNO");
+        assertThat(st.getKeyColumn(), is("empno"));
+        st.refresh();
+        st.refresh();
+        assertThat(st.getNumDbmsRows(), is(t.getNumRows()));
+        
+        // evicted pages are re-read by key
+        for (int i = st.getNumRows(); i > 0; i--) 
+            assertThat(st.getCellValue(st.getRow(Access.ByIndex, i), stEmpNo), is(t.getCellValue(t.getRow(Access.ByIndex, i), tEmpNo)));
+        
+        try {
+            st.setKeyColumn("empno; drop table employee");
+            fail("Invalid key column accepted");
+        }
+        catch (InvalidException e) {
+            assertThat(st.getKeyColumn(), is("empno"));
+        }
+        
+        st.delete();
+        t.delete();
+    }
 	
     @Ignore
     @Test
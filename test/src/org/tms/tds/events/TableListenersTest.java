@@ -3,6 +3,12 @@ package org.tms.tds.events;
 import static org.hamcrest.core.Is.is;
 import static org.junit.Assert.assertThat;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
 import org.junit.Test;
 import org.tms.BaseTest;
 import org.tms.api.Access;
@@ -11,8 +17,10 @@ import org.tms.api.Column;
 import org.tms.api.Row;
 import org.tms.api.Table;
 import org.tms.api.TableProperty;
+import org.tms.api.events.BatchTableElementListener;
 import org.tms.api.events.BlockedRequestException;
 import org.tms.api.events.CellValueChangedEvent;
+import org.tms.api.events.EventOverflowPolicy;
 import org.tms.api.events.TableElementEvent;
 import org.tms.api.events.TableElementEventType;
 import org.tms.api.events.TableElementListener;
@@ -181,6 +189,201 @@ public class TableListenersTest extends BaseTest
         assertThat(tbl.getNumRows(), is(--numRows));
     }  
     
+    @Test
+    public void testOrderedBatchedEvents() throws InterruptedException
+    {
+        Table tbl = TableFactory.createTable();        
+        Cell c = tbl.getCell(tbl.addRow(Access.ByIndex, 1), tbl.addColumn(Access.ByIndex, 1));
+        
+        int numEvents = 1000;
+        List<Object> received = Collections.synchronizedList(new ArrayList<Object>());
+        CountDownLatch done = new CountDownLatch(numEvents);
+        c.addListeners(TableElementEventType.OnNewValue, e -> {
+            received.add(((CellValueChangedEvent)e).getNewValue());
+            done.countDown();
+        });
+        
+        EventProcessorExecutor epe = new EventProcessorExecutor(4, 4);
+        try {
+            List<TableElementEvent> events = new ArrayList<TableElementEvent>();
+            for (int i = 0; i < numEvents; i++) {
+                events.add(CellValueChangedEventImpl.createOn(c, c, 0, i - 1, i));
+                
+                // submit in small groups, so events arrive in several batches
+                if (events.size() == 7) {
+                    epe.submitEvents(events);
+                    events = new ArrayList<TableElementEvent>();
+                }
+            }
+            epe.submitEvents(events);
+            
+            // events of a table are delivered in the order they were submitted
+            assertThat(done.await(10, TimeUnit.SECONDS), is(true));
+            assertThat(received.size(), is(numEvents));
+            for (int i = 0; i < numEvents; i++)
+                assertThat(received.get(i), is(i));
+            
+            assertThat(epe.getNumDroppedEvents(), is(0L));
+        }
+        finally {
+            epe.shutdownEventProcessorThreadPool();
+        }
+    }
+    
+    @Test
+    public void testCoalescedBatchEvents() throws InterruptedException
+    {
+        Table tbl = TableFactory.createTable();        
+        Row r1 = tbl.addRow(Access.ByIndex, 1);
+        Column c1 = tbl.addColumn(Access.ByIndex, 1);
+        Column c2 = tbl.addColumn(Access.ByIndex, 2);
+        Cell cR1C1 = tbl.getCell(r1, c1);
+        Cell cR1C2 = tbl.getCell(r1, c2);
+        
+        List<TableElementEvent> received = Collections.synchronizedList(new ArrayList<TableElementEvent>());
+        CountDownLatch done = new CountDownLatch(2);
+        BatchTableElementListener bl = events -> {
+            received.addAll(events);
+            for (int i = 0; i < events.size(); i++)
+                done.countDown();
+        };
+        tbl.addListeners(TableElementEventType.OnNewValue, bl);
+        
+        // the batch closes when all 4 events have arrived, well before its window expires
+        EventProcessorExecutor.setMaxBatchSize(4);
+        EventProcessorExecutor.setBatchWindow(10, TimeUnit.SECONDS);
+        EventProcessorExecutor.setCoalescingNewValues(true);
+        EventProcessorExecutor epe = new EventProcessorExecutor();
+        try {
+            // events for the same cell are coalesced, keeping the first old value and the last new value
+            List<TableElementEvent> events = new ArrayList<TableElementEvent>();
+            events.add(CellValueChangedEventImpl.createOn(tbl, cR1C1, 0, 1, 2));
+            events.add(CellValueChangedEventImpl.createOn(tbl, cR1C2, 0, 10, 20));
+            events.add(CellValueChangedEventImpl.createOn(tbl, cR1C1, 0, 2, 3));
+            events.add(CellValueChangedEventImpl.createOn(tbl, cR1C1, 0, 3, 4));
+            for (TableElementEvent e : events)
+                epe.submitEvents(Collections.singletonList(e));
+            
+            assertThat(done.await(10, TimeUnit.SECONDS), is(true));
+            assertThat(received.size(), is(2));
+            
+            CellValueChangedEvent cvce = (CellValueChangedEvent)received.get(0);
+            assertThat(cvce.getTrigger(), is(cR1C2));
+            assertThat(cvce.getOldValue(), is(10));
+            assertThat(cvce.getNewValue(), is(20));
+            
+            cvce = (CellValueChangedEvent)received.get(1);
+            assertThat(cvce.getTrigger(), is(cR1C1));
+            assertThat(cvce.getOldValue(), is(1));
+            assertThat(cvce.getNewValue(), is(4));
+            
+            // capacity is returned once the listener returns
+            long deadline = System.currentTimeMillis() + 10000;
+            while (epe.getNumQueuedEvents() > 0 && System.currentTimeMillis() < deadline)
+                Thread.sleep(10);
+            assertThat(epe.getNumQueuedEvents(), is(0));
+        }
+        finally {
+            epe.shutdownEventProcessorThreadPool();
+            EventProcessorExecutor.setMaxBatchSize(EventProcessorExecutor.sf_DEFAULT_MAX_BATCH_SIZE);
+            EventProcessorExecutor.setBatchWindow(0, TimeUnit.MILLISECONDS);
+            EventProcessorExecutor.setCoalescingNewValues(false);
+        }
+    }
+    
+    @Test
+    public void testDroppedEvents() throws InterruptedException
+    {
+        Table tbl = TableFactory.createTable();        
+        Cell c = tbl.getCell(tbl.addRow(Access.ByIndex, 1), tbl.addColumn(Access.ByIndex, 1));
+        
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        c.addListeners(TableElementEventType.OnNewValue, e -> {
+            started.countDown();
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            }
+            catch (InterruptedException ie) { }
+        });
+        
+        EventProcessorExecutor.setMaxQueuedEvents(5);
+        EventProcessorExecutor.setOverflowPolicy(EventOverflowPolicy.Drop);
+        EventProcessorExecutor epe = new EventProcessorExecutor();
+        try {
+            // block the listener, with the first event in flight
+            epe.submitEvents(Collections.singletonList(CellValueChangedEventImpl.createOn(c, c, 0, 0, 1)));
+            assertThat(started.await(10, TimeUnit.SECONDS), is(true));
+            
+            // only 4 more events fit
+            List<TableElementEvent> events = new ArrayList<TableElementEvent>();
+            for (int i = 0; i < 20; i++)
+                events.add(CellValueChangedEventImpl.createOn(c, c, 0, i + 1, i + 2));
+            epe.submitEvents(events);
+            
+            assertThat(epe.getNumDroppedEvents(), is(16L));
+            assertThat(epe.getNumQueuedEvents(), is(5));
+        }
+        finally {
+            release.countDown();
+            epe.shutdownEventProcessorThreadPool();
+            EventProcessorExecutor.setMaxQueuedEvents(Integer.MAX_VALUE);
+            EventProcessorExecutor.setOverflowPolicy(EventOverflowPolicy.Block);
+        }
+    }
+    
+    @Test
+    public void testBlockedEventsHoldingTableLock() throws InterruptedException
+    {
+        Table tbl = TableFactory.createTable();        
+        Cell c = tbl.getCell(tbl.addRow(Access.ByIndex, 1), tbl.addColumn(Access.ByIndex, 1));
+        
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(21);
+        c.addListeners(TableElementEventType.OnNewValue, e -> {
+            started.countDown();
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            }
+            catch (InterruptedException ie) { }
+            done.countDown();
+        });
+        
+        EventProcessorExecutor.setMaxQueuedEvents(5);
+        EventProcessorExecutor.setOverflowPolicy(EventOverflowPolicy.Block);
+        EventProcessorExecutor epe = new EventProcessorExecutor();
+        try {
+            // block the listener, with the first event in flight
+            epe.submitEvents(Collections.singletonList(CellValueChangedEventImpl.createOn(c, c, 0, 0, 1)));
+            assertThat(started.await(10, TimeUnit.SECONDS), is(true));
+            
+            // events submitted while holding the table lock are queued beyond the limit, rather than waiting
+            List<TableElementEvent> events = new ArrayList<TableElementEvent>();
+            for (int i = 0; i < 20; i++)
+                events.add(CellValueChangedEventImpl.createOn(c, c, 0, i + 1, i + 2));
+            synchronized(tbl) {
+                epe.submitEvents(events);
+            }
+            
+            assertThat(epe.getNumDroppedEvents(), is(0L));
+            assertThat(epe.getNumQueuedEvents(), is(21));
+            
+            release.countDown();
+            assertThat(done.await(10, TimeUnit.SECONDS), is(true));
+            
+            long deadline = System.currentTimeMillis() + 10000;
+            while (epe.getNumQueuedEvents() > 0 && System.currentTimeMillis() < deadline)
+                Thread.sleep(10);
+            assertThat(epe.getNumQueuedEvents(), is(0));
+        }
+        finally {
+            release.countDown();
+            epe.shutdownEventProcessorThreadPool();
+            EventProcessorExecutor.setMaxQueuedEvents(Integer.MAX_VALUE);
+        }
+    }
+    
     private static class TableCellListener implements TableElementListener
     {
         private volatile int m_fired;
@@ -6,6 +6,11 @@ import static org.junit.Assert.assertThat;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
 
 import org.junit.Test;
 import org.tms.BaseTest;
@@ -70,4 +75,63 @@ public class LogsTableImplTest extends BaseTest
 		//lft.export("foo.xml", XMLOptions.Default.withVerboseState());
 		//lft.export("systemLog.tms");
 	}
+	
+	@Test
+	public void testRandomAccessLogFileTable() throws IOException 
+	{
+		File logFile = new File(qualifiedFileName("system.log"));
+		
+		// read one table in order, the other in reverse
+		LogsTableImpl fwd = LogsTableImpl.createTable(logFile, new OSXSystemLogReader());
+		LogsTableImpl rev = LogsTableImpl.createTable(logFile, new OSXSystemLogReader());
+		assertThat(rev.getNumRows(), is(fwd.getNumRows()));
+		
+		int nRows = fwd.getNumRows();
+		int nCols = fwd.getNumColumns();
+		Object [][] values = new Object[nRows][nCols];
+		for (int r = 1; r <= nRows; r++)
+			for (int c = 1; c <= nCols; c++)
+				values[r - 1][c - 1] = fwd.getCellValue(fwd.getRow(r), fwd.getColumn(c));
+		
+		for (int r = nRows; r >= 1; r--)
+			for (int c = 1; c <= nCols; c++)
+				assertThat(rev.getCellValue(rev.getRow(r), rev.getColumn(c)), is(values[r - 1][c - 1]));
+	}
+	
+	@Test
+	public void testIncrementalRefresh() throws IOException 
+	{
+		File srcFile = new File(qualifiedFileName("system.log"));
+		File logFile = File.createTempFile("system", ".log");
+		logFile.deleteOnExit();
+		Files.copy(srcFile.toPath(), logFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		
+		LogsTableImpl lft = LogsTableImpl.createTable(logFile, new OSXSystemLogReader());
+		assertThat(lft.getNumRows(), is(342));
+		
+		Column dateCol = lft.getColumn(1);
+		Row r1 = lft.getRow(1);
+		Row rLast = lft.getRow(Access.Last);
+		Object dt = lft.getCellValue(r1,  dateCol);
+		assertNotNull(dt);
+		
+		// add a summary row, which should follow the log file rows after a refresh
+		Row sr = lft.addRow(Access.Last);
+		
+		// append the first three lines of the log file
+		List<String> lines = Files.readAllLines(srcFile.toPath(), StandardCharsets.ISO_8859_1);
+		Files.write(logFile.toPath(), lines.subList(0, 3), StandardCharsets.ISO_8859_1, StandardOpenOption.APPEND);
+		
+		lft.refresh();
+		assertThat(lft.getNumRows(), is(346));
+		assertThat(lft.getNumLogsRows(), is(345));
+		assertThat(lft.getRow(1), is(r1));
+		assertThat(lft.getRow(342), is(rLast));
+		assertThat(lft.getRow(346), is(sr));
+		assertThat(lft.getCellValue(lft.getRow(343), dateCol), is(dt));
+		
+		// refreshing an unchanged file adds no rows
+		lft.refresh();
+		assertThat(lft.getNumRows(), is(346));
+	}
 }
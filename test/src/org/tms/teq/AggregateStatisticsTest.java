@@ -0,0 +1,131 @@
+package org.tms.teq;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Test;
+import org.tms.BaseTest;
+import org.tms.api.Access;
+import org.tms.api.Cell;
+import org.tms.tds.ColumnImpl;
+import org.tms.tds.RowImpl;
+import org.tms.tds.TableImpl;
+
+public class AggregateStatisticsTest extends BaseTest
+{
+    @Test
+    public final void testDeltaUpdates()
+    {
+        int numRows = 1000;
+        TableImpl tbl = createTable(numRows);
+        ColumnImpl c1 = tbl.getColumn(Access.ByIndex, 1);
+        ColumnImpl c2 = tbl.getColumn(Access.ByIndex, 2);
+
+        Cell sum = tbl.getCell(tbl.getRow(Access.ByIndex, 1), c2);
+        Cell mean = tbl.getCell(tbl.getRow(Access.ByIndex, 2), c2);
+        Cell max = tbl.getCell(tbl.getRow(Access.ByIndex, 3), c2);
+        Cell stDev = tbl.getCell(tbl.getRow(Access.ByIndex, 4), c2);
+
+        sum.setDerivation("sum(col 1)");
+        mean.setDerivation("mean(col 1)");
+        max.setDerivation("max(col 1)");
+        stDev.setDerivation("stDev(col 1)");
+
+        assertThat(sum.getCellValue(), is(numRows * (numRows + 1) / 2.0));
+        assertThat(tbl.getAggregateStatistics().getNumCachedElements(), is(1));
+
+        // single cell edits update the cached aggregates
+        RowImpl r10 = tbl.getRow(Access.ByIndex, 10);
+        tbl.setCellValue(r10, c1, 20);
+        assertThat(tbl.getAggregateStatistics().getNumCachedElements(), is(1));
+        assertThat(sum.getCellValue(), is(numRows * (numRows + 1) / 2.0 + 10));
+        assertThat(mean.getCellValue(), is((numRows * (numRows + 1) / 2.0 + 10) / numRows));
+        assertThat(max.getCellValue(), is((double)numRows));
+        assertThat(closeTo(stDev.getCellValue(), expectedStDev(tbl, c1), 0.0000001), is(true));
+
+        // removing the maximum forces a rescan of the column
+        RowImpl rLast = tbl.getRow(Access.ByIndex, numRows);
+        tbl.setCellValue(rLast, c1, 1);
+        assertThat(max.getCellValue(), is(numRows - 1.0));
+        assertThat(sum.getCellValue(), is(numRows * (numRows + 1) / 2.0 + 10 - numRows + 1));
+
+        // as does clearing a value
+        tbl.setCellValue(r10, c1, null);
+        assertThat(sum.getCellValue(), is(numRows * (numRows + 1) / 2.0 - 10 - numRows + 1));
+        assertThat(mean.getCellValue(), is((numRows * (numRows + 1) / 2.0 - 10 - numRows + 1) / (numRows - 1)));
+        assertThat(closeTo(stDev.getCellValue(), expectedStDev(tbl, c1), 0.0000001), is(true));
+
+        // and structural changes
+        tbl.getRow(Access.ByIndex, 5).delete();
+        assertThat(sum.getCellValue(), is(numRows * (numRows + 1) / 2.0 - 10 - numRows + 1 - 5));
+    }
+
+    @Test
+    public final void testExcludedCellsNotCached()
+    {
+        TableImpl tbl = createTable(100);
+        ColumnImpl c1 = tbl.getColumn(Access.ByIndex, 1);
+        RowImpl r1 = tbl.getRow(Access.ByIndex, 1);
+
+        // the derived cell is part of the column it aggregates
+        Cell cell = tbl.getCell(r1, c1);
+        cell.setDerivation("sum(col 1)");
+        assertThat(cell.getCellValue(), is(100 * 101 / 2.0 - 1));
+        assertThat(tbl.getAggregateStatistics().getNumCachedElements(), is(0));
+
+        tbl.setCellValue(tbl.getRow(Access.ByIndex, 2), c1, 12);
+        assertThat(cell.getCellValue(), is(100 * 101 / 2.0 - 1 + 10));
+    }
+
+    @Test
+    public final void testRepeatedSingleCellEdits()
+    {
+        int numRows = 10000;
+        int numEdits = 200;
+        TableImpl tbl = createTable(numRows);
+        ColumnImpl c1 = tbl.getColumn(Access.ByIndex, 1);
+        ColumnImpl c2 = tbl.getColumn(Access.ByIndex, 2);
+
+        Cell mean = tbl.getCell(tbl.getRow(Access.ByIndex, 1), c2);
+        Cell stDev = tbl.getCell(tbl.getRow(Access.ByIndex, 2), c2);
+        mean.setDerivation("mean(col 1)");
+        stDev.setDerivation("stDev(col 1)");
+
+        double sum = numRows * (numRows + 1) / 2.0;
+        for (int i = 1; i <= numEdits; i++) {
+            int rIdx = 1 + i * 7;
+            tbl.setCellValue(tbl.getRow(Access.ByIndex, rIdx), c1, i * 0.5);
+            sum += i * 0.5 - rIdx;
+        }
+
+        // the aggregate survives the edits, and matches a full scan
+        assertThat(tbl.getAggregateStatistics().getNumCachedElements(), is(1));
+        assertThat(closeTo(mean.getCellValue(), sum / numRows, 0.0000001), is(true));
+        assertThat(closeTo(stDev.getCellValue(), expectedStDev(tbl, c1), 0.0000001), is(true));
+
+        // referencing the column from a new derivation discards its aggregate
+        tbl.getCell(tbl.getRow(Access.ByIndex, 3), c2).setDerivation("sum(col 1)");
+        assertThat(closeTo(tbl.getCellValue(tbl.getRow(Access.ByIndex, 3), c2), sum, 0.0000001), is(true));
+    }
+
+    private TableImpl createTable(int numRows)
+    {
+        TableImpl tbl = TableImpl.createTable(numRows, 2);
+        ColumnImpl c1 = tbl.addColumn(Access.ByIndex, 1);
+        tbl.addColumn(Access.ByIndex, 2);
+
+        for (int rIdx = 1; rIdx <= numRows; rIdx++)
+            tbl.setCellValue(tbl.addRow(Access.ByIndex, rIdx), c1, rIdx);
+
+        return tbl;
+    }
+
+    private double expectedStDev(TableImpl tbl, ColumnImpl col)
+    {
+        SingleVariableStatEngine svse = new SingleVariableStatEngine();
+        for (Cell c : col.cells())
+            svse.enter(c);
+
+        return (double)svse.calcStatistic(BuiltinOperator.StDevSampleOper);
+    }
+}
@@ -6,6 +6,7 @@ import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertThat;
 
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.Test;
 import org.tms.BaseTest;
@@ -200,6 +201,71 @@ public class ClassOperatorsTest extends BaseTest
         }
     }
 
+    @Test
+    public void testVectorizedClassMethods()
+    {
+        TableContext tc = TableContextFactory.createTableContext();
+        tc.registerOperators(MyVectorMath.class);
+        
+        Table t1 = TableFactory.createTable(200, 4, tc);        
+        t1.addRow(200);
+        
+        Column c1 = t1.addColumn(1);
+        for (int i = 1; i <= t1.getNumRows(); i++) 
+        	t1.setCellValue(t1.getRow(i), c1, i);
+        t1.setCellValue(t1.getRow(10), c1, null);
+        
+        // the column is evaluated in one call
+        MyVectorMath.sf_NUM_CALLS.set(0);
+        Column c2 = t1.addColumn(2);
+        Derivation d2 = c2.setDerivation("scale(col 1, 2)");
+        assertNotNull(d2);
+        assertThat(MyVectorMath.sf_NUM_CALLS.get(), is(1));
+        
+        // an expression can't be vectorized, it is evaluated cell by cell
+        Column c3 = t1.addColumn(3);
+        Derivation d3 = c3.setDerivation("scale(col 1, 3) + 1");
+        assertNotNull(d3);
+        
+        for (int i = 1; i <= t1.getNumRows(); i++) {
+        	Cell cl2 = t1.getCell(t1.getRow(i), c2);
+        	Cell cl3 = t1.getCell(t1.getRow(i), c3);
+        	if (i == 10) {
+                assertThat(cl2.isNull(), is(true));
+                assertThat(cl3.isNull(), is(true));
+        	}
+        	else {
+                assertThat(cl2.isNumericValue(), is(true));
+                assertThat(cl2.getCellValue(), is(2.0 * i));
+                assertThat(cl3.getCellValue(), is(3.0 * i + 1));
+        	}
+        }
+        
+        // a changed cell recalculates its row alone
+        MyVectorMath.sf_NUM_CALLS.set(0);
+        t1.setCellValue(t1.getRow(10), c1, 50);
+        assertThat(MyVectorMath.sf_NUM_CALLS.get(), is(2));
+        assertThat(t1.getCellValue(t1.getRow(10), c2), is(100.0));
+        assertThat(t1.getCellValue(t1.getRow(10), c3), is(151.0));
+    }
+    
+    @RegisterOp
+    public static class MyVectorMath
+    {
+    	static final AtomicInteger sf_NUM_CALLS = new AtomicInteger();
+    	
+		@RegisterOp(vectorized=true)
+		public static double [] scale(double [] x, double [] factor)
+		{
+			sf_NUM_CALLS.incrementAndGet();
+			double [] results = new double [x.length];
+			for (int i = 0; i < x.length; i++)
+				results[i] = x[i] * factor[i];
+			
+			return results;
+		}
+    }
+    
     @RegisterOp
 	public static class MyPoint
 	{
@@ -0,0 +1,81 @@
+package org.tms.teq;
+
+import org.tms.api.Access;
+import org.tms.api.Column;
+import org.tms.api.Row;
+import org.tms.api.Table;
+import org.tms.api.factories.TableFactory;
+
+/**
+ * Compares the time to evaluate compilable derivations over a column, compiled vs interpreted.
+ * This is not a unit test; run it from the command line:
+ * <pre>
+ * java org.tms.teq.CompiledDerivationBenchmark [numRows [iterations]]
+ * </pre>
+ */
+public class CompiledDerivationBenchmark
+{
+    private static final String [] sf_COMPILABLE = {
+        "col 1 * 2 + col 2",
+        "sqrt(abs(col 1 - col 2)) / 3",
+        "ridx + cidx * pi",
+        "col 1 ^ 2 - neg(col 2)",
+        "floor(log10(col 1) * e) + sin(toRadians(col 2))",
+    };
+
+    public static void main(String [] args)
+    {
+        int numRows = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+
+        Table tbl = createTable(numRows);
+        Column target = tbl.getColumn(Access.ByIndex, 3);
+
+        for (String expr : sf_COMPILABLE) {
+            target.setDerivation(expr);
+            DerivationImpl deriv = (DerivationImpl)target.getDerivation();
+            CompiledDerivation cd = deriv.getCompiledDerivation();
+            if (cd == null) {
+                System.out.println(String.format("%-50s Not compiled", expr));
+                continue;
+            }
+
+            long [] elapsed = new long [2];
+            for (int pass = 0; pass < 2; pass++) { // first pass warms up
+                long start = System.nanoTime();
+                for (int i = 0; i < iterations; i++) {
+                    for (Row row : tbl.rows())
+                        cd.evaluate(row, target);
+                }
+                elapsed[0] = System.nanoTime() - start;
+
+                start = System.nanoTime();
+                for (int i = 0; i < iterations; i++) {
+                    for (Row row : tbl.rows())
+                        new PostfixStackEvaluator(deriv).evaluate(row, target);
+                }
+                elapsed[1] = System.nanoTime() - start;
+            }
+
+            long numEvals = (long)iterations * numRows;
+            System.out.println(String.format("%-50s Compiled (ns/eval): %6d, Interpreted (ns/eval): %6d, Speedup: %.1fx",
+                    expr, elapsed[0] / numEvals, elapsed[1] / numEvals, elapsed[1] / (double)Math.max(elapsed[0], 1)));
+        }
+    }
+
+    private static Table createTable(int numRows)
+    {
+        Table tbl = TableFactory.createTable(numRows, 3);
+        Column c1 = tbl.addColumn(Access.ByIndex, 1);
+        Column c2 = tbl.addColumn(Access.ByIndex, 2);
+        tbl.addColumn(Access.ByIndex, 3);
+
+        for (int rIdx = 1; rIdx <= numRows; rIdx++) {
+            Row r = tbl.addRow(Access.ByIndex, rIdx);
+            tbl.setCellValue(r, c1, (double)rIdx);
+            tbl.setCellValue(r, c2, rIdx * 0.5);
+        }
+
+        return tbl;
+    }
+}
@@ -0,0 +1,119 @@
+package org.tms.teq;
+
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNull.notNullValue;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Test;
+import org.tms.api.Access;
+import org.tms.api.Column;
+import org.tms.api.Row;
+import org.tms.api.Table;
+import org.tms.api.derivables.Token;
+import org.tms.api.factories.TableFactory;
+
+public class CompiledDerivationTest
+{
+    private static final int sf_NUM_ROWS = 2000;
+
+    private static final String [] sf_COMPILABLE = {
+        "col 1 * 2 + col 2",
+        "sqrt(abs(col 1 - col 2)) / 3",
+        "ridx + cidx * pi",
+        "col 1 ^ 2 - neg(col 2)",
+        "floor(log10(col 1) * e) + sin(toRadians(col 2))",
+    };
+
+    private static final String [] sf_INTERPRETED = {
+        "sum(col 1)",
+        "col 1 > col 2",
+        "randInt(10) + col 1",
+        "mean(col 1) + col 2",
+    };
+
+    @Test
+    public final void testCompiledMatchesInterpreted() throws Exception
+    {
+        Table tbl = createTable();
+        Column target = tbl.getColumn(Access.ByIndex, 3);
+
+        for (String expr : sf_COMPILABLE) {
+            target.setDerivation(expr);
+            DerivationImpl deriv = (DerivationImpl)target.getDerivation();
+
+            CompiledDerivation cd = deriv.getCompiledDerivation();
+            assertThat(expr, cd, notNullValue());
+
+            for (int rIdx = 1; rIdx <= sf_NUM_ROWS; rIdx += 13) {
+                Row row = tbl.getRow(Access.ByIndex, rIdx);
+                double compiled = cd.evaluate(row, target);
+                Token interpreted = new PostfixStackEvaluator(deriv).evaluate(row, target);
+
+                assertThat(expr, Double.isNaN(compiled), is(false));
+                assertThat(expr, compiled, is(interpreted.getValue()));
+                assertThat(expr, tbl.getCellValue(row, target), is(deriv.applyPrecision(compiled)));
+            }
+        }
+    }
+
+    @Test
+    public final void testUnsupportedDerivations()
+    {
+        Table tbl = createTable();
+        Column target = tbl.getColumn(Access.ByIndex, 3);
+
+        for (String expr : sf_INTERPRETED) {
+            target.setDerivation(expr);
+            assertThat(expr, ((DerivationImpl)target.getDerivation()).getCompiledDerivation(), nullValue());
+        }
+    }
+
+    @Test
+    public final void testFallbackToInterpreter()
+    {
+        Table tbl = createTable();
+        Row r1 = tbl.getRow(Access.ByIndex, 1);
+        Column c1 = tbl.getColumn(Access.ByIndex, 1);
+        Column c2 = tbl.getColumn(Access.ByIndex, 2);
+        Column target = tbl.getColumn(Access.ByIndex, 3);
+
+        target.setDerivation("col 1 / col 2");
+        CompiledDerivation cd = ((DerivationImpl)target.getDerivation()).getCompiledDerivation();
+        assertThat(cd, notNullValue());
+
+        // division by zero yields an error, computed by the interpreter
+        tbl.setCellValue(r1, c2, 0);
+        assertThat(Double.isNaN(cd.evaluate(r1, target)), is(true));
+        assertThat(tbl.getCell(r1, target).isErrorValue(), is(true));
+
+        // as do null and non-numeric operands
+        tbl.setCellValue(r1, c2, null);
+        assertThat(Double.isNaN(cd.evaluate(r1, target)), is(true));
+        assertThat(tbl.getCellValue(r1, target), nullValue());
+
+        tbl.setCellValue(r1, c2, "abc");
+        assertThat(Double.isNaN(cd.evaluate(r1, target)), is(true));
+
+        tbl.setCellValue(r1, c1, 6);
+        tbl.setCellValue(r1, c2, 3);
+        assertThat(cd.evaluate(r1, target), is(2.0));
+        assertThat(tbl.getCellValue(r1, target), is(2.0));
+    }
+
+    private Table createTable()
+    {
+        Table tbl = TableFactory.createTable(sf_NUM_ROWS, 3);
+        Column c1 = tbl.addColumn(Access.ByIndex, 1);
+        Column c2 = tbl.addColumn(Access.ByIndex, 2);
+        tbl.addColumn(Access.ByIndex, 3);
+
+        for (int rIdx = 1; rIdx <= sf_NUM_ROWS; rIdx++) {
+            Row r = tbl.addRow(Access.ByIndex, rIdx);
+            tbl.setCellValue(r, c1, (double)rIdx);
+            tbl.setCellValue(r, c2, rIdx * 0.5);
+        }
+
+        return tbl;
+    }
+}
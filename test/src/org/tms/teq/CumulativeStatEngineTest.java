@@ -0,0 +1,115 @@
+package org.tms.teq;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+import org.tms.BaseTest;
+import org.tms.api.Access;
+import org.tms.api.Column;
+import org.tms.api.Row;
+import org.tms.api.Table;
+import org.tms.api.factories.TableFactory;
+
+public class CumulativeStatEngineTest extends BaseTest
+{
+    private static final BuiltinOperator [] sf_BASE_STATS = {
+        BuiltinOperator.SumOper, BuiltinOperator.Sum2Oper, BuiltinOperator.SumSqD2Oper,
+        BuiltinOperator.MeanOper, BuiltinOperator.StDevPopulationOper, BuiltinOperator.StDevSampleOper,
+        BuiltinOperator.VarPopulationOper, BuiltinOperator.VarSampleOper,
+        BuiltinOperator.MinOper, BuiltinOperator.MaxOper, BuiltinOperator.RangeOper,
+        BuiltinOperator.MedianOper, BuiltinOperator.FirstQuartileOper, BuiltinOperator.ThirdQuartileOper,
+        BuiltinOperator.ModeOper, BuiltinOperator.SkewOper, BuiltinOperator.KurtosisOper,
+    };
+
+    @Test
+    public final void testMatchesPrefixEngine()
+    {
+        // small integer range, so that prefixes contain ties
+        Random rand = new Random(5678);
+        List<Double> values = new ArrayList<Double>();
+        for (int i = 0; i < 400; i++)
+            values.add((double)rand.nextInt(30) - (i % 4 == 0 ? 0.25 : 0.0));
+
+        CumulativeStatEngine cse = new CumulativeStatEngine(values);
+        for (BuiltinOperator stat : sf_BASE_STATS) {
+            double [] series = cse.calcCumulativeStatistic(stat);
+            assertThat(series.length, is(values.size()));
+
+            for (int i = 0; i < values.size(); i++) {
+                SingleVariableStatEngine svse = new SingleVariableStatEngine(true, false, null);
+                for (int j = 0; j <= i; j++)
+                    svse.enter(values.get(j));
+
+                double expected = (double)svse.calcStatistic(stat);
+                String msg = String.format("%s, index %d", stat, i);
+                if (Double.isNaN(expected))
+                    assertThat(msg, Double.isNaN(series[i]), is(true));
+                else
+                    assertThat(msg, closeTo(series[i], expected, 0.000001 * Math.max(1.0, Math.abs(expected))), is(true));
+            }
+        }
+    }
+
+    @Test
+    public final void testCumulativeStatisticDerivations()
+    {
+        int numRows = 100;
+        Table tbl = TableFactory.createTable(numRows, 4);
+        Column c1 = tbl.addColumn(Access.ByIndex, 1);
+        Column c2 = tbl.addColumn(Access.ByIndex, 2);
+        Column c3 = tbl.addColumn(Access.ByIndex, 3);
+        Column c4 = tbl.addColumn(Access.ByIndex, 4);
+
+        for (int rIdx = 1; rIdx <= numRows; rIdx++)
+            tbl.setCellValue(tbl.addRow(Access.ByIndex, rIdx), c1, rIdx);
+
+        c2.setDerivation("csum(col 1)");
+        c3.setDerivation("cmedian(col 1)");
+        c4.setDerivation("ccount(col 1)");
+
+        Row r1 = tbl.getRow(Access.ByIndex, 1);
+        Row r4 = tbl.getRow(Access.ByIndex, 4);
+        Row rLast = tbl.getRow(Access.ByIndex, numRows);
+        assertThat(tbl.getCellValue(r1, c2), is(1.0));
+        assertThat(tbl.getCellValue(r4, c2), is(10.0));
+        assertThat(tbl.getCellValue(rLast, c2), is(numRows * (numRows + 1) / 2.0));
+        assertThat(tbl.getCellValue(r4, c3), is(2.5));
+        assertThat(tbl.getCellValue(rLast, c3), is(50.5));
+        assertThat(tbl.getCellValue(r4, c4), is(4.0));
+
+        // modifying the data recalculates the cumulative statistics
+        tbl.setCellValue(r1, c1, 11);
+        assertThat(tbl.getCellValue(r4, c2), is(20.0));
+        assertThat(tbl.getCellValue(r4, c3), is(3.5));
+    }
+
+    @Test
+    public final void testLongSeries()
+    {
+        Random rand = new Random(8765);
+        List<Double> values = new ArrayList<Double>();
+        for (int i = 0; i < 100000; i++)
+            values.add(100.0 + rand.nextGaussian());
+
+        // running sums must not drift over long series
+        CumulativeStatEngine cse = new CumulativeStatEngine(values);
+        for (BuiltinOperator stat : new BuiltinOperator [] {BuiltinOperator.SumOper, BuiltinOperator.StDevSampleOper,
+                                                            BuiltinOperator.MedianOper, BuiltinOperator.SkewOper}) {
+            double [] series = cse.calcCumulativeStatistic(stat);
+            SingleVariableStatEngine svse = new SingleVariableStatEngine(true, false, null);
+            for (int i = 0; i < values.size(); i++) {
+                svse.enter(values.get(i));
+                if (i != 99 && i != values.size() / 2 && i != values.size() - 1)
+                    continue;
+
+                double expected = (double)svse.calcStatistic(stat);
+                assertThat(stat + ", index " + i, closeTo(series[i], expected, 0.000001 * Math.max(1.0, Math.abs(expected))), is(true));
+            }
+        }
+    }
+}
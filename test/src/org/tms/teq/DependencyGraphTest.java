@@ -0,0 +1,143 @@
+package org.tms.teq;
+
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsSame.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import java.util.List;
+
+import org.junit.Test;
+import org.tms.api.Access;
+import org.tms.api.derivables.Derivable;
+import org.tms.api.factories.TableContextFactory;
+import org.tms.tds.ColumnImpl;
+import org.tms.tds.ContextImpl;
+import org.tms.tds.RowImpl;
+import org.tms.tds.TableImpl;
+
+public class DependencyGraphTest
+{
+    @Test
+    public final void testRecalculationPlanOrder()
+    {
+        TableImpl tbl = TableImpl.createTable(10, 10);
+        RowImpl r1 = tbl.addRow(Access.ByIndex, 1);
+        ColumnImpl c1 = tbl.addColumn(Access.ByIndex, 1);
+        ColumnImpl c2 = tbl.addColumn(Access.ByIndex, 2);
+        ColumnImpl c3 = tbl.addColumn(Access.ByIndex, 3);
+        ColumnImpl c4 = tbl.addColumn(Access.ByIndex, 4);
+
+        c4.setDerivation("col 2 + col 3");
+        c3.setDerivation("col 2 * 2");
+        c2.setDerivation("col 1 + 1");
+
+        List<Derivable> plan = DerivationImpl.calculateDependencies(c1);
+        assertThat(plan.size(), is(3));
+        assertThat(plan.indexOf(c2) < plan.indexOf(c3), is(true));
+        assertThat(plan.indexOf(c3) < plan.indexOf(c4), is(true));
+
+        tbl.setCellValue(r1, c1, 1);
+        assertThat(tbl.getCellValue(r1, c4), is(6.0));
+    }
+
+    @Test
+    public final void testRecalculationPlanCache()
+    {
+        TableImpl tbl = TableImpl.createTable(10, 10);
+        RowImpl r1 = tbl.addRow(Access.ByIndex, 1);
+        ColumnImpl c1 = tbl.addColumn(Access.ByIndex, 1);
+        ColumnImpl c2 = tbl.addColumn(Access.ByIndex, 2);
+        ColumnImpl c3 = tbl.addColumn(Access.ByIndex, 3);
+
+        c2.setDerivation("col 1 + 1");
+
+        // plans are reused until the graph changes
+        List<Derivable> plan = DerivationImpl.calculateDependencies(c1);
+        assertThat(plan.size(), is(1));
+        assertThat(DerivationImpl.calculateDependencies(c1), sameInstance(plan));
+        assertThat(tbl.getDependencyGraph().getNumCachedPlans() > 0, is(true));
+
+        c3.setDerivation("col 1 * 2");
+        assertThat(tbl.getDependencyGraph().getNumCachedPlans(), is(0));
+        assertThat(DerivationImpl.calculateDependencies(c1).size(), is(2));
+
+        tbl.setCellValue(r1, c1, 5);
+        assertThat(tbl.getCellValue(r1, c2), is(6.0));
+        assertThat(tbl.getCellValue(r1, c3), is(10.0));
+
+        c3.clearDerivation();
+        assertThat(DerivationImpl.calculateDependencies(c1).size(), is(1));
+
+        tbl.setCellValue(r1, c1, 7);
+        assertThat(tbl.getCellValue(r1, c2), is(8.0));
+        assertThat(tbl.getCellValue(r1, c3), is(10.0));
+    }
+
+    @Test
+    public final void testPerTableVersions()
+    {
+        ContextImpl tc = (ContextImpl)TableContextFactory.createTableContext();
+        TableImpl t1 = TableImpl.createTable(10, 10, tc);
+        t1.setLabel("t1");
+        RowImpl r1 = t1.addRow(Access.ByIndex, 1);
+        ColumnImpl t1c1 = t1.addColumn(Access.ByIndex, 1);
+        ColumnImpl t1c2 = t1.addColumn(Access.ByIndex, 2);
+        t1c2.setLabel("c2");
+        t1c2.setDerivation("col 1 + 1");
+
+        TableImpl t2 = TableImpl.createTable(10, 10, tc);
+        t2.addRow(Access.ByIndex, 1);
+        ColumnImpl t2c1 = t2.addColumn(Access.ByIndex, 1);
+        ColumnImpl t2c2 = t2.addColumn(Access.ByIndex, 2);
+        ColumnImpl t2c3 = t2.addColumn(Access.ByIndex, 3);
+        t2c1.setDerivation("col \"t1::c2\" * 2");
+
+        List<Derivable> plan = DerivationImpl.calculateDependencies(t1c1);
+        assertThat(plan.size(), is(2));
+        assertThat(plan.indexOf(t1c2) < plan.indexOf(t2c1), is(true));
+
+        // changes to a table the plan doesn't reach leave it intact
+        TableImpl t3 = TableImpl.createTable(10, 10, tc);
+        t3.addRow(Access.ByIndex, 1);
+        t3.addColumn(Access.ByIndex, 1);
+        t3.addColumn(Access.ByIndex, 2).setDerivation("col 1 + 1");
+        assertThat(DerivationImpl.calculateDependencies(t1c1), sameInstance(plan));
+
+        // changes to other tables the plan reaches discard it
+        t2c3.setDerivation("col 1 + 1");
+        plan = DerivationImpl.calculateDependencies(t1c1);
+        assertThat(plan.size(), is(3));
+        assertThat(plan.indexOf(t2c1) < plan.indexOf(t2c3), is(true));
+
+        t2c2.setDerivation("col \"t1::c2\" + 1");
+        assertThat(DerivationImpl.calculateDependencies(t1c1).size(), is(4));
+
+        t1.setCellValue(r1, t1c1, 1);
+        assertThat(t2.getCellValue(t2.getRow(1), t2c3), is(5.0));
+        assertThat(t2.getCellValue(t2.getRow(1), t2c2), is(3.0));
+    }
+
+    @Test
+    public final void testLongDerivationChain()
+    {
+        int chainLength = 5000;
+        TableImpl tbl = TableImpl.createTable(10, chainLength + 1);
+        RowImpl r1 = tbl.addRow(Access.ByIndex, 1);
+        tbl.addColumn(Access.ByIndex, 1);
+
+        // col n = col (n - 1) + 1, deep enough to overflow a recursive traversal
+        tbl.setAutoRecalculate(false);
+        for (int i = 2; i <= chainLength; i++) {
+            ColumnImpl c = tbl.addColumn(Access.ByIndex, i);
+            c.setDerivation(String.format("col %d + 1", i - 1));
+        }
+        tbl.setAutoRecalculate(true);
+
+        ColumnImpl c1 = tbl.getColumn(Access.ByIndex, 1);
+        List<Derivable> plan = DerivationImpl.calculateDependencies(c1);
+        assertThat(plan.size(), is(chainLength - 1));
+
+        tbl.setCellValue(r1, c1, 0);
+        assertThat(tbl.getCellValue(r1, tbl.getColumn(Access.ByIndex, chainLength)), is((double)(chainLength - 1)));
+    }
+}
@@ -0,0 +1,146 @@
+package org.tms.teq;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.List;
+
+import org.junit.Test;
+import org.tms.api.Access;
+import org.tms.api.Column;
+import org.tms.api.Row;
+import org.tms.api.Table;
+import org.tms.api.TableProperty;
+import org.tms.api.derivables.Derivable;
+import org.tms.api.factories.TableFactory;
+
+public class ParallelRecalculationTest
+{
+    private static final int sf_NUM_ROWS = 5000;
+    private static final int sf_NUM_DERIVED_COLS = 16;
+
+    @Test
+    public final void testParallelRecalculationProperty()
+    {
+        Table tbl = TableFactory.createTable();
+        assertThat(tbl.isParallelRecalculation(), is(false));
+
+        tbl.setParallelRecalculation(true);
+        assertThat(tbl.isParallelRecalculation(), is(true));
+        assertThat(tbl.getPropertyBoolean(TableProperty.isParallelRecalculation), is(true));
+    }
+
+    @Test
+    public final void testPartitionIntoLevels()
+    {
+        Table tbl = TableFactory.createTable(10, 10);
+        Column c1 = tbl.addColumn(Access.ByIndex, 1);
+        Column c2 = tbl.addColumn(Access.ByIndex, 2);
+        Column c3 = tbl.addColumn(Access.ByIndex, 3);
+        Column c4 = tbl.addColumn(Access.ByIndex, 4);
+        tbl.addRow(Access.ByIndex, 1);
+
+        c2.setDerivation("col 1 + 1");
+        c3.setDerivation("col 1 * 2");
+        c4.setDerivation("col 2 + col 3");
+
+        List<Derivable> plan = DerivationImpl.calculateDependencies(c1);
+        List<List<Derivable>> levels = DerivationImpl.partitionIntoLevels(plan);
+        assertThat(levels.size(), is(2));
+        assertThat(levels.get(0).size(), is(2));
+        assertThat(levels.get(0).contains(c2), is(true));
+        assertThat(levels.get(0).contains(c3), is(true));
+        assertThat(levels.get(1).size(), is(1));
+        assertThat(levels.get(1).get(0) == c4, is(true));
+    }
+
+    @Test
+    public final void testParallelMatchesSequential()
+    {
+        Table seq = createTable(false);
+        Table par = createTable(true);
+
+        seq.recalculate();
+        par.recalculate();
+
+        for (int cIdx = 1; cIdx <= seq.getNumColumns(); cIdx++) {
+            Column seqCol = seq.getColumn(Access.ByIndex, cIdx);
+            Column parCol = par.getColumn(Access.ByIndex, cIdx);
+            for (int rIdx = 1; rIdx <= sf_NUM_ROWS; rIdx += 7) {
+                Object expected = seq.getCellValue(seq.getRow(Access.ByIndex, rIdx), seqCol);
+                assertThat(par.getCellValue(par.getRow(Access.ByIndex, rIdx), parCol), is(expected));
+            }
+        }
+
+        // recalculating a column recalculates its dependents
+        Column c1 = par.getColumn(Access.ByIndex, 1);
+        Row r1 = par.getRow(Access.ByIndex, 1);
+        c1.fill(2.0);
+        Column last = par.getColumn(Access.ByIndex, par.getNumColumns());
+        assertThat(par.getCellValue(r1, last), is(sf_NUM_DERIVED_COLS * (sf_NUM_DERIVED_COLS + 1) + sf_NUM_DERIVED_COLS * 2.0 * sf_NUM_ROWS));
+    }
+
+    @Test
+    public final void testStructuralChangesDuringRecalculation() throws InterruptedException
+    {
+        Table seq = createTable(false);
+        Table par = createTable(true);
+        seq.recalculate();
+
+        // rows added while the table is recalculated in parallel wait for the recalculation to complete
+        Thread recalculator = new Thread(() -> {
+            for (int i = 0; i < 3; i++)
+                par.recalculate();
+        });
+        recalculator.start();
+
+        for (int i = 0; i < 10; i++)
+            par.addRow(Access.Last);
+        recalculator.join();
+
+        assertThat(par.getNumRows(), is(sf_NUM_ROWS + 10));
+
+        par.recalculate();
+        for (int cIdx = 1; cIdx <= seq.getNumColumns(); cIdx++) {
+            Column seqCol = seq.getColumn(Access.ByIndex, cIdx);
+            Column parCol = par.getColumn(Access.ByIndex, cIdx);
+            for (int rIdx = 1; rIdx <= sf_NUM_ROWS; rIdx += 7) {
+                Object expected = seq.getCellValue(seq.getRow(Access.ByIndex, rIdx), seqCol);
+                assertThat(par.getCellValue(par.getRow(Access.ByIndex, rIdx), parCol), is(expected));
+            }
+        }
+    }
+
+    /**
+     * Creates a table with a data column, a set of independent derived columns, and a
+     * final column that depends on all of them
+     */
+    private Table createTable(boolean parallel)
+    {
+        Table tbl = TableFactory.createTable(sf_NUM_ROWS, sf_NUM_DERIVED_COLS + 2);
+        tbl.setParallelRecalculation(parallel);
+        tbl.setAutoRecalculate(false);
+
+        Column c1 = tbl.addColumn(Access.ByIndex, 1);
+        for (int rIdx = 1; rIdx <= sf_NUM_ROWS; rIdx++) {
+            Row r = tbl.addRow(Access.ByIndex, rIdx);
+            tbl.setCellValue(r, c1, (double)rIdx);
+        }
+
+        StringBuilder sb = new StringBuilder();
+        for (int i = 1; i <= sf_NUM_DERIVED_COLS; i++) {
+            Column c = tbl.addColumn(Access.ByIndex, i + 1);
+            c.setDerivation(String.format("col 1 * %d + sum(col 1)", i));
+
+            if (sb.length() > 0)
+                sb.append(" + ");
+            sb.append(String.format("col %d", i + 1));
+        }
+
+        Column last = tbl.addColumn(Access.ByIndex, sf_NUM_DERIVED_COLS + 2);
+        last.setDerivation(sb.toString());
+
+        tbl.setAutoRecalculate(true);
+        return tbl;
+    }
+}
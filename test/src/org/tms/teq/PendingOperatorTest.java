@@ -5,7 +5,9 @@ import static org.hamcrest.core.IsNull.notNullValue;
 import static org.junit.Assert.assertThat;
 
 import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.Test;
 import org.tms.BaseTest;
@@ -15,6 +17,8 @@ import org.tms.api.Column;
 import org.tms.api.Row;
 import org.tms.api.Table;
 import org.tms.api.TableContext;
+import org.tms.api.TableProperty;
+import org.tms.api.ThreadPoolStrategy;
 import org.tms.api.derivables.DerivableThreadPool;
 import org.tms.api.derivables.Token;
 import org.tms.api.derivables.TokenType;
@@ -255,6 +259,142 @@ public class PendingOperatorTest extends BaseTest
         tc.deregisterAllOperators();
     }
     
+    @Test
+    public final void testThreadPoolStrategies() throws InterruptedException
+    {
+        for (ThreadPoolStrategy strategy : ThreadPoolStrategy.values()) {
+            // run tasks directly on an executor using the strategy
+            int numTasks = 200;
+            int maxPoolSize = 8;
+            PendingDerivationExecutor pde = new PendingDerivationExecutor(2, maxPoolSize, 100, TimeUnit.MILLISECONDS, true, strategy);
+            assertThat(pde.getThreadPoolStrategy(), is(strategy));
+            
+            CountDownLatch done = new CountDownLatch(numTasks);
+            AtomicInteger running = new AtomicInteger();
+            AtomicInteger maxRunning = new AtomicInteger();
+            for (int i = 0; i < numTasks; i++) {
+                pde.submitCalculation(UUID.randomUUID(), () -> {
+                    maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    try {
+                        Thread.sleep(2);
+                    }
+                    catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    finally {
+                        running.decrementAndGet();
+                        done.countDown();
+                    }
+                });
+            }
+            
+            // all tasks complete, with no more than the maximum pool size running at once
+            assertThat(done.await(30, TimeUnit.SECONDS), is(true));
+            assertThat(maxRunning.get() <= maxPoolSize, is(true));
+            
+            // pooled tasks run on the executor's own worker threads; thread per task tasks never do
+            if (strategy == ThreadPoolStrategy.Pooled)
+                assertThat(pde.getLargestPoolSize() > 0, is(true));
+            else
+                assertThat(pde.getLargestPoolSize(), is(0));
+            
+            pde.shutdownDerivableThreadPool();
+            
+            // and pending derivations complete under the strategy
+            TableContext tc = TableContextFactory.createTableContext();
+            ((ContextImpl)tc).setPendingThreadPoolStrategy(strategy);
+            ((ContextImpl)tc).setPendingMaximumPoolSize(500);
+            ((ContextImpl)tc).setPendingKeepAliveTime(100, TimeUnit.MILLISECONDS);
+            assertThat(((ContextImpl)tc).getPendingThreadPoolStrategy(), is(strategy));
+            
+            Table t = TableFactory.createTable(tc);
+            assertThat(t.getProperty(TableProperty.PendingThreadPoolStrategy), is(strategy));
+            
+            tc.registerOperator(new PendingOperator());
+            
+            int numRows = 500;
+            t.addRow(Access.ByIndex, numRows);
+            
+            Column c1 = (Column)t.addColumn().setDerivation("randInt(50)").getTarget(); // c1
+            Column c2 = (Column)t.addColumn().setDerivation("pending(col 1, 10)").getTarget(); // c2
+            
+            while (((TableImpl)t).isPendings()) {
+                Thread.sleep(10);
+            }        
+            
+            assertThat(((TableImpl)t).isPendings(), is(false));
+            assertThat(t.getProperty(TableProperty.PendingThreadPoolStrategy), is(strategy));
+            for (Row r : t.rows()) {
+                double v1 = (double)t.getCellValue(r,  c1);
+                assertThat(t.getCellValue(r, c2), is(v1*2));
+            }
+            
+            ((DerivableThreadPool)tc).shutdownDerivableThreadPool();       
+            tc.deregisterAllOperators();
+        }
+    }
+    
+    @Test
+    public final void testBatchedPostedResults() throws InterruptedException
+    {
+        TableContext tc = TableContextFactory.createTableContext();
+        ((ContextImpl)tc).setPendingKeepAliveTime(100, TimeUnit.MILLISECONDS);
+        
+        PostedResultBatcher.setEnabled(true);
+        PostedResultBatcher.setBatchWindow(10, TimeUnit.MILLISECONDS);
+        PostedResultBatcher.setMaxBatchSize(64);
+        PostedResultBatcher.resetMetrics();
+        try {
+            Table t = TableFactory.createTable(tc);
+            
+            tc.registerOperator(new PendingOperator());
+            
+            int numRows = 500;
+            t.addRow(Access.ByIndex, numRows);
+            
+            Column c1 = (Column)t.addColumn().setDerivation("randInt(50)").getTarget(); // c1
+            Column c1a = (Column)t.addColumn().setDerivation("pending(col 1, 50)").getTarget(); // c2, will block c3
+            Column c2 = (Column)t.addColumn().setDerivation("7 * pending(5, 50) + col 2").getTarget(); // c3
+            Column c4 = (Column)t.addColumn(); // cell derivations column, c4
+            
+            assertThat(c1a, notNullValue());
+            
+            Cell cR1C4 = t.getCell(t.getRow(Access.First), c4);
+            cR1C4.setDerivation("count(Col 3)");
+            
+            while (((TableImpl)t).isPendings()) {
+                Thread.sleep(1000);
+            }        
+            
+            assertThat(((TableImpl)t).isPendings(), is(false));
+            assertThat(cR1C4.getCellValue(), is(numRows * 1.0));
+            
+            for (Row r : t.rows()) {
+                double v1 = (double)t.getCellValue(r,  c1);
+                
+                Cell c = t.getCell(r, c2);
+                assertThat(c, notNullValue());
+                assertThat(c.getCellValue(), is(7.0*5.0*2.0 + v1*2));
+            }
+            
+            PostedResultBatcher.Metrics metrics = PostedResultBatcher.getMetrics();
+            assertThat(metrics.getNumResults() >= 2 * numRows, is(true));
+            assertThat(metrics.getNumBatches() > 0, is(true));
+            assertThat(metrics.getLargestBatchSize() <= 64, is(true));
+            assertThat(metrics.getAverageBatchSize() >= 1.0, is(true));
+            assertThat(metrics.getMaxQueueLatency(TimeUnit.NANOSECONDS) >= 
+                       metrics.getAverageQueueLatency(TimeUnit.NANOSECONDS), is(true));
+        }
+        finally {
+            PostedResultBatcher.setEnabled(false);
+            PostedResultBatcher.setBatchWindow(PostedResultBatcher.sf_DEFAULT_BATCH_WINDOW_MILLIS, TimeUnit.MILLISECONDS);
+            PostedResultBatcher.setMaxBatchSize(PostedResultBatcher.sf_DEFAULT_MAX_BATCH_SIZE);
+        }
+        
+        ((DerivableThreadPool)tc).shutdownDerivableThreadPool();       
+        tc.deregisterAllOperators();
+    }
+    
     @Test
     public final void testPendingColumnOperatorComplex() throws InterruptedException
     {
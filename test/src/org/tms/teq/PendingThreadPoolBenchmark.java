@@ -0,0 +1,68 @@
+package org.tms.teq;
+
+import java.util.concurrent.TimeUnit;
+
+import org.tms.api.Access;
+import org.tms.api.Column;
+import org.tms.api.Row;
+import org.tms.api.Table;
+import org.tms.api.TableContext;
+import org.tms.api.ThreadPoolStrategy;
+import org.tms.api.derivables.DerivableThreadPool;
+import org.tms.api.factories.TableContextFactory;
+import org.tms.api.factories.TableFactory;
+import org.tms.tds.ContextImpl;
+import org.tms.tds.TableImpl;
+
+/**
+ * Compares the throughput of I/O-bound pending derivations under each {@link ThreadPoolStrategy}.
+ * This is not a unit test; run it from the command line:
+ * <pre>
+ * java org.tms.teq.PendingThreadPoolBenchmark [numRows [sleepMillis [maxPoolSize]]]
+ * </pre>
+ */
+public class PendingThreadPoolBenchmark
+{
+    public static void main(String [] args) throws InterruptedException
+    {
+        int numRows = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int sleepMillis = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+        int maxPoolSize = args.length > 2 ? Integer.parseInt(args[2]) : 500;
+
+        for (ThreadPoolStrategy strategy : ThreadPoolStrategy.values()) {
+            TableContext tc = TableContextFactory.createTableContext();
+            ((ContextImpl)tc).setPendingThreadPoolStrategy(strategy);
+            ((ContextImpl)tc).setPendingMaximumPoolSize(maxPoolSize);
+            ((ContextImpl)tc).setPendingKeepAliveTime(100, TimeUnit.MILLISECONDS);
+
+            tc.registerOperator(new PendingOperatorTest().new PendingOperator());
+
+            Table t = TableFactory.createTable(tc);
+            t.addRow(Access.ByIndex, numRows);
+
+            long start = System.nanoTime();
+            Column c1 = (Column)t.addColumn().setDerivation("randInt(50)").getTarget();
+            Column c2 = (Column)t.addColumn().setDerivation(String.format("pending(col 1, %d)", sleepMillis)).getTarget();
+
+            while (((TableImpl)t).isPendings()) {
+                Thread.sleep(10);
+            }
+
+            long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+            int numErrors = 0;
+            for (Row r : t.rows()) {
+                Object v1 = t.getCellValue(r, c1);
+                Object v2 = t.getCellValue(r, c2);
+                if (!(v1 instanceof Double) || !(v2 instanceof Double) || (Double)v2 != 2 * (Double)v1)
+                    numErrors++;
+            }
+
+            System.out.println(String.format("%s: %d calculations in %d ms (%.0f/sec), %d errors",
+                    strategy, numRows, elapsedMs, numRows * 1000.0 / Math.max(elapsedMs, 1), numErrors));
+
+            ((DerivableThreadPool)tc).shutdownDerivableThreadPool();
+            tc.deregisterAllOperators();
+        }
+    }
+}
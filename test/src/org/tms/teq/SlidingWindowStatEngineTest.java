@@ -0,0 +1,121 @@
+package org.tms.teq;
+
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+import org.tms.BaseTest;
+import org.tms.api.Access;
+import org.tms.api.Column;
+import org.tms.api.Row;
+import org.tms.api.Table;
+import org.tms.api.factories.TableFactory;
+
+public class SlidingWindowStatEngineTest extends BaseTest
+{
+    private static final BuiltinOperator [] sf_BASE_STATS = {
+        BuiltinOperator.SumOper, BuiltinOperator.Sum2Oper, BuiltinOperator.SumSqD2Oper,
+        BuiltinOperator.MeanOper, BuiltinOperator.StDevPopulationOper, BuiltinOperator.StDevSampleOper,
+        BuiltinOperator.VarPopulationOper, BuiltinOperator.VarSampleOper,
+        BuiltinOperator.MinOper, BuiltinOperator.MaxOper, BuiltinOperator.RangeOper,
+        BuiltinOperator.MedianOper, BuiltinOperator.FirstQuartileOper, BuiltinOperator.ThirdQuartileOper,
+        BuiltinOperator.ModeOper, BuiltinOperator.SkewOper, BuiltinOperator.KurtosisOper,
+    };
+
+    @Test
+    public final void testMatchesWindowedEngine()
+    {
+        // small integer range, so that windows contain ties
+        Random rand = new Random(1234);
+        List<Double> values = new ArrayList<Double>();
+        for (int i = 0; i < 500; i++)
+            values.add((double)rand.nextInt(25) + (i % 3 == 0 ? 0.5 : 0.0));
+
+        SlidingWindowStatEngine swse = new SlidingWindowStatEngine(values);
+        for (BuiltinOperator stat : sf_BASE_STATS) {
+            for (int window : new int [] {1, 2, 3, 4, 7, 16, 500}) {
+                double [] series = swse.calcMovingStatistic(stat, window);
+                assertThat(series.length, is(values.size()));
+
+                for (int i = 0; i < values.size(); i++) {
+                    if (i < window - 1) {
+                        assertThat(series[i], is(Double.MIN_VALUE));
+                        continue;
+                    }
+
+                    SingleVariableStatEngine svse = new SingleVariableStatEngine(true, false, null);
+                    for (int j = i - window + 1; j <= i; j++)
+                        svse.enter(values.get(j));
+
+                    double expected = (double)svse.calcStatistic(stat);
+                    String msg = String.format("%s, window %d, index %d", stat, window, i);
+                    if (Double.isNaN(expected))
+                        assertThat(msg, Double.isNaN(series[i]), is(true));
+                    else
+                        assertThat(msg, closeTo(series[i], expected, 0.000001 * Math.max(1.0, Math.abs(expected))), is(true));
+                }
+            }
+        }
+    }
+
+    @Test
+    public final void testMovingStatisticDerivations()
+    {
+        int numRows = 100;
+        Table tbl = TableFactory.createTable(numRows, 4);
+        Column c1 = tbl.addColumn(Access.ByIndex, 1);
+        Column c2 = tbl.addColumn(Access.ByIndex, 2);
+        Column c3 = tbl.addColumn(Access.ByIndex, 3);
+        Column c4 = tbl.addColumn(Access.ByIndex, 4);
+
+        for (int rIdx = 1; rIdx <= numRows; rIdx++)
+            tbl.setCellValue(tbl.addRow(Access.ByIndex, rIdx), c1, rIdx);
+
+        c2.setDerivation("mmean(col 1, 3)");
+        c3.setDerivation("mmax(col 1, 4) - mmin(col 1, 4)");
+        c4.setDerivation("mquartile(col 1, 5, 2)");
+
+        Row r1 = tbl.getRow(Access.ByIndex, 1);
+        assertThat(tbl.getCellValue(r1, c2), nullValue());
+        assertThat(tbl.getCellValue(tbl.getRow(Access.ByIndex, 2), c2), nullValue());
+        assertThat(tbl.getCellValue(tbl.getRow(Access.ByIndex, 3), c2), is(2.0));
+        assertThat(tbl.getCellValue(tbl.getRow(Access.ByIndex, numRows), c2), is(numRows - 1.0));
+        assertThat(tbl.getCellValue(tbl.getRow(Access.ByIndex, 4), c3), is(3.0));
+        assertThat(tbl.getCellValue(tbl.getRow(Access.ByIndex, 5), c4), is(3.0));
+
+        // modifying the data recalculates the moving statistics
+        tbl.setCellValue(r1, c1, 10);
+        assertThat(tbl.getCellValue(tbl.getRow(Access.ByIndex, 3), c2), is(5.0));
+        assertThat(tbl.getCellValue(tbl.getRow(Access.ByIndex, 4), c3), is(8.0));
+        assertThat(tbl.getCellValue(tbl.getRow(Access.ByIndex, 5), c4), is(4.0));
+    }
+
+    @Test
+    public final void testLongSeries()
+    {
+        Random rand = new Random(4321);
+        List<Double> values = new ArrayList<Double>();
+        for (int i = 0; i < 100000; i++)
+            values.add(100.0 + rand.nextGaussian());
+
+        // running sums must not drift over long series
+        SlidingWindowStatEngine swse = new SlidingWindowStatEngine(values);
+        for (BuiltinOperator stat : new BuiltinOperator [] {BuiltinOperator.MeanOper, BuiltinOperator.StDevSampleOper,
+                                                            BuiltinOperator.MaxOper, BuiltinOperator.MedianOper}) {
+            double [] series = swse.calcMovingStatistic(stat, 200);
+            for (int i : new int [] {199, values.size() / 2, values.size() - 1}) {
+                SingleVariableStatEngine svse = new SingleVariableStatEngine(true, false, null);
+                for (int j = i - 199; j <= i; j++)
+                    svse.enter(values.get(j));
+
+                double expected = (double)svse.calcStatistic(stat);
+                assertThat(stat + ", index " + i, closeTo(series[i], expected, 0.000001 * Math.max(1.0, Math.abs(expected))), is(true));
+            }
+        }
+    }
+}
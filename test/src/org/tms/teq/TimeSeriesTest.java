@@ -2,19 +2,27 @@ package org.tms.teq;
 
 import static org.hamcrest.core.Is.is;
 import static org.hamcrest.core.IsNull.notNullValue;
+import static org.hamcrest.core.IsNull.nullValue;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertThat;
 
+import java.util.Collections;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
 import org.junit.Test;
 import org.tms.BaseTest;
 import org.tms.api.Access;
 import org.tms.api.Column;
+import org.tms.api.Row;
 import org.tms.api.Table;
 import org.tms.api.TableProperty;
 import org.tms.api.factories.TableContextFactory;
 import org.tms.api.factories.TableFactory;
 import org.tms.api.io.XMLOptions;
 import org.tms.api.utils.StockTickerOp;
+import org.tms.tds.ColumnImpl;
+import org.tms.tds.TableImpl;
 
 public class TimeSeriesTest extends BaseTest
 {
@@ -226,6 +234,67 @@ public class TimeSeriesTest extends BaseTest
         assertThat(false, is(tbl.isTimeSeriesedRowsActive()));
     }
     
+    @Test
+    public final void testTimeSeriesedRowsRetention()
+    {
+        TableImpl tbl = TableImpl.createTable(12, 10);
+        ColumnImpl c1 = tbl.addColumn(Access.ByIndex, 1);
+        ColumnImpl c2 = tbl.addColumn(Access.ByIndex, 2);
+        ColumnImpl c3 = tbl.addColumn(Access.ByIndex, 3);
+        c3.setTimeSeries("rIdx");
+        
+        // run the time series worker directly, rather than on a schedule
+        tbl.setTimeSeriesedRowsRetention(3, 0, null);
+        assertThat(tbl.getTimeSeriesedRowsMaxSlices(), is(3));
+        TimeSeriedRowsWorker tsrw = new TimeSeriedRowsWorker(tbl, c1, Collections.singleton(c3));
+        for (int i = 0; i < 3; i++)
+            tsrw.run();
+        
+        assertThat(tbl.getNumRows(), is(3));
+        Row r1 = tbl.getRow(Access.ByIndex, 1);
+        Row r2 = tbl.getRow(Access.ByIndex, 2);
+        tbl.setCellValue(r1, c2, "old value");
+        
+        // the oldest row is recycled, and its values cleared
+        tsrw.run();
+        assertThat(tbl.getNumRows(), is(3));
+        assertThat(tbl.getRow(Access.ByIndex, 3), is(r1));
+        assertThat(r1.getIndex(), is(3));
+        assertThat(r2.getIndex(), is(1));
+        assertThat(tbl.getCellValue(r1, c2), nullValue());
+        assertThat(tbl.getCellValue(r1, c3), is(3.0));
+        assertThat(tbl.getCellValue(r1, c1) instanceof Date, is(true));
+        
+        // recycling rotates the rows in place; after a full rotation, the original order is restored
+        for (int i = 0; i < 3; i++) {
+            tsrw.run();
+            for (int rIdx = 1; rIdx <= 3; rIdx++)
+                assertThat(tbl.getRow(Access.ByIndex, rIdx).getIndex(), is(rIdx));
+        }
+        
+        assertThat(tbl.getRow(Access.ByIndex, 3), is(r1));
+        assertThat(r2.getIndex(), is(1));
+        
+        // rows older than the maximum age are recycled or deleted
+        tbl.setTimeSeriesedRowsRetention(0, 1, TimeUnit.HOURS);
+        Date old = new Date(System.currentTimeMillis() - TimeUnit.HOURS.toMillis(2));
+        tbl.setCellValue(r2, c1, old);
+        tbl.setCellValue(tbl.getRow(Access.ByIndex, 2), c1, old);
+        tsrw.run();
+        assertThat(tbl.getNumRows(), is(2));
+        assertThat(r2.isInvalid(), is(true));
+        assertThat(tbl.getRow(Access.ByIndex, 1), is(r1));
+        
+        // rows with derivations aren't recycled
+        Row r3 = tbl.getRow(Access.ByIndex, 2);
+        tbl.setTimeSeriesedRowsRetention(2, 0, null);
+        r1.setDerivation("row 2 * 2");
+        tsrw.run();
+        assertThat(tbl.getNumRows(), is(2));
+        assertThat(r1.isInvalid(), is(true));
+        assertThat(tbl.getRow(Access.ByIndex, 1), is(r3));
+    }
+    
     @Test
     public final void testReadTimeSeriesFromXMLs() throws InterruptedException
     {
@@ -6,7 +6,11 @@ import static org.junit.Assert.assertThat;
 
 import java.io.File;
 import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.LinkedHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.json.simple.JSONObject;
 import org.junit.Test;
@@ -18,9 +22,12 @@ import org.tms.api.Table;
 import org.tms.api.factories.TableContextFactory;
 import org.tms.api.factories.TableFactory;
 import org.tms.api.io.XMLOptions;
+import org.tms.api.utils.RestClient;
 import org.tms.api.utils.RestConsumerOp;
 import org.tms.api.utils.StockTickerOp;
 
+import com.sun.net.httpserver.HttpServer;
+
 public class WebServiceTest extends BaseTest
 {
 	
@@ -197,6 +204,137 @@ public class WebServiceTest extends BaseTest
         assertThat(true, is(cell.isNumericValue()));
     }
     
+    @Test
+    public void testSharedRequestsWebService() throws InterruptedException, IOException 
+    {
+        // stand-in quote service; responses are delayed so that identical requests overlap
+        AtomicInteger numRequests = new AtomicInteger();
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/quote", exchange -> {
+            numRequests.incrementAndGet();
+            String symbol = exchange.getRequestURI().getQuery().replace("symbol=", "");
+            byte [] resp = ("{\"price\": " + symbol.length() + "}").getBytes(StandardCharsets.UTF_8);
+            try {
+                Thread.sleep(200);
+            }
+            catch (InterruptedException e) { }
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, resp.length);
+            exchange.getResponseBody().write(resp);
+            exchange.close();
+        });
+        server.start();
+        
+        try {
+            QuoteOp quote = new QuoteOp("localQuote", "http://localhost:" + server.getAddress().getPort() + "/quote");
+            TableContextFactory.fetchDefaultTableContext().registerOperator(quote);
+            
+            String [] symbols = {"A", "BB", "CCC", "DDDD"};
+            int numRows = 40;
+            
+            Table t = TableFactory.createTable();
+            Column c1 = t.addColumn();
+            for (int i = 0; i < numRows; i++) 
+                t.setCellValue(t.addRow(), c1, symbols[i % symbols.length]);
+            
+            long numCoalesced = RestClient.getNumCoalescedRequests();
+            long numCacheHits = RestClient.getNumCacheHits();
+            
+            Column c2 = t.addColumn();
+            c2.setDerivation("localQuote(col 1)");
+            while(t.isPendings()) 
+                Thread.sleep(100);
+            
+            // one request per symbol; the others share its response
+            assertThat(numRequests.get(), is(symbols.length));
+            assertThat(RestClient.getNumCoalescedRequests() - numCoalesced + RestClient.getNumCacheHits() - numCacheHits, 
+                    is((long)(numRows - symbols.length)));
+            
+            for (int i = 1; i <= numRows; i++) {
+                Cell cell = t.getCell(t.getRow(i), c2);
+                assertThat(cell.isNumericValue(), is(true));
+                assertThat(closeTo(cell.getCellValue(), symbols[(i - 1) % symbols.length].length(), 0.0000001), is(true));
+            }
+            
+            // recalculation is served from the response cache
+            t.recalculate();
+            while(t.isPendings()) 
+                Thread.sleep(100);
+            assertThat(numRequests.get(), is(symbols.length));
+            
+            // once the cache is cleared, the service is called again
+            RestClient.clearCache();
+            t.recalculate();
+            while(t.isPendings()) 
+                Thread.sleep(100);
+            assertThat(numRequests.get(), is(2 * symbols.length));
+        }
+        finally {
+            server.stop(0);
+        }
+    }
+    
+    @Test
+    public void testRedirectedResponsesNotCached() throws Exception 
+    {
+        AtomicInteger numRequests = new AtomicInteger();
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/old", exchange -> {
+            numRequests.incrementAndGet();
+            exchange.getResponseHeaders().add("Location", "/new");
+            exchange.sendResponseHeaders(302, -1);
+            exchange.close();
+        });
+        server.createContext("/new", exchange -> {
+            byte [] resp = "{\"price\": 1}".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, resp.length);
+            exchange.getResponseBody().write(resp);
+            exchange.close();
+        });
+        server.start();
+        
+        try {
+            String url = "http://localhost:" + server.getAddress().getPort() + "/old";
+            RestClient.clearCache();
+            
+            // the redirected response isn't cached under the requested URL, so each fetch is sent
+            for (int i = 1; i <= 2; i++) {
+                RestClient.Response resp = RestClient.fetch("GET", url, Duration.ofSeconds(10), 60000, null).get();
+                assertThat(resp.isOK(), is(true));
+                assertThat(resp.getUri().endsWith("/new"), is(true));
+                assertThat(numRequests.get(), is(i));
+            }
+            
+            assertThat(RestClient.getNumCachedResponses(), is(0));
+        }
+        finally {
+            server.stop(0);
+        }
+    }
+    
+    public static class QuoteOp extends RestConsumerOp
+    {
+        public QuoteOp(String label, String url)
+        {
+            super(label, "price", double.class, url);
+        }
+
+        @Override
+        public LinkedHashMap<String, Object> getUrlParamsMap()
+        {
+            LinkedHashMap<String, Object> urlParams = new LinkedHashMap<String, Object>(1);
+            urlParams.put("symbol", String.class);
+            
+            return urlParams;            
+        }
+        
+        @Override
+        protected double getMaxRequestsPerSecond()
+        {
+            return 20;
+        }
+    }
+    
     public static class CurrencyConverterOp extends RestConsumerOp
     {
         private static final String BASE_URL = "https://apilayer.net/api/";